@@ -1,10 +1,19 @@
 package su.plo.voice.api.audio.codec;
 
+import java.util.Arrays;
+
 // todo: doc
 public interface AudioDecoder {
 
     short[] decode(byte[] encoded) throws CodecException;
 
+    /**
+     * Decodes the range of the array, so the caller can reuse the buffer of the encoded data
+     */
+    default short[] decode(byte[] encoded, int offset, int length) throws CodecException {
+        return decode(Arrays.copyOfRange(encoded, offset, offset + length));
+    }
+
     void open() throws CodecException;
 
     void reset();
@@ -1,7 +1,43 @@
 package su.plo.voice.api.encryption;
 
+import java.util.Arrays;
+
 public interface Encryption {
     byte[] encrypt(byte[] data) throws EncryptionException;
 
     byte[] decrypt(byte[] data) throws EncryptionException;
+
+    /**
+     * Encrypts the data into the caller-provided buffer
+     *
+     * @return number of bytes written to the output
+     * @throws EncryptionException if encryption failed or the output buffer is too small
+     */
+    default int encrypt(byte[] data, int offset, int length,
+                        byte[] output, int outputOffset) throws EncryptionException {
+        byte[] encrypted = encrypt(Arrays.copyOfRange(data, offset, offset + length));
+        if (output.length - outputOffset < encrypted.length) {
+            throw new EncryptionException("Output buffer is too small");
+        }
+
+        System.arraycopy(encrypted, 0, output, outputOffset, encrypted.length);
+        return encrypted.length;
+    }
+
+    /**
+     * Decrypts the data into the caller-provided buffer
+     *
+     * @return number of bytes written to the output
+     * @throws EncryptionException if decryption failed or the output buffer is too small
+     */
+    default int decrypt(byte[] data, int offset, int length,
+                        byte[] output, int outputOffset) throws EncryptionException {
+        byte[] decrypted = decrypt(Arrays.copyOfRange(data, offset, offset + length));
+        if (output.length - outputOffset < decrypted.length) {
+            throw new EncryptionException("Output buffer is too small");
+        }
+
+        System.arraycopy(decrypted, 0, output, outputOffset, decrypted.length);
+        return decrypted.length;
+    }
 }
@@ -17,6 +17,19 @@ public interface EventBus {
      */
     <E extends Event> void callAsync(@NotNull E event);
 
+    /**
+     * Checks if there are any handlers registered for the event class
+     * <p>
+     * Hot paths can use it to skip creating the event when nobody listens to it.
+     * Implementations without the handlers lookup can keep the default, which always returns true
+     *
+     * @param eventClass the event class
+     * @return true if the event has at least one handler
+     */
+    default boolean hasListeners(@NotNull Class<? extends Event> eventClass) {
+        return true;
+    }
+
     /**
      * Registers all events in listener class
      *
@@ -1,7 +1,10 @@
 package su.plo.voice.api.server.connection;
 
+import org.jetbrains.annotations.NotNull;
+import su.plo.lib.api.server.world.ServerPos3d;
 import su.plo.voice.api.server.player.VoicePlayer;
 import su.plo.voice.api.server.socket.UdpConnection;
+import su.plo.voice.proto.packets.Packet;
 import su.plo.voice.proto.packets.udp.clientbound.ClientPacketUdpHandler;
 
 import java.util.Collection;
@@ -29,5 +32,25 @@ public interface UdpServerConnectionManager extends ServerConnectionManager<Clie
 
     Collection<UdpConnection> getConnections();
 
+    /**
+     * Gets connections of the players within the distance of the position
+     * <p>
+     * Players positions are updated once per server tick
+     *
+     * @param position the center position
+     * @param distance the distance in blocks
+     */
+    Collection<UdpConnection> getConnectionsInRange(@NotNull ServerPos3d position, double distance);
+
+    /**
+     * Sends the packet to the connections
+     * <p>
+     * Packet is encoded once and the payload is shared between all connections
+     *
+     * @param packet the packet
+     * @param connections the receivers
+     */
+    void sendPacket(@NotNull Packet<ClientPacketUdpHandler> packet, @NotNull Collection<UdpConnection> connections);
+
     void clearConnections();
 }
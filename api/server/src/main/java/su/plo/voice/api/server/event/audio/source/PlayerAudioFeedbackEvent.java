@@ -0,0 +1,24 @@
+package su.plo.voice.api.server.event.audio.source;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import su.plo.voice.api.event.Event;
+import su.plo.voice.api.server.player.VoicePlayer;
+import su.plo.voice.proto.packets.udp.serverbound.SourceFeedbackPacket;
+
+/**
+ * This event is fired when the {@link SourceFeedbackPacket} is received
+ */
+public final class PlayerAudioFeedbackEvent implements Event {
+
+    @Getter
+    private final VoicePlayer player;
+    @Getter
+    private final SourceFeedbackPacket packet;
+
+    public PlayerAudioFeedbackEvent(@NotNull VoicePlayer player,
+                                    @NotNull SourceFeedbackPacket packet) {
+        this.player = player;
+        this.packet = packet;
+    }
+}
@@ -4,8 +4,10 @@ import org.jetbrains.annotations.NotNull;
 
 import javax.annotation.Nullable;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 public interface MuteManager {
 
@@ -50,4 +52,18 @@ public interface MuteManager {
      * Collection of the muted players
      */
     Collection<ServerMuteInfo> getMutedPlayers();
+
+    /**
+     * Page of the muted players ordered by the mute time, newest first
+     *
+     * @param offset number of the mutes to skip
+     * @param limit  max number of the mutes in the page
+     */
+    default Collection<ServerMuteInfo> getMutedPlayers(int offset, int limit) {
+        return getMutedPlayers().stream()
+                .sorted(Comparator.comparingLong(ServerMuteInfo::getMutedAtTime).reversed())
+                .skip(offset)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
 }
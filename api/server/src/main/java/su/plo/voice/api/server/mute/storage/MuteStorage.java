@@ -4,8 +4,10 @@ import org.jetbrains.annotations.NotNull;
 import su.plo.voice.api.server.mute.ServerMuteInfo;
 
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 public interface MuteStorage {
 
@@ -51,4 +53,33 @@ public interface MuteStorage {
      * Collection of the muted players
      */
     Collection<ServerMuteInfo> getMutedPlayers();
+
+    /**
+     * Page of the muted players ordered by the mute time, newest first
+     * <p>
+     * Storages backed by a database should override this,
+     * so the whole storage is not loaded to get a single page
+     *
+     * @param offset number of the mutes to skip
+     * @param limit  max number of the mutes in the page
+     */
+    default Collection<ServerMuteInfo> getMutedPlayers(int offset, int limit) {
+        return getMutedPlayers().stream()
+                .sorted(Comparator.comparingLong(ServerMuteInfo::getMutedAtTime).reversed())
+                .skip(offset)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Temporary mutes which expire in the time range
+     *
+     * @param fromTime exclusive start of the range in ms
+     * @param toTime   inclusive end of the range in ms
+     */
+    default Collection<ServerMuteInfo> getExpiringMutes(long fromTime, long toTime) {
+        return getMutedPlayers().stream()
+                .filter(muteInfo -> muteInfo.getMutedToTime() > fromTime && muteInfo.getMutedToTime() <= toTime)
+                .collect(Collectors.toList());
+    }
 }
@@ -52,7 +52,25 @@ subprojects {
     }
 
     tasks.test {
-        useJUnitPlatform()
+        useJUnitPlatform {
+            excludeTags("benchmark")
+        }
+        testLogging {
+            events("passed", "skipped", "failed")
+        }
+    }
+
+    tasks.register<Test>("benchmark") {
+        description = "Runs the benchmark tests."
+        group = "verification"
+
+        val test = tasks.test.get()
+        testClassesDirs = test.testClassesDirs
+        classpath = test.classpath
+
+        useJUnitPlatform {
+            includeTags("benchmark")
+        }
         testLogging {
             events("passed", "skipped", "failed")
         }
@@ -43,6 +43,9 @@ public final class VoiceAudioCapture implements AudioCapture {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
+    private static final int MAX_DTX_FRAME_SIZE = 2;
+    private static final byte[] DTX_FRAME = new byte[0];
+
     private final MinecraftClientLib minecraft;
     private final PlasmoVoiceClient voiceClient;
     private final DeviceManager devices;
@@ -326,6 +329,9 @@ public final class VoiceAudioCapture implements AudioCapture {
                 LOGGER.error("Failed to encode audio data", e);
                 return null;
             }
+
+            // silent frame encoded with dtx, it should not be sent
+            if (encoded.length <= MAX_DTX_FRAME_SIZE) return DTX_FRAME;
         } else {
             encoded = AudioUtil.shortsToBytes(samples);
         }
@@ -346,6 +352,8 @@ public final class VoiceAudioCapture implements AudioCapture {
                                  boolean isStereo,
                                  byte[] encoded) {
         if (activation.getTranslation().equals("activation.plasmovoice.parent")) return;
+        // sequence number is not incremented for dtx frames, so listeners don't treat them as lost
+        if (encoded == DTX_FRAME) return;
 
         Optional<UdpClient> udpClient = voiceClient.getUdpClientManager().getClient();
         if (!udpClient.isPresent()) return;
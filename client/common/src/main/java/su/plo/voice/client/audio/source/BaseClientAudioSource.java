@@ -27,6 +27,7 @@ import su.plo.voice.api.event.EventPriority;
 import su.plo.voice.api.event.EventSubscribe;
 import su.plo.voice.api.util.AudioUtil;
 import su.plo.voice.api.util.Params;
+import su.plo.voice.client.audio.codec.AudioDecoderFec;
 import su.plo.voice.client.audio.codec.AudioDecoderPlc;
 import su.plo.voice.client.config.ClientConfig;
 import su.plo.voice.config.entry.DoubleConfigEntry;
@@ -34,6 +35,7 @@ import su.plo.voice.proto.data.audio.source.SourceInfo;
 import su.plo.voice.proto.packets.tcp.clientbound.SourceAudioEndPacket;
 import su.plo.voice.proto.packets.udp.clientbound.SourceAudioPacket;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.Executors;
@@ -61,6 +63,8 @@ public abstract class BaseClientAudioSource<T extends SourceInfo> implements Cli
     protected DoubleConfigEntry sourceVolume;
     protected Encryption encryption;
     protected AudioDecoder decoder;
+    // decrypted audio of the last packet, reused between the packets
+    protected byte[] decrypted = new byte[0];
     protected SourceGroup sourceGroup;
 
     protected ScheduledFuture<?> endRequest;
@@ -295,6 +299,20 @@ public abstract class BaseClientAudioSource<T extends SourceInfo> implements Cli
 
         updateSource((float) volume, packet.getDistance());
 
+        byte[] data = packet.getData();
+        int length = data.length;
+        if (encryption != null) {
+            if (decrypted.length < data.length) this.decrypted = new byte[data.length];
+
+            try {
+                length = encryption.decrypt(data, 0, data.length, decrypted, 0);
+                data = decrypted;
+            } catch (EncryptionException e) {
+                LOGGER.warn("Failed to decrypt source audio", e);
+                return;
+            }
+        }
+
         // packet compensation
         if (lastSequenceNumber >= 0) {
             int packetsToCompensate = (int) (packet.getSequenceNumber() - (lastSequenceNumber + 1));
@@ -302,7 +320,17 @@ public abstract class BaseClientAudioSource<T extends SourceInfo> implements Cli
                 LOGGER.debug("Compensate {} packets", packetsToCompensate);
 
                 for (int i = 0; i < packetsToCompensate; i++) {
-                    if (decoder != null && decoder instanceof AudioDecoderPlc && !sourceInfo.isStereo()) {
+                    boolean lastLost = i == packetsToCompensate - 1;
+
+                    if (decoder != null && !sourceInfo.isStereo() && lastLost && decoder instanceof AudioDecoderFec) {
+                        // frame before the received one is recovered from its fec data
+                        try {
+                            write(((AudioDecoderFec) decoder).decodeFEC(Arrays.copyOf(data, length)));
+                        } catch (CodecException e) {
+                            LOGGER.warn("Failed to decode source audio", e);
+                            return;
+                        }
+                    } else if (decoder != null && decoder instanceof AudioDecoderPlc && !sourceInfo.isStereo()) {
                         try {
                             write(((AudioDecoderPlc) decoder).decodePLC());
                         } catch (CodecException e) {
@@ -317,25 +345,15 @@ public abstract class BaseClientAudioSource<T extends SourceInfo> implements Cli
         }
 
         try {
-            byte[] decrypted = packet.getData();
-            if (encryption != null) {
-                try {
-                    decrypted = encryption.decrypt(decrypted);
-                } catch (EncryptionException e) {
-                    LOGGER.warn("Failed to decrypt source audio", e);
-                    return;
-                }
-            }
-
             if (decoder != null) {
-                short[] decoded = decoder.decode(decrypted);
+                short[] decoded = decoder.decode(data, 0, length);
                 if (sourceInfo.isStereo() && config.getAdvanced().getStereoSourcesToMono().value()) {
                     decoded = AudioUtil.convertToMonoShorts(decoded);
                 }
 
                 write(decoded);
             } else {
-                write(decrypted);
+                write(length == data.length ? data : Arrays.copyOf(data, length));
             }
         } catch (CodecException e) {
             LOGGER.warn("Failed to decode source audio", e);
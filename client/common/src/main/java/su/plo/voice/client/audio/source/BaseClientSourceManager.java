@@ -150,6 +150,7 @@ public abstract class BaseClientSourceManager implements ClientSourceManager {
         voiceClient.getEventBus().unregister(voiceClient, source);
 
         sourceById.remove(source.getInfo().getId());
+        sourcesByLineId.remove(source.getInfo().getLineId(), source);
     }
 
     protected abstract ClientAudioSource<PlayerSourceInfo> createPlayerSource();
@@ -2,6 +2,7 @@ package su.plo.voice.client.connection;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
 import lombok.Getter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -14,6 +15,7 @@ import su.plo.voice.api.client.audio.device.OutputDevice;
 import su.plo.voice.api.client.audio.device.source.AlSource;
 import su.plo.voice.api.client.audio.line.ClientSourceLine;
 import su.plo.voice.api.client.audio.line.ClientSourceLineManager;
+import su.plo.voice.api.client.audio.source.ClientAudioSource;
 import su.plo.voice.api.client.audio.source.ClientSourceManager;
 import su.plo.voice.api.client.connection.ServerConnection;
 import su.plo.voice.api.client.connection.ServerInfo;
@@ -28,15 +30,18 @@ import su.plo.voice.client.BaseVoiceClient;
 import su.plo.voice.client.config.ClientConfig;
 import su.plo.voice.client.socket.NettyUdpClient;
 import su.plo.voice.proto.data.audio.source.PlayerSourceInfo;
+import su.plo.voice.proto.data.audio.source.SourceInfoUpdate;
 import su.plo.voice.proto.data.encryption.EncryptionInfo;
 import su.plo.voice.proto.data.player.VoicePlayerInfo;
 import su.plo.voice.proto.packets.Packet;
 import su.plo.voice.proto.packets.PacketHandler;
+import su.plo.voice.proto.packets.tcp.PacketTcpCodec;
 import su.plo.voice.proto.packets.tcp.clientbound.*;
 import su.plo.voice.proto.packets.tcp.serverbound.PlayerInfoPacket;
 
 import javax.crypto.Cipher;
 import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
@@ -63,6 +68,8 @@ public abstract class BaseServerConnection implements ServerConnection, ClientPa
     private final PublicKey publicKey;
 
     private final Map<UUID, VoicePlayerInfo> playerById = Maps.newConcurrentMap();
+    // roster versions of the players, kept after the disconnect, so the reordered older changes are dropped
+    private final Map<UUID, Long> playerVersionById = Maps.newConcurrentMap();
 
     private @Nullable EncryptionInfo encryptionInfo;
 
@@ -106,6 +113,7 @@ public abstract class BaseServerConnection implements ServerConnection, ClientPa
     public void close() {
         // cleanup server connection
         playerById.clear();
+        playerVersionById.clear();
 
         // cleanup audio capture
         voiceClient.getAudioCapture().stop();
@@ -141,7 +149,7 @@ public abstract class BaseServerConnection implements ServerConnection, ClientPa
     public void handle(@NotNull ConnectionPacket packet) {
         voiceClient.getUdpClientManager().removeClient(UdpClientClosedEvent.Reason.RECONNECT);
 
-        UdpClient client = new NettyUdpClient(voiceClient, packet.getSecret());
+        UdpClient client = new NettyUdpClient(voiceClient, minecraft, packet.getSecret(), packet.getSessionId());
 
         UdpClientConnectEvent connectEvent = new UdpClientConnectEvent(client, packet);
         voiceClient.getEventBus().call(connectEvent);
@@ -175,6 +183,12 @@ public abstract class BaseServerConnection implements ServerConnection, ClientPa
             return;
         }
 
+        if (client.get() instanceof NettyUdpClient) {
+            ((NettyUdpClient) client.get()).setFeedbackEnabled(
+                    packet.hasFeature(ConfigPacket.FEATURE_SOURCE_FEEDBACK)
+            );
+        }
+
         // initialize encryption
         this.encryptionInfo = packet.getEncryption();
         Encryption encryption = null;
@@ -252,7 +266,10 @@ public abstract class BaseServerConnection implements ServerConnection, ClientPa
                 voiceClient.getVersion(),
                 publicKey.getEncoded(),
                 voiceClient.getConfig().getVoice().getDisabled().value(),
-                voiceClient.getConfig().getVoice().getMicrophoneDisabled().value()
+                voiceClient.getConfig().getVoice().getMicrophoneDisabled().value(),
+                PlayerInfoPacket.FEATURE_SOURCE_INFO_UPDATE |
+                        PlayerInfoPacket.FEATURE_SOURCE_INTEREST |
+                        PlayerInfoPacket.FEATURE_PACKET_BUNDLE
         ));
     }
 
@@ -267,12 +284,18 @@ public abstract class BaseServerConnection implements ServerConnection, ClientPa
 
     @Override
     public void handle(@NotNull PlayerListPacket packet) {
-        packet.getPlayers()
-                .forEach((player) -> playerById.put(player.getPlayerId(), player));
+        for (int i = 0; i < packet.getPlayers().size(); i++) {
+            VoicePlayerInfo player = packet.getPlayers().get(i);
+            if (!updatePlayerVersion(player.getPlayerId(), packet.getVersion(i))) continue;
+
+            playerById.put(player.getPlayerId(), player);
+        }
     }
 
     @Override
     public void handle(@NotNull PlayerInfoUpdatePacket packet) {
+        if (!updatePlayerVersion(packet.getPlayerInfo().getPlayerId(), packet.getVersion())) return;
+
         if (playerById.put(packet.getPlayerInfo().getPlayerId(), packet.getPlayerInfo()) == null) {
             voiceClient.getEventBus().call(new VoicePlayerConnectedEvent(packet.getPlayerInfo()));
         } else {
@@ -282,15 +305,29 @@ public abstract class BaseServerConnection implements ServerConnection, ClientPa
 
     @Override
     public void handle(@NotNull PlayerDisconnectPacket packet) {
-        if (minecraft.getClientPlayer().map(player -> player.getUUID().equals(player.getUUID())).orElse(false)) {
+        if (minecraft.getClientPlayer().map(player -> player.getUUID().equals(packet.getPlayerId())).orElse(false)) {
             voiceClient.getUdpClientManager().removeClient(UdpClientClosedEvent.Reason.DISCONNECT);
             return;
         }
 
+        if (!updatePlayerVersion(packet.getPlayerId(), packet.getVersion())) return;
+
         playerById.remove(packet.getPlayerId());
         voiceClient.getEventBus().call(new VoicePlayerDisconnectedEvent(packet.getPlayerId()));
     }
 
+    /**
+     * Stores the roster version of the player's change
+     *
+     * @return false if the change is older than the one already applied
+     */
+    private boolean updatePlayerVersion(@NotNull UUID playerId, long version) {
+        // older servers don't send the versions
+        if (version <= 0L) return true;
+
+        return playerVersionById.merge(playerId, version, Math::max) == version;
+    }
+
     @Override
     public void handle(@NotNull SourceAudioEndPacket packet) {
         sources.getSourceById(packet.getSourceId())
@@ -304,9 +341,55 @@ public abstract class BaseServerConnection implements ServerConnection, ClientPa
             playerById.put(sourceInfo.getPlayerInfo().getPlayerId(), sourceInfo.getPlayerInfo());
         }
 
+        if (packet.getSourceHandle() > 0) {
+            voiceClient.getUdpClientManager().getClient()
+                    .filter((client) -> client instanceof NettyUdpClient)
+                    .ifPresent((client) -> ((NettyUdpClient) client).addSourceHandle(
+                            packet.getSourceHandle(),
+                            packet.getSourceInfo().getId()
+                    ));
+        }
+
         sources.update(packet.getSourceInfo());
     }
 
+    @Override
+    public void handle(@NotNull SourceInfoUpdatePacket packet) {
+        for (SourceInfoUpdate update : packet.getUpdates()) {
+            // unknown source is requested with the full info
+            Optional<ClientAudioSource<?>> source = sources.getSourceById(update.getId());
+            if (!source.isPresent() || source.get().getInfo() == null) continue;
+
+            sources.update(update.apply(source.get().getInfo()));
+        }
+    }
+
+    @Override
+    public void handle(@NotNull SourceRemovePacket packet) {
+        Optional<NettyUdpClient> udpClient = voiceClient.getUdpClientManager().getClient()
+                .filter((client) -> client instanceof NettyUdpClient)
+                .map((client) -> (NettyUdpClient) client);
+
+        for (UUID sourceId : packet.getSourceIds()) {
+            sources.getSourceById(sourceId, false).ifPresent(ClientAudioSource::close);
+            udpClient.ifPresent((client) -> client.removeSourceHandle(sourceId));
+        }
+    }
+
+    @Override
+    public void handle(@NotNull BundlePacket packet) {
+        // bundled packets are handled like the ones received separately
+        for (byte[] encoded : packet.getPackets()) {
+            try {
+                PacketTcpCodec.decode(ByteStreams.newDataInput(encoded))
+                        .ifPresent(this::handle);
+            } catch (IOException e) {
+                LOGGER.error("Failed to decode bundled packet: {}", e.toString());
+                e.printStackTrace();
+            }
+        }
+    }
+
     @Override
     public void handle(@NotNull SourceLineRegisterPacket packet) {
         sourceLines.register(packet.getSourceLine());
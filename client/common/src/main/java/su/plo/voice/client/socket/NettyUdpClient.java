@@ -1,8 +1,8 @@
 package su.plo.voice.client.socket;
 
+import com.google.common.collect.Maps;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
@@ -11,10 +11,16 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.DatagramPacket;
 import io.netty.channel.socket.nio.NioDatagramChannel;
 import lombok.Getter;
+import lombok.Setter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import su.plo.lib.api.client.MinecraftClientLib;
+import su.plo.lib.api.client.event.render.LevelRenderEvent;
+import su.plo.lib.api.client.world.MinecraftClientWorld;
 import su.plo.voice.api.client.PlasmoVoiceClient;
+import su.plo.voice.api.client.event.audio.source.AudioSourceClosedEvent;
 import su.plo.voice.api.client.event.connection.ServerInfoInitializedEvent;
 import su.plo.voice.api.client.event.connection.UdpClientPacketSendEvent;
 import su.plo.voice.api.client.event.socket.UdpClientClosedEvent;
@@ -23,10 +29,13 @@ import su.plo.voice.api.client.event.socket.UdpClientTimedOutEvent;
 import su.plo.voice.api.client.socket.UdpClient;
 import su.plo.voice.api.event.EventSubscribe;
 import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.tcp.serverbound.SourceInfoRequestPacket;
 import su.plo.voice.proto.packets.udp.PacketUdpCodec;
+import su.plo.voice.proto.packets.udp.bothbound.PingPacket;
 import su.plo.voice.socket.NettyPacketUdpDecoder;
 
 import java.net.InetSocketAddress;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -37,8 +46,16 @@ public final class NettyUdpClient implements UdpClient {
     private final Logger logger = LogManager.getLogger(NettyUdpClient.class);
 
     private final PlasmoVoiceClient voiceClient;
+    private final MinecraftClientLib minecraft;
     @Getter
     private final UUID secret;
+    // id of the compact packets session, 0 if the server doesn't support the compact format
+    @Getter
+    private final int sessionId;
+    private final Map<Integer, UUID> sourceIdByHandle = Maps.newConcurrentMap();
+    private final Map<Integer, Long> handleRequestByHandle = Maps.newConcurrentMap();
+    // world of the last rendered frame, handles are cleared when it changes
+    private @Nullable MinecraftClientWorld world;
 
     private final EventLoopGroup workGroup = new NioEventLoopGroup();
     private final NettyUdpClientHandler handler;
@@ -50,10 +67,19 @@ public final class NettyUdpClient implements UdpClient {
     private boolean connected;
     @Getter
     private boolean timedOut;
+    // server uses the listeners' feedback for the adaptive bitrate
+    @Getter
+    @Setter
+    private volatile boolean feedbackEnabled;
 
-    public NettyUdpClient(@NotNull PlasmoVoiceClient voiceClient, @NotNull UUID secret) {
+    public NettyUdpClient(@NotNull PlasmoVoiceClient voiceClient,
+                          @NotNull MinecraftClientLib minecraft,
+                          @NotNull UUID secret,
+                          int sessionId) {
         this.voiceClient = checkNotNull(voiceClient, "voiceClient");
+        this.minecraft = checkNotNull(minecraft, "minecraft");
         this.secret = checkNotNull(secret, "secret");
+        this.sessionId = sessionId;
         this.handler = new NettyUdpClientHandler(voiceClient, this);
 
         voiceClient.getEventBus().register(voiceClient, this);
@@ -104,17 +130,21 @@ public final class NettyUdpClient implements UdpClient {
 
     @Override
     public void sendPacket(Packet<?> packet) {
-        byte[] encoded = PacketUdpCodec.encode(packet, secret);
-        if (encoded == null) return;
+        if (PacketUdpCodec.getType(packet) < 0) return;
+
+        if (voiceClient.getEventBus().hasListeners(UdpClientPacketSendEvent.class)) {
+            UdpClientPacketSendEvent event = new UdpClientPacketSendEvent(this, packet);
+            voiceClient.getEventBus().call(event);
+            if (event.isCancelled()) return;
+        }
 
-        ByteBuf buf = Unpooled.wrappedBuffer(encoded);
+        // pings are always sent in the full format, so the server keeps the address of the client up to date
+        ByteBuf buf = sessionId > 0 && connected && !(packet instanceof PingPacket)
+                ? PacketUdpCodec.encodeCompact(channel.alloc(), packet, sessionId)
+                : PacketUdpCodec.encode(channel.alloc(), packet, secret);
 
         logger.debug("UDP packet {} sent to {}", packet, channel.remoteAddress());
 
-        UdpClientPacketSendEvent event = new UdpClientPacketSendEvent(this, packet);
-        voiceClient.getEventBus().call(event);
-        if (event.isCancelled()) return;
-
         channel.writeAndFlush(new DatagramPacket(buf, channel.remoteAddress()));
     }
 
@@ -125,13 +155,69 @@ public final class NettyUdpClient implements UdpClient {
                 : Optional.empty();
     }
 
+    /**
+     * Adds the handle of the source received in SourceInfoPacket,
+     * so the compact audio packets of the source can be resolved
+     */
+    public void addSourceHandle(int sourceHandle, @NotNull UUID sourceId) {
+        sourceIdByHandle.put(sourceHandle, sourceId);
+        handleRequestByHandle.remove(sourceHandle);
+    }
+
+    public void removeSourceHandle(@NotNull UUID sourceId) {
+        sourceIdByHandle.values().remove(sourceId);
+    }
+
+    /**
+     * Clears the handles, the sources are requested again with their next compact audio packet
+     */
+    public void clearSourceHandles() {
+        sourceIdByHandle.clear();
+        handleRequestByHandle.clear();
+    }
+
+    /**
+     * Requests the source info of the unknown handle at most once per second
+     */
+    public void requestSourceHandle(int sourceHandle) {
+        long now = System.currentTimeMillis();
+        Long lastRequest = handleRequestByHandle.get(sourceHandle);
+        if (lastRequest != null && now - lastRequest <= 1_000L) return;
+
+        handleRequestByHandle.put(sourceHandle, now);
+        voiceClient.getServerConnection()
+                .ifPresent((connection) -> connection.sendPacket(new SourceInfoRequestPacket(sourceHandle)));
+    }
+
+    public @Nullable UUID getSourceIdByHandle(int sourceHandle) {
+        return sourceIdByHandle.get(sourceHandle);
+    }
+
     public void setTimedOut(boolean timedOut) {
         this.timedOut = timedOut;
         voiceClient.getEventBus().call(new UdpClientTimedOutEvent(this, timedOut));
     }
 
+    @EventSubscribe
+    public void onLevelRender(LevelRenderEvent event) {
+        // sources of the previous world are not heard anymore
+        MinecraftClientWorld world = minecraft.getWorld().orElse(null);
+        if (world == this.world) return;
+
+        this.world = world;
+        clearSourceHandles();
+    }
+
+    @EventSubscribe
+    public void onSourceClosed(AudioSourceClosedEvent event) {
+        if (event.getSource().getInfo() == null) return;
+        removeSourceHandle(event.getSource().getInfo().getId());
+    }
+
     @EventSubscribe
     public void onServerInfoUpdate(ServerInfoInitializedEvent event) {
+        // config is sent again on the reconnect and reload, stale handles are requested again
+        clearSourceHandles();
         if (this.connected) return;
 
         logger.info("Connected to {}", channel.remoteAddress());
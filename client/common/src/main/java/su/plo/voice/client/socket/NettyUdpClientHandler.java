@@ -7,13 +7,20 @@ import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 import su.plo.voice.api.client.PlasmoVoiceClient;
 import su.plo.voice.api.client.event.socket.UdpClientClosedEvent;
+import su.plo.voice.client.audio.codec.opus.BaseOpusEncoder;
+import su.plo.voice.proto.data.audio.source.SourceFeedback;
 import su.plo.voice.proto.packets.Packet;
 import su.plo.voice.proto.packets.udp.bothbound.CustomPacket;
 import su.plo.voice.proto.packets.udp.bothbound.PingPacket;
 import su.plo.voice.proto.packets.udp.clientbound.ClientPacketUdpHandler;
+import su.plo.voice.proto.packets.udp.clientbound.EncoderBitratePacket;
 import su.plo.voice.proto.packets.udp.clientbound.SourceAudioPacket;
+import su.plo.voice.proto.packets.udp.serverbound.SourceFeedbackPacket;
 import su.plo.voice.socket.NettyPacketUdp;
+import su.plo.voice.socket.SourceFeedbackCollector;
 
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -28,6 +35,9 @@ public final class NettyUdpClientHandler extends SimpleChannelInboundHandler<Net
     private final NettyUdpClient client;
     private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
 
+    // audio frames are always 20 ms
+    private final SourceFeedbackCollector feedbackCollector = new SourceFeedbackCollector(20L);
+
     private long keepAlive = System.currentTimeMillis();
 
     public NettyUdpClientHandler(@NotNull PlasmoVoiceClient voiceClient, @NotNull NettyUdpClient client) {
@@ -62,6 +72,21 @@ public final class NettyUdpClientHandler extends SimpleChannelInboundHandler<Net
 
     @Override
     public void handle(@NotNull SourceAudioPacket packet) {
+        if (packet.getSourceId() == null) {
+            UUID sourceId = client.getSourceIdByHandle(packet.getSourceHandle());
+            // SourceInfoPacket with the handle is not received yet or was forgotten
+            if (sourceId == null) {
+                client.requestSourceHandle(packet.getSourceHandle());
+                return;
+            }
+
+            packet.setSourceId(sourceId);
+        }
+
+        if (client.isFeedbackEnabled()) {
+            feedbackCollector.record(packet.getSourceId(), packet.getSequenceNumber(), System.currentTimeMillis());
+        }
+
         voiceClient.getSourceManager().getSourceById(packet.getSourceId())
                 .ifPresent(source -> {
                     if (source.getInfo().getState() != packet.getSourceState()) {
@@ -74,12 +99,28 @@ public final class NettyUdpClientHandler extends SimpleChannelInboundHandler<Net
                 });
     }
 
+    @Override
+    public void handle(@NotNull EncoderBitratePacket packet) {
+        // stereo encoder is not adjusted, stereo sources are rare and need the higher bitrate anyway
+        voiceClient.getAudioCapture().getMonoEncoder().ifPresent((encoder) -> {
+            if (!(encoder instanceof BaseOpusEncoder)) return;
+
+            BaseOpusEncoder opusEncoder = (BaseOpusEncoder) encoder;
+            if (opusEncoder.getBitrate() == packet.getBitrate()) return;
+
+            logger.debug("Encoder bitrate changed to {}", packet.getBitrate());
+            opusEncoder.setBitrate(packet.getBitrate());
+        });
+    }
+
     private void tick() {
         if (!client.getRemoteAddress().isPresent()) return;
 
         if (!client.isConnected())
             client.sendPacket(new PingPacket());
 
+        if (client.isFeedbackEnabled()) sendFeedback();
+
         // todo: config for max timeout keepalive?
         long diff = System.currentTimeMillis() - keepAlive;
         if (diff > 30_000L) {
@@ -89,4 +130,14 @@ public final class NettyUdpClientHandler extends SimpleChannelInboundHandler<Net
             client.setTimedOut(true);
         }
     }
+
+    private void sendFeedback() {
+        List<SourceFeedback> feedback = feedbackCollector.collect(System.currentTimeMillis());
+
+        for (int i = 0; i < feedback.size(); i += SourceFeedbackPacket.MAX_SOURCES) {
+            client.sendPacket(new SourceFeedbackPacket(
+                    feedback.subList(i, Math.min(i + SourceFeedbackPacket.MAX_SOURCES, feedback.size()))
+            ));
+        }
+    }
 }
@@ -132,9 +132,11 @@ public final class StreamAlSource extends BaseAlSource {
         buffer.put(samples);
         ((Buffer) buffer).flip();
 
-        AlSourceWriteEvent event = new AlSourceWriteEvent(this, buffer);
-        client.getEventBus().call(event);
-        if (event.isCancelled()) return;
+        if (client.getEventBus().hasListeners(AlSourceWriteEvent.class)) {
+            AlSourceWriteEvent event = new AlSourceWriteEvent(this, buffer);
+            client.getEventBus().call(event);
+            if (event.isCancelled()) return;
+        }
 
         queue.offer(buffer);
         if (samples != emptyBuffer) {
@@ -26,7 +26,7 @@ public abstract class ModVoiceServer<T extends ModServerChannelHandler> extends
     protected void onInitialize(MinecraftServer server) {
         this.server = server;
         minecraftServerLib.setServer(server);
-        minecraftServerLib.setPermissions(createPermissionSupplier());
+        minecraftServerLib.setPermissions(getPermissionCache());
         minecraftServerLib.onInitialize();
         super.onInitialize();
         if (handler == null) {
@@ -41,6 +41,13 @@ public abstract class ModVoiceServer<T extends ModServerChannelHandler> extends
         handler.clear();
     }
 
+    /**
+     * Called by the platform at the end of every server tick
+     */
+    protected void onTick() {
+        if (server != null) tick();
+    }
+
     protected void onCommandRegister(@NotNull CommandDispatcher<CommandSourceStack> dispatcher) {
         registerDefaultCommandsAndPermissions();
         minecraftServerLib.getCommandManager().registerCommands(dispatcher);
@@ -4,6 +4,7 @@ import me.lucko.fabric.api.permissions.v0.Permissions;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.networking.v1.S2CPlayChannelEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
@@ -31,6 +32,7 @@ public final class FabricVoiceServer extends ModVoiceServer<FabricServerChannelH
             eventBus.register(this, handler);
         });
         ServerLifecycleEvents.SERVER_STOPPING.register(this::onShutdown);
+        ServerTickEvents.END_SERVER_TICK.register((server) -> onTick());
 
         ServerPlayConnectionEvents.JOIN.register((handler, sender, mcServer) ->
                 eventBus.call(new PlayerJoinEvent(handler.getPlayer(), handler.getPlayer().getUUID()))
@@ -15,6 +15,7 @@ import su.plo.voice.client.audio.codec.VoiceCodecManager;
 import su.plo.voice.client.audio.codec.opus.OpusCodecSupplier;
 import su.plo.voice.encryption.VoiceEncryptionManager;
 import su.plo.voice.encryption.aes.AesEncryptionSupplier;
+import su.plo.voice.encryption.aes.AesGcmEncryptionSupplier;
 import su.plo.voice.event.VoiceEventBus;
 
 import java.io.File;
@@ -35,6 +36,7 @@ public abstract class BaseVoice implements PlasmoVoice {
 
     protected BaseVoice() {
         encryption.register(new AesEncryptionSupplier());
+        encryption.register(new AesGcmEncryptionSupplier());
 
         codecs.register(new OpusCodecSupplier());
     }
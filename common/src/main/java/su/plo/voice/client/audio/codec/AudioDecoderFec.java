@@ -0,0 +1,13 @@
+package su.plo.voice.client.audio.codec;
+
+import su.plo.voice.api.audio.codec.CodecException;
+
+public interface AudioDecoderFec {
+
+    /**
+     * Decodes the lost frame from the forward error correction data of the next frame
+     *
+     * @param encoded next frame after the lost one
+     */
+    short[] decodeFEC(byte[] encoded) throws CodecException;
+}
@@ -1,7 +1,8 @@
 package su.plo.voice.client.audio.codec.opus;
 
 import su.plo.voice.api.audio.codec.AudioDecoder;
+import su.plo.voice.client.audio.codec.AudioDecoderFec;
 import su.plo.voice.client.audio.codec.AudioDecoderPlc;
 
-interface BaseOpusDecoder extends AudioDecoder, AudioDecoderPlc {
+interface BaseOpusDecoder extends AudioDecoder, AudioDecoderPlc, AudioDecoderFec {
 }
@@ -2,9 +2,23 @@ package su.plo.voice.client.audio.codec.opus;
 
 import su.plo.voice.api.audio.codec.AudioEncoder;
 
-interface BaseOpusEncoder extends AudioEncoder {
+public interface BaseOpusEncoder extends AudioEncoder {
 
     void setBitrate(int bitrate);
 
     int getBitrate();
+
+    /**
+     * Adds the forward error correction data of the previous frame to every frame,
+     * it's used only if the expected packet loss is set
+     */
+    void setInbandFec(boolean fec);
+
+    void setPacketLossPercent(int packetLossPercent);
+
+    /**
+     * Enables the discontinuous transmission,
+     * silent frames are encoded to 2 bytes or less and should not be sent
+     */
+    void setDtx(boolean dtx);
 }
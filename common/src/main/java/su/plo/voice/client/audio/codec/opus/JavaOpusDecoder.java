@@ -23,14 +23,19 @@ public final class JavaOpusDecoder implements BaseOpusDecoder {
 
     @Override
     public short[] decode(byte[] encoded) throws CodecException {
+        return decode(encoded, 0, encoded == null ? 0 : encoded.length);
+    }
+
+    @Override
+    public short[] decode(byte[] encoded, int offset, int length) throws CodecException {
         if (!isOpen()) throw new CodecException("Decoder is not open");
 
         int result;
         try {
-            if (encoded == null || encoded.length == 0) {
+            if (encoded == null || length == 0) {
                 result = decoder.decode(null, 0, 0, buffer, 0, bufferSize, false);
             } else {
-                result = decoder.decode(encoded, 0, encoded.length, buffer, 0, bufferSize, false);
+                result = decoder.decode(encoded, offset, length, buffer, 0, bufferSize, false);
             }
         } catch (OpusException e) {
             throw new CodecException("Failed to decode audio", e);
@@ -76,4 +81,21 @@ public final class JavaOpusDecoder implements BaseOpusDecoder {
     public short[] decodePLC() throws CodecException {
         return decode(null);
     }
+
+    @Override
+    public short[] decodeFEC(byte[] encoded) throws CodecException {
+        if (!isOpen()) throw new CodecException("Decoder is not open");
+
+        int result;
+        try {
+            result = decoder.decode(encoded, 0, encoded.length, buffer, 0, bufferSize, true);
+        } catch (OpusException e) {
+            throw new CodecException("Failed to decode audio", e);
+        }
+
+        short[] decoded = new short[result];
+        System.arraycopy(buffer, 0, decoded, 0, result);
+
+        return decoded;
+    }
 }
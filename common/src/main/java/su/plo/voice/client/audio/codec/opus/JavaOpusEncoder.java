@@ -97,4 +97,25 @@ public final class JavaOpusEncoder implements BaseOpusEncoder {
 
         return encoder.getBitrate();
     }
+
+    @Override
+    public void setInbandFec(boolean fec) {
+        if (!isOpen()) return;
+
+        encoder.setUseInbandFEC(fec);
+    }
+
+    @Override
+    public void setPacketLossPercent(int packetLossPercent) {
+        if (!isOpen()) return;
+
+        encoder.setPacketLossPercent(packetLossPercent);
+    }
+
+    @Override
+    public void setDtx(boolean dtx) {
+        if (!isOpen()) return;
+
+        encoder.setUseDTX(dtx);
+    }
 }
@@ -6,6 +6,7 @@ import tomp2p.opuswrapper.Opus;
 
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
+import java.util.Arrays;
 
 public final class NativeOpusDecoder implements BaseOpusDecoder {
 
@@ -26,20 +27,30 @@ public final class NativeOpusDecoder implements BaseOpusDecoder {
 
     @Override
     public short[] decode(byte[] encoded) throws CodecException {
+        return decode(encoded, 0, encoded == null ? 0 : encoded.length);
+    }
+
+    @Override
+    public short[] decode(byte[] encoded, int offset, int length) throws CodecException {
         if (!isOpen()) throw new CodecException("Decoder is not open");
 
+        // opus reads the array from the start
+        if (offset > 0) {
+            encoded = Arrays.copyOfRange(encoded, offset, offset + length);
+        }
+
         buffer.clear();
         int result;
-        if (encoded == null || encoded.length == 0) {
+        if (encoded == null || length == 0) {
             result = Opus.INSTANCE.opus_decode(decoder, null, 0, buffer, bufferSize * channels, 0);
         } else {
-            result = Opus.INSTANCE.opus_decode(decoder, encoded, encoded.length, buffer, bufferSize * channels, 0);
+            result = Opus.INSTANCE.opus_decode(decoder, encoded, length, buffer, bufferSize * channels, 0);
         }
 
         if (result < 0) throw new CodecException("Failed to decode audio: " + result);
 
         short[] decoded;
-        if (encoded == null || encoded.length == 0) {
+        if (encoded == null || length == 0) {
             decoded = new short[result];
             buffer.get(decoded, 0, result);
         } else {
@@ -88,4 +99,19 @@ public final class NativeOpusDecoder implements BaseOpusDecoder {
     public short[] decodePLC() throws CodecException {
         return decode(null);
     }
+
+    @Override
+    public short[] decodeFEC(byte[] encoded) throws CodecException {
+        if (!isOpen()) throw new CodecException("Decoder is not open");
+
+        buffer.clear();
+        // frame size of the fec should be the duration of the lost frame
+        int result = Opus.INSTANCE.opus_decode(decoder, encoded, encoded.length, buffer, bufferSize, 1);
+        if (result < 0) throw new CodecException("Failed to decode audio: " + result);
+
+        short[] decoded = new short[result * channels];
+        buffer.get(decoded, 0, decoded.length);
+
+        return decoded;
+    }
 }
@@ -91,4 +91,25 @@ public final class NativeOpusEncoder implements BaseOpusEncoder {
 
         return request.get();
     }
+
+    @Override
+    public void setInbandFec(boolean fec) {
+        if (!isOpen()) return;
+
+        Opus.INSTANCE.opus_encoder_ctl(encoder, Opus.OPUS_SET_INBAND_FEC_REQUEST, fec ? 1 : 0);
+    }
+
+    @Override
+    public void setPacketLossPercent(int packetLossPercent) {
+        if (!isOpen()) return;
+
+        Opus.INSTANCE.opus_encoder_ctl(encoder, Opus.OPUS_SET_PACKET_LOSS_PERC_REQUEST, packetLossPercent);
+    }
+
+    @Override
+    public void setDtx(boolean dtx) {
+        if (!isOpen()) return;
+
+        Opus.INSTANCE.opus_encoder_ctl(encoder, Opus.OPUS_SET_DTX_REQUEST, dtx ? 1 : 0);
+    }
 }
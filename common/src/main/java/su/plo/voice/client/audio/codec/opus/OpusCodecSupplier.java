@@ -3,6 +3,7 @@ package su.plo.voice.client.audio.codec.opus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import su.plo.voice.api.audio.codec.CodecSupplier;
 import su.plo.voice.api.util.Params;
 
@@ -12,6 +13,9 @@ public final class OpusCodecSupplier implements CodecSupplier<BaseOpusEncoder, B
 
     private static final Logger LOGGER = LogManager.getLogger(OpusCodecSupplier.class);
 
+    // fec is not used if the expected packet loss is 0
+    private static final int DEFAULT_PACKET_LOSS = 10;
+
     @Override
     public @NotNull BaseOpusEncoder createEncoder(int sampleRate, boolean stereo, int bufferSize, int mtuSize, @NotNull Params params) {
         checkNotNull(params, "params cannot be null");
@@ -34,6 +38,17 @@ public final class OpusCodecSupplier implements CodecSupplier<BaseOpusEncoder, B
         encoder.setBitrate(bitrate);
         LOGGER.info("Opus encoder bitrate is {}", encoder.getBitrate());
 
+        // fec and dtx params are optional, old servers don't send them
+        if (params.containsKey("fec") && Boolean.parseBoolean(params.get("fec", String.class))) {
+            encoder.setInbandFec(true);
+            encoder.setPacketLossPercent(validatePacketLoss(
+                    params.containsKey("packet_loss") ? params.get("packet_loss", String.class) : null
+            ));
+        }
+        if (params.containsKey("dtx")) {
+            encoder.setDtx(Boolean.parseBoolean(params.get("dtx", String.class)));
+        }
+
         return encoder;
     }
 
@@ -76,6 +91,16 @@ public final class OpusCodecSupplier implements CodecSupplier<BaseOpusEncoder, B
         }
     }
 
+    private int validatePacketLoss(@Nullable String rawPacketLoss) {
+        if (rawPacketLoss == null) return DEFAULT_PACKET_LOSS;
+
+        try {
+            return Math.max(0, Math.min(100, Integer.parseInt(rawPacketLoss)));
+        } catch (NumberFormatException ignored) {
+            return DEFAULT_PACKET_LOSS;
+        }
+    }
+
     private int applicationToMode(@NotNull String mode) {
         switch (mode) {
             case "VOIP": return 2048;
@@ -0,0 +1,18 @@
+package su.plo.voice.encryption.aes;
+
+import javax.crypto.Cipher;
+import java.security.GeneralSecurityException;
+
+final class AesCiphers {
+
+    static Cipher create(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cipher " + transformation + " is not available", e);
+        }
+    }
+
+    private AesCiphers() {
+    }
+}
@@ -7,81 +7,77 @@ import javax.crypto.Cipher;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.security.SecureRandom;
+import java.util.Arrays;
 
 public final class AesEncryption implements Encryption {
 
     private static final String CIPHER = "AES/CBC/PKCS5Padding";
+    private static final int IV_SIZE = 16;
 
     private final SecretKeySpec key;
     private final SecureRandom random = new SecureRandom();
 
+    // Cipher.getInstance is expensive and cipher is not thread-safe, so every thread has its own
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(() -> AesCiphers.create(CIPHER));
+
     public AesEncryption(byte[] key) {
         this.key = new SecretKeySpec(key, "AES");
     }
 
     @Override
     public byte[] encrypt(byte[] data) throws EncryptionException {
-        try {
-            IvParameterSpec iv = generateIv();
+        byte[] encrypted = new byte[IV_SIZE + getEncryptedSize(data.length)];
+        int length = encrypt(data, 0, data.length, encrypted, 0);
 
-            // initialize cipher
-            Cipher cipher = Cipher.getInstance(CIPHER);
-            cipher.init(Cipher.ENCRYPT_MODE, key, iv);
+        return length == encrypted.length ? encrypted : Arrays.copyOf(encrypted, length);
+    }
 
-            // encrypt data
-            byte[] encrypted = cipher.doFinal(data);
+    @Override
+    public byte[] decrypt(byte[] encrypted) throws EncryptionException {
+        if (encrypted.length < IV_SIZE) throw new EncryptionException("Encrypted data is too short");
 
-            return copyIvEncrypted(iv, encrypted);
-        } catch (Exception e) {
-            throw new EncryptionException("Failed to encrypt data", e);
-        }
+        byte[] decrypted = new byte[encrypted.length - IV_SIZE];
+        int length = decrypt(encrypted, 0, encrypted.length, decrypted, 0);
+
+        return length == decrypted.length ? decrypted : Arrays.copyOf(decrypted, length);
     }
 
     @Override
-    public byte[] decrypt(byte[] encrypted) throws EncryptionException {
+    public int encrypt(byte[] data, int offset, int length,
+                       byte[] output, int outputOffset) throws EncryptionException {
         try {
-            IvParameterSpec iv = ivFromEncrypted(encrypted);
+            Cipher cipher = ciphers.get();
+
+            byte[] iv = new byte[IV_SIZE];
+            random.nextBytes(iv);
 
-            // initialize cipher
-            Cipher cipher = Cipher.getInstance(CIPHER);
-            cipher.init(Cipher.DECRYPT_MODE, key, iv);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
 
-            encrypted = dataFromEncrypted(encrypted);
-            return cipher.doFinal(encrypted);
+            // iv is sent before the encrypted data
+            System.arraycopy(iv, 0, output, outputOffset, IV_SIZE);
+            return IV_SIZE + cipher.doFinal(data, offset, length, output, outputOffset + IV_SIZE);
         } catch (Exception e) {
-            throw new EncryptionException("Failed to decrypt data", e);
+            throw new EncryptionException("Failed to encrypt data", e);
         }
     }
 
-    private IvParameterSpec generateIv() {
-        byte[] iv = new byte[16];
-        random.nextBytes(iv);
-        return new IvParameterSpec(iv);
-    }
-
-    /**
-     * Copies iv and encrypted data to new byte array
-     *
-     * @return the byte array
-     */
-    private byte[] copyIvEncrypted(IvParameterSpec iv, byte[] encrypted) {
-        byte[] encryptedIv = new byte[iv.getIV().length + encrypted.length];
-
-        System.arraycopy(iv.getIV(), 0, encryptedIv, 0, iv.getIV().length);
-        System.arraycopy(encrypted, 0, encryptedIv, iv.getIV().length, encrypted.length);
+    @Override
+    public int decrypt(byte[] data, int offset, int length,
+                       byte[] output, int outputOffset) throws EncryptionException {
+        if (length < IV_SIZE) throw new EncryptionException("Encrypted data is too short");
 
-        return encryptedIv;
-    }
+        try {
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(data, offset, IV_SIZE));
 
-    private IvParameterSpec ivFromEncrypted(byte[] encrypted) {
-        byte[] iv = new byte[16];
-        System.arraycopy(encrypted, 0, iv, 0, iv.length);
-        return new IvParameterSpec(iv);
+            return cipher.doFinal(data, offset + IV_SIZE, length - IV_SIZE, output, outputOffset);
+        } catch (Exception e) {
+            throw new EncryptionException("Failed to decrypt data", e);
+        }
     }
 
-    private byte[] dataFromEncrypted(byte[] encrypted) {
-        byte[] data = new byte[encrypted.length - 16];
-        System.arraycopy(encrypted, 16, data, 0, data.length);
-        return data;
+    private int getEncryptedSize(int length) {
+        // PKCS5 always adds at least one byte of padding
+        return (length / IV_SIZE + 1) * IV_SIZE;
     }
 }
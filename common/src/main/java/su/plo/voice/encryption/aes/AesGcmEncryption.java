@@ -0,0 +1,107 @@
+package su.plo.voice.encryption.aes;
+
+import su.plo.voice.api.encryption.Encryption;
+import su.plo.voice.api.encryption.EncryptionException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AES-GCM encryption with counter nonces.
+ * <p>
+ * Encrypted data is a 12-byte nonce, the ciphertext of the same length as the data and a 16-byte tag.
+ * Nonce is a random prefix of the instance followed by a counter starting at a random value,
+ * so nonces are unique for every encrypted frame, even across clients sharing the key.
+ */
+public final class AesGcmEncryption implements Encryption {
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int NONCE_SIZE = 12;
+    private static final int TAG_SIZE = 16;
+
+    private final SecretKeySpec key;
+    private final int noncePrefix;
+    private final AtomicLong nonceCounter;
+
+    // encrypt and decrypt ciphers are separated, because GCM encrypt cipher can't be initialized for decryption
+    private final ThreadLocal<Cipher> encryptCiphers = ThreadLocal.withInitial(() -> AesCiphers.create(CIPHER));
+    private final ThreadLocal<Cipher> decryptCiphers = ThreadLocal.withInitial(() -> AesCiphers.create(CIPHER));
+
+    public AesGcmEncryption(byte[] key) {
+        this.key = new SecretKeySpec(key, "AES");
+
+        SecureRandom random = new SecureRandom();
+        this.noncePrefix = random.nextInt();
+        this.nonceCounter = new AtomicLong(random.nextLong());
+    }
+
+    @Override
+    public byte[] encrypt(byte[] data) throws EncryptionException {
+        byte[] encrypted = new byte[NONCE_SIZE + data.length + TAG_SIZE];
+        encrypt(data, 0, data.length, encrypted, 0);
+
+        return encrypted;
+    }
+
+    @Override
+    public byte[] decrypt(byte[] encrypted) throws EncryptionException {
+        if (encrypted.length < NONCE_SIZE + TAG_SIZE) throw new EncryptionException("Encrypted data is too short");
+
+        byte[] decrypted = new byte[encrypted.length - NONCE_SIZE - TAG_SIZE];
+        decrypt(encrypted, 0, encrypted.length, decrypted, 0);
+
+        return decrypted;
+    }
+
+    @Override
+    public int encrypt(byte[] data, int offset, int length,
+                       byte[] output, int outputOffset) throws EncryptionException {
+        try {
+            writeNonce(output, outputOffset, nonceCounter.getAndIncrement());
+
+            Cipher cipher = encryptCiphers.get();
+            cipher.init(
+                    Cipher.ENCRYPT_MODE,
+                    key,
+                    new GCMParameterSpec(TAG_SIZE * 8, output, outputOffset, NONCE_SIZE)
+            );
+
+            return NONCE_SIZE + cipher.doFinal(data, offset, length, output, outputOffset + NONCE_SIZE);
+        } catch (Exception e) {
+            throw new EncryptionException("Failed to encrypt data", e);
+        }
+    }
+
+    @Override
+    public int decrypt(byte[] data, int offset, int length,
+                       byte[] output, int outputOffset) throws EncryptionException {
+        if (length < NONCE_SIZE + TAG_SIZE) throw new EncryptionException("Encrypted data is too short");
+
+        try {
+            Cipher cipher = decryptCiphers.get();
+            cipher.init(
+                    Cipher.DECRYPT_MODE,
+                    key,
+                    new GCMParameterSpec(TAG_SIZE * 8, data, offset, NONCE_SIZE)
+            );
+
+            return cipher.doFinal(data, offset + NONCE_SIZE, length - NONCE_SIZE, output, outputOffset);
+        } catch (Exception e) {
+            throw new EncryptionException("Failed to decrypt data", e);
+        }
+    }
+
+    private void writeNonce(byte[] output, int offset, long counter) {
+        output[offset] = (byte) (noncePrefix >>> 24);
+        output[offset + 1] = (byte) (noncePrefix >>> 16);
+        output[offset + 2] = (byte) (noncePrefix >>> 8);
+        output[offset + 3] = (byte) noncePrefix;
+
+        for (int i = 0; i < 8; i++) {
+            output[offset + 4 + i] = (byte) (counter >>> (56 - i * 8));
+        }
+    }
+}
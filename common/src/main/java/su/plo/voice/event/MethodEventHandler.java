@@ -0,0 +1,115 @@
+package su.plo.voice.event;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import su.plo.voice.api.event.Event;
+import su.plo.voice.api.event.EventHandler;
+import su.plo.voice.api.event.EventSubscribe;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Calls {@link EventSubscribe} method of the listener without reflection.
+ * <p>
+ * Invoker is generated by {@link LambdaMetafactory} if the listener is public and visible to the event bus
+ * class loader, otherwise bound {@link MethodHandle} is used (e.g. for private methods or addon classes).
+ */
+final class MethodEventHandler implements EventHandler<Event> {
+
+    private static final Logger LOGGER = LogManager.getLogger(MethodEventHandler.class);
+
+    public static @NotNull MethodEventHandler create(@NotNull Object listener, @NotNull Method method)
+            throws IllegalAccessException {
+        method.setAccessible(true);
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle handle = lookup.unreflect(method);
+
+        EventHandler<Event> invoker = null;
+        if (canGenerate(method)) {
+            try {
+                invoker = generate(lookup, handle, listener, method);
+            } catch (Throwable e) {
+                LOGGER.debug("Failed to generate event invoker for {}, using method handle", method, e);
+            }
+        }
+
+        if (invoker != null) return new MethodEventHandler(invoker, null);
+
+        if (!Modifier.isStatic(method.getModifiers())) handle = handle.bindTo(listener);
+        return new MethodEventHandler(null, handle.asType(MethodType.methodType(void.class, Event.class)));
+    }
+
+    private final @Nullable EventHandler<Event> invoker;
+    private final @Nullable MethodHandle handle;
+
+    private MethodEventHandler(@Nullable EventHandler<Event> invoker, @Nullable MethodHandle handle) {
+        this.invoker = invoker;
+        this.handle = handle;
+    }
+
+    @Override
+    public void execute(Event event) {
+        try {
+            if (invoker != null) {
+                invoker.execute(event);
+            } else {
+                handle.invokeExact(event);
+            }
+        } catch (Throwable e) {
+            LOGGER.warn("Failed to call an event: {}", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static boolean canGenerate(@NotNull Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+
+        return Modifier.isPublic(method.getModifiers()) &&
+                Modifier.isPublic(declaringClass.getModifiers()) &&
+                isVisible(declaringClass) &&
+                isVisible(method.getParameterTypes()[0]);
+    }
+
+    // generated class is defined in the event bus class loader, so it should see the listener and event classes
+    private static boolean isVisible(@NotNull Class<?> clazz) {
+        try {
+            return Class.forName(clazz.getName(), false, MethodEventHandler.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EventHandler<Event> generate(@NotNull MethodHandles.Lookup lookup,
+                                                @NotNull MethodHandle handle,
+                                                @NotNull Object listener,
+                                                @NotNull Method method) throws Throwable {
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+
+        MethodType factoryType = isStatic
+                ? MethodType.methodType(EventHandler.class)
+                : MethodType.methodType(EventHandler.class, method.getDeclaringClass());
+
+        CallSite callSite = LambdaMetafactory.metafactory(
+                lookup,
+                "execute",
+                factoryType,
+                MethodType.methodType(void.class, Event.class),
+                handle,
+                MethodType.methodType(void.class, method.getParameterTypes()[0])
+        );
+
+        return isStatic
+                ? (EventHandler<Event>) callSite.getTarget().invoke()
+                : (EventHandler<Event>) callSite.getTarget().invoke(listener);
+    }
+}
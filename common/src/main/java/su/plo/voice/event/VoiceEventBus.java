@@ -17,6 +17,7 @@ import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
 
 public final class VoiceEventBus implements EventBus {
 
@@ -34,6 +35,12 @@ public final class VoiceEventBus implements EventBus {
     // class -> handlers
     private final Map<Class<?>, EnumMap<EventPriority, List<EventHandler<?>>>> handlers = Maps.newConcurrentMap();
 
+    // class -> handlers flattened by priority, rebuilt on register/unregister
+    private final Map<Class<?>, EventHandler<?>[]> bakedHandlers = Maps.newConcurrentMap();
+
+    // events skipped by the callers, because they had no handlers
+    private final LongAdder elidedEvents = new LongAdder();
+
     private final Executor asyncExecutor = Executors.newSingleThreadExecutor();
 
     private final PlasmoVoice voice;
@@ -44,15 +51,11 @@ public final class VoiceEventBus implements EventBus {
 
     @Override
     public <E extends Event> void call(@NotNull E event) {
-        if (!this.handlers.containsKey(event.getClass())) return;
-
-        for (Map.Entry<EventPriority, List<EventHandler<?>>> entry :
-                this.handlers.get(event.getClass()).entrySet()) {
-            List<EventHandler<?>> listeners = entry.getValue();
+        EventHandler[] handlers = bakedHandlers.get(event.getClass());
+        if (handlers == null) return;
 
-            for (EventHandler listener : listeners) {
-                listener.execute(event);
-            }
+        for (EventHandler handler : handlers) {
+            handler.execute(event);
         }
     }
 
@@ -64,7 +67,23 @@ public final class VoiceEventBus implements EventBus {
     }
 
     @Override
-    public void register(@NotNull Object addon, @NotNull Object listener) {
+    public boolean hasListeners(@NotNull Class<? extends Event> eventClass) {
+        if (bakedHandlers.containsKey(eventClass)) return true;
+
+        // metric only, the result doesn't depend on it
+        elidedEvents.increment();
+        return false;
+    }
+
+    /**
+     * @return number of events skipped by the callers after {@link #hasListeners(Class)} returned false
+     */
+    public long getElidedEvents() {
+        return elidedEvents.sum();
+    }
+
+    @Override
+    public synchronized void register(@NotNull Object addon, @NotNull Object listener) {
         checkIfAddon(addon);
 
         Method[] publicMethods = listener.getClass().getMethods();
@@ -87,15 +106,13 @@ public final class VoiceEventBus implements EventBus {
 
             final Class<? extends Event> eventClass = clazz.asSubclass(Event.class);
 
-            method.setAccessible(true);
-            EventHandler<?> handler = (event) -> {
-                try {
-                    method.invoke(listener, event);
-                } catch (Throwable e) {
-                    LOGGER.warn("Failed to call an event: {}", e.getMessage());
-                    e.printStackTrace();
-                }
-            };
+            EventHandler<?> handler;
+            try {
+                handler = MethodEventHandler.create(listener, method);
+            } catch (IllegalAccessException e) {
+                LOGGER.warn("Failed to register an event handler {}: {}", method, e.getMessage());
+                continue;
+            }
 
             EnumMap<EventPriority, List<EventHandler<?>>> listeners = this.handlers.get(eventClass);
             if (listeners == null) {
@@ -111,6 +128,7 @@ public final class VoiceEventBus implements EventBus {
                         return eventHandlers;
                     }
             );
+            bakeHandlers(eventClass);
 
             this.registeredListeners.compute(
                     listener,
@@ -135,7 +153,7 @@ public final class VoiceEventBus implements EventBus {
     }
 
     @Override
-    public <E extends Event> void register(@NotNull Object addon, Class<E> eventClass, EventPriority priority, @NotNull EventHandler<E> handler) {
+    public synchronized <E extends Event> void register(@NotNull Object addon, Class<E> eventClass, EventPriority priority, @NotNull EventHandler<E> handler) {
         checkIfAddon(addon);
 
         EnumMap<EventPriority, List<EventHandler<?>>> listeners = this.handlers.get(eventClass);
@@ -152,6 +170,7 @@ public final class VoiceEventBus implements EventBus {
                     return eventHandlers;
                 }
         );
+        bakeHandlers(eventClass);
 
         registeredAddonHandlers.compute(
                 addon,
@@ -164,7 +183,7 @@ public final class VoiceEventBus implements EventBus {
     }
 
     @Override
-    public void unregister(@NotNull Object addon) {
+    public synchronized void unregister(@NotNull Object addon) {
         checkIfAddon(addon);
 
         List<EventHandler<?>> handlersToRemove = new ArrayList<>();
@@ -184,7 +203,7 @@ public final class VoiceEventBus implements EventBus {
     }
 
     @Override
-    public void unregister(@NotNull Object addon, @NotNull Object listener) {
+    public synchronized void unregister(@NotNull Object addon, @NotNull Object listener) {
         checkIfAddon(addon);
 
         List<Object> addonListeners = registeredAddonListeners.get(addon);
@@ -197,7 +216,7 @@ public final class VoiceEventBus implements EventBus {
     }
 
     @Override
-    public void unregister(@NotNull Object addon, @NotNull EventHandler<?> handler) {
+    public synchronized void unregister(@NotNull Object addon, @NotNull EventHandler<?> handler) {
         checkIfAddon(addon);
 
         List<EventHandler<?>> addonHandlers = registeredAddonHandlers.get(addon);
@@ -214,24 +233,48 @@ public final class VoiceEventBus implements EventBus {
 
     private void removeHandlers(List<EventHandler<?>> handlersToRemove) {
         List<Class<?>> eventsToRemove = new ArrayList<>();
+        List<Class<?>> eventsToBake = new ArrayList<>();
 
         handlers.forEach((eventClass, listeners) -> {
             List<EventPriority> listenersToRemove = new ArrayList<>();
+            boolean changed = false;
+
+            for (Map.Entry<EventPriority, List<EventHandler<?>>> entry : listeners.entrySet()) {
+                List<EventHandler<?>> handlers = entry.getValue();
+                if (handlers.removeAll(handlersToRemove)) changed = true;
 
-            listeners.forEach((priority, handlers) -> {
-                handlers.removeAll(handlersToRemove);
                 if (handlers.size() == 0) {
-                    listenersToRemove.add(priority);
+                    listenersToRemove.add(entry.getKey());
                 }
-            });
+            }
 
             listenersToRemove.forEach(listeners::remove);
             if (listeners.size() == 0) {
                 eventsToRemove.add(eventClass);
+            } else if (changed) {
+                eventsToBake.add(eventClass);
             }
         });
 
-        eventsToRemove.forEach(handlers::remove);
+        eventsToRemove.forEach((eventClass) -> {
+            handlers.remove(eventClass);
+            bakedHandlers.remove(eventClass);
+        });
+        eventsToBake.forEach(this::bakeHandlers);
+    }
+
+    private void bakeHandlers(@NotNull Class<?> eventClass) {
+        EnumMap<EventPriority, List<EventHandler<?>>> listeners = handlers.get(eventClass);
+        if (listeners == null || listeners.isEmpty()) {
+            bakedHandlers.remove(eventClass);
+            return;
+        }
+
+        // EnumMap is ordered by priority ordinal
+        List<EventHandler<?>> flattened = new ArrayList<>();
+        listeners.values().forEach(flattened::addAll);
+
+        bakedHandlers.put(eventClass, flattened.toArray(new EventHandler<?>[0]));
     }
 
     private Annotation getAnnotation(AccessibleObject object, Class annotationClass) {
@@ -1,6 +1,5 @@
 package su.plo.voice.socket;
 
-import com.google.common.io.ByteStreams;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.socket.DatagramPacket;
 import io.netty.handler.codec.MessageToMessageDecoder;
@@ -14,13 +13,9 @@ public final class NettyPacketUdpDecoder extends MessageToMessageDecoder<Datagra
 
     @Override
     protected void decode(ChannelHandlerContext ctx, DatagramPacket packet, List<Object> out) throws Exception {
-        int readableBytes = packet.content().readableBytes();
-        if (readableBytes <= 0) return;
+        if (packet.content().readableBytes() <= 0) return;
 
-        byte[] bytes = new byte[readableBytes];
-        packet.content().readBytes(bytes);
-
-        Optional<PacketUdp> packetUdp = PacketUdpCodec.decode(ByteStreams.newDataInput(bytes));
+        Optional<PacketUdp> packetUdp = PacketUdpCodec.decode(packet.content());
         if (!packetUdp.isPresent()) return;
         PacketUdp decoded = packetUdp.get();
 
@@ -0,0 +1,133 @@
+package su.plo.voice.socket;
+
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import su.plo.voice.proto.data.audio.source.SourceFeedback;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Collects the receive statistics of the sources' audio packets for the feedback
+ * <p>
+ * Lost packets are counted by the gaps in the sequence numbers.
+ * Jitter is estimated as in RFC 3550, the send time of the packet is derived from its sequence number.
+ * Sequence numbers don't advance while the source is silent, so the gaps longer than {@link #SPURT_GAP_MS}
+ * are pauses between the speech only if the sequence advanced much less than the elapsed time implies,
+ * otherwise the skipped packets are counted as the loss.
+ */
+public final class SourceFeedbackCollector {
+
+    public static final long SPURT_GAP_MS = 200L;
+    // bigger gaps are treated as the new stream
+    private static final long MAX_SEQUENCE_GAP = 50L;
+    // sources without packets for this time are removed
+    private static final long SOURCE_TIMEOUT_MS = 10_000L;
+
+    private final long frameDurationMs;
+    private final Map<UUID, SourceStatistics> statisticsBySourceId = Maps.newHashMap();
+
+    public SourceFeedbackCollector(long frameDurationMs) {
+        this.frameDurationMs = frameDurationMs;
+    }
+
+    /**
+     * Records the received audio packet of the source
+     */
+    public synchronized void record(@NotNull UUID sourceId, long sequenceNumber, long receivedAt) {
+        statisticsBySourceId.computeIfAbsent(sourceId, (id) -> new SourceStatistics())
+                .record(sequenceNumber, receivedAt);
+    }
+
+    /**
+     * Gets the statistics of the sources which received the packets since the last call and resets them
+     */
+    public synchronized @NotNull List<SourceFeedback> collect(long now) {
+        List<SourceFeedback> feedback = new ArrayList<>();
+
+        Iterator<Map.Entry<UUID, SourceStatistics>> iterator = statisticsBySourceId.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, SourceStatistics> entry = iterator.next();
+            SourceStatistics statistics = entry.getValue();
+
+            if (now - statistics.lastArrival > SOURCE_TIMEOUT_MS) {
+                iterator.remove();
+                continue;
+            }
+            if (statistics.received == 0) continue;
+
+            feedback.add(new SourceFeedback(
+                    entry.getKey(),
+                    statistics.received,
+                    statistics.lost,
+                    statistics.late,
+                    (int) Math.round(statistics.jitter)
+            ));
+            statistics.reset();
+        }
+
+        return feedback;
+    }
+
+    public synchronized void clear() {
+        statisticsBySourceId.clear();
+    }
+
+    private final class SourceStatistics {
+
+        private long lastSequenceNumber = -1L;
+        private long lastArrival;
+        private double jitter;
+
+        private int received;
+        private int lost;
+        private int late;
+
+        private void record(long sequenceNumber, long receivedAt) {
+            received++;
+
+            long arrivalGap = receivedAt - lastArrival;
+            long sequenceGap = sequenceNumber - lastSequenceNumber;
+            // new stream of the source, pause between the speech or the sequence was restarted
+            if (lastSequenceNumber < 0
+                    || isPause(arrivalGap, sequenceGap)
+                    || sequenceGap < -MAX_SEQUENCE_GAP
+                    || sequenceGap > MAX_SEQUENCE_GAP
+            ) {
+                this.lastSequenceNumber = sequenceNumber;
+                this.lastArrival = receivedAt;
+                return;
+            }
+
+            if (sequenceGap <= 0) {
+                // packet was counted as lost when the newer one arrived
+                late++;
+                if (lost > 0) lost--;
+                return;
+            }
+
+            lost += (int) (sequenceGap - 1);
+
+            long transitDifference = Math.abs(arrivalGap - sequenceGap * frameDurationMs);
+            this.jitter += (transitDifference - jitter) / 16D;
+
+            this.lastSequenceNumber = sequenceNumber;
+            this.lastArrival = receivedAt;
+        }
+
+        private boolean isPause(long arrivalGap, long sequenceGap) {
+            // lost packets advance the sequence as the time passes,
+            // so the loss burst implies about one sequence number per frame
+            return arrivalGap > SPURT_GAP_MS && sequenceGap * frameDurationMs * 2 < arrivalGap;
+        }
+
+        private void reset() {
+            this.received = 0;
+            this.lost = 0;
+            this.late = 0;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package su.plo.voice.client.audio.codec.opus;
+
+import org.junit.jupiter.api.Test;
+import su.plo.voice.api.audio.codec.CodecException;
+import su.plo.voice.api.util.Params;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OpusFecDtxTest {
+
+    private static final int SAMPLE_RATE = 48_000;
+    private static final int FRAME_SIZE = 960;
+    private static final int MTU_SIZE = 1024;
+    private static final int FRAMES = 250;
+    // every 5th frame is lost
+    private static final int LOSS_INTERVAL = 5;
+
+    private final OpusCodecSupplier codec = new OpusCodecSupplier();
+    private final Random random = new Random(0L);
+
+    @Test
+    public void testFec() throws CodecException {
+        BaseOpusEncoder encoder = codec.createEncoder(SAMPLE_RATE, false, FRAME_SIZE, MTU_SIZE, params(true, false));
+
+        byte[][] encoded = new byte[FRAMES][];
+        for (int frame = 0; frame < FRAMES; frame++) {
+            encoded[frame] = encoder.encode(speech(frame));
+        }
+        encoder.close();
+
+        BaseOpusDecoder reference = codec.createDecoder(SAMPLE_RATE, false, FRAME_SIZE, MTU_SIZE, Params.EMPTY);
+        BaseOpusDecoder plcDecoder = codec.createDecoder(SAMPLE_RATE, false, FRAME_SIZE, MTU_SIZE, Params.EMPTY);
+        BaseOpusDecoder fecDecoder = codec.createDecoder(SAMPLE_RATE, false, FRAME_SIZE, MTU_SIZE, Params.EMPTY);
+
+        double plcError = 0D;
+        double fecError = 0D;
+        double signal = 0D;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            short[] expected = reference.decode(encoded[frame]);
+
+            if (frame % LOSS_INTERVAL == LOSS_INTERVAL - 1 && frame + 1 < FRAMES) {
+                plcError += error(expected, plcDecoder.decodePLC());
+                fecError += error(expected, fecDecoder.decodeFEC(encoded[frame + 1]));
+                signal += error(expected, new short[expected.length]);
+            } else {
+                plcDecoder.decode(encoded[frame]);
+                fecDecoder.decode(encoded[frame]);
+            }
+        }
+
+        assertTrue(fecError < plcError);
+        assertTrue(fecError < signal);
+    }
+
+    @Test
+    public void testDecodeRange() throws CodecException {
+        BaseOpusEncoder encoder = codec.createEncoder(SAMPLE_RATE, false, FRAME_SIZE, MTU_SIZE, params(false, false));
+        BaseOpusDecoder reference = codec.createDecoder(SAMPLE_RATE, false, FRAME_SIZE, MTU_SIZE, Params.EMPTY);
+        BaseOpusDecoder decoder = codec.createDecoder(SAMPLE_RATE, false, FRAME_SIZE, MTU_SIZE, Params.EMPTY);
+
+        // frames are decoded from the reused buffer
+        byte[] buffer = new byte[MTU_SIZE];
+        for (int frame = 0; frame < 10; frame++) {
+            byte[] encoded = encoder.encode(speech(frame));
+            System.arraycopy(encoded, 0, buffer, 0, encoded.length);
+
+            assertArrayEquals(reference.decode(encoded), decoder.decode(buffer, 0, encoded.length));
+        }
+        encoder.close();
+    }
+
+    @Test
+    public void testDtx() throws CodecException {
+        int speechFrames = 0;
+        int sentFrames = 0;
+        long sentBytes = 0L;
+        long dtxOffBytes = 0L;
+
+        BaseOpusEncoder encoder = codec.createEncoder(SAMPLE_RATE, false, FRAME_SIZE, MTU_SIZE, params(false, true));
+        BaseOpusEncoder dtxOffEncoder = codec.createEncoder(SAMPLE_RATE, false, FRAME_SIZE, MTU_SIZE, params(false, false));
+
+        // speech with the pauses, like the push-to-talk activation
+        for (int frame = 0; frame < FRAMES; frame++) {
+            boolean speech = (frame / 50) % 2 == 0;
+            if (speech) speechFrames++;
+
+            short[] samples = speech ? speech(frame) : silence();
+            byte[] encoded = encoder.encode(samples);
+            dtxOffBytes += dtxOffEncoder.encode(samples).length;
+
+            if (encoded.length > 2) {
+                sentFrames++;
+                sentBytes += encoded.length;
+            }
+        }
+        encoder.close();
+        dtxOffEncoder.close();
+
+        assertTrue(sentFrames < FRAMES - (FRAMES - speechFrames) / 2);
+        assertTrue(sentBytes < dtxOffBytes);
+    }
+
+    private Params params(boolean fec, boolean dtx) {
+        return Params.builder()
+                .set("mode", "VOIP")
+                .set("bitrate", "-1000")
+                .set("fec", String.valueOf(fec))
+                .set("packet_loss", "20")
+                .set("dtx", String.valueOf(dtx))
+                .build();
+    }
+
+    private short[] speech(int frame) {
+        short[] samples = new short[FRAME_SIZE];
+        for (int i = 0; i < FRAME_SIZE; i++) {
+            double t = (frame * FRAME_SIZE + i) / (double) SAMPLE_RATE;
+            // pitch changes like in the speech, so the plc can't just repeat the last frame
+            double pitch = 140D + 40D * Math.sin(2 * Math.PI * 3D * t);
+            double voice = Math.sin(2 * Math.PI * pitch * t) + 0.5D * Math.sin(4 * Math.PI * pitch * t);
+            samples[i] = (short) (voice * 6_000D + random.nextGaussian() * 300D);
+        }
+
+        return samples;
+    }
+
+    private short[] silence() {
+        short[] samples = new short[FRAME_SIZE];
+        for (int i = 0; i < FRAME_SIZE; i++) {
+            samples[i] = (short) (random.nextGaussian() * 5D);
+        }
+
+        return samples;
+    }
+
+    private double error(short[] expected, short[] actual) {
+        double error = 0D;
+        for (int i = 0; i < expected.length; i++) {
+            double diff = expected[i] - (i < actual.length ? actual[i] : 0);
+            error += diff * diff;
+        }
+
+        return error;
+    }
+}
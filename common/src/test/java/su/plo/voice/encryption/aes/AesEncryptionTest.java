@@ -0,0 +1,165 @@
+package su.plo.voice.encryption.aes;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import su.plo.voice.api.encryption.Encryption;
+import su.plo.voice.api.encryption.EncryptionException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AesEncryptionTest {
+
+    private final byte[] key = new byte[16];
+    // 20ms opus frame at 64 kbps
+    private final byte[] frame = new byte[160];
+
+    public AesEncryptionTest() {
+        SecureRandom random = new SecureRandom();
+        random.nextBytes(key);
+        random.nextBytes(frame);
+    }
+
+    @Test
+    public void testCbc() throws EncryptionException {
+        testEncryption(new AesEncryption(key), new AesEncryption(key));
+    }
+
+    @Test
+    public void testGcm() throws EncryptionException {
+        Encryption sender = new AesGcmEncryption(key);
+        Encryption receiver = new AesGcmEncryption(key);
+        testEncryption(sender, receiver);
+
+        // nonce + data + tag
+        byte[] encrypted = sender.encrypt(frame);
+        assertEquals(12 + frame.length + 16, encrypted.length);
+
+        // nonce is never reused
+        assertFalse(Arrays.equals(Arrays.copyOf(encrypted, 12), Arrays.copyOf(sender.encrypt(frame), 12)));
+
+        // tampered data is rejected
+        encrypted[20] ^= 1;
+        assertThrows(EncryptionException.class, () -> receiver.decrypt(encrypted));
+    }
+
+    private void testEncryption(Encryption sender, Encryption receiver) throws EncryptionException {
+        assertArrayEquals(frame, receiver.decrypt(sender.encrypt(frame)));
+        assertArrayEquals(new byte[0], receiver.decrypt(sender.encrypt(new byte[0])));
+
+        byte[] encrypted = new byte[512];
+        int encryptedLength = sender.encrypt(frame, 0, frame.length, encrypted, 8);
+
+        byte[] decrypted = new byte[512];
+        int decryptedLength = receiver.decrypt(encrypted, 8, encryptedLength, decrypted, 4);
+
+        assertEquals(frame.length, decryptedLength);
+        assertArrayEquals(frame, Arrays.copyOfRange(decrypted, 4, 4 + decryptedLength));
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkEncryption(TestReporter reporter) throws Exception {
+        Encryption cbc = new AesEncryption(key);
+        Encryption gcm = new AesGcmEncryption(key);
+        byte[] encrypted = new byte[512];
+        byte[] decrypted = new byte[512];
+
+        int frames = 200_000;
+
+        for (int warmup = 0; warmup < 3; warmup++) {
+            uncached(frames / 4);
+            arrays(cbc, frames / 4);
+            arrays(gcm, frames / 4);
+            buffers(gcm, encrypted, decrypted, frames / 4);
+        }
+
+        long start = System.nanoTime();
+        long uncachedBytes = uncached(frames);
+        long uncachedTime = (System.nanoTime() - start) / frames;
+
+        start = System.nanoTime();
+        long cbcBytes = arrays(cbc, frames);
+        long cbcTime = (System.nanoTime() - start) / frames;
+
+        start = System.nanoTime();
+        long gcmBytes = arrays(gcm, frames);
+        long gcmTime = (System.nanoTime() - start) / frames;
+
+        start = System.nanoTime();
+        long gcmBuffersBytes = buffers(gcm, encrypted, decrypted, frames);
+        long gcmBuffersTime = (System.nanoTime() - start) / frames;
+
+        // cached cipher keeps the format
+        assertEquals(uncachedBytes, cbcBytes);
+        assertEquals(gcmBytes, gcmBuffersBytes);
+        reporter.publishEntry(
+                "encrypt + decrypt",
+                String.format(
+                        "CBC uncached %d ns, CBC cached %d ns, GCM %d ns, GCM into buffers %d ns",
+                        uncachedTime, cbcTime, gcmTime, gcmBuffersTime
+                )
+        );
+    }
+
+    // what AesEncryption did before: new cipher and copies for every frame
+    private long uncached(int frames) throws Exception {
+        SecretKeySpec keySpec = new SecretKeySpec(key, "AES");
+        SecureRandom random = new SecureRandom();
+
+        long bytes = 0L;
+        for (int i = 0; i < frames; i++) {
+            byte[] iv = new byte[16];
+            random.nextBytes(iv);
+
+            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            cipher.init(Cipher.ENCRYPT_MODE, keySpec, new IvParameterSpec(iv));
+            byte[] encrypted = cipher.doFinal(frame);
+
+            byte[] encryptedIv = new byte[iv.length + encrypted.length];
+            System.arraycopy(iv, 0, encryptedIv, 0, iv.length);
+            System.arraycopy(encrypted, 0, encryptedIv, iv.length, encrypted.length);
+
+            byte[] decryptIv = new byte[16];
+            System.arraycopy(encryptedIv, 0, decryptIv, 0, decryptIv.length);
+            cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            cipher.init(Cipher.DECRYPT_MODE, keySpec, new IvParameterSpec(decryptIv));
+
+            byte[] data = new byte[encryptedIv.length - 16];
+            System.arraycopy(encryptedIv, 16, data, 0, data.length);
+            bytes += encryptedIv.length + cipher.doFinal(data).length;
+        }
+
+        return bytes;
+    }
+
+    private long arrays(Encryption encryption, int frames) throws EncryptionException {
+        long bytes = 0L;
+        for (int i = 0; i < frames; i++) {
+            byte[] encrypted = encryption.encrypt(frame);
+            bytes += encrypted.length + encryption.decrypt(encrypted).length;
+        }
+
+        return bytes;
+    }
+
+    private long buffers(Encryption encryption, byte[] encrypted, byte[] decrypted, int frames)
+            throws EncryptionException {
+        long bytes = 0L;
+        for (int i = 0; i < frames; i++) {
+            int length = encryption.encrypt(frame, 0, frame.length, encrypted, 0);
+            bytes += length + encryption.decrypt(encrypted, 0, length, decrypted, 0);
+        }
+
+        return bytes;
+    }
+}
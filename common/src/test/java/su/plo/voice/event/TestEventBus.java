@@ -1,25 +1,274 @@
 package su.plo.voice.event;
 
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import su.plo.voice.addon.TestAddon;
+import su.plo.voice.api.PlasmoVoice;
+import su.plo.voice.api.addon.AddonContainer;
+import su.plo.voice.api.addon.AddonManager;
+import su.plo.voice.api.addon.annotation.Addon;
+import su.plo.voice.api.audio.codec.CodecManager;
+import su.plo.voice.api.encryption.EncryptionManager;
+import su.plo.voice.api.event.EventBus;
+import su.plo.voice.api.event.EventHandler;
+import su.plo.voice.api.event.EventPriority;
+import su.plo.voice.api.event.EventSubscribe;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestEventBus {
+
+    private final TestAddon addon = new TestAddon();
+    private final VoiceEventBus bus = new VoiceEventBus(new TestVoice(addon));
+
     @Test
     void testEventBus() {
-//        EventBus bus = new VoiceEventBus();
-//
-//        TestAddon addon = new TestAddon();
-//
-//        TestEventListener eventListener = new TestEventListener();
-//        bus.register(addon, eventListener);
-//
-//        EventHandler<TestEvent> eventHandler = (event) -> {
-//            System.out.println("event called");
-//        };
-//
-//        bus.register(addon, TestEvent.class, EventPriority.HIGHEST, eventHandler);
-//
-//        bus.call(new TestEvent());
+        List<String> calls = new ArrayList<>();
+
+        TestEventListener eventListener = new TestEventListener();
+        bus.register(addon, eventListener);
+
+        PrivateListener privateListener = new PrivateListener(calls);
+        bus.register(addon, privateListener);
+
+        EventHandler<TestEvent> eventHandler = (event) -> calls.add("handler");
+        bus.register(addon, TestEvent.class, EventPriority.HIGHEST, eventHandler);
+
+        bus.call(new TestEvent());
+        assertEquals(Arrays.asList("lowest", "handler"), calls);
+
+        calls.clear();
+        bus.unregister(addon, privateListener);
+        bus.call(new TestEvent());
+        assertEquals(Arrays.asList("handler"), calls);
+
+        calls.clear();
+        bus.unregister(addon);
+        bus.call(new TestEvent());
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    void testHasListeners() {
+        EventHandler<TestEvent> eventHandler = (event) -> {
+        };
+
+        assertFalse(bus.hasListeners(TestEvent.class));
+        assertEquals(1L, bus.getElidedEvents());
+
+        bus.register(addon, TestEvent.class, EventPriority.NORMAL, eventHandler);
+        assertTrue(bus.hasListeners(TestEvent.class));
+
+        bus.unregister(addon, eventHandler);
+        assertFalse(bus.hasListeners(TestEvent.class));
+        assertEquals(2L, bus.getElidedEvents());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkDispatch(TestReporter reporter) throws Exception {
+        CountingListener listener = new CountingListener();
+        bus.register(addon, listener);
+
+        // what VoiceEventBus did before: Method.invoke wrapped in a lambda, stored in EnumMap by priority
+        Method method = CountingListener.class.getMethod("onTestEvent", TestEvent.class);
+        Map<Class<?>, EnumMap<EventPriority, List<EventHandler<?>>>> handlers = new ConcurrentHashMap<>();
+        handlers.computeIfAbsent(TestEvent.class, (eventClass) -> new EnumMap<>(EventPriority.class))
+                .computeIfAbsent(EventPriority.NORMAL, (priority) -> new CopyOnWriteArrayList<>())
+                .add((event) -> {
+                    try {
+                        method.invoke(listener, event);
+                    } catch (Throwable e) {
+                        e.printStackTrace();
+                    }
+                });
+
+        TestEvent event = new TestEvent();
+        int events = 5_000_000;
+
+        for (int warmup = 0; warmup < 3; warmup++) {
+            callReflective(handlers, event, events);
+            call(event, events);
+        }
+
+        long start = System.nanoTime();
+        callReflective(handlers, event, events);
+        long reflectiveTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        call(event, events);
+        long busTime = System.nanoTime() - start;
+
+        // both dispatchers called the listener for every event
+        assertEquals(events * 8L, listener.count);
+        reporter.publishEntry(
+                "dispatch",
+                String.format(
+                        "reflective %.1f ns/event, generated %.1f ns/event",
+                        (double) reflectiveTime / events, (double) busTime / events
+                )
+        );
+
+        bus.unregister(addon);
+    }
+
+    private void callReflective(Map<Class<?>, EnumMap<EventPriority, List<EventHandler<?>>>> handlers,
+                                TestEvent event,
+                                int events) {
+        for (int i = 0; i < events; i++) {
+            if (!handlers.containsKey(event.getClass())) continue;
+
+            for (Map.Entry<EventPriority, List<EventHandler<?>>> entry : handlers.get(event.getClass()).entrySet()) {
+                for (EventHandler handler : entry.getValue()) {
+                    handler.execute(event);
+                }
+            }
+        }
+    }
+
+    private void call(TestEvent event, int events) {
+        for (int i = 0; i < events; i++) {
+            bus.call(event);
+        }
     }
 
+    public static final class CountingListener {
 
+        private long count;
+
+        @EventSubscribe
+        public void onTestEvent(TestEvent event) {
+            count++;
+        }
+    }
+
+    private static final class PrivateListener {
+
+        private final List<String> calls;
+
+        private PrivateListener(List<String> calls) {
+            this.calls = calls;
+        }
+
+        @EventSubscribe(priority = EventPriority.LOWEST)
+        private void onTestEvent(TestEvent event) {
+            calls.add("lowest");
+        }
+    }
+
+    private static final class TestVoice implements PlasmoVoice {
+
+        private final AddonManager addonManager;
+
+        private TestVoice(Object addonInstance) {
+            AddonContainer container = new TestAddonContainer(addonInstance);
+
+            this.addonManager = new AddonManager() {
+                @Override
+                public boolean isLoaded(@NotNull String id) {
+                    return id.equals(container.getId());
+                }
+
+                @Override
+                public Optional<AddonContainer> getAddon(String id) {
+                    return isLoaded(id) ? Optional.of(container) : Optional.empty();
+                }
+
+                @Override
+                public Optional<AddonContainer> getAddon(Object instance) {
+                    return instance == addonInstance ? Optional.of(container) : Optional.empty();
+                }
+            };
+        }
+
+        @Override
+        public @NotNull AddonManager getAddonManager() {
+            return addonManager;
+        }
+
+        @Override
+        public @NotNull EventBus getEventBus() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public @NotNull EncryptionManager getEncryptionManager() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public @NotNull CodecManager getCodecManager() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public @NotNull String getVersion() {
+            return "test";
+        }
+
+        @Override
+        public @NotNull File getConfigFolder() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class TestAddonContainer implements AddonContainer {
+
+        private final Object instance;
+
+        private TestAddonContainer(Object instance) {
+            this.instance = instance;
+        }
+
+        @Override
+        public String getId() {
+            return "test";
+        }
+
+        @Override
+        public Addon.Scope getScope() {
+            return Addon.Scope.SERVER;
+        }
+
+        @Override
+        public String getVersion() {
+            return "";
+        }
+
+        @Override
+        public String[] getAuthors() {
+            return new String[0];
+        }
+
+        @Override
+        public Class<?> getMainClass() {
+            return instance.getClass();
+        }
+
+        @Override
+        public Path getPath() {
+            return null;
+        }
+
+        @Override
+        public Optional<?> getInstance() {
+            return Optional.of(instance);
+        }
+    }
 }
@@ -0,0 +1,54 @@
+package su.plo.voice.proto.data.audio.source;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import su.plo.voice.proto.packets.PacketSerializable;
+import su.plo.voice.proto.packets.PacketUtil;
+
+import java.util.UUID;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Receive statistics of the source's audio on the client since the last feedback
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public final class SourceFeedback implements PacketSerializable {
+
+    @Getter
+    private UUID sourceId;
+    @Getter
+    private int receivedPackets;
+    @Getter
+    private int lostPackets;
+    // packets received after the newer ones
+    @Getter
+    private int latePackets;
+    // interarrival jitter in ms
+    @Getter
+    private int jitter;
+
+    @Override
+    public void deserialize(ByteArrayDataInput in) {
+        this.sourceId = PacketUtil.readUUID(in);
+        this.receivedPackets = in.readInt();
+        this.lostPackets = in.readInt();
+        this.latePackets = in.readInt();
+        this.jitter = in.readShort();
+    }
+
+    @Override
+    public void serialize(ByteArrayDataOutput out) {
+        PacketUtil.writeUUID(out, checkNotNull(sourceId));
+        out.writeInt(receivedPackets);
+        out.writeInt(lostPackets);
+        out.writeInt(latePackets);
+        out.writeShort(Math.min(jitter, Short.MAX_VALUE));
+    }
+}
@@ -0,0 +1,185 @@
+package su.plo.voice.proto.data.audio.source;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import su.plo.voice.proto.data.pos.Pos3d;
+import su.plo.voice.proto.packets.PacketSerializable;
+import su.plo.voice.proto.packets.PacketUtil;
+
+import java.util.UUID;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Changed fields of the source info
+ * <p>
+ * Only the fields in {@link #getFields()} are serialized,
+ * receiver applies them to the source info it already has by {@link #apply(SourceInfo)}
+ */
+@NoArgsConstructor
+@ToString
+public final class SourceInfoUpdate implements PacketSerializable {
+
+    public static final int LINE = 1;
+    public static final int STEREO = 1 << 1;
+    public static final int ICON_VISIBLE = 1 << 2;
+    public static final int ANGLE = 1 << 3;
+    // static source
+    public static final int POSITION = 1 << 4;
+    // static and direct sources
+    public static final int LOOK_ANGLE = 1 << 5;
+    // direct source
+    public static final int SENDER = 1 << 6;
+    public static final int RELATIVE_POSITION = 1 << 7;
+    public static final int CAMERA_RELATIVE = 1 << 8;
+
+    /**
+     * Creates the update with the fields of the current source info
+     */
+    public static SourceInfoUpdate of(@NotNull SourceInfo info, int fields) {
+        SourceInfoUpdate update = new SourceInfoUpdate();
+        update.id = info.getId();
+        update.state = info.getState();
+        update.fields = fields;
+
+        update.lineId = info.getLineId();
+        update.stereo = info.isStereo();
+        update.iconVisible = info.isIconVisible();
+        update.angle = info.getAngle();
+
+        if (info instanceof StaticSourceInfo) {
+            StaticSourceInfo staticInfo = (StaticSourceInfo) info;
+            update.position = staticInfo.getPosition();
+            update.lookAngle = staticInfo.getLookAngle();
+        } else if (info instanceof DirectSourceInfo) {
+            DirectSourceInfo directInfo = (DirectSourceInfo) info;
+            update.lookAngle = directInfo.getLookAngle();
+            update.senderId = directInfo.getSenderId();
+            update.relativePosition = directInfo.getRelativePosition();
+            update.cameraRelative = directInfo.isCameraRelative();
+        }
+
+        return update;
+    }
+
+    @Getter
+    private UUID id;
+    @Getter
+    private byte state;
+    @Getter
+    private int fields;
+
+    private UUID lineId;
+    private boolean stereo;
+    private boolean iconVisible;
+    private int angle;
+    private @Nullable Pos3d position;
+    private @Nullable Pos3d lookAngle;
+    private @Nullable UUID senderId;
+    private @Nullable Pos3d relativePosition;
+    private boolean cameraRelative = true;
+
+    public boolean has(int field) {
+        return (fields & field) != 0;
+    }
+
+    /**
+     * Creates the new source info with the changed fields
+     *
+     * @return new source info, the old one is not modified
+     */
+    public @NotNull SourceInfo apply(@NotNull SourceInfo info) {
+        SourceInfo updated;
+        if (info instanceof PlayerSourceInfo) {
+            updated = new PlayerSourceInfo(
+                    info.addonId, info.id, info.lineId, state, info.codec, info.stereo, info.iconVisible, info.angle,
+                    ((PlayerSourceInfo) info).getPlayerInfo()
+            );
+        } else if (info instanceof EntitySourceInfo) {
+            updated = new EntitySourceInfo(
+                    info.addonId, info.id, info.lineId, state, info.codec, info.stereo, info.iconVisible, info.angle,
+                    ((EntitySourceInfo) info).getEntityId()
+            );
+        } else if (info instanceof StaticSourceInfo) {
+            StaticSourceInfo staticInfo = (StaticSourceInfo) info;
+            updated = new StaticSourceInfo(
+                    info.addonId, info.id, info.lineId, state, info.codec, info.stereo, info.iconVisible, info.angle,
+                    has(POSITION) ? position : staticInfo.getPosition(),
+                    has(LOOK_ANGLE) ? lookAngle : staticInfo.getLookAngle()
+            );
+        } else if (info instanceof DirectSourceInfo) {
+            DirectSourceInfo directInfo = (DirectSourceInfo) info;
+            updated = new DirectSourceInfo(
+                    info.addonId, info.id, info.lineId, state, info.codec, info.stereo, info.iconVisible, info.angle,
+                    has(SENDER) ? senderId : directInfo.getSenderId(),
+                    has(RELATIVE_POSITION) ? relativePosition : directInfo.getRelativePosition(),
+                    has(LOOK_ANGLE) ? lookAngle : directInfo.getLookAngle(),
+                    has(CAMERA_RELATIVE) ? cameraRelative : directInfo.isCameraRelative()
+            );
+        } else {
+            throw new IllegalArgumentException("Invalid source type");
+        }
+
+        if (has(LINE)) updated.lineId = lineId;
+        if (has(STEREO)) updated.stereo = stereo;
+        if (has(ICON_VISIBLE)) updated.iconVisible = iconVisible;
+        if (has(ANGLE)) updated.angle = angle;
+
+        return updated;
+    }
+
+    @Override
+    public void deserialize(ByteArrayDataInput in) {
+        this.id = PacketUtil.readUUID(in);
+        this.state = in.readByte();
+        this.fields = PacketUtil.readVarInt(in);
+
+        if (has(LINE)) this.lineId = PacketUtil.readUUID(in);
+        if (has(STEREO)) this.stereo = in.readBoolean();
+        if (has(ICON_VISIBLE)) this.iconVisible = in.readBoolean();
+        if (has(ANGLE)) this.angle = in.readInt();
+        if (has(POSITION)) this.position = readPos(in);
+        if (has(LOOK_ANGLE)) this.lookAngle = readPos(in);
+        if (has(SENDER) && in.readBoolean()) this.senderId = PacketUtil.readUUID(in);
+        if (has(RELATIVE_POSITION)) this.relativePosition = readPos(in);
+        if (has(CAMERA_RELATIVE)) this.cameraRelative = in.readBoolean();
+    }
+
+    @Override
+    public void serialize(ByteArrayDataOutput out) {
+        PacketUtil.writeUUID(out, checkNotNull(id, "id"));
+        out.writeByte(state);
+        PacketUtil.writeVarInt(out, fields);
+
+        if (has(LINE)) PacketUtil.writeUUID(out, checkNotNull(lineId, "lineId"));
+        if (has(STEREO)) out.writeBoolean(stereo);
+        if (has(ICON_VISIBLE)) out.writeBoolean(iconVisible);
+        if (has(ANGLE)) out.writeInt(angle);
+        if (has(POSITION)) writePos(out, position);
+        if (has(LOOK_ANGLE)) writePos(out, lookAngle);
+        if (has(SENDER)) {
+            out.writeBoolean(senderId != null);
+            if (senderId != null) PacketUtil.writeUUID(out, senderId);
+        }
+        if (has(RELATIVE_POSITION)) writePos(out, relativePosition);
+        if (has(CAMERA_RELATIVE)) out.writeBoolean(cameraRelative);
+    }
+
+    private static @Nullable Pos3d readPos(ByteArrayDataInput in) {
+        if (!in.readBoolean()) return null;
+
+        Pos3d pos = new Pos3d();
+        pos.deserialize(in);
+        return pos;
+    }
+
+    private static void writePos(ByteArrayDataOutput out, @Nullable Pos3d pos) {
+        out.writeBoolean(pos != null);
+        if (pos != null) pos.serialize(out);
+    }
+}
@@ -0,0 +1,121 @@
+package su.plo.voice.proto.packets;
+
+import com.google.common.io.ByteArrayDataInput;
+import io.netty.buffer.ByteBuf;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * {@link ByteArrayDataInput} reading straight from the {@link ByteBuf}
+ * <p>
+ * Doesn't retain or release the buffer
+ */
+@RequiredArgsConstructor
+public final class ByteBufDataInput implements ByteArrayDataInput {
+
+    private final @NotNull ByteBuf buf;
+
+    @Override
+    public void readFully(byte[] bytes) {
+        buf.readBytes(bytes);
+    }
+
+    @Override
+    public void readFully(byte[] bytes, int off, int len) {
+        buf.readBytes(bytes, off, len);
+    }
+
+    @Override
+    public int skipBytes(int n) {
+        int skipped = Math.min(n, buf.readableBytes());
+        buf.skipBytes(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() {
+        return buf.readBoolean();
+    }
+
+    @Override
+    public byte readByte() {
+        return buf.readByte();
+    }
+
+    @Override
+    public int readUnsignedByte() {
+        return buf.readUnsignedByte();
+    }
+
+    @Override
+    public short readShort() {
+        return buf.readShort();
+    }
+
+    @Override
+    public int readUnsignedShort() {
+        return buf.readUnsignedShort();
+    }
+
+    @Override
+    public char readChar() {
+        return buf.readChar();
+    }
+
+    @Override
+    public int readInt() {
+        return buf.readInt();
+    }
+
+    @Override
+    public long readLong() {
+        return buf.readLong();
+    }
+
+    @Override
+    public float readFloat() {
+        return buf.readFloat();
+    }
+
+    @Override
+    public double readDouble() {
+        return buf.readDouble();
+    }
+
+    /**
+     * Reads the line like {@link DataInputStream#readLine()},
+     * bytes are converted to the chars without the charset
+     *
+     * @return the line without the terminator or null if there are no bytes left
+     */
+    @Override
+    public String readLine() {
+        if (!buf.isReadable()) return null;
+
+        StringBuilder line = new StringBuilder();
+        while (buf.isReadable()) {
+            char c = (char) buf.readUnsignedByte();
+            if (c == '\n') break;
+            if (c == '\r') {
+                if (buf.isReadable() && buf.getByte(buf.readerIndex()) == '\n') buf.skipBytes(1);
+                break;
+            }
+
+            line.append(c);
+        }
+
+        return line.toString();
+    }
+
+    @Override
+    public @NotNull String readUTF() {
+        try {
+            return DataInputStream.readUTF(this);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
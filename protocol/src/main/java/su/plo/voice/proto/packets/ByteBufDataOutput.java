@@ -0,0 +1,128 @@
+package su.plo.voice.proto.packets;
+
+import com.google.common.io.ByteArrayDataOutput;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * {@link ByteArrayDataOutput} writing straight into the {@link ByteBuf}
+ * <p>
+ * Doesn't retain or release the buffer
+ */
+@RequiredArgsConstructor
+public final class ByteBufDataOutput implements ByteArrayDataOutput {
+
+    private final @NotNull ByteBuf buf;
+
+    @Override
+    public void write(int b) {
+        buf.writeByte(b);
+    }
+
+    @Override
+    public void write(byte[] b) {
+        buf.writeBytes(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        buf.writeBytes(b, off, len);
+    }
+
+    @Override
+    public void writeBoolean(boolean v) {
+        buf.writeBoolean(v);
+    }
+
+    @Override
+    public void writeByte(int v) {
+        buf.writeByte(v);
+    }
+
+    @Override
+    public void writeShort(int v) {
+        buf.writeShort(v);
+    }
+
+    @Override
+    public void writeChar(int v) {
+        buf.writeChar(v);
+    }
+
+    @Override
+    public void writeInt(int v) {
+        buf.writeInt(v);
+    }
+
+    @Override
+    public void writeLong(long v) {
+        buf.writeLong(v);
+    }
+
+    @Override
+    public void writeFloat(float v) {
+        buf.writeFloat(v);
+    }
+
+    @Override
+    public void writeDouble(double v) {
+        buf.writeDouble(v);
+    }
+
+    @Override
+    public void writeChars(@NotNull String s) {
+        for (int i = 0; i < s.length(); i++) {
+            buf.writeChar(s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeUTF(@NotNull String s) {
+        // modified UTF-8, same as DataOutput#writeUTF
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                length++;
+            } else if (c > 0x07FF) {
+                length += 3;
+            } else {
+                length += 2;
+            }
+        }
+
+        if (length > 65535) throw new IllegalArgumentException("Encoded string is too long: " + length + " bytes");
+
+        buf.ensureWritable(2 + length);
+        buf.writeShort(length);
+
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                buf.writeByte(c);
+            } else if (c > 0x07FF) {
+                buf.writeByte(0xE0 | ((c >> 12) & 0x0F));
+                buf.writeByte(0x80 | ((c >> 6) & 0x3F));
+                buf.writeByte(0x80 | (c & 0x3F));
+            } else {
+                buf.writeByte(0xC0 | ((c >> 6) & 0x1F));
+                buf.writeByte(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    @Override
+    @Deprecated
+    public void writeBytes(@NotNull String s) {
+        for (int i = 0; i < s.length(); i++) {
+            buf.writeByte(s.charAt(i));
+        }
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        return ByteBufUtil.getBytes(buf);
+    }
+}
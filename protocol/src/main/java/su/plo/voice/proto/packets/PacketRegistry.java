@@ -1,29 +1,49 @@
 package su.plo.voice.proto.packets;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public class PacketRegistry {
 
-    private final Map<Integer, Class<? extends Packet<?>>> packets = new HashMap<>();
-    private final Map<Class<? extends Packet<?>>, Integer> packetIdByType = new HashMap<>();
+    private Supplier<? extends Packet<?>>[] factories = newFactories(0);
+    private final Map<Class<?>, Integer> packetIdByType = new IdentityHashMap<>();
 
-    public void register(int packetId, Class<? extends Packet<?>> clazz) {
-        packets.put(packetId, clazz);
+    public <T extends Packet<?>> void register(int packetId, Class<T> clazz, Supplier<T> factory) {
+        if (packetId < 0) throw new IllegalArgumentException("packetId should be positive");
+
+        if (packetId >= factories.length) {
+            this.factories = Arrays.copyOf(factories, packetId + 1);
+        }
+
+        factories[packetId] = factory;
         packetIdByType.put(clazz, packetId);
     }
 
-    public Packet<?> byType(int type) {
-        Class<? extends Packet<?>> clazz = packets.get(type);
-        if (clazz != null) {
+    /**
+     * @deprecated packets are created by reflection, use {@link #register(int, Class, Supplier)}
+     */
+    @Deprecated
+    @SuppressWarnings("unchecked")
+    public void register(int packetId, Class<? extends Packet<?>> clazz) {
+        register(packetId, (Class<Packet<?>>) clazz, () -> {
             try {
                 return clazz.getDeclaredConstructor().newInstance();
             } catch (Exception e) {
                 e.printStackTrace();
+                return null;
             }
-        }
+        });
+    }
+
+    public Packet<?> byType(int type) {
+        if (type < 0 || type >= factories.length) return null;
 
-        return null;
+        Supplier<? extends Packet<?>> factory = factories[type];
+        if (factory == null) return null;
+
+        return factory.get();
     }
 
     public int getType(Packet<?> packet) {
@@ -32,4 +52,9 @@ public class PacketRegistry {
 
         return id;
     }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<? extends Packet<?>>[] newFactories(int size) {
+        return (Supplier<? extends Packet<?>>[]) new Supplier[size];
+    }
 }
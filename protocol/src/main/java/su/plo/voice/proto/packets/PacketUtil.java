@@ -43,6 +43,78 @@ public class PacketUtil {
         return null;
     }
 
+    /**
+     * Writes the unsigned var int, values below 128 take a single byte
+     */
+    public static void writeVarInt(ByteArrayDataOutput out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.writeByte(value);
+    }
+
+    public static int readVarInt(ByteArrayDataInput in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) return value;
+        }
+
+        throw new IllegalArgumentException("VarInt is too big");
+    }
+
+    public static void writeVarLong(ByteArrayDataOutput out, long value) {
+        while ((value & ~0x7FL) != 0L) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.writeByte((int) value);
+    }
+
+    public static long readVarLong(ByteArrayDataInput in) {
+        long value = 0L;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) return value;
+        }
+
+        throw new IllegalArgumentException("VarLong is too big");
+    }
+
+    /**
+     * Reads the var int appended to the end of the packet by the newer versions
+     *
+     * @return read value or the default value if the packet was sent by the older version
+     */
+    public static int readTrailingVarInt(ByteArrayDataInput in, int defaultValue) {
+        try {
+            return readVarInt(in);
+        } catch (IllegalStateException | IndexOutOfBoundsException e) {
+            // byte array input throws IllegalStateException on EOF, netty buffer throws IndexOutOfBoundsException
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads the var long appended to the end of the packet by the newer versions
+     *
+     * @return read value or the default value if the packet was sent by the older version
+     */
+    public static long readTrailingVarLong(ByteArrayDataInput in, long defaultValue) {
+        try {
+            return readVarLong(in);
+        } catch (IllegalStateException | IndexOutOfBoundsException e) {
+            return defaultValue;
+        }
+    }
+
     private PacketUtil() {
     }
 }
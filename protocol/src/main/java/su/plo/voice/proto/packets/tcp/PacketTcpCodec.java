@@ -19,33 +19,38 @@ public class PacketTcpCodec {
     static {
         int lastPacketId = 0x0;
 
-        PACKETS.register(++lastPacketId, ConnectionPacket.class);
-        PACKETS.register(++lastPacketId, PlayerInfoRequestPacket.class);
-        PACKETS.register(++lastPacketId, ConfigPacket.class);
-        PACKETS.register(++lastPacketId, ConfigPlayerInfoPacket.class);
-
-        PACKETS.register(++lastPacketId, PlayerListPacket.class);
-        PACKETS.register(++lastPacketId, PlayerInfoUpdatePacket.class);
-        PACKETS.register(++lastPacketId, PlayerDisconnectPacket.class);
-        PACKETS.register(++lastPacketId, PlayerInfoPacket.class);
-        PACKETS.register(++lastPacketId, PlayerStatePacket.class);
-        PACKETS.register(++lastPacketId, PlayerAudioEndPacket.class);
-        PACKETS.register(++lastPacketId, PlayerActivationDistancesPacket.class);
-
-        PACKETS.register(++lastPacketId, DistanceVisualizePacket.class);
-
-        PACKETS.register(++lastPacketId, SourceInfoRequestPacket.class);
-        PACKETS.register(++lastPacketId, SourceInfoPacket.class);
-        PACKETS.register(++lastPacketId, SourceAudioEndPacket.class);
-
-        PACKETS.register(++lastPacketId, ActivationRegisterPacket.class);
-        PACKETS.register(++lastPacketId, ActivationUnregisterPacket.class);
-
-        PACKETS.register(++lastPacketId, SourceLineRegisterPacket.class);
-        PACKETS.register(++lastPacketId, SourceLineUnregisterPacket.class);
-        PACKETS.register(++lastPacketId, SourceLinePlayerAddPacket.class);
-        PACKETS.register(++lastPacketId, SourceLinePlayerRemovePacket.class);
-        PACKETS.register(++lastPacketId, SourceLinePlayersClearPacket.class);
+        PACKETS.register(++lastPacketId, ConnectionPacket.class, ConnectionPacket::new);
+        PACKETS.register(++lastPacketId, PlayerInfoRequestPacket.class, PlayerInfoRequestPacket::new);
+        PACKETS.register(++lastPacketId, ConfigPacket.class, ConfigPacket::new);
+        PACKETS.register(++lastPacketId, ConfigPlayerInfoPacket.class, ConfigPlayerInfoPacket::new);
+
+        PACKETS.register(++lastPacketId, PlayerListPacket.class, PlayerListPacket::new);
+        PACKETS.register(++lastPacketId, PlayerInfoUpdatePacket.class, PlayerInfoUpdatePacket::new);
+        PACKETS.register(++lastPacketId, PlayerDisconnectPacket.class, PlayerDisconnectPacket::new);
+        PACKETS.register(++lastPacketId, PlayerInfoPacket.class, PlayerInfoPacket::new);
+        PACKETS.register(++lastPacketId, PlayerStatePacket.class, PlayerStatePacket::new);
+        PACKETS.register(++lastPacketId, PlayerAudioEndPacket.class, PlayerAudioEndPacket::new);
+        PACKETS.register(++lastPacketId, PlayerActivationDistancesPacket.class, PlayerActivationDistancesPacket::new);
+
+        PACKETS.register(++lastPacketId, DistanceVisualizePacket.class, DistanceVisualizePacket::new);
+
+        PACKETS.register(++lastPacketId, SourceInfoRequestPacket.class, SourceInfoRequestPacket::new);
+        PACKETS.register(++lastPacketId, SourceInfoPacket.class, SourceInfoPacket::new);
+        PACKETS.register(++lastPacketId, SourceAudioEndPacket.class, SourceAudioEndPacket::new);
+
+        PACKETS.register(++lastPacketId, ActivationRegisterPacket.class, ActivationRegisterPacket::new);
+        PACKETS.register(++lastPacketId, ActivationUnregisterPacket.class, ActivationUnregisterPacket::new);
+
+        PACKETS.register(++lastPacketId, SourceLineRegisterPacket.class, SourceLineRegisterPacket::new);
+        PACKETS.register(++lastPacketId, SourceLineUnregisterPacket.class, SourceLineUnregisterPacket::new);
+        PACKETS.register(++lastPacketId, SourceLinePlayerAddPacket.class, SourceLinePlayerAddPacket::new);
+        PACKETS.register(++lastPacketId, SourceLinePlayerRemovePacket.class, SourceLinePlayerRemovePacket::new);
+        PACKETS.register(++lastPacketId, SourceLinePlayersClearPacket.class, SourceLinePlayersClearPacket::new);
+
+        // registered last, so ids of the packets above are the same for the older versions
+        PACKETS.register(++lastPacketId, SourceInfoUpdatePacket.class, SourceInfoUpdatePacket::new);
+        PACKETS.register(++lastPacketId, SourceRemovePacket.class, SourceRemovePacket::new);
+        PACKETS.register(++lastPacketId, BundlePacket.class, BundlePacket::new);
     }
 
     public static byte[] encode(Packet<?> packet) {
@@ -0,0 +1,56 @@
+package su.plo.voice.proto.packets.tcp.clientbound;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.PacketUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Packets encoded by PacketTcpCodec sent in one plugin message,
+ * client handles them in the same order
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public final class BundlePacket implements Packet<ClientPacketTcpHandler> {
+
+    @Getter
+    private List<byte[]> packets;
+
+    @Override
+    public void read(ByteArrayDataInput in) throws IOException {
+        int size = PacketUtil.readVarInt(in);
+        this.packets = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            byte[] packet = new byte[PacketUtil.readVarInt(in)];
+            in.readFully(packet);
+            packets.add(packet);
+        }
+    }
+
+    @Override
+    public void write(ByteArrayDataOutput out) throws IOException {
+        checkNotNull(packets, "packets");
+        PacketUtil.writeVarInt(out, packets.size());
+        for (byte[] packet : packets) {
+            PacketUtil.writeVarInt(out, packet.length);
+            out.write(packet);
+        }
+    }
+
+    @Override
+    public void handle(ClientPacketTcpHandler handler) {
+        handler.handle(this);
+    }
+}
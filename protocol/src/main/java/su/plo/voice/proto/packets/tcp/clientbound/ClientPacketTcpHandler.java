@@ -23,6 +23,12 @@ public interface ClientPacketTcpHandler extends PacketTcpHandler {
 
     void handle(@NotNull SourceInfoPacket packet);
 
+    void handle(@NotNull SourceInfoUpdatePacket packet);
+
+    void handle(@NotNull SourceRemovePacket packet);
+
+    void handle(@NotNull BundlePacket packet);
+
     void handle(@NotNull SourceLineRegisterPacket packet);
 
     void handle(@NotNull SourceLineUnregisterPacket packet);
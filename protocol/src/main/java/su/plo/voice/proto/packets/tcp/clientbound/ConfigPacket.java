@@ -23,6 +23,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @ToString
 public final class ConfigPacket extends ConfigPlayerInfoPacket {
 
+    // server accepts SourceFeedbackPacket
+    public static final int FEATURE_SOURCE_FEEDBACK = 1;
+
     @Getter
     private UUID serverId;
     @Getter
@@ -31,13 +34,17 @@ public final class ConfigPacket extends ConfigPlayerInfoPacket {
     private @Nullable EncryptionInfo encryption;
     private List<VoiceSourceLine> sourceLines;
     private List<VoiceActivation> activations;
+    // protocol features supported by the server, 0 for the older versions
+    @Getter
+    private int features;
 
     public ConfigPacket(@NotNull UUID serverId,
                         @NotNull CaptureInfo codec,
                         @Nullable EncryptionInfo encryption,
                         @NotNull List<VoiceSourceLine> sourceLines,
                         @NotNull List<VoiceActivation> activations,
-                        @NotNull Map<String, Boolean> permissions) {
+                        @NotNull Map<String, Boolean> permissions,
+                        int features) {
         super(permissions);
 
         this.serverId = serverId;
@@ -45,6 +52,11 @@ public final class ConfigPacket extends ConfigPlayerInfoPacket {
         this.encryption = encryption;
         this.sourceLines = sourceLines;
         this.activations = activations;
+        this.features = features;
+    }
+
+    public boolean hasFeature(int feature) {
+        return (features & feature) != 0;
     }
 
     public Collection<VoiceSourceLine> getSourceLines() {
@@ -86,6 +98,8 @@ public final class ConfigPacket extends ConfigPlayerInfoPacket {
         }
 
         super.read(in);
+
+        this.features = PacketUtil.readTrailingVarInt(in, 0);
     }
 
     @Override
@@ -107,6 +121,8 @@ public final class ConfigPacket extends ConfigPlayerInfoPacket {
         activations.forEach(activation -> activation.serialize(out));
 
         super.write(out);
+
+        PacketUtil.writeVarInt(out, features);
     }
 
     @Override
@@ -25,12 +25,20 @@ public final class ConnectionPacket implements Packet<ClientPacketTcpHandler> {
     private String ip;
     @Getter
     private int port;
+    // id of the compact udp session, 0 if the server doesn't support the compact format
+    @Getter
+    private int sessionId;
+
+    public ConnectionPacket(UUID secret, String ip, int port) {
+        this(secret, ip, port, 0);
+    }
 
     @Override
     public void read(ByteArrayDataInput in) throws IOException {
         this.secret = PacketUtil.readUUID(in);
         this.ip = in.readUTF();
         this.port = in.readInt();
+        this.sessionId = PacketUtil.readTrailingVarInt(in, 0);
     }
 
     @Override
@@ -41,6 +49,8 @@ public final class ConnectionPacket implements Packet<ClientPacketTcpHandler> {
         PacketUtil.writeUUID(out, secret);
         out.writeUTF(ip);
         out.writeInt(port);
+        // older clients don't read the session id, so it's ignored by them
+        PacketUtil.writeVarInt(out, sessionId);
     }
 
     @Override
@@ -21,15 +21,26 @@ public final class PlayerDisconnectPacket implements Packet<ClientPacketTcpHandl
 
     @Getter
     private UUID playerId;
+    // roster version of the change, 0 for the older versions
+    @Getter
+    private long version;
+
+    public PlayerDisconnectPacket(UUID playerId) {
+        this(playerId, 0L);
+    }
 
     @Override
     public void read(ByteArrayDataInput in) throws IOException {
         this.playerId = PacketUtil.readUUID(in);
+
+        this.version = PacketUtil.readTrailingVarLong(in, 0L);
     }
 
     @Override
     public void write(ByteArrayDataOutput out) throws IOException {
         PacketUtil.writeUUID(out, checkNotNull(playerId));
+
+        PacketUtil.writeVarLong(out, version);
     }
 
     @Override
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 import su.plo.voice.proto.data.player.VoicePlayerInfo;
 import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.PacketUtil;
 
 import java.io.IOException;
 
@@ -18,16 +19,27 @@ public final class PlayerInfoUpdatePacket implements Packet<ClientPacketTcpHandl
 
     @Getter
     private VoicePlayerInfo playerInfo;
+    // roster version of the change, 0 for the older versions
+    @Getter
+    private long version;
+
+    public PlayerInfoUpdatePacket(VoicePlayerInfo playerInfo) {
+        this(playerInfo, 0L);
+    }
 
     @Override
     public void read(ByteArrayDataInput in) throws IOException {
         this.playerInfo = new VoicePlayerInfo();
         playerInfo.deserialize(in);
+
+        this.version = PacketUtil.readTrailingVarLong(in, 0L);
     }
 
     @Override
     public void write(ByteArrayDataOutput out) throws IOException {
         playerInfo.serialize(out);
+
+        PacketUtil.writeVarLong(out, version);
     }
 
     @Override
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 import su.plo.voice.proto.data.player.VoicePlayerInfo;
 import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.PacketUtil;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -15,6 +16,11 @@ import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+/**
+ * Players connected to the voice chat
+ * <p>
+ * Large lists are sent in the multiple packets, every packet adds its players to the list on the client
+ */
 @AllArgsConstructor
 @NoArgsConstructor
 @ToString
@@ -22,6 +28,16 @@ public final class PlayerListPacket implements Packet<ClientPacketTcpHandler> {
 
     @Getter
     private List<VoicePlayerInfo> players;
+    // roster versions of the players, 0 for the older versions
+    private long[] versions;
+
+    public PlayerListPacket(List<VoicePlayerInfo> players) {
+        this(players, new long[players.size()]);
+    }
+
+    public long getVersion(int index) {
+        return versions[index];
+    }
 
     @Override
     public void read(ByteArrayDataInput in) throws IOException {
@@ -33,13 +49,20 @@ public final class PlayerListPacket implements Packet<ClientPacketTcpHandler> {
             player.deserialize(in);
             players.add(player);
         }
+
+        this.versions = new long[size];
+        for (int i = 0; i < size; i++) {
+            versions[i] = PacketUtil.readTrailingVarLong(in, 0L);
+        }
     }
 
     @Override
     public void write(ByteArrayDataOutput out) throws IOException {
         checkNotNull(players, "players");
+        checkNotNull(versions, "versions");
         out.writeInt(players.size());
         for (VoicePlayerInfo player : players) player.serialize(out);
+        for (long version : versions) PacketUtil.writeVarLong(out, version);
     }
 
     @Override
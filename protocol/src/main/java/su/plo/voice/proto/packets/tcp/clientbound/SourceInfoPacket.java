@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 import su.plo.voice.proto.data.audio.source.SourceInfo;
 import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.PacketUtil;
 
 import java.io.IOException;
 
@@ -20,15 +21,24 @@ public final class SourceInfoPacket implements Packet<ClientPacketTcpHandler> {
 
     @Getter
     private SourceInfo sourceInfo;
+    // short id of the source used by the compact udp packets, 0 if the source doesn't have it
+    @Getter
+    private int sourceHandle;
+
+    public SourceInfoPacket(SourceInfo sourceInfo) {
+        this(sourceInfo, 0);
+    }
 
     @Override
     public void read(ByteArrayDataInput in) throws IOException {
         this.sourceInfo = SourceInfo.of(in);
+        this.sourceHandle = PacketUtil.readTrailingVarInt(in, 0);
     }
 
     @Override
     public void write(ByteArrayDataOutput out) throws IOException {
         checkNotNull(sourceInfo).serialize(out);
+        PacketUtil.writeVarInt(out, sourceHandle);
     }
 
     @Override
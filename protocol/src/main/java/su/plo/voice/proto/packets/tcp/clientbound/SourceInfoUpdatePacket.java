@@ -0,0 +1,53 @@
+package su.plo.voice.proto.packets.tcp.clientbound;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import su.plo.voice.proto.data.audio.source.SourceInfoUpdate;
+import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.PacketUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Changed fields of the sources since the last server tick
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public final class SourceInfoUpdatePacket implements Packet<ClientPacketTcpHandler> {
+
+    @Getter
+    private List<SourceInfoUpdate> updates;
+
+    @Override
+    public void read(ByteArrayDataInput in) throws IOException {
+        int size = PacketUtil.readVarInt(in);
+        this.updates = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            SourceInfoUpdate update = new SourceInfoUpdate();
+            update.deserialize(in);
+            updates.add(update);
+        }
+    }
+
+    @Override
+    public void write(ByteArrayDataOutput out) throws IOException {
+        checkNotNull(updates, "updates");
+        PacketUtil.writeVarInt(out, updates.size());
+        for (SourceInfoUpdate update : updates) update.serialize(out);
+    }
+
+    @Override
+    public void handle(ClientPacketTcpHandler handler) {
+        handler.handle(this);
+    }
+}
@@ -0,0 +1,52 @@
+package su.plo.voice.proto.packets.tcp.clientbound;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.PacketUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Sources which left the listener's interest range or were removed,
+ * client closes them and frees their state
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public final class SourceRemovePacket implements Packet<ClientPacketTcpHandler> {
+
+    @Getter
+    private List<UUID> sourceIds;
+
+    @Override
+    public void read(ByteArrayDataInput in) throws IOException {
+        int size = PacketUtil.readVarInt(in);
+        this.sourceIds = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            sourceIds.add(PacketUtil.readUUID(in));
+        }
+    }
+
+    @Override
+    public void write(ByteArrayDataOutput out) throws IOException {
+        checkNotNull(sourceIds, "sourceIds");
+        PacketUtil.writeVarInt(out, sourceIds.size());
+        for (UUID sourceId : sourceIds) PacketUtil.writeUUID(out, sourceId);
+    }
+
+    @Override
+    public void handle(ClientPacketTcpHandler handler) {
+        handler.handle(this);
+    }
+}
@@ -6,6 +6,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.jetbrains.annotations.NotNull;
+import su.plo.voice.proto.packets.PacketUtil;
 
 import java.io.IOException;
 
@@ -15,19 +16,35 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @ToString(callSuper = true)
 public final class PlayerInfoPacket extends PlayerStatePacket {
 
+    // client applies SourceInfoUpdatePacket
+    public static final int FEATURE_SOURCE_INFO_UPDATE = 1;
+    // client accepts the pushed source info of the sources in range and applies SourceRemovePacket
+    public static final int FEATURE_SOURCE_INTEREST = 1 << 1;
+    // client handles BundlePacket
+    public static final int FEATURE_PACKET_BUNDLE = 1 << 2;
+
     @Getter
     private String version;
     @Getter
     private byte[] publicKey;
+    // protocol features supported by the client, 0 for the older versions
+    @Getter
+    private int features;
 
     public PlayerInfoPacket(@NotNull String version,
                             byte[] publicKey,
                             boolean voiceDisabled,
-                            boolean microphoneDisabled) {
+                            boolean microphoneDisabled,
+                            int features) {
         super(voiceDisabled, microphoneDisabled);
 
         this.version = version;
         this.publicKey = checkNotNull(publicKey, "publicKey");
+        this.features = features;
+    }
+
+    public boolean hasFeature(int feature) {
+        return (features & feature) != 0;
     }
 
     @Override
@@ -38,6 +55,8 @@ public final class PlayerInfoPacket extends PlayerStatePacket {
 
         this.publicKey = new byte[in.readInt()];
         in.readFully(publicKey);
+
+        this.features = PacketUtil.readTrailingVarInt(in, 0);
     }
 
     @Override
@@ -49,6 +68,8 @@ public final class PlayerInfoPacket extends PlayerStatePacket {
         checkNotNull(publicKey);
         out.writeInt(publicKey.length);
         out.write(publicKey);
+
+        PacketUtil.writeVarInt(out, features);
     }
 
     @Override
@@ -19,17 +19,35 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @ToString
 public class SourceInfoRequestPacket implements Packet<ServerPacketTcpHandler> {
 
+    // id sent with the handle requests, older servers don't find the source and ignore the request
+    private static final UUID UNKNOWN_SOURCE_ID = new UUID(0L, 0L);
+
     @Getter
     private UUID sourceId;
+    // handle of the compact audio packet if the source id is unknown, 0 otherwise
+    @Getter
+    private int sourceHandle;
+
+    public SourceInfoRequestPacket(UUID sourceId) {
+        this(sourceId, 0);
+    }
+
+    public SourceInfoRequestPacket(int sourceHandle) {
+        this(UNKNOWN_SOURCE_ID, sourceHandle);
+    }
 
     @Override
     public void read(ByteArrayDataInput in) throws IOException {
         this.sourceId = PacketUtil.readUUID(in);
+
+        this.sourceHandle = PacketUtil.readTrailingVarInt(in, 0);
     }
 
     @Override
     public void write(ByteArrayDataOutput out) throws IOException {
         PacketUtil.writeUUID(out, checkNotNull(sourceId));
+
+        PacketUtil.writeVarInt(out, sourceHandle);
     }
 
     @Override
@@ -0,0 +1,18 @@
+package su.plo.voice.proto.packets.udp;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+
+import java.io.IOException;
+
+/**
+ * UDP packet with the smaller layout used by the compact wire format
+ * <p>
+ * Packets without the compact layout are written the same way in both formats
+ */
+public interface CompactUdpPacket {
+
+    void readCompact(ByteArrayDataInput in) throws IOException;
+
+    void writeCompact(ByteArrayDataOutput out) throws IOException;
+}
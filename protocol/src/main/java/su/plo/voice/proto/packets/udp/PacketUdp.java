@@ -1,5 +1,6 @@
 package su.plo.voice.proto.packets.udp;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import su.plo.voice.proto.packets.Packet;
 import su.plo.voice.proto.packets.PacketHandler;
@@ -7,14 +8,39 @@ import su.plo.voice.proto.packets.PacketHandler;
 import java.util.UUID;
 
 @Data
+@AllArgsConstructor
 public class PacketUdp {
 
     public static final int TTL = 2_000;
 
-    private final UUID secret;
+    // secret is kept as raw bits, so the connection can be found without allocating UUID
+    private final long secretMostBits;
+    private final long secretLeastBits;
+    // compact packets carry the session id instead of the secret, 0 for the full packets
+    private final int sessionId;
     private final long timestamp;
     private final Packet<?> packet;
 
+    public PacketUdp(long secretMostBits, long secretLeastBits, long timestamp, Packet<?> packet) {
+        this(secretMostBits, secretLeastBits, 0, timestamp, packet);
+    }
+
+    public PacketUdp(UUID secret, long timestamp, Packet<?> packet) {
+        this(secret.getMostSignificantBits(), secret.getLeastSignificantBits(), timestamp, packet);
+    }
+
+    public PacketUdp(int sessionId, long timestamp, Packet<?> packet) {
+        this(0L, 0L, sessionId, timestamp, packet);
+    }
+
+    public boolean isCompact() {
+        return sessionId != 0;
+    }
+
+    public UUID getSecret() {
+        return new UUID(secretMostBits, secretLeastBits);
+    }
+
     public <T extends PacketHandler> Packet<T> getPacket() {
         return (Packet<T>) packet;
     }
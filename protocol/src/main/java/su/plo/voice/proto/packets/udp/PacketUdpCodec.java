@@ -3,13 +3,19 @@ package su.plo.voice.proto.packets.udp;
 import com.google.common.io.ByteArrayDataInput;
 import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import su.plo.voice.proto.packets.ByteBufDataInput;
+import su.plo.voice.proto.packets.ByteBufDataOutput;
 import su.plo.voice.proto.packets.Packet;
 import su.plo.voice.proto.packets.PacketRegistry;
 import su.plo.voice.proto.packets.PacketUtil;
 import su.plo.voice.proto.packets.udp.bothbound.CustomPacket;
 import su.plo.voice.proto.packets.udp.bothbound.PingPacket;
+import su.plo.voice.proto.packets.udp.clientbound.EncoderBitratePacket;
 import su.plo.voice.proto.packets.udp.clientbound.SourceAudioPacket;
 import su.plo.voice.proto.packets.udp.serverbound.PlayerAudioPacket;
+import su.plo.voice.proto.packets.udp.serverbound.SourceFeedbackPacket;
 
 import java.io.IOException;
 import java.util.Optional;
@@ -18,16 +24,24 @@ import java.util.UUID;
 public class PacketUdpCodec {
 
     // magic number is used to filter packets received not from PV
-    private static final int MAGIC_NUMBER = 0x4e9004e9;
+    public static final int MAGIC_NUMBER = 0x4e9004e9;
+    // magic number, packet type, secret and timestamp
+    public static final int HEADER_SIZE = 4 + 1 + 16 + 8;
+    // compact packets start with the shorter magic number, it differs from the first half of the full one
+    public static final short COMPACT_MAGIC_NUMBER = 0x4ea2;
+    // magic number, packet type, session id and truncated timestamp
+    public static final int MAX_COMPACT_HEADER_SIZE = 2 + 1 + 5 + 2;
     private static final PacketRegistry PACKETS = new PacketRegistry();
 
     static {
         int lastPacketId = 0x0;
 
-        PACKETS.register(++lastPacketId, PingPacket.class);
-        PACKETS.register(++lastPacketId, PlayerAudioPacket.class);
-        PACKETS.register(++lastPacketId, SourceAudioPacket.class);
-        PACKETS.register(0x100, CustomPacket.class);
+        PACKETS.register(++lastPacketId, PingPacket.class, PingPacket::new);
+        PACKETS.register(++lastPacketId, PlayerAudioPacket.class, PlayerAudioPacket::new);
+        PACKETS.register(++lastPacketId, SourceAudioPacket.class, SourceAudioPacket::new);
+        PACKETS.register(++lastPacketId, SourceFeedbackPacket.class, SourceFeedbackPacket::new);
+        PACKETS.register(++lastPacketId, EncoderBitratePacket.class, EncoderBitratePacket::new);
+        PACKETS.register(0x100, CustomPacket.class, CustomPacket::new);
     }
 
     public static byte[] encode(Packet<?> packet, UUID secret) {
@@ -50,21 +64,148 @@ public class PacketUdpCodec {
         return out.toByteArray();
     }
 
+    /**
+     * Encodes the packet into the pooled direct buffer
+     *
+     * @return encoded packet or null if packet is not registered
+     */
+    public static ByteBuf encode(ByteBufAllocator allocator, Packet<?> packet, UUID secret) {
+        int type = PACKETS.getType(packet);
+        if (type < 0) return null;
+
+        ByteBuf buf = allocator.directBuffer();
+        writeHeader(buf, type, secret, System.currentTimeMillis());
+        encodePayload(buf, packet);
+
+        return buf;
+    }
+
+    public static void writeHeader(ByteBuf out, int type, UUID secret, long timestamp) {
+        out.writeInt(MAGIC_NUMBER);
+        out.writeByte(type);
+        out.writeLong(secret.getMostSignificantBits());
+        out.writeLong(secret.getLeastSignificantBits());
+        out.writeLong(timestamp);
+    }
+
+    /**
+     * Encodes the packet without the header,
+     * so the same payload can be sent to multiple receivers
+     */
+    public static void encodePayload(ByteBuf out, Packet<?> packet) {
+        try {
+            packet.write(new ByteBufDataOutput(out));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Encodes the packet in the compact format into the pooled direct buffer
+     * <p>
+     * Compact packets carry the session id agreed in ConnectionPacket instead of the secret,
+     * and only the low 16 bits of the timestamp, which is enough for {@link PacketUdp#TTL}
+     *
+     * @return encoded packet or null if packet is not registered
+     */
+    public static ByteBuf encodeCompact(ByteBufAllocator allocator, Packet<?> packet, int sessionId) {
+        int type = PACKETS.getType(packet);
+        if (type < 0) return null;
+
+        ByteBuf buf = allocator.directBuffer();
+        writeCompactHeader(buf, type, sessionId, System.currentTimeMillis());
+        encodeCompactPayload(buf, packet);
+
+        return buf;
+    }
+
+    public static void writeCompactHeader(ByteBuf out, int type, int sessionId, long timestamp) {
+        out.writeShort(COMPACT_MAGIC_NUMBER);
+        out.writeByte(type);
+
+        while ((sessionId & ~0x7F) != 0) {
+            out.writeByte((sessionId & 0x7F) | 0x80);
+            sessionId >>>= 7;
+        }
+        out.writeByte(sessionId);
+
+        out.writeShort((short) timestamp);
+    }
+
+    /**
+     * Encodes the packet in the compact format without the header
+     */
+    public static void encodeCompactPayload(ByteBuf out, Packet<?> packet) {
+        if (!(packet instanceof CompactUdpPacket)) {
+            encodePayload(out, packet);
+            return;
+        }
+
+        try {
+            ((CompactUdpPacket) packet).writeCompact(new ByteBufDataOutput(out));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static int getType(Packet<?> packet) {
+        return PACKETS.getType(packet);
+    }
+
     public static Optional<PacketUdp> decode(ByteArrayDataInput in) throws IOException {
-        if (in.readInt() != MAGIC_NUMBER) return null; // bad packet
+        short magicNumber = in.readShort();
+        if (magicNumber == COMPACT_MAGIC_NUMBER) return decodeCompact(in);
+
+        if (magicNumber != (short) (MAGIC_NUMBER >>> 16) ||
+                in.readShort() != (short) MAGIC_NUMBER
+        ) return Optional.empty(); // bad packet
 
         Packet<?> packet = PACKETS.byType(in.readByte());
         if (packet != null) {
-            UUID secret = PacketUtil.readUUID(in);
+            long secretMostBits = in.readLong();
+            long secretLeastBits = in.readLong();
             long timestamp = in.readLong();
             packet.read(in);
 
-            return Optional.of(new PacketUdp(secret, timestamp, packet));
+            return Optional.of(new PacketUdp(secretMostBits, secretLeastBits, timestamp, packet));
         }
 
         return Optional.empty();
     }
 
+    private static Optional<PacketUdp> decodeCompact(ByteArrayDataInput in) throws IOException {
+        Packet<?> packet = PACKETS.byType(in.readByte());
+        if (packet == null) return Optional.empty();
+
+        int sessionId = PacketUtil.readVarInt(in);
+        if (sessionId == 0) return Optional.empty();
+
+        long timestamp = expandTimestamp(in.readShort(), System.currentTimeMillis());
+
+        if (packet instanceof CompactUdpPacket) {
+            ((CompactUdpPacket) packet).readCompact(in);
+        } else {
+            packet.read(in);
+        }
+
+        return Optional.of(new PacketUdp(sessionId, timestamp, packet));
+    }
+
+    /**
+     * Restores the timestamp from its low 16 bits,
+     * result is the closest to the current time, so the clocks can differ by ±32 seconds
+     */
+    static long expandTimestamp(short truncatedTimestamp, long now) {
+        return now - (short) (now - truncatedTimestamp);
+    }
+
+    /**
+     * Decodes the packet straight from the buffer without copying it
+     */
+    public static Optional<PacketUdp> decode(ByteBuf buf) throws IOException {
+        return decode(new ByteBufDataInput(buf));
+    }
+
     private PacketUdpCodec() {
     }
 }
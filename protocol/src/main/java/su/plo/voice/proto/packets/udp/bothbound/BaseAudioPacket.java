@@ -8,12 +8,14 @@ import lombok.Setter;
 import lombok.ToString;
 import su.plo.voice.proto.packets.Packet;
 import su.plo.voice.proto.packets.PacketHandler;
+import su.plo.voice.proto.packets.PacketUtil;
+import su.plo.voice.proto.packets.udp.CompactUdpPacket;
 
 import java.io.IOException;
 
 @NoArgsConstructor
 @ToString
-public abstract class BaseAudioPacket<T extends PacketHandler> implements Packet<T> {
+public abstract class BaseAudioPacket<T extends PacketHandler> implements Packet<T>, CompactUdpPacket {
 
     @Getter
     @Setter
@@ -45,4 +47,23 @@ public abstract class BaseAudioPacket<T extends PacketHandler> implements Packet
         out.writeInt(data.length);
         out.write(data);
     }
+
+    @Override
+    public void readCompact(ByteArrayDataInput in) throws IOException {
+        // sequence numbers start from zero, so they take 2-3 bytes
+        this.sequenceNumber = PacketUtil.readVarLong(in);
+
+        int length = PacketUtil.readVarInt(in);
+        byte[] data = new byte[length];
+        in.readFully(data);
+        this.data = data;
+    }
+
+    @Override
+    public void writeCompact(ByteArrayDataOutput out) throws IOException {
+        PacketUtil.writeVarLong(out, sequenceNumber);
+
+        PacketUtil.writeVarInt(out, data.length);
+        out.write(data);
+    }
 }
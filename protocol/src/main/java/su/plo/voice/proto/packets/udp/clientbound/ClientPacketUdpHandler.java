@@ -6,4 +6,6 @@ import su.plo.voice.proto.packets.udp.PacketUdpHandler;
 public interface ClientPacketUdpHandler extends PacketUdpHandler {
 
     void handle(@NotNull SourceAudioPacket packet);
+
+    void handle(@NotNull EncoderBitratePacket packet);
 }
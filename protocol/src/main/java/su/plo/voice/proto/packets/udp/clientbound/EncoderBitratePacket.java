@@ -0,0 +1,39 @@
+package su.plo.voice.proto.packets.udp.clientbound;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import su.plo.voice.proto.packets.Packet;
+
+import java.io.IOException;
+
+/**
+ * Server asks the client to change the bitrate of the voice encoder,
+ * it's sent periodically while the player speaks, so the lost packets are not an issue
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public final class EncoderBitratePacket implements Packet<ClientPacketUdpHandler> {
+
+    @Getter
+    private int bitrate;
+
+    @Override
+    public void read(ByteArrayDataInput in) throws IOException {
+        this.bitrate = in.readInt();
+    }
+
+    @Override
+    public void write(ByteArrayDataOutput out) throws IOException {
+        out.writeInt(bitrate);
+    }
+
+    @Override
+    public void handle(ClientPacketUdpHandler handler) {
+        handler.handle(this);
+    }
+}
@@ -20,7 +20,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public final class SourceAudioPacket extends BaseAudioPacket<ClientPacketUdpHandler> {
 
     @Getter
+    @Setter
     private UUID sourceId;
+    // short id of the source agreed by SourceInfoPacket, 0 if the source doesn't have it
+    @Getter
+    @Setter
+    private int sourceHandle;
     @Getter
     @Setter
     private byte sourceState;
@@ -53,6 +58,30 @@ public final class SourceAudioPacket extends BaseAudioPacket<ClientPacketUdpHand
         out.writeShort(distance);
     }
 
+    @Override
+    public void readCompact(ByteArrayDataInput in) throws IOException {
+        super.readCompact(in);
+
+        this.sourceHandle = PacketUtil.readVarInt(in);
+        this.sourceId = sourceHandle == 0 ? PacketUtil.readUUID(in) : null;
+        this.sourceState = in.readByte();
+        this.distance = in.readShort();
+    }
+
+    /**
+     * Writes the source handle instead of the source id if the source has it,
+     * receiver resolves the handle to the source id by the received SourceInfoPacket
+     */
+    @Override
+    public void writeCompact(ByteArrayDataOutput out) throws IOException {
+        super.writeCompact(out);
+
+        PacketUtil.writeVarInt(out, sourceHandle);
+        if (sourceHandle == 0) PacketUtil.writeUUID(out, checkNotNull(sourceId, "sourceId"));
+        out.writeByte(sourceState);
+        out.writeShort(distance);
+    }
+
     @Override
     public void handle(ClientPacketUdpHandler handler) {
         handler.handle(this);
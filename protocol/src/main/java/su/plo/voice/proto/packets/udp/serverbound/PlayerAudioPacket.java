@@ -51,6 +51,24 @@ public final class PlayerAudioPacket extends BaseAudioPacket<ServerPacketUdpHand
         out.writeBoolean(stereo);
     }
 
+    @Override
+    public void readCompact(ByteArrayDataInput in) throws IOException {
+        super.readCompact(in);
+
+        this.activationId = PacketUtil.readUUID(in);
+        this.distance = in.readShort();
+        this.stereo = in.readBoolean();
+    }
+
+    @Override
+    public void writeCompact(ByteArrayDataOutput out) throws IOException {
+        super.writeCompact(out);
+
+        PacketUtil.writeUUID(out, checkNotNull(activationId));
+        out.writeShort(distance);
+        out.writeBoolean(stereo);
+    }
+
     @Override
     public void handle(ServerPacketUdpHandler handler) {
         handler.handle(this);
@@ -0,0 +1,59 @@
+package su.plo.voice.proto.packets.udp.serverbound;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import su.plo.voice.proto.data.audio.source.SourceFeedback;
+import su.plo.voice.proto.packets.Packet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Client reports the receive statistics of the sources it heard since the last feedback
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public final class SourceFeedbackPacket implements Packet<ServerPacketUdpHandler> {
+
+    // keeps the packet below the mtu
+    public static final int MAX_SOURCES = 32;
+
+    @Getter
+    private List<SourceFeedback> sources;
+
+    @Override
+    public void read(ByteArrayDataInput in) throws IOException {
+        int size = Math.min(in.readUnsignedByte(), MAX_SOURCES);
+        this.sources = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            SourceFeedback feedback = new SourceFeedback();
+            feedback.deserialize(in);
+            sources.add(feedback);
+        }
+    }
+
+    @Override
+    public void write(ByteArrayDataOutput out) throws IOException {
+        checkNotNull(sources, "sources");
+        int size = Math.min(sources.size(), MAX_SOURCES);
+
+        out.writeByte(size);
+        for (int i = 0; i < size; i++) {
+            sources.get(i).serialize(out);
+        }
+    }
+
+    @Override
+    public void handle(ServerPacketUdpHandler handler) {
+        handler.handle(this);
+    }
+}
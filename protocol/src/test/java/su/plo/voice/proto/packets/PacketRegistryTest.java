@@ -0,0 +1,109 @@
+package su.plo.voice.proto.packets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import su.plo.voice.proto.packets.udp.PacketUdp;
+import su.plo.voice.proto.packets.udp.PacketUdpCodec;
+import su.plo.voice.proto.packets.udp.bothbound.CustomPacket;
+import su.plo.voice.proto.packets.udp.bothbound.PingPacket;
+import su.plo.voice.proto.packets.udp.clientbound.SourceAudioPacket;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PacketRegistryTest {
+
+    @Test
+    public void testRegistry() {
+        PacketRegistry registry = new PacketRegistry();
+        registry.register(1, PingPacket.class, PingPacket::new);
+        registry.register(0x100, CustomPacket.class, CustomPacket::new);
+
+        assertTrue(registry.byType(1) instanceof PingPacket);
+        assertTrue(registry.byType(0x100) instanceof CustomPacket);
+        assertNull(registry.byType(2));
+        assertNull(registry.byType(-1));
+        assertNull(registry.byType(0x1000));
+
+        assertEquals(1, registry.getType(new PingPacket()));
+        assertEquals(0x100, registry.getType(new CustomPacket()));
+        assertEquals(-1, registry.getType(new SourceAudioPacket()));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testReflectiveRegistry() {
+        PacketRegistry registry = new PacketRegistry();
+        registry.register(1, PingPacket.class);
+
+        assertTrue(registry.byType(1) instanceof PingPacket);
+        assertEquals(1, registry.getType(new PingPacket()));
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkDecode(TestReporter reporter) throws Exception {
+        SourceAudioPacket packet = new SourceAudioPacket(1L, (byte) 0, new byte[160], UUID.randomUUID(), (short) 32);
+        ByteBuf buf = PacketUdpCodec.encode(PooledByteBufAllocator.DEFAULT, packet, UUID.randomUUID());
+
+        int frames = 1_000_000;
+
+        for (int warmup = 0; warmup < 3; warmup++) {
+            decodeReflective(buf, frames);
+            decode(buf, frames);
+        }
+
+        long start = System.nanoTime();
+        long reflectiveSum = decodeReflective(buf, frames);
+        long reflectiveTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long factorySum = decode(buf, frames);
+        long factoryTime = System.nanoTime() - start;
+
+        buf.release();
+
+        assertEquals(reflectiveSum, factorySum);
+        reporter.publishEntry(
+                "decode",
+                String.format(
+                        "reflective constructor %d ns/packet, bound factory %d ns/packet",
+                        reflectiveTime / frames, factoryTime / frames
+                )
+        );
+    }
+
+    private long decode(ByteBuf buf, int frames) throws IOException {
+        long sink = 0L;
+        for (int frame = 0; frame < frames; frame++) {
+            PacketUdp packetUdp = PacketUdpCodec.decode(buf.duplicate()).get();
+            sink += ((SourceAudioPacket) (Packet<?>) packetUdp.getPacket()).getSequenceNumber();
+        }
+
+        return sink;
+    }
+
+    // what PacketRegistry.byType did before: reflective constructor lookup per packet
+    private long decodeReflective(ByteBuf buf, int frames) throws Exception {
+        long sink = 0L;
+        for (int frame = 0; frame < frames; frame++) {
+            ByteBufDataInput in = new ByteBufDataInput(buf.duplicate());
+            in.readInt(); // magic number
+            in.readByte(); // type
+
+            SourceAudioPacket packet = SourceAudioPacket.class.getDeclaredConstructor().newInstance();
+            PacketUdp packetUdp = new PacketUdp(PacketUtil.readUUID(in), in.readLong(), packet);
+            packet.read(in);
+            sink += ((SourceAudioPacket) (Packet<?>) packetUdp.getPacket()).getSequenceNumber();
+        }
+
+        return sink;
+    }
+}
@@ -0,0 +1,55 @@
+package su.plo.voice.proto.packets.tcp;
+
+import org.junit.jupiter.api.Test;
+import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.tcp.clientbound.BundlePacket;
+import su.plo.voice.proto.packets.tcp.clientbound.SourceLinePlayerAddPacket;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.google.common.io.ByteStreams.newDataInput;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BundlePacketTest {
+
+    // custom payload packet id, channel name and payload length of the plugin message
+    private static final int PLUGIN_MESSAGE_OVERHEAD = 1 + 1 + "plasmo:voice/v2".length() + 3;
+
+    @Test
+    public void testBundle() throws IOException {
+        int packets = 30;
+        UUID lineId = UUID.randomUUID();
+
+        List<byte[]> encoded = new ArrayList<>();
+        int separateSize = 0;
+        for (int i = 0; i < packets; i++) {
+            byte[] packet = PacketTcpCodec.encode(new SourceLinePlayerAddPacket(lineId, new UUID(0L, i)));
+            encoded.add(packet);
+            separateSize += packet.length + PLUGIN_MESSAGE_OVERHEAD;
+        }
+
+        byte[] bundle = PacketTcpCodec.encode(new BundlePacket(encoded));
+        int bundleSize = bundle.length + PLUGIN_MESSAGE_OVERHEAD;
+
+        BundlePacket decoded = decode(bundle);
+        assertEquals(packets, decoded.getPackets().size());
+        for (int i = 0; i < packets; i++) {
+            assertArrayEquals(encoded.get(i), decoded.getPackets().get(i));
+
+            SourceLinePlayerAddPacket packet = decode(decoded.getPackets().get(i));
+            assertEquals(new UUID(0L, i), packet.getPlayerId());
+        }
+
+        assertTrue(bundleSize < separateSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Packet<?>> T decode(byte[] encoded) throws IOException {
+        return (T) PacketTcpCodec.decode(newDataInput(encoded)).get();
+    }
+}
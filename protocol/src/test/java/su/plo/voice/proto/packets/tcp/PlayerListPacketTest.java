@@ -0,0 +1,72 @@
+package su.plo.voice.proto.packets.tcp;
+
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import org.junit.jupiter.api.Test;
+import su.plo.voice.proto.data.player.VoicePlayerInfo;
+import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.PacketUtil;
+import su.plo.voice.proto.packets.tcp.clientbound.PlayerDisconnectPacket;
+import su.plo.voice.proto.packets.tcp.clientbound.PlayerInfoUpdatePacket;
+import su.plo.voice.proto.packets.tcp.clientbound.PlayerListPacket;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.google.common.io.ByteStreams.newDataInput;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PlayerListPacketTest {
+
+    @Test
+    public void testVersions() throws IOException {
+        List<VoicePlayerInfo> players = new ArrayList<>();
+        long[] versions = new long[3];
+        for (int i = 0; i < versions.length; i++) {
+            players.add(player(i));
+            versions[i] = 100L + i;
+        }
+
+        PlayerListPacket packet = roundTrip(new PlayerListPacket(players, versions));
+        assertEquals(players, packet.getPlayers());
+        for (int i = 0; i < versions.length; i++) {
+            assertEquals(versions[i], packet.getVersion(i));
+        }
+
+        assertEquals(7L, roundTrip(new PlayerInfoUpdatePacket(player(0), 7L)).getVersion());
+        assertEquals(8L, roundTrip(new PlayerDisconnectPacket(player(0).getPlayerId(), 8L)).getVersion());
+    }
+
+    @Test
+    public void testOlderVersion() throws IOException {
+        VoicePlayerInfo player = player(0);
+
+        // list of the older server without the versions
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeInt(1);
+        player.serialize(out);
+
+        PlayerListPacket packet = new PlayerListPacket();
+        packet.read(newDataInput(out.toByteArray()));
+        assertEquals(player, packet.getPlayers().get(0));
+        assertEquals(0L, packet.getVersion(0));
+
+        out = ByteStreams.newDataOutput();
+        PacketUtil.writeUUID(out, player.getPlayerId());
+
+        PlayerDisconnectPacket disconnectPacket = new PlayerDisconnectPacket();
+        disconnectPacket.read(newDataInput(out.toByteArray()));
+        assertEquals(0L, disconnectPacket.getVersion());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Packet<?>> T roundTrip(T packet) throws IOException {
+        return (T) PacketTcpCodec.decode(newDataInput(PacketTcpCodec.encode(packet))).get();
+    }
+
+    private VoicePlayerInfo player(int index) {
+        return new VoicePlayerInfo(new UUID(0L, index), "player" + index, false, false, index % 2 == 0);
+    }
+}
@@ -0,0 +1,121 @@
+package su.plo.voice.proto.packets.tcp;
+
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import org.junit.jupiter.api.Test;
+import su.plo.voice.proto.data.audio.source.DirectSourceInfo;
+import su.plo.voice.proto.data.audio.source.SourceInfoUpdate;
+import su.plo.voice.proto.data.audio.source.StaticSourceInfo;
+import su.plo.voice.proto.data.pos.Pos3d;
+import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.PacketUtil;
+import su.plo.voice.proto.packets.tcp.clientbound.SourceInfoPacket;
+import su.plo.voice.proto.packets.tcp.clientbound.SourceInfoUpdatePacket;
+import su.plo.voice.proto.packets.tcp.serverbound.SourceInfoRequestPacket;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static com.google.common.io.ByteStreams.newDataInput;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SourceInfoUpdatePacketTest {
+
+    private final UUID lineId = UUID.randomUUID();
+
+    @Test
+    public void testDirectSource() throws IOException {
+        DirectSourceInfo info = directInfo(new Pos3d(1D, 2D, 3D), true);
+        DirectSourceInfo changed = directInfo(new Pos3d(4D, 5D, 6D), true);
+
+        SourceInfoUpdatePacket packet = roundTrip(new SourceInfoUpdatePacket(Collections.singletonList(
+                SourceInfoUpdate.of(changed, SourceInfoUpdate.RELATIVE_POSITION)
+        )));
+        SourceInfoUpdate update = packet.getUpdates().get(0);
+        assertEquals(info.getId(), update.getId());
+
+        DirectSourceInfo updated = (DirectSourceInfo) update.apply(info);
+        assertEquals(changed.getRelativePosition(), updated.getRelativePosition());
+        assertEquals(info.getLineId(), updated.getLineId());
+        assertEquals(info.getAddonId(), updated.getAddonId());
+        assertEquals(info.isCameraRelative(), updated.isCameraRelative());
+
+        // fields which are not in the update are not changed even if they differ
+        DirectSourceInfo notChanged = (DirectSourceInfo) roundTrip(new SourceInfoUpdatePacket(Collections.singletonList(
+                SourceInfoUpdate.of(directInfo(null, false), SourceInfoUpdate.SENDER)
+        ))).getUpdates().get(0).apply(info);
+        assertEquals(info.getRelativePosition(), notChanged.getRelativePosition());
+        assertTrue(notChanged.isCameraRelative());
+        assertNull(notChanged.getSenderId());
+    }
+
+    @Test
+    public void testBundleSize() throws IOException {
+        int sources = 50;
+
+        int fullSize = 0;
+        List<SourceInfoUpdate> updates = new ArrayList<>();
+        for (int i = 0; i < sources; i++) {
+            StaticSourceInfo info = new StaticSourceInfo(
+                    "pv-addon-test", UUID.randomUUID(), lineId, (byte) 1, "opus", false, true, 0,
+                    new Pos3d(i, 64D, i), new Pos3d()
+            );
+
+            // animated static sources: only the position is changed every tick
+            fullSize += PacketTcpCodec.encode(new SourceInfoPacket(info, i + 1)).length;
+            updates.add(SourceInfoUpdate.of(info, SourceInfoUpdate.POSITION));
+        }
+
+        SourceInfoUpdatePacket packet = new SourceInfoUpdatePacket(updates);
+        int bundleSize = PacketTcpCodec.encode(packet).length;
+
+        assertTrue(bundleSize < fullSize / 2);
+        assertEquals(sources, roundTrip(packet).getUpdates().size());
+    }
+
+    @Test
+    public void testHandleRequest() throws IOException {
+        UUID sourceId = UUID.randomUUID();
+        SourceInfoRequestPacket packet = roundTrip(new SourceInfoRequestPacket(sourceId));
+        assertEquals(sourceId, packet.getSourceId());
+        assertEquals(0, packet.getSourceHandle());
+
+        assertEquals(300, roundTrip(new SourceInfoRequestPacket(300)).getSourceHandle());
+
+        // request of the older client without the handle
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        PacketUtil.writeUUID(out, sourceId);
+
+        packet = new SourceInfoRequestPacket();
+        packet.read(newDataInput(out.toByteArray()));
+        assertEquals(sourceId, packet.getSourceId());
+        assertEquals(0, packet.getSourceHandle());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Packet<?>> T roundTrip(T packet) throws IOException {
+        return (T) PacketTcpCodec.decode(newDataInput(PacketTcpCodec.encode(packet))).get();
+    }
+
+    private DirectSourceInfo directInfo(Pos3d relativePosition, boolean cameraRelative) {
+        return new DirectSourceInfo(
+                "pv-addon-test",
+                new UUID(0L, 1L),
+                lineId,
+                (byte) 1,
+                "opus",
+                false,
+                true,
+                0,
+                null,
+                relativePosition,
+                null,
+                cameraRelative
+        );
+    }
+}
@@ -0,0 +1,163 @@
+package su.plo.voice.proto.packets.udp;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import su.plo.voice.proto.packets.ByteBufDataInput;
+import su.plo.voice.proto.packets.ByteBufDataOutput;
+import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.PacketUtil;
+import su.plo.voice.proto.packets.udp.clientbound.SourceAudioPacket;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PacketUdpCodecTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        UUID secret = UUID.randomUUID();
+        SourceAudioPacket packet = new SourceAudioPacket(42L, (byte) 3, new byte[]{1, 2, 3}, UUID.randomUUID(), (short) 16);
+
+        ByteBuf buf = PacketUdpCodec.encode(PooledByteBufAllocator.DEFAULT, packet, secret);
+        byte[] bytes = PacketUdpCodec.encode(packet, secret);
+
+        // same layout as the byte array codec
+        assertEquals(bytes.length, buf.readableBytes());
+
+        Optional<PacketUdp> decoded = PacketUdpCodec.decode(buf);
+        buf.release();
+
+        assertTrue(decoded.isPresent());
+        assertEquals(secret, decoded.get().getSecret());
+
+        SourceAudioPacket decodedPacket = (SourceAudioPacket) (Packet<?>) decoded.get().getPacket();
+        assertEquals(packet.getSequenceNumber(), decodedPacket.getSequenceNumber());
+        assertEquals(packet.getSourceId(), decodedPacket.getSourceId());
+        assertEquals(packet.getDistance(), decodedPacket.getDistance());
+        assertArrayEquals(packet.getData(), decodedPacket.getData());
+    }
+
+    @Test
+    public void testCompactRoundTrip() throws IOException {
+        UUID secret = UUID.randomUUID();
+        UUID sourceId = UUID.randomUUID();
+        // 20ms opus frame at 24 kbps
+        byte[] data = new byte[60];
+        Arrays.fill(data, (byte) 1);
+
+        SourceAudioPacket packet = new SourceAudioPacket(3_000L, (byte) 3, data, sourceId, (short) 16);
+        packet.setSourceHandle(300);
+
+        ByteBuf full = PacketUdpCodec.encode(PooledByteBufAllocator.DEFAULT, packet, secret);
+        ByteBuf compact = PacketUdpCodec.encodeCompact(PooledByteBufAllocator.DEFAULT, packet, 42);
+        int fullSize = full.readableBytes();
+        int compactSize = compact.readableBytes();
+        full.release();
+
+        Optional<PacketUdp> decoded = PacketUdpCodec.decode(compact);
+        compact.release();
+
+        assertTrue(decoded.isPresent());
+        assertTrue(decoded.get().isCompact());
+        assertEquals(42, decoded.get().getSessionId());
+        assertTrue(Math.abs(System.currentTimeMillis() - decoded.get().getTimestamp()) < PacketUdp.TTL);
+
+        SourceAudioPacket decodedPacket = (SourceAudioPacket) (Packet<?>) decoded.get().getPacket();
+        assertEquals(packet.getSequenceNumber(), decodedPacket.getSequenceNumber());
+        assertEquals(300, decodedPacket.getSourceHandle());
+        // source id is resolved by the receiver
+        assertNull(decodedPacket.getSourceId());
+        assertEquals(packet.getSourceState(), decodedPacket.getSourceState());
+        assertEquals(packet.getDistance(), decodedPacket.getDistance());
+        assertArrayEquals(packet.getData(), decodedPacket.getData());
+
+        // compact header is at most a quarter of the full one
+        assertTrue(compactSize - data.length <= (fullSize - data.length) / 4);
+
+        // sources without the handle are sent with the source id
+        packet.setSourceHandle(0);
+        compact = PacketUdpCodec.encodeCompact(PooledByteBufAllocator.DEFAULT, packet, 42);
+        decoded = PacketUdpCodec.decode(compact);
+        compact.release();
+
+        assertTrue(decoded.isPresent());
+        assertEquals(sourceId, ((SourceAudioPacket) (Packet<?>) decoded.get().getPacket()).getSourceId());
+    }
+
+    @Test
+    public void testCompactTimestamp() {
+        long now = 1_650_000_000_000L;
+
+        for (long offset = -30_000L; offset <= 30_000L; offset += 1_234L) {
+            long timestamp = now + offset;
+            assertEquals(timestamp, PacketUdpCodec.expandTimestamp((short) timestamp, now));
+        }
+    }
+
+    @Test
+    public void testVarInt() {
+        int[] values = {0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, -1};
+        int[] sizes = {1, 1, 1, 2, 2, 3, 5, 5};
+
+        for (int i = 0; i < values.length; i++) {
+            ByteArrayDataOutput out = ByteStreams.newDataOutput();
+            PacketUtil.writeVarInt(out, values[i]);
+            byte[] bytes = out.toByteArray();
+
+            assertEquals(sizes[i], bytes.length);
+            assertEquals(values[i], PacketUtil.readVarInt(ByteStreams.newDataInput(bytes)));
+        }
+
+        // trailing field is missing in the packets of the older versions
+        assertEquals(0, PacketUtil.readTrailingVarInt(ByteStreams.newDataInput(new byte[0]), 0));
+        assertEquals(0, PacketUtil.readTrailingVarInt(new ByteBufDataInput(Unpooled.buffer()), 0));
+    }
+
+    @Test
+    public void testBadPacket() throws IOException {
+        ByteBuf buf = Unpooled.buffer().writeInt(0).writeByte(1);
+        assertFalse(PacketUdpCodec.decode(buf).isPresent());
+    }
+
+    @Test
+    public void testUTF() {
+        String value = "plasmo voice \u0000 é 中 🎤";
+
+        ByteArrayDataOutput expected = ByteStreams.newDataOutput();
+        expected.writeUTF(value);
+
+        ByteBuf buf = Unpooled.buffer();
+        new ByteBufDataOutput(buf).writeUTF(value);
+
+        assertArrayEquals(expected.toByteArray(), ByteBufUtil.getBytes(buf));
+        assertEquals(value, new ByteBufDataInput(buf).readUTF());
+    }
+
+    @Test
+    public void testReadLine() {
+        byte[] bytes = "first\nsecond\r\nthird\rlast".getBytes(StandardCharsets.ISO_8859_1);
+
+        ByteArrayDataInput expected = ByteStreams.newDataInput(bytes);
+        ByteBufDataInput actual = new ByteBufDataInput(Unpooled.wrappedBuffer(bytes));
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(expected.readLine(), actual.readLine());
+        }
+        assertNull(actual.readLine());
+    }
+}
@@ -11,7 +11,10 @@ dependencies {
     implementation(project(":protocol"))
 
     implementation(rootProject.libs.config)
+    implementation(rootProject.libs.h2)
     compileOnly(rootProject.libs.luckperms)
 
     compileOnly(rootProject.libs.netty)
+
+    testImplementation(rootProject.libs.netty)
 }
@@ -3,6 +3,7 @@ package su.plo.voice.server;
 import lombok.Getter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
 import su.plo.config.provider.ConfigurationProvider;
 import su.plo.config.provider.toml.TomlConfiguration;
 import su.plo.lib.api.server.command.MinecraftCommandManager;
@@ -13,9 +14,7 @@ import su.plo.voice.api.addon.annotation.Addon;
 import su.plo.voice.api.server.PlasmoVoiceServer;
 import su.plo.voice.api.server.audio.capture.ServerActivationManager;
 import su.plo.voice.api.server.audio.line.ServerSourceLineManager;
-import su.plo.voice.api.server.audio.source.ServerSourceManager;
 import su.plo.voice.api.server.connection.TcpServerConnectionManager;
-import su.plo.voice.api.server.connection.UdpServerConnectionManager;
 import su.plo.voice.api.server.event.VoiceServerConfigLoadedEvent;
 import su.plo.voice.api.server.event.VoiceServerInitializeEvent;
 import su.plo.voice.api.server.event.VoiceServerShutdownEvent;
@@ -26,25 +25,32 @@ import su.plo.voice.api.server.mute.storage.MuteStorage;
 import su.plo.voice.api.server.player.VoicePlayer;
 import su.plo.voice.api.server.socket.UdpConnection;
 import su.plo.voice.api.server.socket.UdpServer;
+import su.plo.voice.server.audio.bitrate.AdaptiveBitrateListener;
 import su.plo.voice.server.audio.capture.ProximityServerActivation;
 import su.plo.voice.server.audio.capture.VoiceServerActivationManager;
 import su.plo.voice.server.audio.line.VoiceServerSourceLineManager;
+import su.plo.voice.server.audio.source.SpeakerSelector;
 import su.plo.voice.server.audio.source.VoiceServerSourceManager;
 import su.plo.voice.server.command.*;
 import su.plo.voice.server.config.ServerConfig;
 import su.plo.voice.server.config.ServerLanguages;
+import su.plo.voice.server.connection.PlayerInfoRoster;
+import su.plo.voice.server.connection.TcpPacketBundler;
 import su.plo.voice.server.connection.VoiceTcpConnectionManager;
 import su.plo.voice.server.connection.VoiceUdpConnectionManager;
 import su.plo.voice.server.mute.VoiceMuteManager;
 import su.plo.voice.server.mute.storage.MuteStorageFactory;
 import su.plo.voice.server.player.LuckPermsListener;
+import su.plo.voice.server.player.PermissionCache;
 import su.plo.voice.server.player.PermissionSupplier;
+import su.plo.voice.server.player.PlayerPositionSnapshot;
 import su.plo.voice.server.player.VoiceServerPlayerManager;
 import su.plo.voice.server.socket.NettyUdpServer;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -60,18 +66,28 @@ public abstract class BaseVoiceServer extends BaseVoice implements PlasmoVoiceSe
     @Getter
     protected final TcpServerConnectionManager tcpConnectionManager = new VoiceTcpConnectionManager(this);
     @Getter
-    protected final UdpServerConnectionManager udpConnectionManager = new VoiceUdpConnectionManager(this);
+    protected final PlayerInfoRoster playerInfoRoster = new PlayerInfoRoster(this);
     @Getter
-    protected final ServerSourceManager sourceManager = new VoiceServerSourceManager(this);
+    protected final VoiceUdpConnectionManager udpConnectionManager = new VoiceUdpConnectionManager(this);
+    @Getter
+    protected final VoiceServerSourceManager sourceManager = new VoiceServerSourceManager(this);
+    @Getter
+    protected final PlayerPositionSnapshot playerPositions = new PlayerPositionSnapshot();
+    @Getter
+    protected final SpeakerSelector speakerSelector = new SpeakerSelector(playerPositions);
+    @Getter
+    protected final TcpPacketBundler tcpPacketBundler = new TcpPacketBundler();
+    @Getter
+    protected final ServerTickMonitor tickMonitor = new ServerTickMonitor();
 
     protected UdpServer udpServer;
-    @Getter
-    protected PermissionSupplier permissionSupplier;
+    protected PermissionCache permissionCache;
     @Getter
     protected VoiceServerPlayerManager playerManager;
     @Getter
     protected ServerActivationManager activationManager;
     protected final ProximityServerActivation proximityActivation = new ProximityServerActivation(this);
+    protected AdaptiveBitrateListener adaptiveBitrate;
     @Getter
     protected ServerSourceLineManager sourceLineManager;
 
@@ -94,21 +110,37 @@ public abstract class BaseVoiceServer extends BaseVoice implements PlasmoVoiceSe
         eventBus.call(new VoiceServerInitializeEvent(this));
         eventBus.register(this, sourceManager);
         eventBus.register(this, udpConnectionManager);
+        eventBus.register(this, playerInfoRoster);
         eventBus.register(this, getMinecraftServer());
         eventBus.register(this, proximityActivation);
+        eventBus.register(this, speakerSelector);
 
-        this.permissionSupplier = createPermissionSupplier();
+        eventBus.register(this, getPermissionCache());
 
         this.playerManager = new VoiceServerPlayerManager(this, getMinecraftServer());
         eventBus.register(this, playerManager);
 
+        this.adaptiveBitrate = new AdaptiveBitrateListener(this, executor);
+        eventBus.register(this, adaptiveBitrate);
+
         this.activationManager = new VoiceServerActivationManager(this);
         eventBus.register(this, activationManager);
         this.sourceLineManager = new VoiceServerSourceLineManager(this);
 
-        // mutes
+        try {
+            Class.forName("net.luckperms.api.LuckPermsProvider");
+            this.luckPermsListener = new LuckPermsListener(this, playerManager, executor);
+            luckPermsListener.subscribe();
+        } catch (IllegalStateException | ClassNotFoundException ignored) {
+            // luckperms not found
+        }
+
+        // load config
+        loadConfig();
+
+        // mutes are loaded after config, because the storage type is configurable
         MuteStorageFactory muteStorageFactory = new MuteStorageFactory(this, executor);
-        MuteStorage muteStorage = muteStorageFactory.createStorage("json");
+        MuteStorage muteStorage = muteStorageFactory.createStorage(config.getMuteStorageType());
 
         MuteStorageCreateEvent muteStorageCreateEvent = new MuteStorageCreateEvent(muteStorage);
         eventBus.call(muteStorageCreateEvent);
@@ -123,17 +155,6 @@ public abstract class BaseVoiceServer extends BaseVoice implements PlasmoVoiceSe
         }
 
         this.muteManager = new VoiceMuteManager(this, this.muteStorage, executor);
-
-        try {
-            Class.forName("net.luckperms.api.LuckPermsProvider");
-            this.luckPermsListener = new LuckPermsListener(this, playerManager, executor);
-            luckPermsListener.subscribe();
-        } catch (IllegalStateException | ClassNotFoundException ignored) {
-            // luckperms not found
-        }
-
-        // load config
-        loadConfig();
     }
 
     @Override
@@ -171,6 +192,7 @@ public abstract class BaseVoiceServer extends BaseVoice implements PlasmoVoiceSe
 
         // cleanup players
         playerManager.clear();
+        playerPositions.clear();
 
         this.config = null;
         this.languages = null;
@@ -179,6 +201,23 @@ public abstract class BaseVoiceServer extends BaseVoice implements PlasmoVoiceSe
         super.onShutdown();
     }
 
+    /**
+     * Called by the platform once per server tick from the main thread
+     */
+    public void tick() {
+        tickMonitor.tick(System.currentTimeMillis());
+
+        // packets sent by the tick are bundled per player
+        tcpPacketBundler.begin();
+        try {
+            playerPositions.capture(udpConnectionManager.getConnections());
+            udpConnectionManager.tick(playerPositions);
+            sourceManager.tick();
+        } finally {
+            tcpPacketBundler.flush();
+        }
+    }
+
     public void loadConfig() {
         boolean restartUdpServer = true;
 
@@ -201,8 +240,18 @@ public abstract class BaseVoiceServer extends BaseVoice implements PlasmoVoiceSe
 
         eventBus.call(new VoiceServerConfigLoadedEvent(this));
 
+        speakerSelector.setMaxSpeakers(config.getVoice().getProximity().getMaxSpeakers());
+
+        List<Integer> distances = config.getVoice().getProximity().getDistances();
+        sourceManager.getInterestTracker().setDefaultDistance(
+                distances.isEmpty()
+                        ? config.getVoice().getProximity().getDefaultDistance()
+                        : distances.get(distances.size() - 1)
+        );
+
         // register proximity activation
         proximityActivation.register(config);
+        adaptiveBitrate.register(config);
 
         if (restartUdpServer) startUdpServer();
     }
@@ -281,5 +330,18 @@ public abstract class BaseVoiceServer extends BaseVoice implements PlasmoVoiceSe
 
     public abstract int getMinecraftServerPort();
 
+    /**
+     * Gets the platform permission supplier wrapped in the cache
+     * <p>
+     * Platforms should pass it to the server lib, so all permission checks go through the cache
+     */
+    public @NotNull PermissionCache getPermissionCache() {
+        if (permissionCache == null) {
+            this.permissionCache = new PermissionCache(createPermissionSupplier());
+        }
+
+        return permissionCache;
+    }
+
     protected abstract PermissionSupplier createPermissionSupplier();
 }
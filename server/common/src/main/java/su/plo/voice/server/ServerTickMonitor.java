@@ -0,0 +1,41 @@
+package su.plo.voice.server;
+
+/**
+ * Detects the platform which doesn't call {@link BaseVoiceServer#tick()}.
+ * <p>
+ * Connection grid, player positions, source info updates and packet bundles are driven by the tick,
+ * so without it proximity audio is not sent to anyone.
+ */
+public final class ServerTickMonitor {
+
+    // longer than the lag spikes of the healthy server
+    private static final long STALL_TIMEOUT_MS = 10_000L;
+
+    private volatile long lastTick;
+    private volatile boolean reported;
+
+    /**
+     * Starts waiting for the ticks
+     */
+    public void start(long now) {
+        this.lastTick = now;
+        this.reported = false;
+    }
+
+    public void tick(long now) {
+        this.lastTick = now;
+        this.reported = false;
+    }
+
+    /**
+     * Checks if the server didn't tick for {@link #STALL_TIMEOUT_MS}
+     *
+     * @return true only once per stall, so the stall is reported once
+     */
+    public boolean checkStalled(long now) {
+        if (reported || now - lastTick < STALL_TIMEOUT_MS) return false;
+
+        this.reported = true;
+        return true;
+    }
+}
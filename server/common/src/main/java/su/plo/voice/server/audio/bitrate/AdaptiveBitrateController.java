@@ -0,0 +1,126 @@
+package su.plo.voice.server.audio.bitrate;
+
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import su.plo.voice.proto.data.audio.source.SourceFeedback;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Adjusts the encoder bitrate of the speakers by the feedback of their listeners.
+ * <p>
+ * Lost and late packets of all listeners are summed every update, so the loss of one listener is diluted
+ * by the others. Jitter is the max of the listeners, so one listener with a high jitter
+ * degrades the speaker for everyone. Bitrate is decreased multiplicatively when the loss, late packets
+ * or jitter are high, and increased slowly when the links are clean, like the TCP congestion control does.
+ */
+public final class AdaptiveBitrateController {
+
+    // statistics of the fewer packets are too noisy
+    private static final int MIN_PACKETS = 25;
+
+    private static final float DECREASE_LOSS = 0.1F;
+    private static final int DECREASE_JITTER_MS = 40;
+    private static final float DECREASE_FACTOR = 0.75F;
+
+    private static final float INCREASE_LOSS = 0.02F;
+    private static final float INCREASE_FACTOR = 0.1F;
+    private static final int MIN_INCREASE = 1_000;
+
+    private final int minBitrate;
+    private final int maxBitrate;
+
+    // keys are the speakers' player ids
+    private final Map<UUID, SpeakerBitrate> bitrateBySpeakerId = Maps.newConcurrentMap();
+
+    public AdaptiveBitrateController(int minBitrate, int maxBitrate) {
+        this.minBitrate = Math.min(minBitrate, maxBitrate);
+        this.maxBitrate = maxBitrate;
+    }
+
+    /**
+     * Adds the listener's feedback of the speaker's audio to the current update
+     */
+    public void report(@NotNull UUID speakerId, @NotNull SourceFeedback feedback) {
+        bitrateBySpeakerId.computeIfAbsent(speakerId, (id) -> new SpeakerBitrate(maxBitrate))
+                .report(feedback);
+    }
+
+    /**
+     * Updates the bitrates of the speakers which received the feedback since the last update
+     *
+     * @return bitrates of the updated speakers, they should be sent even if not changed
+     */
+    public @NotNull Map<UUID, Integer> update() {
+        Map<UUID, Integer> bitrates = new HashMap<>();
+
+        bitrateBySpeakerId.forEach((speakerId, speaker) -> {
+            int bitrate = speaker.update();
+            if (bitrate > 0) bitrates.put(speakerId, bitrate);
+        });
+
+        return bitrates;
+    }
+
+    public int getBitrate(@NotNull UUID speakerId) {
+        SpeakerBitrate speaker = bitrateBySpeakerId.get(speakerId);
+        return speaker == null ? maxBitrate : speaker.bitrate;
+    }
+
+    public void remove(@NotNull UUID speakerId) {
+        bitrateBySpeakerId.remove(speakerId);
+    }
+
+    public void clear() {
+        bitrateBySpeakerId.clear();
+    }
+
+    private final class SpeakerBitrate {
+
+        private volatile int bitrate;
+
+        private int receivedPackets;
+        private int lostPackets;
+        private int latePackets;
+        private int jitter;
+
+        private SpeakerBitrate(int bitrate) {
+            this.bitrate = bitrate;
+        }
+
+        private synchronized void report(@NotNull SourceFeedback feedback) {
+            receivedPackets += feedback.getReceivedPackets();
+            lostPackets += feedback.getLostPackets();
+            latePackets += feedback.getLatePackets();
+            jitter = Math.max(jitter, feedback.getJitter());
+        }
+
+        /**
+         * @return new bitrate or 0 if there is not enough feedback
+         */
+        private synchronized int update() {
+            // small feedback is kept for the next update
+            int expectedPackets = receivedPackets + lostPackets;
+            if (expectedPackets < MIN_PACKETS) return 0;
+
+            float loss = (float) lostPackets / expectedPackets;
+            float late = (float) latePackets / expectedPackets;
+
+            if (loss > DECREASE_LOSS || late > DECREASE_LOSS || jitter > DECREASE_JITTER_MS) {
+                this.bitrate = Math.max(minBitrate, (int) (bitrate * DECREASE_FACTOR));
+            } else if (loss < INCREASE_LOSS && late < INCREASE_LOSS) {
+                int increase = Math.max(MIN_INCREASE, (int) (bitrate * INCREASE_FACTOR));
+                this.bitrate = Math.min(maxBitrate, bitrate + increase);
+            }
+
+            this.receivedPackets = 0;
+            this.lostPackets = 0;
+            this.latePackets = 0;
+            this.jitter = 0;
+
+            return bitrate;
+        }
+    }
+}
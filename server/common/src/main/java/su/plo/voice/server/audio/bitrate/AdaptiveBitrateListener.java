@@ -0,0 +1,103 @@
+package su.plo.voice.server.audio.bitrate;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import su.plo.voice.api.event.EventSubscribe;
+import su.plo.voice.api.server.audio.source.ServerAudioSource;
+import su.plo.voice.api.server.audio.source.ServerPlayerSource;
+import su.plo.voice.api.server.event.VoiceServerShutdownEvent;
+import su.plo.voice.api.server.event.audio.source.PlayerAudioFeedbackEvent;
+import su.plo.voice.proto.data.audio.source.SourceFeedback;
+import su.plo.voice.proto.packets.udp.clientbound.EncoderBitratePacket;
+import su.plo.voice.server.BaseVoiceServer;
+import su.plo.voice.server.config.ServerConfig;
+import su.plo.voice.server.event.player.PlayerQuitEvent;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passes the listeners' feedback to the {@link AdaptiveBitrateController}
+ * and sends the updated bitrates to the speakers
+ */
+public final class AdaptiveBitrateListener {
+
+    private static final long UPDATE_INTERVAL_MS = 1_000L;
+
+    private final BaseVoiceServer voiceServer;
+    private final ScheduledExecutorService executor;
+
+    // null if adaptive bitrate is disabled
+    private volatile @Nullable AdaptiveBitrateController controller;
+    private ScheduledFuture<?> updateTask;
+
+    public AdaptiveBitrateListener(@NotNull BaseVoiceServer voiceServer,
+                                   @NotNull ScheduledExecutorService executor) {
+        this.voiceServer = voiceServer;
+        this.executor = executor;
+    }
+
+    public synchronized void register(@NotNull ServerConfig config) {
+        unregister();
+
+        ServerConfig.Voice.Opus opusConfig = config.getVoice().getOpus();
+        if (!opusConfig.isAdaptiveBitrate()) return;
+
+        this.controller = new AdaptiveBitrateController(opusConfig.getMinBitrate(), opusConfig.getMaxBitrate());
+        this.updateTask = executor.scheduleAtFixedRate(
+                this::update,
+                UPDATE_INTERVAL_MS,
+                UPDATE_INTERVAL_MS,
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    public synchronized void unregister() {
+        if (updateTask != null) {
+            updateTask.cancel(false);
+            this.updateTask = null;
+        }
+
+        this.controller = null;
+    }
+
+    @EventSubscribe
+    public void onFeedback(@NotNull PlayerAudioFeedbackEvent event) {
+        AdaptiveBitrateController controller = this.controller;
+        if (controller == null) return;
+
+        for (SourceFeedback feedback : event.getPacket().getSources()) {
+            Optional<ServerAudioSource> source = voiceServer.getSourceManager().getSourceById(feedback.getSourceId());
+            // only players' encoders can be adjusted
+            if (!source.isPresent() || !(source.get() instanceof ServerPlayerSource)) continue;
+
+            UUID speakerId = ((ServerPlayerSource) source.get()).getPlayer().getInstance().getUUID();
+            controller.report(speakerId, feedback);
+        }
+    }
+
+    @EventSubscribe
+    public void onPlayerQuit(@NotNull PlayerQuitEvent event) {
+        AdaptiveBitrateController controller = this.controller;
+        if (controller != null) controller.remove(event.getPlayerId());
+    }
+
+    @EventSubscribe
+    public void onVoiceShutdown(@NotNull VoiceServerShutdownEvent event) {
+        unregister();
+    }
+
+    private void update() {
+        AdaptiveBitrateController controller = this.controller;
+        if (controller == null) return;
+
+        controller.update().forEach((speakerId, bitrate) ->
+                voiceServer.getUdpConnectionManager()
+                        .getConnectionByUUID(speakerId)
+                        .ifPresent((connection) -> connection.sendPacket(new EncoderBitratePacket(bitrate)))
+        );
+    }
+}
@@ -1,12 +1,15 @@
 package su.plo.voice.server.audio.capture;
 
+import com.google.common.collect.Maps;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import su.plo.lib.api.server.permission.PermissionDefault;
 import su.plo.voice.api.event.EventPriority;
 import su.plo.voice.api.event.EventSubscribe;
 import su.plo.voice.api.server.audio.capture.ServerActivation;
 import su.plo.voice.api.server.audio.line.ServerSourceLine;
 import su.plo.voice.api.server.audio.source.ServerPlayerSource;
+import su.plo.voice.api.server.event.VoiceServerShutdownEvent;
 import su.plo.voice.api.server.event.audio.capture.ServerActivationRegisterEvent;
 import su.plo.voice.api.server.event.audio.capture.ServerActivationUnregisterEvent;
 import su.plo.voice.api.server.event.audio.source.PlayerSpeakEndEvent;
@@ -19,20 +22,45 @@ import su.plo.voice.proto.packets.tcp.serverbound.PlayerAudioEndPacket;
 import su.plo.voice.proto.packets.udp.clientbound.SourceAudioPacket;
 import su.plo.voice.proto.packets.udp.serverbound.PlayerAudioPacket;
 import su.plo.voice.server.BaseVoiceServer;
+import su.plo.voice.server.audio.mixer.ProximityAudioMixer;
+import su.plo.voice.server.audio.source.BaseServerSource;
 import su.plo.voice.server.config.ServerConfig;
+import su.plo.voice.server.event.audio.source.ServerSourceRemovedEvent;
+import su.plo.voice.server.event.player.PlayerPermissionUpdateEvent;
+import su.plo.voice.server.event.player.PlayerQuitEvent;
+import su.plo.voice.server.player.PermissionCache;
 
+import java.util.BitSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 public final class ProximityServerActivation {
 
+    private static final String PERMISSION = "voice.activation.proximity";
+
     private final BaseVoiceServer voiceServer;
 
+    // resolved permission, distances and source of the players,
+    // so speak packets don't look up activation, line and source every frame.
+    // routes expire with the permission snapshots, so permission changes without the update event are applied
+    private final Map<UUID, SpeakRoute> routes = Maps.newConcurrentMap();
+    private volatile BitSet distances = new BitSet();
+    private volatile int routesGeneration;
+
+    // null if mixing is disabled
+    private volatile @Nullable ProximityAudioMixer mixer;
+
     public ProximityServerActivation(@NotNull BaseVoiceServer voiceServer) {
         this.voiceServer = voiceServer;
     }
 
     public void register(@NotNull ServerConfig config) {
+        BitSet distances = new BitSet();
+        config.getVoice().getProximity().getDistances().forEach(distances::set);
+        this.distances = distances;
+        invalidateRoutes();
+
         voiceServer.getActivationManager().register(
                 voiceServer,
                 VoiceActivation.PROXIMITY_NAME,
@@ -45,57 +73,97 @@ public final class ProximityServerActivation {
                 1
         );
 
-        voiceServer.getSourceLineManager().register(
+        ServerSourceLine line = voiceServer.getSourceLineManager().register(
                 voiceServer,
                 VoiceSourceLine.PROXIMITY_NAME,
                 "activation.plasmovoice.proximity",
                 "plasmovoice:textures/icons/speaker.png",
                 1
         );
+
+        closeMixer();
+        if (config.getVoice().getProximity().getMixingThreshold() > 0) {
+            this.mixer = new ProximityAudioMixer(voiceServer, line, config);
+        }
     }
 
     @EventSubscribe
     public void onPlayerSpeak(@NotNull PlayerSpeakEvent event) {
-        VoicePlayer player = event.getPlayer();
         PlayerAudioPacket packet = event.getPacket();
+        if (!packet.getActivationId().equals(VoiceActivation.PROXIMITY_ID)) return;
 
-        if (!player.getInstance().hasPermission("voice.activation.proximity") ||
-                !voiceServer.getConfig()
-                        .getVoice()
-                        .getProximity()
-                        .getDistances()
-                        .contains((int) packet.getDistance())
-        ) return;
-
-        getPlayerSource(player, packet.getActivationId(), packet.isStereo()).ifPresent((source) -> {
-            SourceAudioPacket sourcePacket = new SourceAudioPacket(
-                    packet.getSequenceNumber(),
-                    (byte) source.getState(),
-                    packet.getData(),
-                    source.getId(),
-                    packet.getDistance()
+        SpeakRoute route = getRoute(event.getPlayer(), packet.isStereo());
+        if (!route.canSpeak(packet.getDistance())) return;
+
+        ServerPlayerSource source = route.source;
+        SourceAudioPacket sourcePacket = new SourceAudioPacket(
+                packet.getSequenceNumber(),
+                (byte) source.getState(),
+                packet.getData(),
+                source.getId(),
+                packet.getDistance()
+        );
+
+        ProximityAudioMixer mixer = this.mixer;
+        if (mixer != null && source instanceof BaseServerSource) {
+            mixer.sendAudioPacket(
+                    (BaseServerSource) source,
+                    event.getPlayer().getInstance().getUUID(),
+                    sourcePacket,
+                    packet.getDistance(),
+                    packet.isStereo()
             );
+        } else {
             source.sendAudioPacket(sourcePacket, packet.getDistance());
-        });
+        }
     }
 
     @EventSubscribe
     public void onPlayerSpeakEnd(@NotNull PlayerSpeakEndEvent event) {
-        VoicePlayer player = event.getPlayer();
         PlayerAudioEndPacket packet = event.getPacket();
+        if (!packet.getActivationId().equals(VoiceActivation.PROXIMITY_ID)) return;
+
+        // end packet doesn't have stereo flag, so the current route is used if there is one
+        SpeakRoute route = routes.get(event.getPlayer().getInstance().getUUID());
+        if (route == null || !route.isValid(routesGeneration, System.currentTimeMillis())) {
+            route = getRoute(event.getPlayer(), true);
+        }
+        if (!route.canSpeak(packet.getDistance())) return;
+
+        SourceAudioEndPacket sourcePacket = new SourceAudioEndPacket(route.source.getId(), packet.getSequenceNumber());
+        route.source.sendPacket(sourcePacket, packet.getDistance());
+    }
+
+    @EventSubscribe
+    public void onPermissionUpdate(@NotNull PlayerPermissionUpdateEvent event) {
+        // updated node can grant the permission indirectly, e.g. a group or a wildcard
+        routes.remove(event.getPlayer().getInstance().getUUID());
+    }
+
+    @EventSubscribe
+    public void onSourceRemoved(@NotNull ServerSourceRemovedEvent event) {
+        if (!(event.getSource() instanceof ServerPlayerSource)) return;
+
+        // route of the removed source would send the audio to the source without listeners
+        ServerPlayerSource source = (ServerPlayerSource) event.getSource();
+        routes.computeIfPresent(
+                source.getPlayer().getInstance().getUUID(),
+                (playerId, route) -> route.source == source ? null : route
+        );
+    }
+
+    @EventSubscribe
+    public void onPlayerQuit(@NotNull PlayerQuitEvent event) {
+        routes.remove(event.getPlayerId());
 
-        if (!player.getInstance().hasPermission("voice.activation.proximity") ||
-                !voiceServer.getConfig()
-                        .getVoice()
-                        .getProximity()
-                        .getDistances()
-                        .contains((int) packet.getDistance())
-        ) return;
-
-        getPlayerSource(player, packet.getActivationId(), true).ifPresent((source) -> {
-            SourceAudioEndPacket sourcePacket = new SourceAudioEndPacket(source.getId(), packet.getSequenceNumber());
-            source.sendPacket(sourcePacket, packet.getDistance());
-        });
+        ProximityAudioMixer mixer = this.mixer;
+        if (mixer != null) mixer.removePlayer(event.getPlayerId());
+    }
+
+    @EventSubscribe
+    public void onVoiceShutdown(@NotNull VoiceServerShutdownEvent event) {
+        invalidateRoutes();
+        closeMixer();
     }
 
     @EventSubscribe(priority = EventPriority.HIGHEST)
@@ -108,6 +176,7 @@ public final class ProximityServerActivation {
         voiceServer.getMinecraftServer()
                 .getPermissionsManager()
                 .register("voice.activation." + activation.getName(), PermissionDefault.TRUE);
+        invalidateRoutes();
     }
 
     @EventSubscribe(priority = EventPriority.HIGHEST)
@@ -120,22 +189,44 @@ public final class ProximityServerActivation {
         voiceServer.getMinecraftServer()
                 .getPermissionsManager()
                 .unregister("voice.activation." + activation.getName());
+        invalidateRoutes();
+    }
+
+    private @NotNull SpeakRoute getRoute(@NotNull VoicePlayer player, boolean stereo) {
+        UUID playerId = player.getInstance().getUUID();
+
+        SpeakRoute route = routes.get(playerId);
+        if (route != null &&
+                route.isValid(routesGeneration, System.currentTimeMillis()) &&
+                route.requestedStereo == stereo) {
+            return route;
+        }
+
+        route = createRoute(player, stereo);
+        routes.put(playerId, route);
+
+        return route;
     }
 
-    private Optional<ServerPlayerSource> getPlayerSource(@NotNull VoicePlayer player,
-                                                         @NotNull UUID activationId,
-                                                         boolean isStereo) {
-        if (!activationId.equals(VoiceActivation.PROXIMITY_ID)) return Optional.empty();
+    private @NotNull SpeakRoute createRoute(@NotNull VoicePlayer player, boolean stereo) {
+        // generation is read before the route is resolved,
+        // so the route is rebuilt if it was invalidated while being resolved
+        int generation = routesGeneration;
+        long createdAt = System.currentTimeMillis();
+
+        if (!player.getInstance().hasPermission(PERMISSION)) {
+            return new SpeakRoute(generation, createdAt, stereo, null, null);
+        }
 
         Optional<ServerActivation> activation = voiceServer.getActivationManager()
-                .getActivationById(activationId);
-        if (!activation.isPresent()) return Optional.empty();
+                .getActivationById(VoiceActivation.PROXIMITY_ID);
+        if (!activation.isPresent()) return new SpeakRoute(generation, createdAt, stereo, null, null);
 
         Optional<ServerSourceLine> sourceLine = voiceServer.getSourceLineManager()
                 .getLineById(VoiceSourceLine.PROXIMITY_ID);
-        if (!sourceLine.isPresent()) return Optional.empty();
+        if (!sourceLine.isPresent()) return new SpeakRoute(generation, createdAt, stereo, null, null);
 
-        isStereo = isStereo && activation.get().isStereoSupported();
+        boolean isStereo = stereo && activation.get().isStereoSupported();
         ServerPlayerSource source = voiceServer.getSourceManager().createPlayerSource(
                 voiceServer,
                 player,
@@ -146,6 +237,48 @@ public final class ProximityServerActivation {
         source.setLine(sourceLine.get());
         source.setStereo(isStereo);
 
-        return Optional.of(source);
+        return new SpeakRoute(generation, createdAt, stereo, distances, source);
+    }
+
+    private synchronized void closeMixer() {
+        if (mixer != null) {
+            mixer.close();
+            this.mixer = null;
+        }
+    }
+
+    private synchronized void invalidateRoutes() {
+        routesGeneration++;
+        routes.clear();
+    }
+
+    private static final class SpeakRoute {
+
+        private final int generation;
+        private final long createdAt;
+        private final boolean requestedStereo;
+        // null if player can't speak with proximity activation
+        private final @Nullable BitSet distances;
+        private final ServerPlayerSource source;
+
+        private SpeakRoute(int generation,
+                           long createdAt,
+                           boolean requestedStereo,
+                           @Nullable BitSet distances,
+                           @Nullable ServerPlayerSource source) {
+            this.generation = generation;
+            this.createdAt = createdAt;
+            this.requestedStereo = requestedStereo;
+            this.distances = distances;
+            this.source = source;
+        }
+
+        private boolean isValid(int generation, long now) {
+            return this.generation == generation && now - createdAt < PermissionCache.SNAPSHOT_TTL_MS;
+        }
+
+        private boolean canSpeak(short distance) {
+            return distances != null && distance >= 0 && distances.get(distance);
+        }
     }
 }
@@ -0,0 +1,107 @@
+package su.plo.voice.server.audio.mixer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Sums the mono frames of the speakers into one frame.
+ * <p>
+ * Every speaker has a small queue of frames, so the jitter between the speaker packets
+ * and the mix clock doesn't stack two frames of the same speaker in one mix.
+ */
+final class MixBuffer {
+
+    // frames of one speaker buffered to absorb the network jitter
+    private static final int MAX_SPEAKER_FRAMES = 3;
+
+    private final Map<UUID, ArrayDeque<Frame>> frames = new HashMap<>();
+    private final int[] accumulator;
+    private final short[] samples;
+
+    MixBuffer(int frameSize) {
+        this.accumulator = new int[frameSize];
+        this.samples = new short[frameSize];
+    }
+
+    /**
+     * Adds the decoded frame of the speaker
+     *
+     * @param samples decoded frame, it should not be modified after it's added
+     * @param gain    volume of the frame in the mix
+     */
+    synchronized void add(@NotNull UUID speakerId, short[] samples, float gain) {
+        ArrayDeque<Frame> speakerFrames = frames.computeIfAbsent(speakerId, (id) -> new ArrayDeque<>());
+        if (speakerFrames.size() >= MAX_SPEAKER_FRAMES) speakerFrames.poll();
+
+        speakerFrames.add(new Frame(samples, gain));
+    }
+
+    /**
+     * Mixes the next frame of every speaker
+     *
+     * @return mixed frame which is reused by the next mix or null if there are no frames
+     */
+    synchronized @Nullable short[] mix() {
+        if (frames.isEmpty()) return null;
+
+        boolean hasFrames = false;
+        Iterator<ArrayDeque<Frame>> iterator = frames.values().iterator();
+        while (iterator.hasNext()) {
+            ArrayDeque<Frame> speakerFrames = iterator.next();
+
+            Frame frame = speakerFrames.poll();
+            if (speakerFrames.isEmpty()) iterator.remove();
+            if (frame == null) continue;
+
+            if (!hasFrames) {
+                Arrays.fill(accumulator, 0);
+                hasFrames = true;
+            }
+
+            int length = Math.min(frame.samples.length, accumulator.length);
+            if (frame.gain >= 1F) {
+                for (int i = 0; i < length; i++) {
+                    accumulator[i] += frame.samples[i];
+                }
+            } else {
+                for (int i = 0; i < length; i++) {
+                    accumulator[i] += (int) (frame.samples[i] * frame.gain);
+                }
+            }
+        }
+
+        if (!hasFrames) return null;
+
+        for (int i = 0; i < samples.length; i++) {
+            int sample = accumulator[i];
+            if (sample > Short.MAX_VALUE) sample = Short.MAX_VALUE;
+            else if (sample < Short.MIN_VALUE) sample = Short.MIN_VALUE;
+
+            samples[i] = (short) sample;
+        }
+
+        return samples;
+    }
+
+    synchronized void clear() {
+        frames.clear();
+    }
+
+    private static final class Frame {
+
+        private final short[] samples;
+        private final float gain;
+
+        private Frame(short[] samples, float gain) {
+            this.samples = samples;
+            this.gain = gain;
+        }
+    }
+}
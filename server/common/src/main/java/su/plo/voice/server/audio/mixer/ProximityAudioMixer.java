@@ -0,0 +1,329 @@
+package su.plo.voice.server.audio.mixer;
+
+import com.google.common.collect.Maps;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import su.plo.lib.api.server.world.ServerPos3d;
+import su.plo.voice.api.audio.codec.AudioDecoder;
+import su.plo.voice.api.audio.codec.AudioEncoder;
+import su.plo.voice.api.encryption.Encryption;
+import su.plo.voice.api.server.audio.line.ServerSourceLine;
+import su.plo.voice.api.server.audio.source.ServerDirectSource;
+import su.plo.voice.api.server.player.VoicePlayer;
+import su.plo.voice.api.util.Params;
+import su.plo.voice.proto.packets.tcp.clientbound.SourceAudioEndPacket;
+import su.plo.voice.proto.packets.udp.clientbound.SourceAudioPacket;
+import su.plo.voice.server.BaseVoiceServer;
+import su.plo.voice.server.audio.source.BaseServerSource;
+import su.plo.voice.server.audio.source.VoiceServerSourceManager;
+import su.plo.voice.server.config.ServerConfig;
+import su.plo.voice.server.connection.VoiceTcpConnectionManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mixes the proximity audio for the listeners which hear more speakers than the threshold,
+ * so they receive one stream instead of a stream per speaker.
+ * <p>
+ * Audio of every speaker is decoded once and added to the mixes of the listeners with the distance gain.
+ * Mixes are encoded every frame and sent from the direct source of the listener.
+ * Stereo audio is always relayed.
+ */
+public final class ProximityAudioMixer {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final long FRAME_MS = 20L;
+    // speaker is counted as active for the listener for this time after the last packet
+    private static final long SPEAKER_TIMEOUT_MS = 500L;
+
+    private final BaseVoiceServer voiceServer;
+    private final ServerSourceLine line;
+    private final int threshold;
+
+    private final Encryption encryption;
+    private final Params codecParams;
+    private final int sampleRate;
+    private final int frameSize;
+    private final int mtuSize;
+
+    // keys are the player ids
+    private final Map<UUID, SpeakerStream> speakers = Maps.newConcurrentMap();
+    private final Map<UUID, ListenerMix> listeners = Maps.newConcurrentMap();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService workers = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2)
+    );
+
+    public ProximityAudioMixer(@NotNull BaseVoiceServer voiceServer,
+                               @NotNull ServerSourceLine line,
+                               @NotNull ServerConfig config) {
+        ServerConfig.Voice voiceConfig = config.getVoice();
+
+        this.voiceServer = voiceServer;
+        this.line = line;
+        this.threshold = voiceConfig.getProximity().getMixingThreshold();
+
+        this.encryption = voiceServer.getEncryptionManager().create(
+                voiceConfig.getEncryption(),
+                ((VoiceTcpConnectionManager) voiceServer.getTcpConnectionManager()).getAesEncryptionKey()
+        );
+        this.codecParams = Params.builder()
+                .set("mode", voiceConfig.getOpus().getMode())
+                .set("bitrate", String.valueOf(voiceConfig.getOpus().getBitrate()))
+                .build();
+        this.sampleRate = voiceConfig.getSampleRate();
+        this.frameSize = (sampleRate / 1_000) * (int) FRAME_MS;
+        this.mtuSize = voiceConfig.getMtuSize();
+
+        scheduler.scheduleAtFixedRate(this::tick, FRAME_MS, FRAME_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Relays the audio packet to the listeners below the threshold and mixes it for the rest
+     */
+    public void sendAudioPacket(@NotNull BaseServerSource source,
+                                @NotNull UUID speakerId,
+                                @NotNull SourceAudioPacket packet,
+                                short distance,
+                                boolean stereo) {
+        if (stereo) {
+            source.sendAudioPacket(packet, distance);
+            return;
+        }
+
+        SpeakerStream speaker = speakers.computeIfAbsent(speakerId, (id) -> new SpeakerStream());
+        long now = System.currentTimeMillis();
+
+        ServerPos3d sourcePosition = source.getPosition();
+        double x = sourcePosition.getX();
+        double y = sourcePosition.getY();
+        double z = sourcePosition.getZ();
+        ServerPos3d listenerPosition = new ServerPos3d();
+
+        source.sendAudioPacket(packet, distance, (connection) -> {
+            VoicePlayer player = connection.getPlayer();
+            UUID listenerId = player.getInstance().getUUID();
+
+            ListenerMix listener = listeners.computeIfAbsent(listenerId, (id) -> new ListenerMix(player));
+            if (listener.touch(speakerId, now) <= threshold) return true;
+
+            short[] samples = speaker.decode(packet);
+            if (samples == null) return true;
+
+            float gain = 1F;
+            if (voiceServer.getPlayerPositions().getPosition(listenerId, listenerPosition)) {
+                double xDiff = x - listenerPosition.getX();
+                double yDiff = y - listenerPosition.getY();
+                double zDiff = z - listenerPosition.getZ();
+                double listenerDistance = Math.sqrt(xDiff * xDiff + yDiff * yDiff + zDiff * zDiff);
+
+                // same linear falloff as the client uses for the sources
+                gain = (float) Math.max(0D, 1D - listenerDistance / distance);
+            }
+
+            listener.add(speakerId, samples, gain, distance);
+            return false;
+        });
+    }
+
+    public void removePlayer(@NotNull UUID playerId) {
+        SpeakerStream speaker = speakers.remove(playerId);
+        if (speaker != null) speaker.close();
+
+        ListenerMix listener = listeners.remove(playerId);
+        if (listener != null) listener.close();
+    }
+
+    public void close() {
+        scheduler.shutdown();
+        workers.shutdown();
+
+        speakers.values().forEach(SpeakerStream::close);
+        speakers.clear();
+        listeners.values().forEach(ListenerMix::close);
+        listeners.clear();
+    }
+
+    private void tick() {
+        if (listeners.isEmpty()) return;
+
+        List<Callable<Void>> tasks = new ArrayList<>(listeners.size());
+        for (ListenerMix listener : listeners.values()) {
+            if (!listener.pending && !listener.speaking) continue;
+
+            tasks.add(() -> {
+                listener.tick();
+                return null;
+            });
+        }
+
+        if (tasks.isEmpty()) return;
+
+        try {
+            workers.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class SpeakerStream {
+
+        private AudioDecoder decoder;
+        private final byte[] decrypted;
+
+        private SourceAudioPacket lastPacket;
+        private short[] lastSamples;
+
+        private SpeakerStream() {
+            this.decrypted = new byte[mtuSize];
+        }
+
+        /**
+         * Decodes the packet once for all listeners
+         *
+         * @return decoded frame or null if the packet can't be decoded
+         */
+        private synchronized @Nullable short[] decode(@NotNull SourceAudioPacket packet) {
+            if (packet == lastPacket) return lastSamples;
+
+            this.lastPacket = packet;
+            this.lastSamples = null;
+
+            try {
+                if (decoder == null) {
+                    this.decoder = voiceServer.getCodecManager().createDecoder(
+                            "opus", sampleRate, false, frameSize, mtuSize, codecParams
+                    );
+                }
+
+                byte[] data = packet.getData();
+                int length = encryption.decrypt(data, 0, data.length, decrypted, 0);
+                this.lastSamples = decoder.decode(decrypted, 0, length);
+            } catch (Exception e) {
+                LOGGER.warn("Failed to decode audio for the mix: {}", e.toString());
+            }
+
+            return lastSamples;
+        }
+
+        private synchronized void close() {
+            if (decoder != null) decoder.close();
+        }
+    }
+
+    private final class ListenerMix {
+
+        private final VoicePlayer player;
+        private final MixBuffer buffer = new MixBuffer(frameSize);
+
+        // guarded by this
+        private final Map<UUID, Long> speakerTimes = new HashMap<>();
+        private short distance;
+        // there are frames to mix
+        private volatile boolean pending;
+
+        // guarded by the codec lock, mix task can run while the listener is removed
+        private final Object codecLock = new Object();
+        private boolean closed;
+        private AudioEncoder encoder;
+        private ServerDirectSource source;
+        private long sequenceNumber;
+        private volatile boolean speaking;
+
+        private ListenerMix(@NotNull VoicePlayer player) {
+            this.player = player;
+        }
+
+        /**
+         * Marks the speaker as active
+         *
+         * @return number of the active speakers
+         */
+        private synchronized int touch(@NotNull UUID speakerId, long now) {
+            speakerTimes.put(speakerId, now);
+            speakerTimes.values().removeIf((time) -> now - time > SPEAKER_TIMEOUT_MS);
+
+            return speakerTimes.size();
+        }
+
+        private synchronized void add(@NotNull UUID speakerId, short[] samples, float gain, short distance) {
+            buffer.add(speakerId, samples, gain);
+            this.distance = (short) Math.max(this.distance, distance);
+            this.pending = true;
+        }
+
+        private void tick() {
+            synchronized (codecLock) {
+                if (!closed) mix();
+            }
+        }
+
+        private void mix() {
+            short distance;
+            short[] samples;
+            synchronized (this) {
+                samples = buffer.mix();
+                distance = this.distance;
+                if (samples == null) {
+                    this.distance = 0;
+                    this.pending = false;
+                }
+            }
+
+            if (samples == null) {
+                if (speaking) {
+                    this.speaking = false;
+                    source.sendPacket(new SourceAudioEndPacket(source.getId(), sequenceNumber), distance);
+                    encoder.reset();
+                }
+                return;
+            }
+
+            try {
+                if (encoder == null) {
+                    this.encoder = voiceServer.getCodecManager().createEncoder(
+                            "opus", sampleRate, false, frameSize, mtuSize, codecParams
+                    );
+                    this.source = voiceServer.getSourceManager().createDirectSource(
+                            voiceServer, player, line, "opus", false
+                    );
+                }
+
+                byte[] encrypted = encryption.encrypt(encoder.encode(samples));
+
+                source.sendAudioPacket(
+                        new SourceAudioPacket(sequenceNumber++, (byte) source.getState(), encrypted, source.getId(), distance),
+                        distance
+                );
+                this.speaking = true;
+            } catch (Exception e) {
+                LOGGER.warn("Failed to send the mix to {}: {}", player.getInstance().getName(), e.toString());
+            }
+        }
+
+        private void close() {
+            synchronized (codecLock) {
+                this.closed = true;
+                buffer.clear();
+
+                if (encoder != null) encoder.close();
+                if (source != null) {
+                    ((VoiceServerSourceManager) voiceServer.getSourceManager()).removeSource(source.getId());
+                }
+            }
+        }
+    }
+}
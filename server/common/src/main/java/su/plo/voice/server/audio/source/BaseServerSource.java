@@ -1,20 +1,22 @@
 package su.plo.voice.server.audio.source;
 
 import lombok.Getter;
-import lombok.Setter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import su.plo.lib.api.server.world.ServerPos3d;
 import su.plo.voice.api.addon.AddonContainer;
 import su.plo.voice.api.server.audio.line.ServerSourceLine;
 import su.plo.voice.api.server.audio.source.ServerAudioSource;
 import su.plo.voice.api.server.connection.UdpServerConnectionManager;
 import su.plo.voice.api.server.player.VoicePlayer;
 import su.plo.voice.api.server.socket.UdpConnection;
+import su.plo.voice.proto.data.audio.source.SourceInfoUpdate;
 import su.plo.voice.proto.packets.Packet;
 import su.plo.voice.proto.packets.tcp.clientbound.SourceInfoPacket;
 import su.plo.voice.proto.packets.udp.clientbound.SourceAudioPacket;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -24,27 +26,37 @@ import java.util.function.Predicate;
 
 public abstract class BaseServerSource implements ServerAudioSource {
 
+    private static final AtomicInteger LAST_HANDLE = new AtomicInteger();
+
     protected final UdpServerConnectionManager udpConnections;
     @Getter
     protected final AddonContainer addon;
     @Getter
     protected final UUID id;
     protected final String codec;
+    // short id of the source in the compact udp packets, never reused, so the clients can't mix up the sources
+    @Getter
+    protected final int handle = LAST_HANDLE.updateAndGet((handle) -> handle == Integer.MAX_VALUE ? 1 : handle + 1);
 
     @Getter
     protected @NotNull ServerSourceLine line;
     @Getter
-    @Setter
     protected boolean iconVisible = true; // todo: icon visibility
-    @Setter
     protected int angle;
     protected boolean stereo;
 
-    protected final AtomicBoolean dirty = new AtomicBoolean(true);
+    // source info is sent to the listeners in range before the first audio packet
+    protected final AtomicBoolean announced = new AtomicBoolean();
     protected final AtomicInteger state = new AtomicInteger(1);
+    // state was incremented, the source info is sent before the next audio packet
+    protected final AtomicBoolean stateChanged = new AtomicBoolean();
+    // SourceInfoUpdate fields changed since the last tick
+    protected final AtomicInteger changedFields = new AtomicInteger();
+    // distance of the last audio packet, source info updates are sent to the listeners in this range
+    @Getter
+    protected volatile short lastDistance;
 
     private final List<Predicate<VoicePlayer>> filters = new CopyOnWriteArrayList<>();
-    private final ServerPos3d playerPosition = new ServerPos3d();
 
     public BaseServerSource(@NotNull UdpServerConnectionManager udpConnections,
                             @NotNull AddonContainer addon,
@@ -69,7 +81,7 @@ public abstract class BaseServerSource implements ServerAudioSource {
     public synchronized void setLine(@NotNull ServerSourceLine line) {
         if (!this.line.equals(line)) {
             this.line = line;
-            setDirty();
+            setDirty(SourceInfoUpdate.LINE);
         }
     }
 
@@ -77,7 +89,23 @@ public abstract class BaseServerSource implements ServerAudioSource {
     public synchronized void setStereo(boolean stereo) {
         if (this.stereo != stereo) {
             this.stereo = stereo;
-            setDirty();
+            setDirty(SourceInfoUpdate.STEREO);
+        }
+    }
+
+    @Override
+    public void setIconVisible(boolean iconVisible) {
+        if (this.iconVisible != iconVisible) {
+            this.iconVisible = iconVisible;
+            markChanged(SourceInfoUpdate.ICON_VISIBLE);
+        }
+    }
+
+    @Override
+    public void setAngle(int angle) {
+        if (this.angle != angle) {
+            this.angle = angle;
+            markChanged(SourceInfoUpdate.ANGLE);
         }
     }
 
@@ -94,54 +122,142 @@ public abstract class BaseServerSource implements ServerAudioSource {
 
     @Override
     public void sendAudioPacket(SourceAudioPacket packet, short distance) {
+        sendAudioPacket(packet, distance, null);
+    }
+
+    /**
+     * Sends the audio packet to the receivers in range accepted by the relay filter,
+     * rejected receivers are expected to get the audio another way, e.g. mixed by the server
+     */
+    public void sendAudioPacket(SourceAudioPacket packet, short distance, @Nullable Predicate<UdpConnection> relayFilter) {
         packet.setSourceState((byte) state.get());
+        packet.setSourceHandle(handle);
+        this.lastDistance = distance;
 
-        if (dirty.compareAndSet(true, false))
-            sendPacket(new SourceInfoPacket(getInfo()), distance);
+        // listeners drop the audio with the new state until they received the source info
+        boolean stateChanged = this.stateChanged.getAndSet(false);
+        if (announced.compareAndSet(false, true) || stateChanged)
+            sendPacket(new SourceInfoPacket(getInfo(), handle), distance);
+
+        SpeakerSelector speakerSelector = getSpeakerSelector();
+        SpeakerSelector.Frame selection = speakerSelector != null && speakerSelector.isEnabled()
+                ? speakerSelector.frame(id, getPosition(), packet.getData().length, distance)
+                : null;
 
         distance *= 2;
 
-        ServerPos3d sourcePosition = getPosition();
-        double distanceSquared = distance * distance;
+        List<UdpConnection> receivers = new ArrayList<>();
 
         L:
-        for (UdpConnection connection : udpConnections.getConnections()) {
+        for (UdpConnection connection : udpConnections.getConnectionsInRange(getPosition(), distance)) {
             for (Predicate<VoicePlayer> filter : filters) {
                 if (!filter.test(connection.getPlayer())) continue L;
             }
 
-            connection.getPlayer().getInstance().getServerPosition(playerPosition);
-            if (sourcePosition.distanceSquared(playerPosition) <= distanceSquared) {
-                connection.sendPacket(packet);
-            }
+            // speakers which are not selected are dropped before mixing
+            if (selection != null && !selection.select(connection)) continue;
+            if (relayFilter != null && !relayFilter.test(connection)) continue;
+
+            receivers.add(connection);
         }
+
+        udpConnections.sendPacket(packet, receivers);
     }
 
     @Override
     public void sendPacket(Packet<?> packet, short distance) {
         distance *= 2;
 
-        ServerPos3d sourcePosition = getPosition();
-        double distanceSquared = distance * distance;
-
         L:
-        for (UdpConnection connection : udpConnections.getConnections()) {
+        for (UdpConnection connection : udpConnections.getConnectionsInRange(getPosition(), distance)) {
             for (Predicate<VoicePlayer> filter : filters) {
                 if (!filter.test(connection.getPlayer())) continue L;
             }
 
-            connection.getPlayer().getInstance().getServerPosition(playerPosition);
-            if (sourcePosition.distanceSquared(playerPosition) <= distanceSquared) {
-                connection.getPlayer().sendPacket(packet);
+            connection.getPlayer().sendPacket(packet);
+        }
+    }
+
+    /**
+     * Checks if the player is accepted by the filters of the source
+     */
+    public boolean testFilters(@NotNull VoicePlayer player) {
+        for (Predicate<VoicePlayer> filter : filters) {
+            if (!filter.test(player)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the selector which limits the number of the speakers forwarded to the listener
+     *
+     * @return selector or null if audio of the source is forwarded to all listeners
+     */
+    protected @Nullable SpeakerSelector getSpeakerSelector() {
+        return null;
+    }
+
+    /**
+     * Takes the SourceInfoUpdate fields changed since the last call
+     */
+    public int pollChangedFields() {
+        return changedFields.getAndSet(0);
+    }
+
+    /**
+     * Marks the source as announced to the listeners
+     *
+     * @return true if the source was not announced, so the full source info should be sent instead of the update
+     */
+    public boolean announce() {
+        return announced.compareAndSet(false, true);
+    }
+
+    /**
+     * Gets the players which should receive the source info updates
+     * <p>
+     * Listeners out of range request the full source info with the first audio packet they receive
+     */
+    public @NotNull Collection<VoicePlayer> getInfoReceivers() {
+        short distance = lastDistance;
+        if (distance <= 0) return Collections.emptyList();
+
+        List<VoicePlayer> receivers = new ArrayList<>();
+
+        L:
+        for (UdpConnection connection : udpConnections.getConnectionsInRange(getPosition(), distance * 2)) {
+            for (Predicate<VoicePlayer> filter : filters) {
+                if (!filter.test(connection.getPlayer())) continue L;
             }
+
+            receivers.add(connection.getPlayer());
         }
+
+        return receivers;
+    }
+
+    /**
+     * Marks the fields of the source info as changed,
+     * they are sent to the listeners once per tick by {@link VoiceServerSourceManager#tick()}
+     */
+    protected void markChanged(int fields) {
+        changedFields.getAndAccumulate(fields, (current, changed) -> current | changed);
     }
 
-    protected void setDirty() {
-        dirty.set(true);
+    /**
+     * Marks the fields as changed and increments the state of the source,
+     * so listeners drop the audio packets until they received the new source info.
+     * The source info is sent to the listeners in range before the next audio packet,
+     * the rest receive the update on the next tick
+     */
+    protected void setDirty(int fields) {
+        // flag is set first, so the audio packet with the new state is always preceded by the source info
+        stateChanged.set(true);
         state.updateAndGet((operand) -> {
             int value = operand + 1;
             return value > Byte.MAX_VALUE ? Byte.MIN_VALUE : value;
         });
+        markChanged(fields);
     }
 }
@@ -0,0 +1,146 @@
+package su.plo.voice.server.audio.source;
+
+import lombok.Setter;
+import org.jetbrains.annotations.NotNull;
+import su.plo.lib.api.server.world.ServerPos3d;
+import su.plo.voice.api.server.audio.source.ServerAudioSource;
+import su.plo.voice.api.server.audio.source.ServerDirectSource;
+import su.plo.voice.api.server.connection.UdpServerConnectionManager;
+import su.plo.voice.api.server.socket.UdpConnection;
+import su.plo.voice.proto.packets.tcp.clientbound.SourceInfoPacket;
+import su.plo.voice.proto.packets.tcp.clientbound.SourceRemovePacket;
+import su.plo.voice.proto.packets.tcp.serverbound.PlayerInfoPacket;
+import su.plo.voice.server.player.PlayerPositionSnapshot;
+import su.plo.voice.server.player.VoiceServerPlayer;
+import su.plo.voice.server.socket.NettyUdpConnection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Sources which the listeners can hear.
+ * <p>
+ * Source info is pushed to the listener when the source enters the interest range,
+ * so the first audio packet is played without the SourceInfoRequestPacket round trip,
+ * and SourceRemovePacket is sent when it leaves, so the client can free the source.
+ * Listener is subscribed within the interest range plus {@link #ENTER_MARGIN}
+ * and unsubscribed beyond {@link #LEAVE_MARGIN}, so the listeners on the edge don't flap.
+ * Only the clients with {@link PlayerInfoPacket#FEATURE_SOURCE_INTEREST} are tracked.
+ */
+public final class SourceInterestTracker {
+
+    // margins cover the distance players move between the updates
+    private static final int UPDATE_INTERVAL = 5;
+    private static final double ENTER_MARGIN = 16D;
+    private static final double LEAVE_MARGIN = 32D;
+
+    // distance of the sources which didn't send the audio yet
+    @Setter
+    private volatile int defaultDistance = 16;
+
+    // accessed only from the main thread
+    private Map<BaseServerSource, Set<VoiceServerPlayer>> subscribersBySource = new HashMap<>();
+    private final ServerPos3d listenerPosition = new ServerPos3d();
+    private int ticks;
+
+    /**
+     * Gets the listeners which received the source info of the source
+     */
+    public @NotNull Set<VoiceServerPlayer> getSubscribers(@NotNull BaseServerSource source) {
+        return subscribersBySource.getOrDefault(source, Collections.emptySet());
+    }
+
+    /**
+     * Updates the subscriptions of the listeners every {@link #UPDATE_INTERVAL} ticks
+     * <p>
+     * Should be called once per server tick after the positions were captured
+     */
+    public void tick(@NotNull Collection<ServerAudioSource> sources,
+                     @NotNull UdpServerConnectionManager udpConnections,
+                     @NotNull PlayerPositionSnapshot positions) {
+        if (ticks++ % UPDATE_INTERVAL != 0) return;
+
+        Map<BaseServerSource, Set<VoiceServerPlayer>> subscribersBySource = new HashMap<>();
+        Map<VoiceServerPlayer, List<BaseServerSource>> removedByListener = new HashMap<>();
+
+        for (ServerAudioSource source : sources) {
+            // direct sources are sent to their player
+            if (!(source instanceof BaseServerSource) || source instanceof ServerDirectSource) continue;
+            BaseServerSource serverSource = (BaseServerSource) source;
+
+            Set<VoiceServerPlayer> subscribers = this.subscribersBySource.remove(serverSource);
+            if (subscribers == null) subscribers = Collections.emptySet();
+
+            Set<VoiceServerPlayer> newSubscribers = new HashSet<>();
+            ServerPos3d position = serverSource.getPosition();
+            // audio is sent to the listeners in the double distance
+            double distance = Math.max(serverSource.getLastDistance(), defaultDistance) * 2D;
+            double enterDistanceSquared = (distance + ENTER_MARGIN) * (distance + ENTER_MARGIN);
+
+            SourceInfoPacket infoPacket = null;
+            for (UdpConnection connection : udpConnections.getConnectionsInRange(position, distance + LEAVE_MARGIN)) {
+                if (!(connection.getPlayer() instanceof VoiceServerPlayer)) continue;
+
+                VoiceServerPlayer listener = (VoiceServerPlayer) connection.getPlayer();
+                if (!listener.hasFeature(PlayerInfoPacket.FEATURE_SOURCE_INTEREST) ||
+                        !serverSource.testFilters(listener)) continue;
+
+                if (!subscribers.contains(listener)) {
+                    if (!positions.getPosition(listener.getInstance().getUUID(), listenerPosition) ||
+                            !position.getWorld().equals(listenerPosition.getWorld()) ||
+                            position.distanceSquared(listenerPosition) > enterDistanceSquared
+                    ) continue;
+
+                    if (infoPacket == null) infoPacket = new SourceInfoPacket(serverSource.getInfo(), serverSource.getHandle());
+                    listener.sendPacket(infoPacket);
+                }
+
+                newSubscribers.add(listener);
+            }
+
+            for (VoiceServerPlayer subscriber : subscribers) {
+                if (!newSubscribers.contains(subscriber)) {
+                    removedByListener.computeIfAbsent(subscriber, (player) -> new ArrayList<>()).add(serverSource);
+                }
+            }
+
+            if (!newSubscribers.isEmpty()) subscribersBySource.put(serverSource, newSubscribers);
+        }
+
+        // sources which were removed since the last update
+        this.subscribersBySource.forEach((source, subscribers) -> {
+            for (VoiceServerPlayer subscriber : subscribers) {
+                removedByListener.computeIfAbsent(subscriber, (player) -> new ArrayList<>()).add(source);
+            }
+        });
+        this.subscribersBySource = subscribersBySource;
+
+        removedByListener.forEach((listener, removed) -> {
+            if (!listener.hasVoiceChat()) return;
+
+            listener.sendPacket(new SourceRemovePacket(
+                    removed.stream().map(BaseServerSource::getId).collect(Collectors.toList())
+            ));
+
+            // client forgot the handles, so the audio of the sources is sent in the full format until the next push
+            UUID listenerId = listener.getInstance().getUUID();
+            udpConnections.getConnectionByUUID(listenerId)
+                    .filter((connection) -> connection instanceof NettyUdpConnection)
+                    .ifPresent((connection) -> removed.forEach((source) ->
+                            ((NettyUdpConnection) connection).removeSourceHandle(source.getHandle())
+                    ));
+        });
+    }
+
+    public void clear() {
+        subscribersBySource.clear();
+    }
+}
@@ -0,0 +1,283 @@
+package su.plo.voice.server.audio.source;
+
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import su.plo.lib.api.server.world.ServerPos3d;
+import su.plo.voice.api.event.EventSubscribe;
+import su.plo.voice.api.server.event.VoiceServerShutdownEvent;
+import su.plo.voice.api.server.socket.UdpConnection;
+import su.plo.voice.server.event.player.PlayerQuitEvent;
+import su.plo.voice.server.player.PlayerPositionSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Limits the number of the speakers forwarded to every listener.
+ * <p>
+ * Speakers are ranked by the recent audio energy and the distance to the listener.
+ * Server doesn't decode the audio, so the energy is estimated by the size of the encoded frames:
+ * opus frames of silence are much smaller than the frames of speech.
+ * <p>
+ * Selected speaker is replaced only if the other speaker is louder by {@link #HYSTERESIS}
+ * and the selected one was forwarded for at least {@link #MIN_HOLD_MS}, so the selection doesn't flap.
+ */
+public final class SpeakerSelector {
+
+    public static final float HYSTERESIS = 0.25F;
+    public static final long MIN_HOLD_MS = 1_000L;
+
+    private static final long UPDATE_INTERVAL_MS = 100L;
+    // speaker is dropped from the selection after this time without packets
+    private static final long SPEAKER_TIMEOUT_MS = 500L;
+    private static final float ENERGY_SMOOTHING = 0.2F;
+    // far speakers still can be selected if there are free slots
+    private static final float MIN_DISTANCE_GAIN = 0.05F;
+
+    private final PlayerPositionSnapshot playerPositions;
+
+    private final Map<UUID, SpeakerEnergy> energyBySpeakerId = Maps.newConcurrentMap();
+    private final Map<UUID, ListenerSelection> selectionByListenerId = Maps.newConcurrentMap();
+
+    private volatile int maxSpeakers;
+
+    public SpeakerSelector(@NotNull PlayerPositionSnapshot playerPositions) {
+        this.playerPositions = playerPositions;
+    }
+
+    /**
+     * Sets the max number of the speakers forwarded to the listener
+     *
+     * @param maxSpeakers max number of the speakers, 0 to forward all speakers
+     */
+    public void setMaxSpeakers(int maxSpeakers) {
+        this.maxSpeakers = maxSpeakers;
+        selectionByListenerId.clear();
+    }
+
+    public boolean isEnabled() {
+        return maxSpeakers > 0;
+    }
+
+    /**
+     * Creates the selection of the speaker's audio frame
+     *
+     * @param speakerPosition position of the speaker, it's copied
+     * @param frameSize       size of the encoded frame
+     * @param distance        distance of the audio
+     */
+    public @NotNull Frame frame(@NotNull UUID speakerId,
+                                @NotNull ServerPos3d speakerPosition,
+                                int frameSize,
+                                short distance) {
+        float energy = energyBySpeakerId.computeIfAbsent(speakerId, (id) -> new SpeakerEnergy())
+                .update(frameSize);
+
+        return new Frame(speakerId, speakerPosition, energy, distance);
+    }
+
+    /**
+     * Checks if the speaker is selected for the listener and counts the packet
+     *
+     * @param score rank of the speaker for the listener
+     * @return true if the packet should be forwarded to the listener
+     */
+    public boolean select(@NotNull UUID listenerId, @NotNull UUID speakerId, float score, long now) {
+        int maxSpeakers = this.maxSpeakers;
+        if (maxSpeakers <= 0) return true;
+
+        return selectionByListenerId.computeIfAbsent(listenerId, (id) -> new ListenerSelection(maxSpeakers))
+                .select(speakerId, score, now);
+    }
+
+    /**
+     * Gets the number of the packets dropped for the listener by the selection
+     */
+    public long getDroppedPackets(@NotNull UUID listenerId) {
+        ListenerSelection selection = selectionByListenerId.get(listenerId);
+        return selection == null ? 0L : selection.getDroppedPackets();
+    }
+
+    /**
+     * Gets the number of the packets forwarded to the listener by the selection
+     */
+    public long getForwardedPackets(@NotNull UUID listenerId) {
+        ListenerSelection selection = selectionByListenerId.get(listenerId);
+        return selection == null ? 0L : selection.getForwardedPackets();
+    }
+
+    public void clear() {
+        energyBySpeakerId.clear();
+        selectionByListenerId.clear();
+    }
+
+    @EventSubscribe
+    public void onPlayerQuit(@NotNull PlayerQuitEvent event) {
+        energyBySpeakerId.remove(event.getPlayerId());
+        selectionByListenerId.remove(event.getPlayerId());
+    }
+
+    @EventSubscribe
+    public void onVoiceShutdown(@NotNull VoiceServerShutdownEvent event) {
+        clear();
+    }
+
+    /**
+     * Audio frame of the speaker which is selected for every listener in range
+     */
+    public final class Frame {
+
+        private final UUID speakerId;
+        private final double x;
+        private final double y;
+        private final double z;
+        private final float energy;
+        private final short distance;
+        private final long now = System.currentTimeMillis();
+
+        private final ServerPos3d listenerPosition = new ServerPos3d();
+
+        private Frame(@NotNull UUID speakerId, @NotNull ServerPos3d speakerPosition, float energy, short distance) {
+            this.speakerId = speakerId;
+            this.x = speakerPosition.getX();
+            this.y = speakerPosition.getY();
+            this.z = speakerPosition.getZ();
+            this.energy = energy;
+            this.distance = distance;
+        }
+
+        /**
+         * @return true if the frame should be forwarded to the listener
+         */
+        public boolean select(@NotNull UdpConnection listener) {
+            UUID listenerId = listener.getPlayer().getInstance().getUUID();
+
+            float distanceGain = 1F;
+            if (playerPositions.getPosition(listenerId, listenerPosition)) {
+                double xDiff = x - listenerPosition.getX();
+                double yDiff = y - listenerPosition.getY();
+                double zDiff = z - listenerPosition.getZ();
+                double listenerDistance = Math.sqrt(xDiff * xDiff + yDiff * yDiff + zDiff * zDiff);
+
+                distanceGain = (float) Math.max(MIN_DISTANCE_GAIN, 1D - listenerDistance / distance);
+            }
+
+            return SpeakerSelector.this.select(listenerId, speakerId, energy * distanceGain, now);
+        }
+    }
+
+    private static final class SpeakerEnergy {
+
+        private float energy = -1F;
+
+        private synchronized float update(int frameSize) {
+            if (energy < 0F) this.energy = frameSize;
+            else this.energy += (frameSize - energy) * ENERGY_SMOOTHING;
+
+            return energy;
+        }
+    }
+
+    private static final class ListenerSelection {
+
+        private final int maxSpeakers;
+        private final Map<UUID, Candidate> candidates = new HashMap<>();
+        private int selected;
+        private long lastUpdate;
+
+        private long forwardedPackets;
+        private long droppedPackets;
+
+        private ListenerSelection(int maxSpeakers) {
+            this.maxSpeakers = maxSpeakers;
+        }
+
+        private synchronized boolean select(@NotNull UUID speakerId, float score, long now) {
+            Candidate candidate = candidates.computeIfAbsent(speakerId, (id) -> new Candidate());
+            candidate.score = score;
+            candidate.lastSeen = now;
+
+            if (!candidate.selected && selected < maxSpeakers) {
+                select(candidate, now);
+            } else if (now - lastUpdate >= UPDATE_INTERVAL_MS) {
+                update(now);
+            }
+
+            if (candidate.selected) {
+                forwardedPackets++;
+                return true;
+            }
+
+            droppedPackets++;
+            return false;
+        }
+
+        private void update(long now) {
+            this.lastUpdate = now;
+
+            List<Candidate> selectedCandidates = new ArrayList<>(selected);
+            List<Candidate> waitingCandidates = new ArrayList<>();
+            candidates.values().removeIf((candidate) -> {
+                if (now - candidate.lastSeen > SPEAKER_TIMEOUT_MS) {
+                    if (candidate.selected) selected--;
+                    return true;
+                }
+
+                if (candidate.selected) selectedCandidates.add(candidate);
+                else waitingCandidates.add(candidate);
+                return false;
+            });
+            if (waitingCandidates.isEmpty()) return;
+
+            waitingCandidates.sort(Collections.reverseOrder(Comparator.comparingDouble((candidate) -> candidate.score)));
+            selectedCandidates.sort(Comparator.comparingDouble((candidate) -> candidate.score));
+
+            int waitingIndex = 0;
+            // slots freed by the silent speakers
+            while (selected < maxSpeakers && waitingIndex < waitingCandidates.size()) {
+                select(waitingCandidates.get(waitingIndex++), now);
+            }
+
+            // weakest selected speakers are replaced by the loudest waiting ones
+            for (Candidate weakest : selectedCandidates) {
+                if (waitingIndex >= waitingCandidates.size()) break;
+
+                Candidate loudest = waitingCandidates.get(waitingIndex);
+                if (loudest.score <= weakest.score * (1F + HYSTERESIS)) break;
+                if (now - weakest.selectedAt < MIN_HOLD_MS) continue;
+
+                weakest.selected = false;
+                selected--;
+                select(loudest, now);
+                waitingIndex++;
+            }
+        }
+
+        private void select(@NotNull Candidate candidate, long now) {
+            candidate.selected = true;
+            candidate.selectedAt = now;
+            selected++;
+        }
+
+        private synchronized long getForwardedPackets() {
+            return forwardedPackets;
+        }
+
+        private synchronized long getDroppedPackets() {
+            return droppedPackets;
+        }
+    }
+
+    private static final class Candidate {
+
+        private float score;
+        private long lastSeen;
+        private boolean selected;
+        private long selectedAt;
+    }
+}
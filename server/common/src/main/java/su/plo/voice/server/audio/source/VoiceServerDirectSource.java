@@ -11,11 +11,13 @@ import su.plo.voice.api.server.connection.UdpServerConnectionManager;
 import su.plo.voice.api.server.player.VoicePlayer;
 import su.plo.voice.proto.data.audio.source.DirectSourceInfo;
 import su.plo.voice.proto.data.audio.source.SourceInfo;
+import su.plo.voice.proto.data.audio.source.SourceInfoUpdate;
 import su.plo.voice.proto.data.pos.Pos3d;
 import su.plo.voice.proto.packets.Packet;
-import su.plo.voice.proto.packets.tcp.clientbound.SourceInfoPacket;
 import su.plo.voice.proto.packets.udp.clientbound.SourceAudioPacket;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Predicate;
@@ -48,7 +50,7 @@ public final class VoiceServerDirectSource extends BaseServerSource implements S
     @Override
     public void setSender(@NotNull VoicePlayer player) {
         this.sender = player;
-        updateSourceInfo();
+        markChanged(SourceInfoUpdate.SENDER);
     }
 
     @Override
@@ -59,7 +61,7 @@ public final class VoiceServerDirectSource extends BaseServerSource implements S
     @Override
     public void setRelativePosition(@NotNull Pos3d position) {
         this.relativePosition = position;
-        updateSourceInfo();
+        markChanged(SourceInfoUpdate.RELATIVE_POSITION);
     }
 
     @Override
@@ -70,7 +72,7 @@ public final class VoiceServerDirectSource extends BaseServerSource implements S
     @Override
     public void setLookAngle(@NotNull Pos3d position) {
         this.lookAngle = position;
-        updateSourceInfo();
+        markChanged(SourceInfoUpdate.LOOK_ANGLE);
     }
 
     @Override
@@ -81,7 +83,7 @@ public final class VoiceServerDirectSource extends BaseServerSource implements S
     @Override
     public void setCameraRelative(boolean cameraRelative) {
         this.cameraRelative = cameraRelative;
-        updateSourceInfo();
+        markChanged(SourceInfoUpdate.CAMERA_RELATIVE);
     }
 
     @Override
@@ -119,6 +121,7 @@ public final class VoiceServerDirectSource extends BaseServerSource implements S
 
     @Override
     public void sendAudioPacket(SourceAudioPacket packet, short distance) {
+        packet.setSourceHandle(handle);
         udpConnections.getConnectionByUUID(player.getInstance().getUUID())
                 .ifPresent(connection -> connection.sendPacket(packet));
     }
@@ -128,8 +131,9 @@ public final class VoiceServerDirectSource extends BaseServerSource implements S
         player.sendPacket(packet);
     }
 
-    private void updateSourceInfo() {
-        player.sendPacket(new SourceInfoPacket(getInfo()));
+    @Override
+    public @NotNull Collection<VoicePlayer> getInfoReceivers() {
+        return Collections.singletonList(player);
     }
 }
 
@@ -10,21 +10,27 @@ import su.plo.voice.api.server.connection.UdpServerConnectionManager;
 import su.plo.voice.api.server.player.VoicePlayer;
 import su.plo.voice.proto.data.audio.source.PlayerSourceInfo;
 import su.plo.voice.proto.data.audio.source.SourceInfo;
+import su.plo.voice.server.player.PlayerPositionSnapshot;
 
 public final class VoiceServerPlayerSource extends BaseServerSource implements ServerPlayerSource {
 
     private final VoicePlayer player;
-    private final ServerPos3d playerPosition = new ServerPos3d();
+    private final PlayerPositionSnapshot playerPositions;
+    private final SpeakerSelector speakerSelector;
 
     public VoiceServerPlayerSource(UdpServerConnectionManager udpConnections,
                                    @NotNull AddonContainer addon,
                                    @NotNull ServerSourceLine line,
                                    @Nullable String codec,
                                    boolean stereo,
-                                   @NotNull VoicePlayer player) {
+                                   @NotNull VoicePlayer player,
+                                   @NotNull PlayerPositionSnapshot playerPositions,
+                                   @NotNull SpeakerSelector speakerSelector) {
         super(udpConnections, addon, player.getInstance().getUUID(), line, codec, stereo);
 
         this.player = player;
+        this.playerPositions = playerPositions;
+        this.speakerSelector = speakerSelector;
         addFilter(this::filterVanish);
     }
 
@@ -35,7 +41,20 @@ public final class VoiceServerPlayerSource extends BaseServerSource implements S
 
     @Override
     public @NotNull ServerPos3d getPosition() {
-        return player.getInstance().getServerPosition(playerPosition);
+        // position is owned by the caller, the source is used by the netty threads concurrently
+        ServerPos3d position = new ServerPos3d();
+        if (playerPositions.getPosition(id, position)) return position;
+
+        // position is not captured yet, player has just connected
+        if (playerPositions.isCaptureThread()) return player.getInstance().getServerPosition(position);
+
+        // entity can't be read off the main thread, so the source has no listeners until the next capture
+        return position;
+    }
+
+    @Override
+    protected @NotNull SpeakerSelector getSpeakerSelector() {
+        return speakerSelector;
     }
 
     private boolean filterVanish(@NotNull VoicePlayer player) {
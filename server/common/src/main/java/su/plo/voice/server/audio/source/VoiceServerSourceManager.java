@@ -1,6 +1,7 @@
 package su.plo.voice.server.audio.source;
 
 import com.google.common.collect.Maps;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -8,32 +9,56 @@ import su.plo.lib.api.server.entity.MinecraftServerEntity;
 import su.plo.lib.api.server.world.ServerPos3d;
 import su.plo.voice.api.addon.AddonContainer;
 import su.plo.voice.api.event.EventSubscribe;
-import su.plo.voice.api.server.PlasmoVoiceServer;
 import su.plo.voice.api.server.audio.line.ServerSourceLine;
 import su.plo.voice.api.server.audio.source.*;
 import su.plo.voice.api.server.event.VoiceServerShutdownEvent;
 import su.plo.voice.api.server.player.VoicePlayer;
+import su.plo.voice.proto.data.audio.source.SourceInfo;
+import su.plo.voice.proto.data.audio.source.SourceInfoUpdate;
+import su.plo.voice.proto.packets.tcp.clientbound.SourceInfoPacket;
+import su.plo.voice.proto.packets.tcp.clientbound.SourceInfoUpdatePacket;
+import su.plo.voice.proto.packets.tcp.serverbound.PlayerInfoPacket;
+import su.plo.voice.server.BaseVoiceServer;
+import su.plo.voice.server.event.audio.source.ServerSourceRemovedEvent;
 import su.plo.voice.server.event.player.PlayerQuitEvent;
+import su.plo.voice.server.player.VoiceServerPlayer;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @RequiredArgsConstructor
 public class VoiceServerSourceManager implements ServerSourceManager {
 
-    private final PlasmoVoiceServer voiceServer;
+    private final BaseVoiceServer voiceServer;
 
     private final Map<UUID, ServerAudioSource> sourceById = Maps.newConcurrentMap();
     private final Map<UUID, ServerPlayerSource> sourceByPlayerId = Maps.newConcurrentMap();
     private final Map<UUID, ServerEntitySource> sourceByEntityId = Maps.newConcurrentMap();
+    private final Map<Integer, BaseServerSource> sourceByHandle = Maps.newConcurrentMap();
+
+    @Getter
+    private final SourceInterestTracker interestTracker = new SourceInterestTracker();
 
     @Override
     public Optional<ServerAudioSource> getSourceById(@NotNull UUID sourceId) {
         return Optional.ofNullable(sourceById.get(sourceId));
     }
 
+    /**
+     * Gets the source by the handle of the compact audio packets
+     * <p>
+     * Sources are indexed by the handle once created, so the lookup doesn't depend on the number of the sources
+     */
+    public Optional<BaseServerSource> getSourceByHandle(int sourceHandle) {
+        return Optional.ofNullable(sourceByHandle.get(sourceHandle));
+    }
+
     public Collection<ServerAudioSource> getSources() {
         return sourceById.values();
     }
@@ -44,6 +69,7 @@ public class VoiceServerSourceManager implements ServerSourceManager {
 
         sourceByEntityId.clear();
         sourceByPlayerId.clear();
+        sourceByHandle.clear();
         sourceById.clear();
     }
 
@@ -63,10 +89,12 @@ public class VoiceServerSourceManager implements ServerSourceManager {
                     line,
                     codec,
                     stereo,
-                    player
+                    player,
+                    voiceServer.getPlayerPositions(),
+                    voiceServer.getSpeakerSelector()
             );
 
-            sourceById.put(source.getId(), source);
+            addSource(source);
 
             return source;
         });
@@ -91,7 +119,7 @@ public class VoiceServerSourceManager implements ServerSourceManager {
                     entity
             );
 
-            sourceById.put(source.getId(), source);
+            addSource(source);
 
             return source;
         });
@@ -114,7 +142,7 @@ public class VoiceServerSourceManager implements ServerSourceManager {
                 stereo,
                 position
         );
-        sourceById.put(source.getId(), source);
+        addSource(source);
 
         return source;
     }
@@ -136,11 +164,84 @@ public class VoiceServerSourceManager implements ServerSourceManager {
                 stereo,
                 player
         );
-        sourceById.put(source.getId(), source);
+        addSource(source);
 
         return source;
     }
 
+    /**
+     * Removes the source created by this manager
+     */
+    public void removeSource(@NotNull UUID sourceId) {
+        ServerAudioSource source = sourceById.remove(sourceId);
+        if (source == null) return;
+
+        sourceByPlayerId.values().remove(source);
+        sourceByEntityId.values().remove(source);
+        removeHandle(source);
+
+        voiceServer.getEventBus().call(new ServerSourceRemovedEvent(source));
+    }
+
+    /**
+     * Sends the source info changes since the last tick and updates the listeners' interest
+     * <p>
+     * Changes of all sources are bundled in one SourceInfoUpdatePacket per receiver,
+     * so the number of the packets doesn't depend on how often the sources are changed.
+     * Clients without {@link PlayerInfoPacket#FEATURE_SOURCE_INFO_UPDATE} receive the full source info instead.
+     * Should be called once per server tick
+     */
+    public void tick() {
+        Map<VoicePlayer, List<SourceInfoUpdate>> updatesByReceiver = Maps.newHashMap();
+        Map<UUID, SourceInfoPacket> infoPacketBySourceId = Maps.newHashMap();
+
+        for (ServerAudioSource source : sourceById.values()) {
+            if (!(source instanceof BaseServerSource)) continue;
+            BaseServerSource serverSource = (BaseServerSource) source;
+
+            int fields = serverSource.pollChangedFields();
+            if (fields == 0) continue;
+
+            Collection<VoicePlayer> receivers = serverSource.getInfoReceivers();
+            // subscribed listeners already have the full source info
+            Set<VoicePlayer> updateReceivers = new HashSet<>(interestTracker.getSubscribers(serverSource));
+            if (receivers.isEmpty() && updateReceivers.isEmpty()) continue;
+
+            SourceInfo info = serverSource.getInfo();
+            SourceInfoPacket infoPacket = new SourceInfoPacket(info, serverSource.getHandle());
+
+            if (!receivers.isEmpty() && serverSource.announce()) {
+                receivers.forEach((receiver) -> receiver.sendPacket(infoPacket));
+                updateReceivers.removeAll(receivers);
+            } else {
+                updateReceivers.addAll(receivers);
+            }
+
+            infoPacketBySourceId.put(info.getId(), infoPacket);
+
+            SourceInfoUpdate update = SourceInfoUpdate.of(info, fields);
+            for (VoicePlayer receiver : updateReceivers) {
+                if (!receiver.hasVoiceChat()) continue;
+                updatesByReceiver.computeIfAbsent(receiver, (player) -> new ArrayList<>()).add(update);
+            }
+        }
+
+        updatesByReceiver.forEach((receiver, updates) -> {
+            if (receiver instanceof VoiceServerPlayer &&
+                    ((VoiceServerPlayer) receiver).hasFeature(PlayerInfoPacket.FEATURE_SOURCE_INFO_UPDATE)
+            ) {
+                receiver.sendPacket(new SourceInfoUpdatePacket(updates));
+                return;
+            }
+
+            for (SourceInfoUpdate update : updates) {
+                receiver.sendPacket(infoPacketBySourceId.get(update.getId()));
+            }
+        });
+
+        interestTracker.tick(sourceById.values(), voiceServer.getUdpConnectionManager(), voiceServer.getPlayerPositions());
+    }
+
 //    @Override
 //    public @NotNull UUID registerCustomSource(@NotNull ServerAudioSource source) {
 //        UUID sourceId = UUID.randomUUID();
@@ -151,9 +252,11 @@ public class VoiceServerSourceManager implements ServerSourceManager {
 
     @EventSubscribe
     public void onVoiceShutdown(VoiceServerShutdownEvent event) {
+        interestTracker.clear();
         sourceById.clear();
         sourceByEntityId.clear();
         sourceByPlayerId.clear();
+        sourceByHandle.clear();
     }
 
     @EventSubscribe
@@ -162,5 +265,22 @@ public class VoiceServerSourceManager implements ServerSourceManager {
         if (source == null) return;
 
         sourceById.remove(source.getId());
+        removeHandle(source);
+    }
+
+    private void addSource(@NotNull ServerAudioSource source) {
+        sourceById.put(source.getId(), source);
+
+        if (source instanceof BaseServerSource) {
+            BaseServerSource serverSource = (BaseServerSource) source;
+            sourceByHandle.put(serverSource.getHandle(), serverSource);
+        }
+    }
+
+    private void removeHandle(@NotNull ServerAudioSource source) {
+        if (source instanceof BaseServerSource) {
+            // handle can be reused by the new source after the counter wraps around
+            sourceByHandle.remove(((BaseServerSource) source).getHandle(), source);
+        }
     }
 }
@@ -9,6 +9,7 @@ import su.plo.voice.api.server.audio.line.ServerSourceLine;
 import su.plo.voice.api.server.audio.source.ServerStaticSource;
 import su.plo.voice.api.server.connection.UdpServerConnectionManager;
 import su.plo.voice.proto.data.audio.source.SourceInfo;
+import su.plo.voice.proto.data.audio.source.SourceInfoUpdate;
 import su.plo.voice.proto.data.audio.source.StaticSourceInfo;
 
 import java.util.UUID;
@@ -48,6 +49,7 @@ public final class VoiceServerStaticSource extends BaseServerSource implements S
     @Override
     public void setPosition(@NotNull ServerPos3d position) {
         this.position = position;
-        setDirty();
+        // state is incremented, so the older clients request the moved source info again
+        setDirty(SourceInfoUpdate.POSITION | SourceInfoUpdate.LOOK_ANGLE);
     }
 }
@@ -13,13 +13,16 @@ import su.plo.voice.server.config.ServerLanguage;
 import su.plo.voice.server.mute.VoiceMuteManager;
 
 import java.text.SimpleDateFormat;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 @RequiredArgsConstructor
 public final class VoiceMuteListCommand implements MinecraftCommand {
 
+    private static final int PAGE_SIZE = 10;
+
     private final BaseVoiceServer voiceServer;
     private final MinecraftServerLib minecraftServer;
 
@@ -29,7 +32,19 @@ public final class VoiceMuteListCommand implements MinecraftCommand {
 
         VoiceMuteManager muteManager = (VoiceMuteManager) voiceServer.getMuteManager();
 
-        Collection<ServerMuteInfo> mutedPlayers = muteManager.getMutedPlayers();
+        int page = 1;
+        if (arguments.length > 0) {
+            try {
+                page = Math.max(1, Integer.parseInt(arguments[0]));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        // one more mute is requested to check if there is a next page
+        List<ServerMuteInfo> mutedPlayers = new ArrayList<>(
+                muteManager.getMutedPlayers((page - 1) * PAGE_SIZE, PAGE_SIZE + 1)
+        );
+        boolean hasNextPage = mutedPlayers.size() > PAGE_SIZE;
 
         source.sendMessage(language.commands().muteList().header());
         if (mutedPlayers.isEmpty()) {
@@ -37,7 +52,7 @@ public final class VoiceMuteListCommand implements MinecraftCommand {
             return;
         }
 
-        mutedPlayers.forEach((muteInfo) -> {
+        mutedPlayers.stream().limit(PAGE_SIZE).forEach((muteInfo) -> {
             Optional<MinecraftGameProfile> player = minecraftServer.getGameProfile(muteInfo.getPlayerUUID());
             Optional<MinecraftGameProfile> mutedBy = Optional.empty();
             if (muteInfo.getMutedByPlayerUUID() != null) {
@@ -76,6 +91,10 @@ public final class VoiceMuteListCommand implements MinecraftCommand {
                 ));
             }
         });
+
+        if (hasNextPage) {
+            source.sendMessage(String.format(language.commands().muteList().nextPage(), page + 1));
+        }
     }
 
     @Override
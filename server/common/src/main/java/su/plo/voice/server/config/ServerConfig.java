@@ -24,6 +24,13 @@ public final class ServerConfig {
     @ConfigField(path = "server_id", comment = "Used to store server-related config file on the client\nSet it to a single value on different servers if you want them to share config")
     private String serverId = UUID.randomUUID().toString();
 
+    @ConfigField(path = "mute_storage_type", comment = "Mute storage type\nSupported values: json, journal, h2\njournal appends changes to the file instead of rewriting all mutes on every change\nh2 stores mutes in the embedded database and migrates them from voice_mutes.json\nRequires restart")
+    @ConfigValidator(
+            value = MuteStorageTypeValidator.class,
+            allowed = {"json", "journal", "h2"}
+    )
+    private String muteStorageType = "json";
+
     @ConfigField
     private Host host = new Host();
 
@@ -45,6 +52,12 @@ public final class ServerConfig {
         @ConfigField(path = "public")
         private @Nullable Public hostPublic = null;
 
+        @ConfigField(path = "native_transport", comment = "Use native epoll transport on Linux if it's available")
+        private boolean nativeTransport = false;
+
+        @ConfigField(path = "socket_count", comment = "Number of sockets bound to the same port with native transport\nEvery socket is read by its own thread\nSockets are bound with SO_REUSEPORT only if there are more than one")
+        private int socketCount = 1;
+
         @Config
         @Data
         @EqualsAndHashCode
@@ -97,6 +110,13 @@ public final class ServerConfig {
         @ConfigField(path = "client_mod_required")
         private boolean clientModRequired = false;
 
+        @ConfigField(comment = "Audio encryption algorithm\nSupported values: AES/CBC/PKCS5Padding, AES/GCM/NoPadding\nAES/GCM/NoPadding is not supported by the older clients\nDefault is AES/CBC/PKCS5Padding")
+        @ConfigValidator(
+                value = EncryptionValidator.class,
+                allowed = {"AES/GCM/NoPadding", "AES/CBC/PKCS5Padding"}
+        )
+        private String encryption = "AES/CBC/PKCS5Padding";
+
         @ConfigField
         private Proximity proximity = new Proximity();
 
@@ -114,6 +134,32 @@ public final class ServerConfig {
             @ConfigField(path = "default_distance")
             private int defaultDistance = 16;
 
+            @ConfigField(path = "mixing_threshold", comment = "Number of nearby speakers above which the server mixes them into one stream for the listener\nMixing reduces the listener's bandwidth and decoding, but costs server CPU for every mixed listener\nSet to 0 to disable")
+            @ConfigValidator(
+                    value = SpeakersLimitValidator.class,
+                    allowed = "0-1024"
+            )
+            private int mixingThreshold = 0;
+
+            @ConfigField(path = "max_speakers", comment = "Max number of the speakers forwarded to the listener\nSpeakers are selected by the distance and loudness, the rest are not sent to the listener\nSet to 0 to forward all speakers")
+            @ConfigValidator(
+                    value = SpeakersLimitValidator.class,
+                    allowed = "0-1024"
+            )
+            private int maxSpeakers = 0;
+
+            @NoArgsConstructor
+            public static class SpeakersLimitValidator implements Predicate<Object> {
+
+                @Override
+                public boolean test(Object o) {
+                    if (!(o instanceof Long)) return false;
+                    long limit = (Long) o;
+
+                    return limit >= 0 && limit <= 1024;
+                }
+            }
+
             @NoArgsConstructor
             public static class DistancesSorter implements Function<List<Long>, List<Integer>> {
 
@@ -143,6 +189,36 @@ public final class ServerConfig {
             )
             private int bitrate = -1000;
 
+            @ConfigField(comment = "Adds the forward error correction data to every frame, so the clients can recover the lost frames\nIt costs some bitrate and is used only if packet_loss is above 0")
+            private boolean fec = true;
+
+            @ConfigField(path = "packet_loss", comment = "Expected packet loss percentage for the forward error correction")
+            @ConfigValidator(
+                    value = PacketLossValidator.class,
+                    allowed = "0-100"
+            )
+            private int packetLoss = 10;
+
+            @ConfigField(comment = "Discontinuous transmission\nClients don't send the silent frames while the activation is active")
+            private boolean dtx = true;
+
+            @ConfigField(path = "adaptive_bitrate", comment = "Adjusts the bitrate of the speakers by the packet loss and jitter reported by the listeners\nBitrate is changed between min_bitrate and max_bitrate")
+            private boolean adaptiveBitrate = false;
+
+            @ConfigField(path = "min_bitrate")
+            @ConfigValidator(
+                    value = BitrateBoundValidator.class,
+                    allowed = "500-512000"
+            )
+            private int minBitrate = 12_000;
+
+            @ConfigField(path = "max_bitrate")
+            @ConfigValidator(
+                    value = BitrateBoundValidator.class,
+                    allowed = "500-512000"
+            )
+            private int maxBitrate = 64_000;
+
             @NoArgsConstructor
             public static class ModeValidator implements Predicate<Object> {
 
@@ -166,6 +242,42 @@ public final class ServerConfig {
                     return bitrate == -1 || bitrate == -1000 || (bitrate >= 500 && bitrate <= 512_000);
                 }
             }
+
+            @NoArgsConstructor
+            public static class PacketLossValidator implements Predicate<Object> {
+
+                @Override
+                public boolean test(Object o) {
+                    if (!(o instanceof Long)) return false;
+                    long packetLoss = (Long) o;
+
+                    return packetLoss >= 0 && packetLoss <= 100;
+                }
+            }
+
+            @NoArgsConstructor
+            public static class BitrateBoundValidator implements Predicate<Object> {
+
+                @Override
+                public boolean test(Object o) {
+                    if (!(o instanceof Long)) return false;
+                    long bitrate = (Long) o;
+
+                    return bitrate >= 500 && bitrate <= 512_000;
+                }
+            }
+        }
+
+        @NoArgsConstructor
+        public static class EncryptionValidator implements Predicate<Object> {
+
+            @Override
+            public boolean test(Object o) {
+                if (!(o instanceof String)) return false;
+                String encryption = (String) o;
+
+                return encryption.equals("AES/GCM/NoPadding") || encryption.equals("AES/CBC/PKCS5Padding");
+            }
         }
 
         @NoArgsConstructor
@@ -206,4 +318,16 @@ public final class ServerConfig {
             }
         }
     }
+
+    @NoArgsConstructor
+    public static class MuteStorageTypeValidator implements Predicate<Object> {
+
+        @Override
+        public boolean test(Object o) {
+            if (!(o instanceof String)) return false;
+            String type = (String) o;
+
+            return type.equals("json") || type.equals("journal") || type.equals("h2");
+        }
+    }
 }
@@ -147,6 +147,8 @@ public final class ServerLanguage {
         private String expirationDate = "yyyy.MM.dd";
         @ConfigField
         private String expirationTime = "HH:mm:ss";
+        @ConfigField
+        private String nextPage = "Use /vmutelist %d to see the next page";
     }
 
     @Config
@@ -0,0 +1,73 @@
+package su.plo.voice.server.connection;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import su.plo.voice.api.server.socket.UdpConnection;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * UDP connections by the session id of the compact packets.
+ * <p>
+ * Session ids are allocated from 1 and reused after release,
+ * so they stay below the number of the online players and take 1-2 bytes as var int.
+ * Connections are kept in an array indexed by the session id,
+ * it's republished on every change like {@link UdpSessionTable}, so readers never lock.
+ */
+public final class CompactSessionTable {
+
+    private final BitSet allocated = new BitSet();
+    private volatile UdpConnection[] connections = new UdpConnection[16];
+
+    public synchronized int allocate() {
+        // 0 means no session
+        int sessionId = allocated.nextClearBit(1);
+        allocated.set(sessionId);
+
+        return sessionId;
+    }
+
+    /**
+     * Releases the session id and removes its connection
+     */
+    public synchronized void release(int sessionId) {
+        if (sessionId <= 0) return;
+
+        allocated.clear(sessionId);
+        remove(sessionId);
+    }
+
+    public @Nullable UdpConnection get(int sessionId) {
+        UdpConnection[] connections = this.connections;
+        return sessionId > 0 && sessionId < connections.length ? connections[sessionId] : null;
+    }
+
+    /**
+     * Binds the connection to the session id, released session ids are ignored
+     */
+    public synchronized void put(int sessionId, @NotNull UdpConnection connection) {
+        if (sessionId <= 0 || !allocated.get(sessionId)) return;
+
+        UdpConnection[] connections = this.connections;
+        int length = connections.length;
+        while (length <= sessionId) length <<= 1;
+
+        UdpConnection[] newConnections = Arrays.copyOf(connections, length);
+        newConnections[sessionId] = connection;
+        this.connections = newConnections;
+    }
+
+    public synchronized void clear() {
+        allocated.clear();
+        this.connections = new UdpConnection[16];
+    }
+
+    private void remove(int sessionId) {
+        if (get(sessionId) == null) return;
+
+        UdpConnection[] newConnections = connections.clone();
+        newConnections[sessionId] = null;
+        this.connections = newConnections;
+    }
+}
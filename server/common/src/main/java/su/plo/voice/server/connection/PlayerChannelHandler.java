@@ -15,9 +15,10 @@ import su.plo.voice.api.server.event.connection.TcpPacketReceivedEvent;
 import su.plo.voice.api.server.player.VoicePlayer;
 import su.plo.voice.proto.packets.Packet;
 import su.plo.voice.proto.packets.PacketHandler;
-import su.plo.voice.proto.packets.tcp.clientbound.PlayerInfoUpdatePacket;
 import su.plo.voice.proto.packets.tcp.clientbound.SourceInfoPacket;
 import su.plo.voice.proto.packets.tcp.serverbound.*;
+import su.plo.voice.server.audio.source.BaseServerSource;
+import su.plo.voice.server.audio.source.VoiceServerSourceManager;
 import su.plo.voice.server.player.VoiceServerPlayer;
 import su.plo.voice.util.VersionUtil;
 
@@ -48,9 +49,11 @@ public final class PlayerChannelHandler implements ServerPacketTcpHandler {
     public void handlePacket(Packet<PacketHandler> packet) {
         if (!voiceServer.getUdpServer().isPresent()) return;
 
-        TcpPacketReceivedEvent event = new TcpPacketReceivedEvent(player, packet);
-        voiceServer.getEventBus().call(event);
-        if (event.isCancelled()) return;
+        if (voiceServer.getEventBus().hasListeners(TcpPacketReceivedEvent.class)) {
+            TcpPacketReceivedEvent event = new TcpPacketReceivedEvent(player, packet);
+            voiceServer.getEventBus().call(event);
+            if (event.isCancelled()) return;
+        }
 
         packet.handle(this);
     }
@@ -79,6 +82,7 @@ public final class PlayerChannelHandler implements ServerPacketTcpHandler {
             EncodedKeySpec publicKeySpec = new X509EncodedKeySpec(packet.getPublicKey());
 
             ((VoiceServerPlayer) player).setPublicKey(keyFactory.generatePublic(publicKeySpec));
+            ((VoiceServerPlayer) player).setFeatures(packet.getFeatures());
         } catch (Exception e) {
             LogManager.getLogger().error("Failed to generate RSA public key: {}", e.toString());
             e.printStackTrace();
@@ -88,7 +92,7 @@ public final class PlayerChannelHandler implements ServerPacketTcpHandler {
         tcpConnections.sendConfigInfo(player);
         tcpConnections.sendPlayerList(player);
 
-        tcpConnections.broadcast(new PlayerInfoUpdatePacket(player.getInfo()));
+        tcpConnections.broadcastPlayerInfoUpdate(player);
     }
 
     @Override
@@ -119,9 +123,15 @@ public final class PlayerChannelHandler implements ServerPacketTcpHandler {
     @Override
     public void handle(@NotNull SourceInfoRequestPacket packet) {
         Optional<ServerAudioSource> source = voiceServer.getSourceManager().getSourceById(packet.getSourceId());
+        // client received the compact audio packet of the source it doesn't know
+        if (!source.isPresent() && packet.getSourceHandle() > 0 && sources instanceof VoiceServerSourceManager) {
+            source = ((VoiceServerSourceManager) sources).getSourceByHandle(packet.getSourceHandle())
+                    .map(ServerAudioSource.class::cast);
+        }
         if (!source.isPresent()) return;
 
-        player.sendPacket(new SourceInfoPacket(source.get().getInfo()));
+        int handle = source.get() instanceof BaseServerSource ? ((BaseServerSource) source.get()).getHandle() : 0;
+        player.sendPacket(new SourceInfoPacket(source.get().getInfo(), handle));
     }
 
     private boolean selfFilter(VoicePlayer player) {
@@ -0,0 +1,137 @@
+package su.plo.voice.server.connection;
+
+import com.google.common.collect.Maps;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import su.plo.voice.api.event.EventSubscribe;
+import su.plo.voice.api.server.event.VoiceServerShutdownEvent;
+import su.plo.voice.api.server.event.connection.UdpConnectedEvent;
+import su.plo.voice.api.server.event.connection.UdpDisconnectEvent;
+import su.plo.voice.api.server.player.VoicePlayer;
+import su.plo.voice.proto.data.player.VoicePlayerInfo;
+import su.plo.voice.proto.packets.tcp.clientbound.PlayerDisconnectPacket;
+import su.plo.voice.proto.packets.tcp.clientbound.PlayerInfoUpdatePacket;
+import su.plo.voice.proto.packets.tcp.clientbound.PlayerListPacket;
+import su.plo.voice.server.BaseVoiceServer;
+import su.plo.voice.server.event.player.PlayerQuitEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Voice info of the players synchronized to the clients.
+ * <p>
+ * Every change gets the version from one counter and is broadcasted as the delta.
+ * Clients drop the changes older than the info they have, so the deltas and the chunked player list
+ * can be sent concurrently without the global lock.
+ * Changes of one player are made atomically by the map, so the late update can't add back the removed player.
+ * Players are added once connected to the UDP server and removed on UDP disconnect or quit.
+ */
+@RequiredArgsConstructor
+public final class PlayerInfoRoster {
+
+    // ~40 bytes per player, so the chunk is far below the plugin message limit
+    private static final int CHUNK_SIZE = 256;
+
+    private final BaseVoiceServer voiceServer;
+
+    private final Map<UUID, Entry> entryByPlayerId = Maps.newConcurrentMap();
+    private final AtomicLong lastVersion = new AtomicLong();
+
+    /**
+     * Sends the player list to the receiver in chunks of {@link #CHUNK_SIZE} players
+     */
+    public void sendTo(@NotNull VoicePlayer receiver) {
+        List<VoicePlayerInfo> players = new ArrayList<>(Math.min(entryByPlayerId.size(), CHUNK_SIZE));
+        long[] versions = new long[CHUNK_SIZE];
+
+        for (Entry entry : entryByPlayerId.values()) {
+            if (!receiver.getInstance().canSee(entry.player.getInstance())) continue;
+
+            versions[players.size()] = entry.version;
+            players.add(entry.info);
+
+            if (players.size() == CHUNK_SIZE) {
+                receiver.sendPacket(new PlayerListPacket(players, versions));
+
+                players = new ArrayList<>(CHUNK_SIZE);
+                versions = new long[CHUNK_SIZE];
+            }
+        }
+
+        if (!players.isEmpty()) {
+            receiver.sendPacket(new PlayerListPacket(players, Arrays.copyOf(versions, players.size())));
+        }
+    }
+
+    /**
+     * Broadcasts the player's info if it was changed since the last update
+     */
+    public void update(@NotNull VoicePlayer player) {
+        VoicePlayerInfo info = player.getInfo();
+
+        entryByPlayerId.compute(info.getPlayerId(), (playerId, entry) -> {
+            // disconnected player shouldn't be added back by the late update
+            if (!player.hasVoiceChat()) return entry;
+            if (entry != null && entry.info.equals(info)) return entry;
+
+            long version = lastVersion.incrementAndGet();
+            voiceServer.getTcpConnectionManager().broadcast(
+                    new PlayerInfoUpdatePacket(info, version),
+                    (receiver) -> receiver.getInstance().canSee(player.getInstance())
+            );
+
+            return new Entry(player, info, version);
+        });
+    }
+
+    /**
+     * Removes the player and broadcasts the disconnect if the player was in the roster
+     */
+    public void remove(@NotNull UUID playerId) {
+        entryByPlayerId.computeIfPresent(playerId, (id, entry) -> {
+            voiceServer.getTcpConnectionManager().broadcast(
+                    new PlayerDisconnectPacket(playerId, lastVersion.incrementAndGet()),
+                    null
+            );
+
+            return null;
+        });
+    }
+
+    public void clear() {
+        entryByPlayerId.clear();
+    }
+
+    @EventSubscribe
+    public void onUdpConnected(@NotNull UdpConnectedEvent event) {
+        update(event.getConnection().getPlayer());
+    }
+
+    @EventSubscribe
+    public void onUdpDisconnect(@NotNull UdpDisconnectEvent event) {
+        remove(event.getConnection().getPlayer().getInstance().getUUID());
+    }
+
+    @EventSubscribe
+    public void onPlayerQuit(@NotNull PlayerQuitEvent event) {
+        remove(event.getPlayerId());
+    }
+
+    @EventSubscribe
+    public void onVoiceShutdown(@NotNull VoiceServerShutdownEvent event) {
+        clear();
+    }
+
+    @RequiredArgsConstructor
+    private static final class Entry {
+
+        private final VoicePlayer player;
+        private final VoicePlayerInfo info;
+        private final long version;
+    }
+}
@@ -0,0 +1,99 @@
+package su.plo.voice.server.connection;
+
+import org.jetbrains.annotations.NotNull;
+import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.tcp.serverbound.PlayerInfoPacket;
+import su.plo.voice.server.player.VoiceServerPlayer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the packets sent to the players by the server tick and sends them as one BundlePacket per player.
+ * <p>
+ * Only the packets sent from the thread which started the bundling are collected,
+ * packets from the other threads, e.g. the source info sent before the first audio packet, are sent right away.
+ * If the player has the pending bundle, it's sent together with the packet from the other thread,
+ * so the packet doesn't overtake the packets queued before it.
+ * Only the clients with {@link PlayerInfoPacket#FEATURE_PACKET_BUNDLE} receive the bundles.
+ */
+public final class TcpPacketBundler {
+
+    // plugin messages of the older versions are limited to 32 KiB
+    private static final int MAX_BUNDLE_SIZE = 30_000;
+
+    // guarded by this
+    private final Map<VoiceServerPlayer, Bundle> bundleByPlayer = new LinkedHashMap<>();
+    private Thread bundlingThread;
+
+    /**
+     * Starts collecting the packets sent from the current thread
+     */
+    public synchronized void begin() {
+        this.bundlingThread = Thread.currentThread();
+    }
+
+    /**
+     * Adds the packet to the player's bundle
+     *
+     * @return false if the packet should be sent right away
+     */
+    public boolean add(@NotNull VoiceServerPlayer player, @NotNull Packet<?> packet, byte[] encoded) {
+        if (!player.hasFeature(PlayerInfoPacket.FEATURE_PACKET_BUNDLE)) return false;
+
+        synchronized (this) {
+            if (Thread.currentThread() != bundlingThread) {
+                // packet from the other thread is sent with the pending bundle, so it doesn't overtake the bundle
+                Bundle bundle = bundleByPlayer.remove(player);
+                if (bundle == null) return false;
+
+                bundle.add(player, packet, encoded);
+                player.sendBundle(bundle.packets, bundle.encoded);
+
+                return true;
+            }
+
+            bundleByPlayer.computeIfAbsent(player, (key) -> new Bundle())
+                    .add(player, packet, encoded);
+
+            return true;
+        }
+    }
+
+    /**
+     * Stops the bundling and sends the collected bundles
+     */
+    public synchronized void flush() {
+        if (Thread.currentThread() != bundlingThread) return;
+        this.bundlingThread = null;
+
+        bundleByPlayer.forEach((player, bundle) -> player.sendBundle(bundle.packets, bundle.encoded));
+        bundleByPlayer.clear();
+    }
+
+    private static final class Bundle {
+
+        private final List<Packet<?>> packets = new ArrayList<>();
+        private final List<byte[]> encoded = new ArrayList<>();
+        private int size;
+
+        private void add(@NotNull VoiceServerPlayer player, @NotNull Packet<?> packet, byte[] encoded) {
+            if (size + encoded.length > MAX_BUNDLE_SIZE && !packets.isEmpty()) {
+                player.sendBundle(packets, this.encoded);
+                clear();
+            }
+
+            packets.add(packet);
+            this.encoded.add(encoded);
+            this.size += encoded.length;
+        }
+
+        private void clear() {
+            packets.clear();
+            encoded.clear();
+            this.size = 0;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package su.plo.voice.server.connection;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import su.plo.voice.api.server.socket.UdpConnection;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * UDP connections by the secret.
+ * <p>
+ * Open addressing table keyed on the raw bits of the secret,
+ * so the connection of the received packet is found without allocating UUID.
+ * Table is immutable and republished on every change,
+ * readers never lock and {@link #getConnections()} is a plain array.
+ * Changes are rare (connect and disconnect), so they are synchronized and rebuild the whole table.
+ */
+public final class UdpSessionTable {
+
+    private volatile Table table = new Table(new UdpConnection[0]);
+
+    public @Nullable UdpConnection get(long secretMostBits, long secretLeastBits) {
+        return table.get(secretMostBits, secretLeastBits);
+    }
+
+    public @Nullable UdpConnection get(@NotNull UUID secret) {
+        return get(secret.getMostSignificantBits(), secret.getLeastSignificantBits());
+    }
+
+    /**
+     * Adds the connection, replacing the connection with the same secret
+     *
+     * @return replaced connection
+     */
+    public synchronized @Nullable UdpConnection put(@NotNull UdpConnection connection) {
+        UdpConnection[] connections = table.connections;
+        UdpConnection previous = get(connection.getSecret());
+
+        UdpConnection[] newConnections;
+        if (previous == null) {
+            newConnections = Arrays.copyOf(connections, connections.length + 1);
+            newConnections[connections.length] = connection;
+        } else {
+            newConnections = connections.clone();
+            newConnections[indexOf(connections, previous)] = connection;
+        }
+
+        this.table = new Table(newConnections);
+        return previous;
+    }
+
+    /**
+     * Removes the connection with the secret
+     *
+     * @return removed connection
+     */
+    public synchronized @Nullable UdpConnection remove(@NotNull UUID secret) {
+        UdpConnection connection = get(secret);
+        if (connection != null) remove(connection);
+
+        return connection;
+    }
+
+    /**
+     * Removes the connection only if it's still in the table
+     *
+     * @return true if the connection was removed
+     */
+    public synchronized boolean remove(@NotNull UdpConnection connection) {
+        UdpConnection[] connections = table.connections;
+        int index = indexOf(connections, connection);
+        if (index < 0) return false;
+
+        UdpConnection[] newConnections = new UdpConnection[connections.length - 1];
+        System.arraycopy(connections, 0, newConnections, 0, index);
+        System.arraycopy(connections, index + 1, newConnections, index, newConnections.length - index);
+
+        this.table = new Table(newConnections);
+        return true;
+    }
+
+    public synchronized void clear() {
+        this.table = new Table(new UdpConnection[0]);
+    }
+
+    /**
+     * @return published connections, the array must not be modified
+     */
+    public @NotNull UdpConnection[] getConnections() {
+        return table.connections;
+    }
+
+    /**
+     * @return unmodifiable view of the published connections
+     */
+    public @NotNull List<UdpConnection> getConnectionList() {
+        return table.connectionList;
+    }
+
+    public int size() {
+        return table.connections.length;
+    }
+
+    private static int indexOf(@NotNull UdpConnection[] connections, @NotNull UdpConnection connection) {
+        for (int i = 0; i < connections.length; i++) {
+            if (connections[i] == connection) return i;
+        }
+
+        return -1;
+    }
+
+    private static final class Table {
+
+        private static final int MIN_CAPACITY = 16;
+
+        private final UdpConnection[] connections;
+        private final List<UdpConnection> connectionList;
+
+        // two longs per slot: most and least significant bits of the secret
+        private final long[] keys;
+        private final UdpConnection[] slots;
+        private final int mask;
+
+        private Table(@NotNull UdpConnection[] connections) {
+            this.connections = connections;
+            this.connectionList = Collections.unmodifiableList(Arrays.asList(connections));
+
+            // load factor is at most 0.5, so probing is short and always finds an empty slot
+            int capacity = MIN_CAPACITY;
+            while (capacity < connections.length * 2) capacity <<= 1;
+
+            this.keys = new long[capacity * 2];
+            this.slots = new UdpConnection[capacity];
+            this.mask = capacity - 1;
+
+            for (UdpConnection connection : connections) {
+                long mostBits = connection.getSecret().getMostSignificantBits();
+                long leastBits = connection.getSecret().getLeastSignificantBits();
+
+                int index = hash(mostBits, leastBits) & mask;
+                while (slots[index] != null) index = (index + 1) & mask;
+
+                keys[index * 2] = mostBits;
+                keys[index * 2 + 1] = leastBits;
+                slots[index] = connection;
+            }
+        }
+
+        private @Nullable UdpConnection get(long mostBits, long leastBits) {
+            int index = hash(mostBits, leastBits) & mask;
+
+            UdpConnection connection;
+            while ((connection = slots[index]) != null) {
+                if (keys[index * 2] == mostBits && keys[index * 2 + 1] == leastBits) return connection;
+                index = (index + 1) & mask;
+            }
+
+            return null;
+        }
+
+        private static int hash(long mostBits, long leastBits) {
+            long bits = mostBits * 0x9E3779B97F4A7C15L ^ leastBits;
+            return (int) (bits ^ (bits >>> 32));
+        }
+    }
+}
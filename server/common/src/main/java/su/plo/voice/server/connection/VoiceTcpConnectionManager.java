@@ -14,9 +14,11 @@ import su.plo.voice.proto.data.audio.codec.CodecInfo;
 import su.plo.voice.proto.data.audio.line.VoiceSourceLine;
 import su.plo.voice.proto.data.encryption.EncryptionInfo;
 import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.tcp.PacketTcpCodec;
 import su.plo.voice.proto.packets.tcp.clientbound.*;
 import su.plo.voice.server.BaseVoiceServer;
 import su.plo.voice.server.config.ServerConfig;
+import su.plo.voice.server.player.VoiceServerPlayer;
 
 import javax.crypto.Cipher;
 import java.security.PublicKey;
@@ -30,8 +32,6 @@ public final class VoiceTcpConnectionManager implements TcpServerConnectionManag
     private final BaseVoiceServer voiceServer;
     private final byte[] aesEncryptionKey;
 
-    private final Object playerStateLock = new Object();
-
     public VoiceTcpConnectionManager(BaseVoiceServer voiceServer) {
         this.voiceServer = voiceServer;
 
@@ -43,11 +43,27 @@ public final class VoiceTcpConnectionManager implements TcpServerConnectionManag
         this.aesEncryptionKey = out.toByteArray();
     }
 
+    /**
+     * Gets the audio encryption key shared by all clients
+     */
+    public byte[] getAesEncryptionKey() {
+        return aesEncryptionKey.clone();
+    }
+
     @Override
     public void broadcast(@NotNull Packet<ClientPacketTcpHandler> packet, @Nullable Predicate<VoicePlayer> filter) {
+        // encoded once for all receivers
+        byte[] encoded = null;
+
         for (VoicePlayer player : voiceServer.getPlayerManager().getPlayers()) {
-            if ((filter == null || filter.test(player)) && player.hasVoiceChat())
+            if ((filter != null && !filter.test(player)) || !player.hasVoiceChat()) continue;
+
+            if (player instanceof VoiceServerPlayer) {
+                if (encoded == null) encoded = PacketTcpCodec.encode(packet);
+                ((VoiceServerPlayer) player).sendPacket(packet, encoded);
+            } else {
                 player.sendPacket(packet);
+            }
         }
     }
 
@@ -80,7 +96,8 @@ public final class VoiceTcpConnectionManager implements TcpServerConnectionManag
         player.sendPacket(new ConnectionPacket(
                 secret,
                 ip,
-                port
+                port,
+                voiceServer.getUdpConnectionManager().getSessionIdBySecret(secret)
         ));
     }
 
@@ -93,7 +110,9 @@ public final class VoiceTcpConnectionManager implements TcpServerConnectionManag
         Map<String, String> codecParams = Maps.newHashMap();
         codecParams.put("mode", opusConfig.getMode());
         codecParams.put("bitrate", String.valueOf(opusConfig.getBitrate()));
-
+        codecParams.put("fec", String.valueOf(opusConfig.isFec()));
+        codecParams.put("packet_loss", String.valueOf(opusConfig.getPacketLoss()));
+        codecParams.put("dtx", String.valueOf(opusConfig.isDtx()));
 
         EncryptionInfo aesEncryption;
         try {
@@ -104,7 +123,7 @@ public final class VoiceTcpConnectionManager implements TcpServerConnectionManag
             encryptCipher.init(Cipher.ENCRYPT_MODE, publicKey);
 
             aesEncryption = new EncryptionInfo(
-                    "AES/CBC/PKCS5Padding",
+                    voiceConfig.getEncryption(),
                     encryptCipher.doFinal(aesEncryptionKey)
             );
         } catch (Exception e) {
@@ -133,30 +152,19 @@ public final class VoiceTcpConnectionManager implements TcpServerConnectionManag
                         .map(activation -> (VoiceActivation) activation) // waytoodank
                         .filter(activation -> receiver.getInstance().hasPermission("voice.activation." + activation.getName()))
                         .collect(Collectors.toList()),
-                getPlayerPermissions(receiver)
+                getPlayerPermissions(receiver),
+                opusConfig.isAdaptiveBitrate() ? ConfigPacket.FEATURE_SOURCE_FEEDBACK : 0
         ));
     }
 
     @Override
     public void sendPlayerList(@NotNull VoicePlayer receiver) {
-        synchronized (playerStateLock) {
-            receiver.sendPacket(new PlayerListPacket(
-                    voiceServer.getUdpConnectionManager().getConnections()
-                            .stream()
-                            .filter(connection -> receiver.getInstance().canSee(connection.getPlayer().getInstance()))
-                            .map(connection -> connection.getPlayer().getInfo())
-                            .collect(Collectors.toList())
-            ));
-        }
+        voiceServer.getPlayerInfoRoster().sendTo(receiver);
     }
 
     @Override
     public void broadcastPlayerInfoUpdate(@NotNull VoicePlayer player) {
-        synchronized (playerStateLock) {
-            broadcast(new PlayerInfoUpdatePacket(
-                    player.getInfo()
-            ), (player1) -> player1.getInstance().canSee(player.getInstance()));
-        }
+        voiceServer.getPlayerInfoRoster().update(player);
     }
 
     private Map<String, Boolean> getPlayerPermissions(@NotNull VoicePlayer player) {
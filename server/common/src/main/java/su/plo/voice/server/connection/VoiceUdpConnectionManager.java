@@ -1,11 +1,13 @@
 package su.plo.voice.server.connection;
 
 import com.google.common.collect.Maps;
+import io.netty.buffer.ByteBufAllocator;
 import lombok.AllArgsConstructor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import su.plo.lib.api.server.world.ServerPos3d;
 import su.plo.voice.api.event.EventSubscribe;
 import su.plo.voice.api.server.PlasmoVoiceServer;
 import su.plo.voice.api.server.connection.UdpServerConnectionManager;
@@ -17,8 +19,16 @@ import su.plo.voice.api.server.socket.UdpConnection;
 import su.plo.voice.proto.packets.Packet;
 import su.plo.voice.proto.packets.udp.clientbound.ClientPacketUdpHandler;
 import su.plo.voice.server.event.player.PlayerQuitEvent;
+import su.plo.voice.server.player.PlayerPositionSnapshot;
+import su.plo.voice.server.socket.NettyUdpConnection;
+import su.plo.voice.server.socket.NettyUdpMulticastPacket;
+import su.plo.voice.server.socket.NettyUdpWriteBatch;
+import su.plo.voice.server.util.SpatialGrid;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -29,13 +39,20 @@ public final class VoiceUdpConnectionManager implements UdpServerConnectionManag
 
     private static final Logger LOGGER = LogManager.getLogger();
 
+    private static final int GRID_CELL_SIZE = 64;
+
     private final PlasmoVoiceServer server;
 
     private final Map<UUID, UUID> secretByPlayerId = Maps.newConcurrentMap();
     private final Map<UUID, UUID> playerIdBySecret = Maps.newConcurrentMap();
+    private final Map<UUID, Integer> sessionIdBySecret = Maps.newConcurrentMap();
 
-    private final Map<UUID, UdpConnection> connectionBySecret = Maps.newConcurrentMap();
+    private final UdpSessionTable connectionBySecret = new UdpSessionTable();
     private final Map<UUID, UdpConnection> connectionByPlayerId = Maps.newConcurrentMap();
+    private final CompactSessionTable connectionBySessionId = new CompactSessionTable();
+
+    private final SpatialGrid<UdpConnection> connectionGrid = new SpatialGrid<>(GRID_CELL_SIZE);
+    private final ServerPos3d playerPosition = new ServerPos3d();
 
     @Override
     public Optional<UUID> getPlayerIdBySecret(UUID secret) {
@@ -51,21 +68,48 @@ public final class VoiceUdpConnectionManager implements UdpServerConnectionManag
         UUID secret = UUID.randomUUID();
         secretByPlayerId.put(playerUUID, secret);
         playerIdBySecret.put(secret, playerUUID);
+        sessionIdBySecret.put(secret, connectionBySessionId.allocate());
 
         return secret;
     }
 
+    /**
+     * Gets the session id of the compact packets agreed with the secret
+     *
+     * @return session id or 0 if the secret is unknown
+     */
+    public int getSessionIdBySecret(@NotNull UUID secret) {
+        return sessionIdBySecret.getOrDefault(secret, 0);
+    }
+
+    public @Nullable UdpConnection getConnectionBySessionId(int sessionId) {
+        return connectionBySessionId.get(sessionId);
+    }
+
     @Override
     public void addConnection(UdpConnection connection) {
         UdpConnectEvent connectEvent = new UdpConnectEvent(connection);
         server.getEventBus().call(connectEvent);
         if (connectEvent.isCancelled()) return;
 
-        UdpConnection bySecret = connectionBySecret.put(connection.getSecret(), connection);
+        UdpConnection bySecret = connectionBySecret.put(connection);
         UdpConnection byPlayer = connectionByPlayerId.put(connection.getPlayer().getInstance().getUUID(), connection);
 
-        if (bySecret != null) bySecret.disconnect();
-        if (byPlayer != null) byPlayer.disconnect();
+        if (connection instanceof NettyUdpConnection) {
+            connectionBySessionId.put(((NettyUdpConnection) connection).getSessionId(), connection);
+        }
+
+        // replaced connections are not visited by the tick anymore, so they are removed from the grid here
+        if (bySecret != null && bySecret != connection) {
+            bySecret.disconnect();
+            connectionGrid.remove(bySecret);
+        }
+        if (byPlayer != null && byPlayer != connection) {
+            // previous connection of the player could have another secret
+            connectionBySecret.remove(byPlayer);
+            byPlayer.disconnect();
+            connectionGrid.remove(byPlayer);
+        }
 
         server.getEventBus().call(new UdpConnectedEvent(connection));
     }
@@ -84,7 +128,10 @@ public final class VoiceUdpConnectionManager implements UdpServerConnectionManag
     @Override
     public boolean removeConnection(VoicePlayer player) {
         UdpConnection connection = connectionByPlayerId.remove(player.getInstance().getUUID());
-        if (connection != null) disconnect(connection);
+        if (connection != null) {
+            connectionBySecret.remove(connection);
+            disconnect(connection);
+        }
 
         return connection != null;
     }
@@ -92,7 +139,10 @@ public final class VoiceUdpConnectionManager implements UdpServerConnectionManag
     @Override
     public boolean removeConnection(UUID secret) {
         UdpConnection connection = connectionBySecret.remove(secret);
-        if (connection != null) disconnect(connection);
+        if (connection != null) {
+            connectionByPlayerId.remove(connection.getPlayer().getInstance().getUUID(), connection);
+            disconnect(connection);
+        }
 
         return connection != null;
     }
@@ -102,6 +152,13 @@ public final class VoiceUdpConnectionManager implements UdpServerConnectionManag
         return Optional.ofNullable(connectionBySecret.get(secret));
     }
 
+    /**
+     * Gets the connection by the raw bits of the secret without allocating UUID
+     */
+    public @Nullable UdpConnection getConnectionBySecret(long secretMostBits, long secretLeastBits) {
+        return connectionBySecret.get(secretMostBits, secretLeastBits);
+    }
+
     @Override
     public Optional<UdpConnection> getConnectionByUUID(UUID playerUUID) {
         return Optional.ofNullable(connectionByPlayerId.get(playerUUID));
@@ -109,30 +166,77 @@ public final class VoiceUdpConnectionManager implements UdpServerConnectionManag
 
     @Override
     public Collection<UdpConnection> getConnections() {
-        return connectionByPlayerId.values();
+        return connectionBySecret.getConnectionList();
+    }
+
+    @Override
+    public Collection<UdpConnection> getConnectionsInRange(@NotNull ServerPos3d position, double distance) {
+        if (position.getWorld() == null) return Collections.emptyList();
+
+        List<UdpConnection> connections = new ArrayList<>();
+        connectionGrid.query(
+                position.getWorld(),
+                position.getX(),
+                position.getY(),
+                position.getZ(),
+                distance,
+                connections
+        );
+
+        return connections;
     }
 
     @Override
     public void clearConnections() {
-        getConnections().forEach(this::removeConnection);
+        for (UdpConnection connection : connectionBySecret.getConnections()) {
+            removeConnection(connection);
+        }
     }
 
     private void disconnect(UdpConnection connection) {
         connection.disconnect();
+        connectionGrid.remove(connection);
 
         secretByPlayerId.remove(connection.getPlayer().getInstance().getUUID());
         playerIdBySecret.remove(connection.getSecret());
+        releaseSession(connection.getSecret());
 
         LOGGER.info("{} disconnected", connection.getPlayer());
         server.getEventBus().call(new UdpDisconnectEvent(connection));
     }
 
+    @Override
+    public void sendPacket(@NotNull Packet<ClientPacketUdpHandler> packet, @NotNull Collection<UdpConnection> connections) {
+        if (connections.isEmpty()) return;
+
+        NettyUdpMulticastPacket multicastPacket = NettyUdpMulticastPacket.encode(ByteBufAllocator.DEFAULT, packet);
+        if (multicastPacket == null) return;
+
+        // flush every socket once per fan-out instead of once per receiver
+        NettyUdpWriteBatch batch = new NettyUdpWriteBatch();
+        try {
+            for (UdpConnection connection : connections) {
+                if (connection instanceof NettyUdpConnection) {
+                    ((NettyUdpConnection) connection).sendPacket(multicastPacket, batch);
+                } else {
+                    connection.sendPacket(packet);
+                }
+            }
+        } finally {
+            multicastPacket.release();
+            batch.flush();
+        }
+    }
+
     @Override
     public void broadcast(@NotNull Packet<ClientPacketUdpHandler> packet, @Nullable Predicate<VoicePlayer> filter) {
-        for (UdpConnection connection : getConnections()) {
+        List<UdpConnection> connections = new ArrayList<>();
+        for (UdpConnection connection : connectionBySecret.getConnections()) {
             if (filter == null || filter.test(connection.getPlayer()))
-                connection.sendPacket(packet);
+                connections.add(connection);
         }
+
+        sendPacket(packet, connections);
     }
 
     @Override
@@ -140,8 +244,48 @@ public final class VoiceUdpConnectionManager implements UdpServerConnectionManag
         broadcast(packet, null);
     }
 
+    /**
+     * Moves connections in the spatial grid to the captured players positions
+     * <p>
+     * Should be called once per server tick after the positions were captured
+     */
+    public void tick(@NotNull PlayerPositionSnapshot positions) {
+        for (UdpConnection connection : connectionBySecret.getConnections()) {
+            if (!connection.isConnected() ||
+                    !positions.getPosition(connection.getPlayer().getInstance().getUUID(), playerPosition)
+            ) continue;
+
+            connectionGrid.update(
+                    connection,
+                    playerPosition.getWorld(),
+                    playerPosition.getX(),
+                    playerPosition.getY(),
+                    playerPosition.getZ()
+            );
+
+            // connection could be closed while it was being moved
+            if (!connection.isConnected()) connectionGrid.remove(connection);
+        }
+    }
+
+    private void releaseSession(@NotNull UUID secret) {
+        Integer sessionId = sessionIdBySecret.remove(secret);
+        if (sessionId != null) connectionBySessionId.release(sessionId);
+    }
+
     @EventSubscribe
     public void onPlayerQuit(@NotNull PlayerQuitEvent event) {
-        getConnectionByUUID(event.getPlayerId()).ifPresent(this::removeConnection);
+        Optional<UdpConnection> connection = getConnectionByUUID(event.getPlayerId());
+        if (connection.isPresent()) {
+            removeConnection(connection.get());
+            return;
+        }
+
+        // player quit before the udp connection, so the session id is not kept allocated
+        UUID secret = secretByPlayerId.remove(event.getPlayerId());
+        if (secret != null) {
+            playerIdBySecret.remove(secret);
+            releaseSession(secret);
+        }
     }
 }
@@ -0,0 +1,21 @@
+package su.plo.voice.server.event.audio.source;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import su.plo.voice.api.event.Event;
+import su.plo.voice.api.server.audio.source.ServerAudioSource;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * This event is fired when the source is removed from the source manager
+ */
+public final class ServerSourceRemovedEvent implements Event {
+
+    @Getter
+    private final ServerAudioSource source;
+
+    public ServerSourceRemovedEvent(@NotNull ServerAudioSource source) {
+        this.source = checkNotNull(source, "source cannot be null");
+    }
+}
@@ -1,5 +1,7 @@
 package su.plo.voice.server.mute;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 import su.plo.lib.api.chat.MinecraftTextComponent;
 import su.plo.voice.api.server.mute.MuteDurationUnit;
@@ -12,14 +14,25 @@ import su.plo.voice.server.BaseVoiceServer;
 import su.plo.voice.server.config.ServerLanguage;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 public final class VoiceMuteManager implements MuteManager {
 
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    // temporary mutes are loaded from the storage ahead of their expiration by this window
+    private static final long EXPIRATIONS_WINDOW_MS = TimeUnit.HOURS.toMillis(1L);
+
     public static boolean isMuteValid(@NotNull ServerMuteInfo muteInfo) {
         return muteInfo.getMutedToTime() == 0 || muteInfo.getMutedToTime() > System.currentTimeMillis();
     }
@@ -27,6 +40,15 @@ public final class VoiceMuteManager implements MuteManager {
     private final BaseVoiceServer voiceServer;
     private final MuteStorage storage;
     private final VoicePlayerManager playerManager;
+    private final ScheduledExecutorService executor;
+
+    // temporary mutes ordered by the expiration time, so only the next expiration is scheduled
+    private final PriorityQueue<ServerMuteInfo> expirations = new PriorityQueue<>(
+            Comparator.comparingLong(ServerMuteInfo::getMutedToTime)
+    );
+    private ScheduledFuture<?> expirationTask;
+    // mutes expiring before this time are already loaded to the queue
+    private long expirationsLoadedTo;
 
     public VoiceMuteManager(@NotNull BaseVoiceServer voiceServer,
                             @NotNull MuteStorage storage,
@@ -34,8 +56,15 @@ public final class VoiceMuteManager implements MuteManager {
         this.voiceServer = voiceServer;
         this.storage = storage;
         this.playerManager = voiceServer.getPlayerManager();
-
-        executor.scheduleAtFixedRate(this::tick, 0L, 5L, TimeUnit.SECONDS);
+        this.executor = executor;
+
+        // storage may be too large to load all mutes on start, so expirations are loaded in windows
+        executor.scheduleWithFixedDelay(
+                this::loadExpirations,
+                0L,
+                EXPIRATIONS_WINDOW_MS / 2,
+                TimeUnit.MILLISECONDS
+        );
     }
 
     @Override
@@ -73,6 +102,7 @@ public final class VoiceMuteManager implements MuteManager {
         ServerMuteInfo muteInfo = new ServerMuteInfo(playerId, mutedById, System.currentTimeMillis(), duration, reason);
 
         storage.putPlayerMute(player.getInstance().getUUID(), muteInfo);
+        scheduleExpiration(muteInfo);
 
         voiceServer.getTcpConnectionManager().broadcastPlayerInfoUpdate(player);
         if (duration > 0) {
@@ -111,6 +141,11 @@ public final class VoiceMuteManager implements MuteManager {
                 });
     }
 
+    @Override
+    public Collection<ServerMuteInfo> getMutedPlayers(int offset, int limit) {
+        return storage.getMutedPlayers(offset, limit);
+    }
+
     @Override
     public Optional<ServerMuteInfo> getMute(@NotNull UUID playerId) {
         return storage.getMuteByPlayerId(playerId);
@@ -127,11 +162,75 @@ public final class VoiceMuteManager implements MuteManager {
                 : reason;
     }
 
-    private void tick() {
-        getMutedPlayers().forEach((muteInfo) -> {
-            if (!isMuteValid(muteInfo)) {
-                unmute(muteInfo.getPlayerUUID(), false);
+    private void loadExpirations() {
+        long fromTime;
+        long toTime = System.currentTimeMillis() + EXPIRATIONS_WINDOW_MS;
+        synchronized (this) {
+            fromTime = expirationsLoadedTo;
+            // mutes added while loading are scheduled by the mute itself,
+            // so they can be queued twice, which is harmless
+            this.expirationsLoadedTo = toTime;
+        }
+
+        try {
+            storage.getExpiringMutes(fromTime, toTime).forEach(this::queueExpiration);
+        } catch (Exception e) {
+            LOGGER.error("Failed to load mute expirations: {}", e.toString());
+            e.printStackTrace();
+        }
+    }
+
+    private synchronized void scheduleExpiration(@NotNull ServerMuteInfo muteInfo) {
+        // mutes expiring after the loaded window will be loaded from the storage later
+        if (muteInfo.getMutedToTime() == 0 || muteInfo.getMutedToTime() > expirationsLoadedTo) return;
+
+        queueExpiration(muteInfo);
+    }
+
+    private synchronized void queueExpiration(@NotNull ServerMuteInfo muteInfo) {
+        expirations.add(muteInfo);
+        if (expirations.peek() == muteInfo) rescheduleExpiration();
+    }
+
+    private synchronized void rescheduleExpiration() {
+        if (expirationTask != null) expirationTask.cancel(false);
+
+        ServerMuteInfo next = expirations.peek();
+        if (next == null) {
+            this.expirationTask = null;
+            return;
+        }
+
+        try {
+            this.expirationTask = executor.schedule(
+                    this::expire,
+                    Math.max(0L, next.getMutedToTime() - System.currentTimeMillis()),
+                    TimeUnit.MILLISECONDS
+            );
+        } catch (RejectedExecutionException ignored) {
+            // server is stopping
+        }
+    }
+
+    private void expire() {
+        List<ServerMuteInfo> expired = new ArrayList<>();
+        synchronized (this) {
+            while (!expirations.isEmpty() && !isMuteValid(expirations.peek())) {
+                expired.add(expirations.poll());
             }
-        });
+
+            rescheduleExpiration();
+        }
+
+        for (ServerMuteInfo muteInfo : expired) {
+            // player could be unmuted or muted again before the expiration
+            Optional<ServerMuteInfo> current = storage.getMuteByPlayerId(muteInfo.getPlayerUUID());
+            if (!current.isPresent() ||
+                    current.get().getMutedAtTime() != muteInfo.getMutedAtTime() ||
+                    current.get().getMutedToTime() != muteInfo.getMutedToTime()
+            ) continue;
+
+            unmute(muteInfo.getPlayerUUID(), false);
+        }
     }
 }
@@ -4,7 +4,9 @@ import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 import su.plo.voice.api.server.mute.storage.MuteStorage;
 import su.plo.voice.server.BaseVoiceServer;
+import su.plo.voice.server.mute.storage.file.JournalMuteStorage;
 import su.plo.voice.server.mute.storage.file.JsonMuteStorage;
+import su.plo.voice.server.mute.storage.sql.H2MuteStorage;
 
 import java.io.File;
 import java.util.concurrent.ExecutorService;
@@ -19,6 +21,14 @@ public final class MuteStorageFactory {
         switch (storageType) {
             case "json":
                 return new JsonMuteStorage(executor, new File(voiceServer.getConfigFolder(), "voice_mutes.json"));
+            case "journal":
+                return new JournalMuteStorage(executor, new File(voiceServer.getConfigFolder(), "voice_mutes.journal"));
+            case "h2":
+                return new H2MuteStorage(
+                        executor,
+                        new File(voiceServer.getConfigFolder(), "voice_mutes"),
+                        new File(voiceServer.getConfigFolder(), "voice_mutes.json")
+                );
             default:
                 throw new IllegalArgumentException("Unknown storage type: " + storageType);
         }
@@ -0,0 +1,186 @@
+package su.plo.voice.server.mute.storage.file;
+
+import com.google.common.collect.Maps;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import su.plo.voice.api.server.mute.ServerMuteInfo;
+import su.plo.voice.api.server.mute.storage.MuteStorage;
+import su.plo.voice.server.mute.VoiceMuteManager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mute storage which appends every change to the journal file as a JSON line
+ * instead of rewriting all mutes.
+ * <p>
+ * Journal is compacted to the live mutes on start, on close
+ * and when it has twice as many records as there are mutes.
+ */
+@RequiredArgsConstructor
+public final class JournalMuteStorage implements MuteStorage {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Gson GSON = new Gson();
+
+    private static final int MIN_COMPACT_RECORDS = 1_024;
+
+    private final Map<UUID, ServerMuteInfo> muteByPlayerId = Maps.newConcurrentMap();
+
+    private final ExecutorService executor;
+    private final File file;
+
+    // accessed only from the executor after init
+    private Writer writer;
+    private int records;
+
+    @Override
+    public void init() throws Exception {
+        if (file.exists()) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)
+            )) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) continue;
+
+                    try {
+                        apply(GSON.fromJson(line, JournalRecord.class));
+                    } catch (JsonParseException e) {
+                        // server could be stopped while the record was being written
+                        LOGGER.warn("Skipping malformed mute journal record: {}", line);
+                    }
+                }
+            }
+        }
+
+        muteByPlayerId.values().removeIf(muteInfo -> !VoiceMuteManager.isMuteValid(muteInfo));
+        compact();
+    }
+
+    @Override
+    public void close() throws Exception {
+        executor.shutdown();
+        executor.awaitTermination(5L, TimeUnit.SECONDS);
+
+        compact();
+        writer.close();
+        muteByPlayerId.clear();
+    }
+
+    @Override
+    public void putPlayerMute(@NotNull UUID playerId, @NotNull ServerMuteInfo muteInfo) {
+        if (VoiceMuteManager.isMuteValid(muteInfo)) {
+            muteByPlayerId.put(playerId, muteInfo);
+            appendAsync(JournalRecord.put(muteInfo));
+        }
+    }
+
+    @Override
+    public Optional<ServerMuteInfo> getMuteByPlayerId(@NotNull UUID playerId) {
+        return Optional.ofNullable(muteByPlayerId.get(playerId));
+    }
+
+    @Override
+    public Optional<ServerMuteInfo> removeMuteByPlayerId(@NotNull UUID playerId) {
+        ServerMuteInfo muteInfo = muteByPlayerId.remove(playerId);
+        if (muteInfo != null) appendAsync(JournalRecord.remove(playerId));
+
+        return Optional.ofNullable(muteInfo);
+    }
+
+    @Override
+    public Collection<ServerMuteInfo> getMutedPlayers() {
+        return muteByPlayerId.values();
+    }
+
+    private void apply(@NotNull JournalRecord record) {
+        if (record.mute != null) {
+            muteByPlayerId.put(record.mute.getPlayerUUID(), record.mute);
+        } else if (record.playerId != null) {
+            muteByPlayerId.remove(record.playerId);
+        }
+    }
+
+    private void appendAsync(@NotNull JournalRecord record) {
+        String line = GSON.toJson(record);
+
+        executor.execute(() -> {
+            try {
+                writer.write(line);
+                writer.write('\n');
+                writer.flush();
+
+                if (++records > Math.max(MIN_COMPACT_RECORDS, muteByPlayerId.size() * 2)) {
+                    compact();
+                }
+            } catch (Exception e) {
+                LOGGER.error("Failed to append mute journal record: {}", e.toString());
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Rewrites the journal with the live mutes and reopens it for appending
+     */
+    private void compact() throws IOException {
+        if (writer != null) writer.close();
+
+        File compactedFile = new File(file.getPath() + ".tmp");
+        int compactedRecords = 0;
+        try (Writer compacted = newWriter(compactedFile, false)) {
+            for (ServerMuteInfo muteInfo : muteByPlayerId.values()) {
+                if (!VoiceMuteManager.isMuteValid(muteInfo)) continue;
+
+                compacted.write(GSON.toJson(JournalRecord.put(muteInfo)));
+                compacted.write('\n');
+                compactedRecords++;
+            }
+        }
+
+        Files.move(
+                compactedFile.toPath(),
+                file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+        );
+
+        this.writer = newWriter(file, true);
+        this.records = compactedRecords;
+    }
+
+    private Writer newWriter(@NotNull File file, boolean append) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, append), StandardCharsets.UTF_8));
+    }
+
+    private static final class JournalRecord {
+
+        private ServerMuteInfo mute;
+        private UUID playerId;
+
+        private static JournalRecord put(@NotNull ServerMuteInfo muteInfo) {
+            JournalRecord record = new JournalRecord();
+            record.mute = muteInfo;
+            return record;
+        }
+
+        private static JournalRecord remove(@NotNull UUID playerId) {
+            JournalRecord record = new JournalRecord();
+            record.playerId = playerId;
+            return record;
+        }
+    }
+}
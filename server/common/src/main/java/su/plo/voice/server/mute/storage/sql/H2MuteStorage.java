@@ -0,0 +1,300 @@
+package su.plo.voice.server.mute.storage.sql;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.h2.Driver;
+import org.jetbrains.annotations.NotNull;
+import su.plo.voice.api.server.mute.ServerMuteInfo;
+import su.plo.voice.api.server.mute.storage.MuteStorage;
+import su.plo.voice.server.mute.VoiceMuteManager;
+import su.plo.voice.server.mute.storage.file.JsonMuteStorage;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mute storage backed by the embedded H2 database.
+ * <p>
+ * Mutes are not loaded on start, they are looked up by the player
+ * and cached, and the list is read by pages.
+ * Changes are applied to the cache immediately
+ * and committed to the database in batches on the executor.
+ * <p>
+ * Mutes from the json storage are migrated on the first start.
+ */
+public final class H2MuteStorage implements MuteStorage {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String COLUMNS = "player_id, muted_by_id, muted_at, muted_to, reason";
+
+    private static final String SELECT_BY_PLAYER = "SELECT " + COLUMNS + " FROM voice_mutes WHERE player_id = ?";
+    private static final String SELECT_VALID = "SELECT " + COLUMNS + " FROM voice_mutes " +
+            "WHERE muted_to = 0 OR muted_to > ? ORDER BY muted_at DESC, player_id";
+    private static final String SELECT_PAGE = SELECT_VALID + " LIMIT ? OFFSET ?";
+    private static final String SELECT_EXPIRING = "SELECT " + COLUMNS + " FROM voice_mutes " +
+            "WHERE muted_to > ? AND muted_to <= ?";
+    private static final String MERGE = "MERGE INTO voice_mutes (" + COLUMNS + ") KEY (player_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE = "DELETE FROM voice_mutes WHERE player_id = ?";
+
+    private final ExecutorService executor;
+    private final File databaseFile;
+    private final File jsonFile;
+
+    // changes which are not committed yet, empty optional means that the mute was removed
+    private final Map<UUID, Optional<ServerMuteInfo>> pending = Maps.newConcurrentMap();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final Cache<UUID, Optional<ServerMuteInfo>> cache = CacheBuilder.newBuilder()
+            .maximumSize(4_096L)
+            .expireAfterAccess(10L, TimeUnit.MINUTES)
+            .build();
+
+    private Connection connection;
+
+    /**
+     * @param databaseFile database file without the extension
+     * @param jsonFile     json storage file to migrate the mutes from
+     */
+    public H2MuteStorage(@NotNull ExecutorService executor,
+                         @NotNull File databaseFile,
+                         @NotNull File jsonFile) {
+        this.executor = executor;
+        this.databaseFile = databaseFile;
+        this.jsonFile = jsonFile;
+    }
+
+    @Override
+    public synchronized void init() throws Exception {
+        // driver is referenced by the class, so it's found after the relocation
+        Driver.load();
+
+        this.connection = DriverManager.getConnection("jdbc:h2:" + databaseFile.getAbsolutePath());
+        connection.setAutoCommit(false);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS voice_mutes (" +
+                    "player_id UUID PRIMARY KEY, " +
+                    "muted_by_id UUID, " +
+                    "muted_at BIGINT NOT NULL, " +
+                    "muted_to BIGINT NOT NULL, " +
+                    "reason VARCHAR(1024))"
+            );
+            statement.execute("CREATE INDEX IF NOT EXISTS voice_mutes_muted_to ON voice_mutes (muted_to)");
+            statement.execute("CREATE INDEX IF NOT EXISTS voice_mutes_muted_at ON voice_mutes (muted_at DESC, player_id)");
+        }
+        connection.commit();
+
+        if (jsonFile.exists()) migrateJson();
+    }
+
+    @Override
+    public void close() throws Exception {
+        executor.shutdown();
+        executor.awaitTermination(5L, TimeUnit.SECONDS);
+
+        synchronized (this) {
+            flush();
+            connection.close();
+        }
+
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void putPlayerMute(@NotNull UUID playerId, @NotNull ServerMuteInfo muteInfo) {
+        if (VoiceMuteManager.isMuteValid(muteInfo)) {
+            update(playerId, Optional.of(muteInfo));
+        }
+    }
+
+    @Override
+    public Optional<ServerMuteInfo> getMuteByPlayerId(@NotNull UUID playerId) {
+        Optional<ServerMuteInfo> muteInfo = pending.get(playerId);
+        if (muteInfo != null) return muteInfo;
+
+        try {
+            return cache.get(playerId, () -> selectByPlayerId(playerId));
+        } catch (ExecutionException e) {
+            LOGGER.error("Failed to get mute from h2 mute storage: {}", e.getCause().toString());
+            e.printStackTrace();
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<ServerMuteInfo> removeMuteByPlayerId(@NotNull UUID playerId) {
+        Optional<ServerMuteInfo> muteInfo = getMuteByPlayerId(playerId);
+        if (muteInfo.isPresent()) update(playerId, Optional.empty());
+
+        return muteInfo;
+    }
+
+    /**
+     * Loads all mutes from the database, use {@link #getMutedPlayers(int, int)} instead when possible
+     */
+    @Override
+    public Collection<ServerMuteInfo> getMutedPlayers() {
+        return query(SELECT_VALID, System.currentTimeMillis());
+    }
+
+    @Override
+    public Collection<ServerMuteInfo> getMutedPlayers(int offset, int limit) {
+        return query(SELECT_PAGE, System.currentTimeMillis(), limit, offset);
+    }
+
+    @Override
+    public Collection<ServerMuteInfo> getExpiringMutes(long fromTime, long toTime) {
+        return query(SELECT_EXPIRING, fromTime, toTime);
+    }
+
+    private void update(@NotNull UUID playerId, @NotNull Optional<ServerMuteInfo> muteInfo) {
+        pending.put(playerId, muteInfo);
+        cache.put(playerId, muteInfo);
+
+        if (flushScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                flushScheduled.set(false);
+
+                try {
+                    flush();
+                } catch (Exception e) {
+                    LOGGER.error("Failed to save h2 mute storage: {}", e.toString());
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+
+    /**
+     * Commits all pending changes in one transaction
+     */
+    private synchronized void flush() throws SQLException {
+        if (pending.isEmpty()) return;
+
+        Map<UUID, Optional<ServerMuteInfo>> changes = new HashMap<>(pending);
+        try (PreparedStatement merge = connection.prepareStatement(MERGE);
+             PreparedStatement delete = connection.prepareStatement(DELETE)) {
+            for (Map.Entry<UUID, Optional<ServerMuteInfo>> entry : changes.entrySet()) {
+                if (entry.getValue().isPresent()) {
+                    setMute(merge, entry.getValue().get());
+                    merge.addBatch();
+                } else {
+                    delete.setObject(1, entry.getKey());
+                    delete.addBatch();
+                }
+            }
+
+            merge.executeBatch();
+            delete.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+
+        // changes made during the flush are kept for the next one
+        changes.forEach(pending::remove);
+    }
+
+    private synchronized Optional<ServerMuteInfo> selectByPlayerId(@NotNull UUID playerId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_BY_PLAYER)) {
+            statement.setObject(1, playerId);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next()
+                        ? Optional.of(readMute(resultSet))
+                        : Optional.empty();
+            }
+        }
+    }
+
+    private synchronized List<ServerMuteInfo> query(@NotNull String sql, Object... parameters) {
+        try {
+            // queries should see the changes which are not committed yet
+            flush();
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+
+                List<ServerMuteInfo> mutes = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        mutes.add(readMute(resultSet));
+                    }
+                }
+
+                return mutes;
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Failed to query h2 mute storage: {}", e.toString());
+            e.printStackTrace();
+            return Collections.emptyList();
+        }
+    }
+
+    private void migrateJson() throws Exception {
+        JsonMuteStorage jsonStorage = new JsonMuteStorage(MoreExecutors.newDirectExecutorService(), jsonFile);
+        jsonStorage.init();
+
+        Collection<ServerMuteInfo> mutes = jsonStorage.getMutedPlayers();
+        try (PreparedStatement merge = connection.prepareStatement(MERGE)) {
+            for (ServerMuteInfo muteInfo : mutes) {
+                setMute(merge, muteInfo);
+                merge.addBatch();
+            }
+
+            merge.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+
+        // json file is kept as a backup, but it shouldn't be migrated again
+        Files.move(jsonFile.toPath(), new File(jsonFile.getPath() + ".migrated").toPath());
+        LOGGER.info("Migrated {} mutes from {} to h2 mute storage", mutes.size(), jsonFile.getName());
+    }
+
+    private void setMute(@NotNull PreparedStatement statement, @NotNull ServerMuteInfo muteInfo) throws SQLException {
+        statement.setObject(1, muteInfo.getPlayerUUID());
+        statement.setObject(2, muteInfo.getMutedByPlayerUUID());
+        statement.setLong(3, muteInfo.getMutedAtTime());
+        statement.setLong(4, muteInfo.getMutedToTime());
+        statement.setString(5, muteInfo.getReason());
+    }
+
+    private ServerMuteInfo readMute(@NotNull ResultSet resultSet) throws SQLException {
+        return new ServerMuteInfo(
+                resultSet.getObject(1, UUID.class),
+                resultSet.getObject(2, UUID.class),
+                resultSet.getLong(3),
+                resultSet.getLong(4),
+                resultSet.getString(5)
+        );
+    }
+}
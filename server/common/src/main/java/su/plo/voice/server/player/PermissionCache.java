@@ -0,0 +1,123 @@
+package su.plo.voice.server.player;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import su.plo.lib.api.server.permission.PermissionTristate;
+import su.plo.voice.api.event.EventPriority;
+import su.plo.voice.api.event.EventSubscribe;
+import su.plo.voice.api.server.event.VoiceServerShutdownEvent;
+import su.plo.voice.server.event.player.PlayerPermissionUpdateEvent;
+import su.plo.voice.server.event.player.PlayerQuitEvent;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches permissions of the players in immutable per-player snapshots.
+ * <p>
+ * Snapshot is replaced with a new one when a permission missing in it is checked,
+ * and dropped on {@link PlayerPermissionUpdateEvent} (debounced by {@link LuckPermsListener}) or player quit.
+ * Snapshots also expire after {@link #SNAPSHOT_TTL_MS},
+ * so permission changes without the update event (e.g. op status) are applied eventually.
+ */
+public final class PermissionCache implements PermissionSupplier {
+
+    public static final long SNAPSHOT_TTL_MS = 5_000L;
+
+    private final PermissionSupplier supplier;
+
+    // keys are the platform player instances
+    private final Map<Object, Snapshot> snapshots = Maps.newConcurrentMap();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PermissionCache(@NotNull PermissionSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public boolean hasPermission(@NotNull Object player, @NotNull String permission) {
+        long now = System.currentTimeMillis();
+
+        Snapshot snapshot = snapshots.get(player);
+        if (snapshot != null && now - snapshot.createdAt < SNAPSHOT_TTL_MS) {
+            Boolean value = snapshot.permissions.get(permission);
+            if (value != null) {
+                hits.increment();
+                return value;
+            }
+        } else {
+            snapshot = null;
+        }
+
+        misses.increment();
+        boolean value = supplier.hasPermission(player, permission);
+
+        ImmutableMap.Builder<String, Boolean> permissions = ImmutableMap.builder();
+        if (snapshot != null) permissions.putAll(snapshot.permissions);
+        permissions.put(permission, value);
+
+        // concurrent misses may lose each other's permission, it will be just checked again
+        snapshots.put(
+                player,
+                new Snapshot(permissions.build(), snapshot != null ? snapshot.createdAt : now)
+        );
+
+        return value;
+    }
+
+    @Override
+    public @NotNull PermissionTristate getPermission(@NotNull Object player, @NotNull String permission) {
+        return supplier.getPermission(player, permission);
+    }
+
+    /**
+     * Drops the cached permissions of the player
+     *
+     * @param player the platform player instance
+     */
+    public void invalidate(@NotNull Object player) {
+        snapshots.remove(player);
+    }
+
+    public void invalidateAll() {
+        snapshots.clear();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // cache should be invalidated before other listeners check the updated permission
+    @EventSubscribe(priority = EventPriority.LOWEST)
+    public void onPermissionUpdate(@NotNull PlayerPermissionUpdateEvent event) {
+        invalidate(event.getPlayer().getInstance().getInstance());
+    }
+
+    @EventSubscribe
+    public void onPlayerQuit(@NotNull PlayerQuitEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventSubscribe
+    public void onVoiceShutdown(@NotNull VoiceServerShutdownEvent event) {
+        invalidateAll();
+    }
+
+    private static final class Snapshot {
+
+        private final Map<String, Boolean> permissions;
+        private final long createdAt;
+
+        private Snapshot(@NotNull Map<String, Boolean> permissions, long createdAt) {
+            this.permissions = permissions;
+            this.createdAt = createdAt;
+        }
+    }
+}
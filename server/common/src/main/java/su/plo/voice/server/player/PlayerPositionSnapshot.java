@@ -0,0 +1,180 @@
+package su.plo.voice.server.player;
+
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import su.plo.lib.api.server.world.MinecraftServerWorld;
+import su.plo.lib.api.server.world.ServerPos3d;
+import su.plo.voice.api.server.socket.UdpConnection;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Positions of the voice players captured once per server tick.
+ * <p>
+ * The main thread writes positions into the back buffer and publishes it at the end of the capture,
+ * so netty threads can read positions without touching the entities.
+ */
+public final class PlayerPositionSnapshot {
+
+    // x, y, z, yaw, pitch
+    private static final int STRIDE = 5;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<UUID, Integer> slotByPlayerId = Maps.newConcurrentMap();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int nextSlot;
+
+    private long tick;
+    private long[] capturedTicks = new long[INITIAL_CAPACITY];
+
+    private volatile Buffer front = new Buffer(INITIAL_CAPACITY);
+    private Buffer back = new Buffer(INITIAL_CAPACITY);
+
+    private final ServerPos3d position = new ServerPos3d();
+    private volatile Thread captureThread;
+
+    /**
+     * Captures positions of the connected players
+     * <p>
+     * Should be called from the main thread once per server tick
+     */
+    public synchronized void capture(@NotNull Collection<UdpConnection> connections) {
+        this.captureThread = Thread.currentThread();
+        tick++;
+
+        Buffer buffer = back;
+        int captured = 0;
+
+        for (UdpConnection connection : connections) {
+            if (!connection.isConnected()) continue;
+
+            UUID playerId = connection.getPlayer().getInstance().getUUID();
+            int slot = slotByPlayerId.computeIfAbsent(playerId, (id) -> allocateSlot());
+
+            if (slot >= buffer.capacity()) buffer = buffer.grow(capacityFor(slot));
+            if (slot >= capturedTicks.length) capturedTicks = Arrays.copyOf(capturedTicks, capacityFor(slot));
+
+            connection.getPlayer().getInstance().getServerPosition(position);
+            buffer.set(slot, playerId, position);
+
+            capturedTicks[slot] = tick;
+            captured++;
+        }
+
+        // free slots of the players that are not connected anymore
+        if (captured != slotByPlayerId.size()) {
+            Iterator<Map.Entry<UUID, Integer>> iterator = slotByPlayerId.entrySet().iterator();
+            while (iterator.hasNext()) {
+                int slot = iterator.next().getValue();
+                if (capturedTicks[slot] == tick) continue;
+
+                iterator.remove();
+                freeSlots.push(slot);
+            }
+        }
+
+        this.back = front;
+        this.front = buffer;
+    }
+
+    /**
+     * Copies the last captured position of the player
+     *
+     * @return false if the position of the player wasn't captured yet
+     */
+    public boolean getPosition(@NotNull UUID playerId, @NotNull ServerPos3d position) {
+        Integer slot = slotByPlayerId.get(playerId);
+        if (slot == null) return false;
+
+        return front.get(slot, playerId, position);
+    }
+
+    /**
+     * Checks if the current thread is the thread capturing the positions, i.e. the main thread,
+     * so the players can be read directly
+     */
+    public boolean isCaptureThread() {
+        return Thread.currentThread() == captureThread;
+    }
+
+    public synchronized void clear() {
+        slotByPlayerId.clear();
+        freeSlots.clear();
+        this.nextSlot = 0;
+
+        this.front = new Buffer(INITIAL_CAPACITY);
+        this.back = new Buffer(INITIAL_CAPACITY);
+    }
+
+    private int allocateSlot() {
+        Integer slot = freeSlots.poll();
+        if (slot != null) return slot;
+
+        return nextSlot++;
+    }
+
+    private int capacityFor(int slot) {
+        return Math.max(INITIAL_CAPACITY, Integer.highestOneBit(slot) << 1);
+    }
+
+    private static final class Buffer {
+
+        private final UUID[] playerIds;
+        private final MinecraftServerWorld[] worlds;
+        private final double[] positions;
+
+        private Buffer(int capacity) {
+            this.playerIds = new UUID[capacity];
+            this.worlds = new MinecraftServerWorld[capacity];
+            this.positions = new double[capacity * STRIDE];
+        }
+
+        private int capacity() {
+            return playerIds.length;
+        }
+
+        private Buffer grow(int capacity) {
+            Buffer buffer = new Buffer(capacity);
+            System.arraycopy(playerIds, 0, buffer.playerIds, 0, playerIds.length);
+            System.arraycopy(worlds, 0, buffer.worlds, 0, worlds.length);
+            System.arraycopy(positions, 0, buffer.positions, 0, positions.length);
+
+            return buffer;
+        }
+
+        private void set(int slot, @NotNull UUID playerId, @NotNull ServerPos3d position) {
+            int offset = slot * STRIDE;
+
+            positions[offset] = position.getX();
+            positions[offset + 1] = position.getY();
+            positions[offset + 2] = position.getZ();
+            positions[offset + 3] = position.getYaw();
+            positions[offset + 4] = position.getPitch();
+
+            worlds[slot] = position.getWorld();
+            playerIds[slot] = playerId;
+        }
+
+        private boolean get(int slot, @NotNull UUID playerId, @NotNull ServerPos3d position) {
+            // slot could be reused by another player after the buffer was published
+            if (slot >= playerIds.length || !playerId.equals(playerIds[slot])) return false;
+
+            int offset = slot * STRIDE;
+
+            position.setWorld(worlds[slot]);
+            position.setX(positions[offset]);
+            position.setY(positions[offset + 1]);
+            position.setZ(positions[offset + 2]);
+            position.setYaw((float) positions[offset + 3]);
+            position.setPitch((float) positions[offset + 4]);
+
+            return true;
+        }
+    }
+}
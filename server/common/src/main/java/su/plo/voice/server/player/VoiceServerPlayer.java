@@ -5,7 +5,6 @@ import lombok.Setter;
 import lombok.ToString;
 import org.jetbrains.annotations.NotNull;
 import su.plo.lib.api.server.entity.MinecraftServerPlayer;
-import su.plo.voice.api.server.PlasmoVoiceServer;
 import su.plo.voice.api.server.audio.capture.ServerActivation;
 import su.plo.voice.api.server.event.connection.TcpPacketSendEvent;
 import su.plo.voice.api.server.event.player.PlayerActivationDistanceUpdateEvent;
@@ -14,10 +13,14 @@ import su.plo.voice.api.server.player.VoicePlayer;
 import su.plo.voice.proto.data.player.VoicePlayerInfo;
 import su.plo.voice.proto.packets.Packet;
 import su.plo.voice.proto.packets.tcp.PacketTcpCodec;
+import su.plo.voice.proto.packets.tcp.clientbound.BundlePacket;
 import su.plo.voice.proto.packets.tcp.clientbound.DistanceVisualizePacket;
+import su.plo.voice.proto.packets.tcp.clientbound.SourceInfoPacket;
 import su.plo.voice.server.BaseVoiceServer;
+import su.plo.voice.server.socket.NettyUdpConnection;
 
 import java.security.PublicKey;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -27,7 +30,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @ToString(doNotUseGetters = true, exclude = "publicKey")
 public final class VoiceServerPlayer implements VoicePlayer {
 
-    private final PlasmoVoiceServer voiceServer;
+    private final BaseVoiceServer voiceServer;
     private final MinecraftServerPlayer player;
 
     @Setter
@@ -40,10 +43,13 @@ public final class VoiceServerPlayer implements VoicePlayer {
 
     @Setter
     private PublicKey publicKey;
+    // protocol features from PlayerInfoPacket
+    @Setter
+    private volatile int features;
 
     private final Map<UUID, Integer> distanceByActivationId = Maps.newConcurrentMap();
 
-    public VoiceServerPlayer(@NotNull PlasmoVoiceServer voiceServer,
+    public VoiceServerPlayer(@NotNull BaseVoiceServer voiceServer,
                              @NotNull MinecraftServerPlayer player) {
         this.voiceServer = voiceServer;
         this.player = checkNotNull(player);
@@ -56,17 +62,55 @@ public final class VoiceServerPlayer implements VoicePlayer {
 
     @Override
     public void sendPacket(Packet<?> packet) {
-        byte[] encoded = PacketTcpCodec.encode(packet);
+        sendPacket(packet, PacketTcpCodec.encode(packet));
+    }
+
+    /**
+     * Sends the packet already encoded by {@link PacketTcpCodec#encode(Packet)},
+     * so the packet sent to many players is encoded once
+     */
+    public void sendPacket(@NotNull Packet<?> packet, byte[] encoded) {
+        if (voiceServer.getEventBus().hasListeners(TcpPacketSendEvent.class)) {
+            TcpPacketSendEvent event = new TcpPacketSendEvent(this, packet);
+            voiceServer.getEventBus().call(event);
+            if (event.isCancelled()) return;
+        }
 
-        TcpPacketSendEvent event = new TcpPacketSendEvent(this, packet);
-        voiceServer.getEventBus().call(event);
-        if (event.isCancelled()) return;
+        if (voiceServer.getTcpPacketBundler().add(this, packet, encoded)) return;
 
         player.sendPacket(BaseVoiceServer.CHANNEL_STRING, encoded);
+        onPacketSent(packet);
 
 //        LogManager.getLogger().info("Channel packet {} sent to {}", packet, this);
     }
 
+    /**
+     * Sends the encoded packets in one {@link BundlePacket}
+     */
+    public void sendBundle(@NotNull List<Packet<?>> packets, @NotNull List<byte[]> encoded) {
+        if (encoded.isEmpty()) return;
+
+        player.sendPacket(
+                BaseVoiceServer.CHANNEL_STRING,
+                encoded.size() == 1 ? encoded.get(0) : PacketTcpCodec.encode(new BundlePacket(encoded))
+        );
+        packets.forEach(this::onPacketSent);
+    }
+
+    private void onPacketSent(@NotNull Packet<?> packet) {
+        // compact udp packets of the source can use its handle once the client received it
+        if (packet instanceof SourceInfoPacket && ((SourceInfoPacket) packet).getSourceHandle() > 0) {
+            int sourceHandle = ((SourceInfoPacket) packet).getSourceHandle();
+            voiceServer.getUdpConnectionManager().getConnectionByUUID(player.getUUID())
+                    .filter((connection) -> connection instanceof NettyUdpConnection)
+                    .ifPresent((connection) -> ((NettyUdpConnection) connection).addSourceHandle(sourceHandle));
+        }
+    }
+
+    public boolean hasFeature(int feature) {
+        return (features & feature) != 0;
+    }
+
     @Override
     public boolean hasVoiceChat() {
         return voiceServer.getUdpConnectionManager()
@@ -6,10 +6,10 @@ import org.jetbrains.annotations.NotNull;
 import su.plo.lib.api.server.MinecraftServerLib;
 import su.plo.lib.api.server.entity.MinecraftServerPlayer;
 import su.plo.voice.api.event.EventSubscribe;
-import su.plo.voice.api.server.PlasmoVoiceServer;
 import su.plo.voice.api.server.player.VoicePlayer;
 import su.plo.voice.api.server.player.VoicePlayerManager;
 import su.plo.voice.proto.packets.tcp.clientbound.ConfigPlayerInfoPacket;
+import su.plo.voice.server.BaseVoiceServer;
 import su.plo.voice.server.event.player.PlayerJoinEvent;
 import su.plo.voice.server.event.player.PlayerPermissionUpdateEvent;
 import su.plo.voice.server.event.player.PlayerQuitEvent;
@@ -23,7 +23,7 @@ public final class VoiceServerPlayerManager implements VoicePlayerManager {
     private final Map<UUID, VoicePlayer> playerById = Maps.newConcurrentMap();
     private final Set<String> synchronizedPermissions = new CopyOnWriteArraySet<>();
 
-    private final PlasmoVoiceServer voiceServer;
+    private final BaseVoiceServer voiceServer;
     private final MinecraftServerLib minecraftServer;
 
     @Override
@@ -2,12 +2,15 @@ package su.plo.voice.server.socket;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.DatagramChannel;
 import lombok.AllArgsConstructor;
-import su.plo.voice.api.server.PlasmoVoiceServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import su.plo.voice.api.server.player.VoicePlayer;
+import su.plo.voice.api.server.socket.UdpConnection;
 import su.plo.voice.proto.packets.tcp.clientbound.PlayerInfoRequestPacket;
 import su.plo.voice.proto.packets.udp.PacketUdp;
+import su.plo.voice.server.BaseVoiceServer;
 import su.plo.voice.socket.NettyPacketUdp;
 
 import java.util.Optional;
@@ -16,40 +19,77 @@ import java.util.UUID;
 @AllArgsConstructor
 public final class NettyPacketHandler extends SimpleChannelInboundHandler<NettyPacketUdp> {
 
-    private final PlasmoVoiceServer voiceServer;
+    private static final Logger LOGGER = LogManager.getLogger(NettyPacketHandler.class);
+
+    private final BaseVoiceServer voiceServer;
+    private final UdpRelayExecutor relayExecutor;
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, NettyPacketUdp nettyPacket) throws Exception {
+        // packets of the same player are always handled in the same lane, so they are not reordered
         PacketUdp packet = nettyPacket.getPacketUdp();
+        if (packet.isCompact()) {
+            UdpConnection connection = voiceServer.getUdpConnectionManager().getConnectionBySessionId(packet.getSessionId());
+            // compact packets don't carry the secret,
+            // so they are accepted only from the address bound by the full packets
+            if (connection == null || !nettyPacket.getSender().equals(connection.getRemoteAddress())) return;
 
-        UUID secret = packet.getSecret();
+            relayExecutor.execute(connection.getSecret(), () -> {
+                try {
+                    handleCompactPacket(connection, packet);
+                } catch (Exception e) {
+                    LOGGER.warn("Failed to handle UDP packet from {}", nettyPacket.getSender(), e);
+                }
+            });
+            return;
+        }
+
+        relayExecutor.execute(packet.getSecretMostBits(), packet.getSecretLeastBits(), () -> {
+            try {
+                handlePacket(ctx, nettyPacket);
+            } catch (Exception e) {
+                LOGGER.warn("Failed to handle UDP packet from {}", nettyPacket.getSender(), e);
+            }
+        });
+    }
+
+    private void handleCompactPacket(UdpConnection connection, PacketUdp packet) {
+        // client sends the compact packets only if it's able to read them
+        if (connection instanceof NettyUdpConnection) ((NettyUdpConnection) connection).setCompact();
 
-        if (voiceServer.getUdpConnectionManager().getConnectionBySecret(secret)
-                .map(connection -> {
-                    if (!connection.getRemoteAddress().equals(nettyPacket.getSender())) {
-                        connection.setRemoteAddress(nettyPacket.getSender());
-                    }
+        connection.handlePacket(packet.getPacket());
+    }
+
+    private void handlePacket(ChannelHandlerContext ctx, NettyPacketUdp nettyPacket) {
+        PacketUdp packet = nettyPacket.getPacketUdp();
 
-                    connection.handlePacket(packet.getPacket());
-                    return true;
-                })
-                .orElse(false)
-        ) return;
+        UdpConnection connection = voiceServer.getUdpConnectionManager()
+                .getConnectionBySecret(packet.getSecretMostBits(), packet.getSecretLeastBits());
+        if (connection != null) {
+            if (!connection.getRemoteAddress().equals(nettyPacket.getSender())) {
+                connection.setRemoteAddress(nettyPacket.getSender());
+            }
 
+            connection.handlePacket(packet.getPacket());
+            return;
+        }
+
+        UUID secret = packet.getSecret();
         Optional<UUID> playerId = voiceServer.getUdpConnectionManager().getPlayerIdBySecret(secret);
         if (!playerId.isPresent()) return;
 
         Optional<VoicePlayer> player = voiceServer.getPlayerManager().getPlayerById(playerId.get());
         if (!player.isPresent()) return;
 
-        NettyUdpConnection connection = new NettyUdpConnection(
+        NettyUdpConnection newConnection = new NettyUdpConnection(
                 voiceServer,
-                (NioDatagramChannel) ctx.channel(),
+                (DatagramChannel) ctx.channel(),
                 secret,
+                voiceServer.getUdpConnectionManager().getSessionIdBySecret(secret),
                 player.get()
         );
-        connection.setRemoteAddress(nettyPacket.getSender());
-        voiceServer.getUdpConnectionManager().addConnection(connection);
+        newConnection.setRemoteAddress(nettyPacket.getSender());
+        voiceServer.getUdpConnectionManager().addConnection(newConnection);
 
         player.get().sendPacket(new PlayerInfoRequestPacket());
     }
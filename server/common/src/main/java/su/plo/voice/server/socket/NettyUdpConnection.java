@@ -1,36 +1,39 @@
 package su.plo.voice.server.socket;
 
+import com.google.common.collect.Sets;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.socket.DatagramPacket;
-import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.DatagramChannel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import org.apache.logging.log4j.LogManager;
 import org.jetbrains.annotations.NotNull;
 import su.plo.voice.api.server.PlasmoVoiceServer;
+import su.plo.voice.api.server.event.audio.source.PlayerAudioFeedbackEvent;
 import su.plo.voice.api.server.event.audio.source.PlayerSpeakEvent;
 import su.plo.voice.api.server.event.connection.UdpPacketReceivedEvent;
 import su.plo.voice.api.server.event.connection.UdpPacketSendEvent;
 import su.plo.voice.api.server.player.VoicePlayer;
 import su.plo.voice.api.server.socket.UdpConnection;
 import su.plo.voice.proto.packets.Packet;
-import su.plo.voice.proto.packets.tcp.clientbound.PlayerDisconnectPacket;
 import su.plo.voice.proto.packets.udp.PacketUdpCodec;
 import su.plo.voice.proto.packets.udp.bothbound.CustomPacket;
 import su.plo.voice.proto.packets.udp.bothbound.PingPacket;
+import su.plo.voice.proto.packets.udp.clientbound.SourceAudioPacket;
 import su.plo.voice.proto.packets.udp.serverbound.PlayerAudioPacket;
 import su.plo.voice.proto.packets.udp.serverbound.ServerPacketUdpHandler;
+import su.plo.voice.proto.packets.udp.serverbound.SourceFeedbackPacket;
 
 import java.net.InetSocketAddress;
+import java.util.Set;
 import java.util.UUID;
 
-@ToString(of = {"channel", "secret", "player", "keepAlive", "sentKeepAlive"})
+@ToString(of = {"channel", "secret", "sessionId", "player", "keepAlive", "sentKeepAlive"})
 public final class NettyUdpConnection implements UdpConnection, ServerPacketUdpHandler {
 
     private final PlasmoVoiceServer voiceServer;
-    private final NioDatagramChannel channel;
+    private final DatagramChannel channel;
 
     @Getter
     @Setter
@@ -39,6 +42,14 @@ public final class NettyUdpConnection implements UdpConnection, ServerPacketUdpH
     private final UUID secret;
     @Getter
     private final VoicePlayer player;
+    // id of the session in the compact packets, 0 if the compact format is not available
+    @Getter
+    private final int sessionId;
+    // client supports the compact format once it sent the compact packet
+    @Getter
+    private volatile boolean compact;
+    // handles of the sources sent to the client in SourceInfoPacket
+    private final Set<Integer> sourceHandles = Sets.newConcurrentHashSet();
     @Getter
     private long keepAlive = System.currentTimeMillis();
     @Getter
@@ -49,45 +60,92 @@ public final class NettyUdpConnection implements UdpConnection, ServerPacketUdpH
     private boolean connected = true;
 
     public NettyUdpConnection(@NotNull PlasmoVoiceServer voiceServer,
-                              @NotNull NioDatagramChannel channel,
+                              @NotNull DatagramChannel channel,
                               @NotNull UUID secret,
+                              int sessionId,
                               @NotNull VoicePlayer player) {
         this.voiceServer = voiceServer;
         this.channel = channel;
         this.secret = secret;
+        this.sessionId = sessionId;
         this.player = player;
     }
 
+    /**
+     * Switches the packets sent to the client to the compact format
+     */
+    public void setCompact() {
+        if (sessionId > 0) this.compact = true;
+    }
+
+    public void addSourceHandle(int sourceHandle) {
+        sourceHandles.add(sourceHandle);
+    }
+
+    public void removeSourceHandle(int sourceHandle) {
+        sourceHandles.remove(sourceHandle);
+    }
+
     @Override
     public void sendPacket(Packet<?> packet) {
-        byte[] encoded = PacketUdpCodec.encode(packet, secret);
-        if (encoded == null) return;
+        int sourceHandle = packet instanceof SourceAudioPacket ? ((SourceAudioPacket) packet).getSourceHandle() : 0;
 
-        ByteBuf buf = Unpooled.wrappedBuffer(encoded);
+        ByteBuf buf = canSendCompact(sourceHandle)
+                ? PacketUdpCodec.encodeCompact(channel.alloc(), packet, sessionId)
+                : PacketUdpCodec.encode(channel.alloc(), packet, secret);
+        if (buf == null) return;
 
         LogManager.getLogger().debug("UDP packet {} sent to {}", packet, remoteAddress);
 
         channel.writeAndFlush(new DatagramPacket(buf, remoteAddress));
 
-        UdpPacketSendEvent event = new UdpPacketSendEvent(this, packet);
-        voiceServer.getEventBus().call(event);
+        if (voiceServer.getEventBus().hasListeners(UdpPacketSendEvent.class)) {
+            voiceServer.getEventBus().call(new UdpPacketSendEvent(this, packet));
+        }
+    }
+
+    /**
+     * Sends the packet encoded once for all receivers
+     * <p>
+     * Datagram is only added to the batch, it's sent when the batch is flushed
+     */
+    public void sendPacket(@NotNull NettyUdpMulticastPacket packet, @NotNull NettyUdpWriteBatch batch) {
+        ByteBuf buf = canSendCompact(packet.getSourceHandle())
+                ? packet.toCompactBuffer(channel.alloc(), sessionId)
+                : packet.toBuffer(channel.alloc(), secret);
+
+        LogManager.getLogger().debug("UDP packet {} sent to {}", packet.getPacket(), remoteAddress);
+
+        batch.add(channel, new DatagramPacket(buf, remoteAddress));
+
+        if (voiceServer.getEventBus().hasListeners(UdpPacketSendEvent.class)) {
+            voiceServer.getEventBus().call(new UdpPacketSendEvent(this, packet.getPacket()));
+        }
+    }
+
+    /**
+     * Packets referencing the source handle unknown to the client are sent in the full format,
+     * client can't resolve the handle until it received SourceInfoPacket
+     */
+    private boolean canSendCompact(int sourceHandle) {
+        return compact && (sourceHandle == 0 || sourceHandles.contains(sourceHandle));
     }
 
     @Override
     public void handlePacket(Packet<ServerPacketUdpHandler> packet) {
-        UdpPacketReceivedEvent event = new UdpPacketReceivedEvent(this, packet);
-        voiceServer.getEventBus().call(event);
-        if (event.isCancelled()) return;
+        if (voiceServer.getEventBus().hasListeners(UdpPacketReceivedEvent.class)) {
+            UdpPacketReceivedEvent event = new UdpPacketReceivedEvent(this, packet);
+            voiceServer.getEventBus().call(event);
+            if (event.isCancelled()) return;
+        }
 
         packet.handle(this);
     }
 
     @Override
     public void disconnect() {
-        channel.disconnect();
+        // channel is shared by all connections of the socket, so it's never disconnected here
         connected = false;
-
-        voiceServer.getTcpConnectionManager().broadcast(new PlayerDisconnectPacket(player.getInstance().getUUID()));
     }
 
     @Override
@@ -103,4 +161,9 @@ public final class NettyUdpConnection implements UdpConnection, ServerPacketUdpH
     public void handle(@NotNull PlayerAudioPacket packet) {
         voiceServer.getEventBus().call(new PlayerSpeakEvent(player, packet));
     }
+
+    @Override
+    public void handle(@NotNull SourceFeedbackPacket packet) {
+        voiceServer.getEventBus().call(new PlayerAudioFeedbackEvent(player, packet));
+    }
 }
@@ -7,6 +7,7 @@ import su.plo.voice.api.server.connection.TcpServerConnectionManager;
 import su.plo.voice.api.server.connection.UdpServerConnectionManager;
 import su.plo.voice.api.server.socket.UdpConnection;
 import su.plo.voice.proto.packets.udp.bothbound.PingPacket;
+import su.plo.voice.server.ServerTickMonitor;
 import su.plo.voice.server.config.ServerConfig;
 
 import java.util.concurrent.Executors;
@@ -21,15 +22,20 @@ public final class NettyUdpKeepAlive {
 
     private final TcpServerConnectionManager tcpConnections;
     private final UdpServerConnectionManager udpConnections;
+    private final ServerTickMonitor tickMonitor;
     private final ServerConfig config;
 
     public NettyUdpKeepAlive(@NotNull TcpServerConnectionManager tcpConnections,
                              @NotNull UdpServerConnectionManager udpConnections,
+                             @NotNull ServerTickMonitor tickMonitor,
                              @NotNull ServerConfig config) {
         this.tcpConnections = tcpConnections;
         this.udpConnections = udpConnections;
+        this.tickMonitor = tickMonitor;
         this.config = config;
 
+        tickMonitor.start(System.currentTimeMillis());
+
         executor.scheduleAtFixedRate(this::tick, 0L, 3L, TimeUnit.SECONDS);
     }
 
@@ -41,6 +47,10 @@ public final class NettyUdpKeepAlive {
         long now = System.currentTimeMillis();
         PingPacket packet = new PingPacket();
 
+        if (!udpConnections.getConnections().isEmpty() && tickMonitor.checkStalled(now)) {
+            logger.error("Voice server is not ticked by the platform, proximity audio is not sent");
+        }
+
         for (UdpConnection connection : udpConnections.getConnections()) {
             if (now - connection.getKeepAlive() > config.getVoice().getKeepAliveTimeoutMs()) {
                 logger.info("{} timed out. Reconnect packet sent", connection);
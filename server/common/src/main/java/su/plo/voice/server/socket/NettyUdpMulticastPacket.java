@@ -0,0 +1,100 @@
+package su.plo.voice.server.socket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.udp.PacketUdpCodec;
+import su.plo.voice.proto.packets.udp.clientbound.SourceAudioPacket;
+
+import java.util.UUID;
+
+/**
+ * UDP packet with the payload encoded once and shared between all receivers.
+ * <p>
+ * Only the header with the receiver secret is written per receiver,
+ * payload is released by {@link #release()} after the packet was sent to all receivers.
+ * Compact payload is encoded on the first receiver which supports the compact format.
+ * Packet is not thread safe, it's expected to be sent from a single thread.
+ */
+public final class NettyUdpMulticastPacket {
+
+    /**
+     * Encodes the packet payload into a pooled buffer
+     *
+     * @return encoded packet or null if packet is not registered
+     */
+    public static @Nullable NettyUdpMulticastPacket encode(@NotNull ByteBufAllocator allocator,
+                                                           @NotNull Packet<?> packet) {
+        int type = PacketUdpCodec.getType(packet);
+        if (type < 0) return null;
+
+        ByteBuf payload = allocator.directBuffer();
+        PacketUdpCodec.encodePayload(payload, packet);
+
+        return new NettyUdpMulticastPacket(packet, type, System.currentTimeMillis(), payload);
+    }
+
+    @Getter
+    private final Packet<?> packet;
+    private final int type;
+    private final long timestamp;
+    private final ByteBuf payload;
+    private @Nullable ByteBuf compactPayload;
+
+    private NettyUdpMulticastPacket(@NotNull Packet<?> packet, int type, long timestamp, @NotNull ByteBuf payload) {
+        this.packet = packet;
+        this.type = type;
+        this.timestamp = timestamp;
+        this.payload = payload;
+    }
+
+    /**
+     * @return handle of the source in the compact payload or 0 if the payload doesn't reference the source handle
+     */
+    public int getSourceHandle() {
+        return packet instanceof SourceAudioPacket ? ((SourceAudioPacket) packet).getSourceHandle() : 0;
+    }
+
+    /**
+     * Creates the datagram content for the receiver
+     * <p>
+     * Payload is copied after the header into a single pooled buffer,
+     * which is cheaper than a composite buffer for payloads of the voice frame size.
+     * Returned buffer is released by netty after write
+     */
+    public @NotNull ByteBuf toBuffer(@NotNull ByteBufAllocator allocator, @NotNull UUID secret) {
+        int payloadLength = payload.readableBytes();
+
+        ByteBuf buf = allocator.directBuffer(PacketUdpCodec.HEADER_SIZE + payloadLength);
+        PacketUdpCodec.writeHeader(buf, type, secret, timestamp);
+        buf.writeBytes(payload, payload.readerIndex(), payloadLength);
+
+        return buf;
+    }
+
+    /**
+     * Creates the datagram content in the compact format for the receiver
+     */
+    public @NotNull ByteBuf toCompactBuffer(@NotNull ByteBufAllocator allocator, int sessionId) {
+        if (compactPayload == null) {
+            this.compactPayload = allocator.directBuffer();
+            PacketUdpCodec.encodeCompactPayload(compactPayload, packet);
+        }
+
+        int payloadLength = compactPayload.readableBytes();
+
+        ByteBuf buf = allocator.directBuffer(PacketUdpCodec.MAX_COMPACT_HEADER_SIZE + payloadLength);
+        PacketUdpCodec.writeCompactHeader(buf, type, sessionId, timestamp);
+        buf.writeBytes(compactPayload, compactPayload.readerIndex(), payloadLength);
+
+        return buf;
+    }
+
+    public void release() {
+        payload.release();
+        if (compactPayload != null) compactPayload.release();
+    }
+}
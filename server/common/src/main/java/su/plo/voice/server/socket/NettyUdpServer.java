@@ -4,37 +4,46 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioDatagramChannel;
-import io.netty.util.concurrent.DefaultEventExecutorGroup;
-import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.channel.socket.DatagramChannel;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
-import su.plo.voice.api.server.PlasmoVoiceServer;
 import su.plo.voice.api.server.event.socket.UdpServerStartedEvent;
 import su.plo.voice.api.server.event.socket.UdpServerStoppedEvent;
 import su.plo.voice.api.server.socket.UdpServer;
+import su.plo.voice.server.BaseVoiceServer;
 import su.plo.voice.server.config.ServerConfig;
 import su.plo.voice.socket.NettyPacketUdpDecoder;
 
 import java.net.InetSocketAddress;
+import java.util.List;
 import java.util.Optional;
 
 @RequiredArgsConstructor
 public final class NettyUdpServer implements UdpServer {
 
+    // lane queue is shared by the players of the lane
+    private static final int RELAY_QUEUE_CAPACITY = 1024;
+    // ~1 second of audio from one player at 20ms frames
+    private static final int RELAY_SENDER_CAPACITY = 50;
+
     private final Logger logger = LogManager.getLogger(NettyUdpServer.class);
 
-    private final EventLoopGroup loopGroup = new NioEventLoopGroup();
     private final ChannelGroup channelGroup = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
-    private final EventExecutorGroup executors = new DefaultEventExecutorGroup(Runtime.getRuntime().availableProcessors());
-
-    private final PlasmoVoiceServer voiceServer;
+    @Getter
+    private final UdpRelayExecutor relayExecutor = new UdpRelayExecutor(
+            Runtime.getRuntime().availableProcessors(),
+            RELAY_QUEUE_CAPACITY,
+            RELAY_SENDER_CAPACITY
+    );
+
+    private final BaseVoiceServer voiceServer;
     private final ServerConfig config;
 
+    private NettyUdpTransport transport;
     private NettyUdpKeepAlive keepAlive;
 
     private InetSocketAddress socketAddress;
@@ -44,31 +53,35 @@ public final class NettyUdpServer implements UdpServer {
         this.keepAlive = new NettyUdpKeepAlive(
                 voiceServer.getTcpConnectionManager(),
                 voiceServer.getUdpConnectionManager(),
+                voiceServer.getTickMonitor(),
                 config
         );
 
-        Bootstrap bootstrap = new Bootstrap();
-        bootstrap.group(loopGroup)
-                .channel(NioDatagramChannel.class)
-                .option(ChannelOption.AUTO_CLOSE, true)
-                .option(ChannelOption.SO_BROADCAST, true);
+        this.transport = NettyUdpTransport.create(
+                config.getHost().isNativeTransport(),
+                config.getHost().getSocketCount()
+        );
+        if (config.getHost().isNativeTransport() && !transport.isNativeTransport()) {
+            logger.info("Native transport is not available, using NIO");
+        }
 
-        bootstrap.handler(new ChannelInitializer<NioDatagramChannel>() {
+        Bootstrap bootstrap = transport.createBootstrap();
+        bootstrap.handler(new ChannelInitializer<DatagramChannel>() {
             @Override
-            protected void initChannel(@NotNull NioDatagramChannel ch) throws Exception {
+            protected void initChannel(@NotNull DatagramChannel ch) throws Exception {
                 ChannelPipeline pipeline = ch.pipeline();
 
                 pipeline.addLast("decoder", new NettyPacketUdpDecoder());
 
-                pipeline.addLast(executors, "handler", new NettyPacketHandler(voiceServer));
+                pipeline.addLast("handler", new NettyPacketHandler(voiceServer, relayExecutor));
             }
         });
 
         logger.info("UDP server is starting on {}:{}", ip, port);
         try {
-            ChannelFuture channelFuture = bootstrap.bind(port).sync();
-            channelGroup.add(channelFuture.channel());
-            this.socketAddress = (InetSocketAddress) channelFuture.channel().localAddress();
+            List<Channel> channels = transport.bind(bootstrap, port);
+            channelGroup.addAll(channels);
+            this.socketAddress = (InetSocketAddress) channels.get(0).localAddress();
         } catch (InterruptedException e) {
             stop();
             return;
@@ -76,7 +89,12 @@ public final class NettyUdpServer implements UdpServer {
             stop();
             throw e;
         }
-        logger.info("UDP server is started on {}", socketAddress);
+        logger.info(
+                "UDP server is started on {} using {} transport with {} socket(s)",
+                socketAddress,
+                transport.getName(),
+                transport.getSocketCount()
+        );
 
         voiceServer.getEventBus().call(new UdpServerStartedEvent(this));
     }
@@ -86,7 +104,8 @@ public final class NettyUdpServer implements UdpServer {
         voiceServer.getUdpConnectionManager().clearConnections();
         if (keepAlive != null) keepAlive.close();
         channelGroup.close();
-        loopGroup.shutdownGracefully();
+        if (transport != null) transport.shutdown();
+        relayExecutor.shutdown();
         logger.info("UDP server is stopped");
 
         voiceServer.getEventBus().call(new UdpServerStoppedEvent(this));
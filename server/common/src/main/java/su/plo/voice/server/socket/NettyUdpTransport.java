@@ -0,0 +1,98 @@
+package su.plo.voice.server.socket;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.util.concurrent.Future;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datagram transport of the UDP server.
+ * <p>
+ * Native epoll transport is used only if it's enabled in the config.
+ * If several sockets are configured, it binds them to the same port with SO_REUSEPORT,
+ * so kernel spreads the clients between the sockets and every socket is read by its own event loop.
+ * NIO transport is used if epoll is disabled or not available and always binds a single socket.
+ */
+public final class NettyUdpTransport {
+
+    /**
+     * @param nativeTransport use epoll if it's available
+     * @param socketCount number of sockets and event loop threads for epoll transport
+     */
+    public static @NotNull NettyUdpTransport create(boolean nativeTransport, int socketCount) {
+        if (!nativeTransport || !Epoll.isAvailable()) return new NettyUdpTransport(false, 1);
+
+        return new NettyUdpTransport(true, Math.max(1, socketCount));
+    }
+
+    @Getter
+    private final boolean nativeTransport;
+    @Getter
+    private final int socketCount;
+    @Getter
+    private final EventLoopGroup loopGroup;
+
+    private NettyUdpTransport(boolean nativeTransport, int socketCount) {
+        this.nativeTransport = nativeTransport;
+        this.socketCount = socketCount;
+        this.loopGroup = nativeTransport
+                ? new EpollEventLoopGroup(socketCount)
+                : new NioEventLoopGroup();
+    }
+
+    public @NotNull Bootstrap createBootstrap() {
+        Bootstrap bootstrap = new Bootstrap().group(loopGroup);
+
+        if (nativeTransport) {
+            bootstrap.channel(EpollDatagramChannel.class)
+                    .option(EpollChannelOption.SO_REUSEPORT, socketCount > 1);
+        } else {
+            bootstrap.channel(NioDatagramChannel.class);
+        }
+
+        return bootstrap.option(ChannelOption.AUTO_CLOSE, true)
+                .option(ChannelOption.SO_BROADCAST, true);
+    }
+
+    /**
+     * Binds all sockets to the port
+     *
+     * @param port the port, 0 to use a random port
+     * @return bound channels
+     */
+    public @NotNull List<Channel> bind(@NotNull Bootstrap bootstrap, int port) throws InterruptedException {
+        List<Channel> channels = new ArrayList<>(socketCount);
+
+        Channel channel = bootstrap.bind(port).sync().channel();
+        channels.add(channel);
+
+        // bind other sockets to the actual port in case a random one was used
+        int boundPort = ((InetSocketAddress) channel.localAddress()).getPort();
+        for (int i = 1; i < socketCount; i++) {
+            channels.add(bootstrap.bind(boundPort).sync().channel());
+        }
+
+        return channels;
+    }
+
+    public @NotNull String getName() {
+        return nativeTransport ? "epoll" : "NIO";
+    }
+
+    public Future<?> shutdown() {
+        return loopGroup.shutdownGracefully();
+    }
+}
@@ -0,0 +1,63 @@
+package su.plo.voice.server.socket;
+
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.DatagramPacket;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Datagrams of a single fan-out grouped by the server socket.
+ * <p>
+ * Datagrams are written without flush and every socket is flushed once in {@link #flush()},
+ * all writes of the socket are done in a single event loop task.
+ * Native epoll transport sends multiple pending datagrams with sendmmsg on flush.
+ */
+public final class NettyUdpWriteBatch {
+
+    private final Map<DatagramChannel, List<DatagramPacket>> packets = new IdentityHashMap<>(4);
+
+    public void add(@NotNull DatagramChannel channel, @NotNull DatagramPacket packet) {
+        packets.computeIfAbsent(channel, (key) -> new ArrayList<>()).add(packet);
+    }
+
+    public boolean isEmpty() {
+        return packets.isEmpty();
+    }
+
+    /**
+     * Writes all datagrams and flushes every socket once
+     */
+    public void flush() {
+        for (Map.Entry<DatagramChannel, List<DatagramPacket>> entry : packets.entrySet()) {
+            DatagramChannel channel = entry.getKey();
+            List<DatagramPacket> channelPackets = entry.getValue();
+
+            if (channel.eventLoop().inEventLoop()) {
+                write(channel, channelPackets);
+                continue;
+            }
+
+            try {
+                channel.eventLoop().execute(() -> write(channel, channelPackets));
+            } catch (RejectedExecutionException e) {
+                // event loop is shut down, datagrams will never be sent
+                channelPackets.forEach(DatagramPacket::release);
+            }
+        }
+
+        packets.clear();
+    }
+
+    private static void write(@NotNull DatagramChannel channel, @NotNull List<DatagramPacket> packets) {
+        for (DatagramPacket packet : packets) {
+            channel.write(packet, channel.voidPromise());
+        }
+
+        channel.flush();
+    }
+}
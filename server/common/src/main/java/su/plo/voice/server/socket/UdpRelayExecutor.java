@@ -0,0 +1,192 @@
+package su.plo.voice.server.socket;
+
+import com.google.common.collect.Maps;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Executes the received packets of the players in lanes sharded by the player secret.
+ * <p>
+ * Every lane is a single thread, so packets of one player are always handled in order,
+ * while different players are spread across the lanes.
+ * Lane queues are shared by the players of the lane and bounded,
+ * every player can have at most the sender capacity of pending packets,
+ * so the newest packets of the player flooding the lane are dropped without evicting the packets of the others.
+ */
+public final class UdpRelayExecutor {
+
+    private final ThreadPoolExecutor[] lanes;
+    private final int senderCapacity;
+    private final Map<Long, Integer> pendingBySender = Maps.newConcurrentMap();
+
+    private final LongAdder droppedTasks = new LongAdder();
+    private final LongAdder executedTasks = new LongAdder();
+    private final LongAdder totalLatency = new LongAdder();
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    /**
+     * @param laneCount number of lanes (threads)
+     * @param queueCapacity max number of pending packets per lane
+     * @param senderCapacity max number of pending packets of one player
+     */
+    public UdpRelayExecutor(int laneCount, int queueCapacity, int senderCapacity) {
+        checkArgument(laneCount > 0, "laneCount should be positive");
+        checkArgument(queueCapacity > 0, "queueCapacity should be positive");
+        checkArgument(senderCapacity > 0, "senderCapacity should be positive");
+
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        this.senderCapacity = senderCapacity;
+
+        // lane is full, the new packet is dropped
+        RejectedExecutionHandler dropNewest = (task, executor) -> {
+            if (task instanceof RelayTask) release(((RelayTask) task).sender);
+            if (!executor.isShutdown()) droppedTasks.increment();
+        };
+
+        for (int i = 0; i < laneCount; i++) {
+            int lane = i;
+            lanes[i] = new ThreadPoolExecutor(
+                    1, 1,
+                    0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    (runnable) -> {
+                        Thread thread = new Thread(null, runnable, "Voice UDP Relay #" + lane, 0);
+                        thread.setDaemon(true);
+
+                        return thread;
+                    },
+                    dropNewest
+            );
+        }
+    }
+
+    /**
+     * Executes the task in the lane of the player
+     *
+     * @param secret the player secret
+     */
+    public void execute(@NotNull UUID secret, @NotNull Runnable task) {
+        execute(secret.getMostSignificantBits(), secret.getLeastSignificantBits(), task);
+    }
+
+    /**
+     * Executes the task in the lane of the player
+     *
+     * @param secretMostBits most significant bits of the player secret
+     * @param secretLeastBits least significant bits of the player secret
+     */
+    public void execute(long secretMostBits, long secretLeastBits, @NotNull Runnable task) {
+        long sender = secretMostBits ^ secretLeastBits;
+        if (pendingBySender.merge(sender, 1, Integer::sum) > senderCapacity) {
+            release(sender);
+            droppedTasks.increment();
+            return;
+        }
+
+        lanes[laneOf(secretMostBits, secretLeastBits)].execute(new RelayTask(sender, task, System.nanoTime()));
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    public int getQueueDepth(int lane) {
+        return lanes[lane].getQueue().size();
+    }
+
+    /**
+     * @return number of pending packets in all lanes
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            depth += lane.getQueue().size();
+        }
+
+        return depth;
+    }
+
+    /**
+     * @return number of packets dropped because lanes were overloaded
+     */
+    public long getDroppedTasks() {
+        return droppedTasks.sum();
+    }
+
+    public long getExecutedTasks() {
+        return executedTasks.sum();
+    }
+
+    /**
+     * @return average time between queueing the packet and handling it in nanoseconds
+     */
+    public long getAverageLatency() {
+        long executed = executedTasks.sum();
+        return executed == 0 ? 0L : totalLatency.sum() / executed;
+    }
+
+    /**
+     * @return max time between queueing the packet and handling it in nanoseconds
+     */
+    public long getMaxLatency() {
+        return maxLatency.get();
+    }
+
+    int laneOf(@NotNull UUID secret) {
+        return laneOf(secret.getMostSignificantBits(), secret.getLeastSignificantBits());
+    }
+
+    int laneOf(long secretMostBits, long secretLeastBits) {
+        long bits = secretMostBits ^ secretLeastBits;
+        int hash = (int) (bits ^ (bits >>> 32));
+        hash ^= hash >>> 16;
+
+        return (hash & Integer.MAX_VALUE) % lanes.length;
+    }
+
+    private void release(long sender) {
+        pendingBySender.computeIfPresent(sender, (key, pending) -> pending == 1 ? null : pending - 1);
+    }
+
+    private void recordLatency(long latency) {
+        executedTasks.increment();
+        totalLatency.add(latency);
+
+        long max;
+        while (latency > (max = maxLatency.get())) {
+            if (maxLatency.compareAndSet(max, latency)) break;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private final class RelayTask implements Runnable {
+
+        private final long sender;
+        private final Runnable task;
+        private final long queuedAt;
+
+        @Override
+        public void run() {
+            release(sender);
+            recordLatency(System.nanoTime() - queuedAt);
+            task.run();
+        }
+    }
+}
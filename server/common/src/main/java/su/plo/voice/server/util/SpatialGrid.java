@@ -0,0 +1,196 @@
+package su.plo.voice.server.util;
+
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import su.plo.lib.api.server.world.MinecraftServerWorld;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Per-world spatial hash of values on the XZ plane.
+ * <p>
+ * Writes are synchronized and only touch the cells an entry moves between,
+ * reads are lock-free, so the grid can be queried from netty threads
+ * while the main thread updates it.
+ */
+public final class SpatialGrid<T> {
+
+    private final int cellShift;
+
+    private final Map<MinecraftServerWorld, WorldCells<T>> worlds = Maps.newConcurrentMap();
+    private final Map<T, Entry<T>> entries = Maps.newConcurrentMap();
+
+    /**
+     * @param cellSize size of the cell in blocks, must be a power of two
+     */
+    public SpatialGrid(int cellSize) {
+        checkArgument(cellSize > 0 && Integer.bitCount(cellSize) == 1, "cellSize should be a power of two");
+        this.cellShift = Integer.numberOfTrailingZeros(cellSize);
+    }
+
+    /**
+     * Adds the value or moves it to the new position
+     */
+    public synchronized void update(@NotNull T value,
+                                    @NotNull MinecraftServerWorld world,
+                                    double x, double y, double z) {
+        long cell = cellKey(cellCoord(x), cellCoord(z));
+
+        Entry<T> entry = entries.get(value);
+        if (entry == null) {
+            entry = new Entry<>(value);
+            entry.setPosition(world, cell, x, y, z);
+            entries.put(value, entry);
+
+            worlds.computeIfAbsent(world, (w) -> new WorldCells<>()).add(entry);
+            return;
+        }
+
+        if (entry.cell == cell && entry.world.equals(world)) {
+            entry.setPosition(world, cell, x, y, z);
+            return;
+        }
+
+        // remove before adding, so readers never see the same entry twice
+        removeFromCells(entry);
+        entry.setPosition(world, cell, x, y, z);
+        worlds.computeIfAbsent(world, (w) -> new WorldCells<>()).add(entry);
+    }
+
+    public synchronized boolean remove(@NotNull T value) {
+        Entry<T> entry = entries.remove(value);
+        if (entry == null) return false;
+
+        removeFromCells(entry);
+        return true;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        worlds.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Collects all values within the distance of the position
+     *
+     * @param out collection to add values to
+     */
+    public void query(@NotNull MinecraftServerWorld world,
+                      double x, double y, double z,
+                      double distance,
+                      @NotNull Collection<? super T> out) {
+        WorldCells<T> cells = worlds.get(world);
+        if (cells == null) return;
+
+        double distanceSquared = distance * distance;
+
+        int minX = cellCoord(x - distance);
+        int maxX = cellCoord(x + distance);
+        int minZ = cellCoord(z - distance);
+        int maxZ = cellCoord(z + distance);
+
+        long cellCount = ((long) maxX - minX + 1) * ((long) maxZ - minZ + 1);
+
+        // huge radius, walking the cells is more expensive than walking the whole world
+        if (cellCount >= cells.entries.size()) {
+            for (Entry<T> entry : cells.entries) {
+                if (entry.isInRange(world, x, y, z, distanceSquared)) out.add(entry.value);
+            }
+            return;
+        }
+
+        for (int cellX = minX; cellX <= maxX; cellX++) {
+            for (int cellZ = minZ; cellZ <= maxZ; cellZ++) {
+                Set<Entry<T>> cell = cells.cells.get(cellKey(cellX, cellZ));
+                if (cell == null) continue;
+
+                for (Entry<T> entry : cell) {
+                    if (entry.isInRange(world, x, y, z, distanceSquared)) out.add(entry.value);
+                }
+            }
+        }
+    }
+
+    private void removeFromCells(@NotNull Entry<T> entry) {
+        WorldCells<T> cells = worlds.get(entry.world);
+        if (cells == null) return;
+
+        cells.remove(entry);
+        if (cells.entries.isEmpty()) worlds.remove(entry.world);
+    }
+
+    private int cellCoord(double coord) {
+        return ((int) Math.floor(coord)) >> cellShift;
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    private static final class WorldCells<T> {
+
+        private final Map<Long, Set<Entry<T>>> cells = Maps.newConcurrentMap();
+        private final Set<Entry<T>> entries = ConcurrentHashMap.newKeySet();
+
+        private void add(@NotNull Entry<T> entry) {
+            cells.computeIfAbsent(entry.cell, (key) -> ConcurrentHashMap.newKeySet())
+                    .add(entry);
+            entries.add(entry);
+        }
+
+        private void remove(@NotNull Entry<T> entry) {
+            entries.remove(entry);
+
+            Set<Entry<T>> cell = cells.get(entry.cell);
+            if (cell == null) return;
+
+            cell.remove(entry);
+            if (cell.isEmpty()) cells.remove(entry.cell);
+        }
+    }
+
+    private static final class Entry<T> {
+
+        private final T value;
+
+        private volatile MinecraftServerWorld world;
+        private volatile long cell;
+
+        private volatile double x;
+        private volatile double y;
+        private volatile double z;
+
+        private Entry(@NotNull T value) {
+            this.value = value;
+        }
+
+        private void setPosition(@NotNull MinecraftServerWorld world, long cell, double x, double y, double z) {
+            this.world = world;
+            this.cell = cell;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        private boolean isInRange(@NotNull MinecraftServerWorld world,
+                                  double x, double y, double z,
+                                  double distanceSquared) {
+            if (!this.world.equals(world)) return false;
+
+            double xDiff = this.x - x;
+            double yDiff = this.y - y;
+            double zDiff = this.z - z;
+
+            return (xDiff * xDiff) + (yDiff * yDiff) + (zDiff * zDiff) <= distanceSquared;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package su.plo.voice.server;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ServerTickMonitorTest {
+
+    @Test
+    public void testNeverTicked() {
+        ServerTickMonitor monitor = new ServerTickMonitor();
+        monitor.start(0L);
+
+        assertFalse(monitor.checkStalled(3_000L));
+        // platform which never calls tick() is reported once
+        assertTrue(monitor.checkStalled(12_000L));
+        assertFalse(monitor.checkStalled(15_000L));
+    }
+
+    @Test
+    public void testTicked() {
+        ServerTickMonitor monitor = new ServerTickMonitor();
+        monitor.start(0L);
+
+        for (long now = 0L; now <= 30_000L; now += 50L) {
+            monitor.tick(now);
+            assertFalse(monitor.checkStalled(now + 3_000L));
+        }
+
+        // reported again after the server recovered and stalled again
+        assertTrue(monitor.checkStalled(50_000L));
+    }
+}
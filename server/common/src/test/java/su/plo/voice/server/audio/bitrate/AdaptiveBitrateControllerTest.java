@@ -0,0 +1,204 @@
+package su.plo.voice.server.audio.bitrate;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import su.plo.voice.api.audio.codec.AudioEncoder;
+import su.plo.voice.api.util.Params;
+import su.plo.voice.client.audio.codec.opus.BaseOpusEncoder;
+import su.plo.voice.client.audio.codec.opus.OpusCodecSupplier;
+import su.plo.voice.proto.data.audio.source.SourceFeedback;
+import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.udp.PacketUdp;
+import su.plo.voice.proto.packets.udp.PacketUdpCodec;
+import su.plo.voice.proto.packets.udp.clientbound.EncoderBitratePacket;
+import su.plo.voice.proto.packets.udp.clientbound.SourceAudioPacket;
+import su.plo.voice.proto.packets.udp.serverbound.SourceFeedbackPacket;
+import su.plo.voice.socket.SourceFeedbackCollector;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveBitrateControllerTest {
+
+    private static final int SAMPLE_RATE = 48_000;
+    private static final int FRAME_SIZE = 960;
+    private static final long FRAME_MS = 20L;
+    private static final int MIN_BITRATE = 12_000;
+    private static final int MAX_BITRATE = 64_000;
+
+    private final UUID secret = UUID.randomUUID();
+    private final UUID speakerId = UUID.randomUUID();
+    private final Random random = new Random(0L);
+
+    /**
+     * Speaker's frames go through the udp codec to the listener with the simulated loss,
+     * listener's feedback and server's bitrate go back the same way
+     */
+    @Test
+    public void testLoopback() throws Exception {
+        AdaptiveBitrateController controller = new AdaptiveBitrateController(MIN_BITRATE, MAX_BITRATE);
+        SourceFeedbackCollector collector = new SourceFeedbackCollector(FRAME_MS);
+        BaseOpusEncoder encoder = new OpusCodecSupplier().createEncoder(
+                SAMPLE_RATE, false, FRAME_SIZE, 1024,
+                Params.builder().set("mode", "VOIP").set("bitrate", String.valueOf(MAX_BITRATE)).build()
+        );
+
+        Link link = new Link(controller, collector, encoder);
+
+        // clean link keeps the max bitrate
+        int cleanFrameSize = link.run(5, 0D);
+        assertEquals(MAX_BITRATE, encoder.getBitrate());
+
+        // congested link degrades to the min bitrate
+        link.run(10, 0.2D);
+        assertEquals(MIN_BITRATE, encoder.getBitrate());
+        int congestedFrameSize = link.run(1, 0.2D);
+
+        // moderate loss doesn't change the bitrate
+        link.run(3, 0.05D);
+        assertEquals(MIN_BITRATE, encoder.getBitrate());
+
+        // and the bitrate recovers once the link is clean
+        link.run(30, 0D);
+        assertEquals(MAX_BITRATE, encoder.getBitrate());
+
+        assertTrue(congestedFrameSize < cleanFrameSize);
+
+        encoder.close();
+    }
+
+    @Test
+    public void testLateAndLost() {
+        SourceFeedbackCollector collector = new SourceFeedbackCollector(FRAME_MS);
+        UUID sourceId = UUID.randomUUID();
+
+        collector.record(sourceId, 1L, 0L);
+        collector.record(sourceId, 2L, 20L);
+        collector.record(sourceId, 5L, 40L);
+        // reordered packet
+        collector.record(sourceId, 4L, 41L);
+        // pause between the speech is not the loss
+        collector.record(sourceId, 10L, 500L);
+
+        SourceFeedback feedback = collector.collect(500L).get(0);
+        assertEquals(5, feedback.getReceivedPackets());
+        assertEquals(1, feedback.getLostPackets());
+        assertEquals(1, feedback.getLatePackets());
+
+        assertTrue(collector.collect(500L).isEmpty());
+    }
+
+    @Test
+    public void testLossBurst() {
+        SourceFeedbackCollector collector = new SourceFeedbackCollector(FRAME_MS);
+        UUID sourceId = UUID.randomUUID();
+
+        collector.record(sourceId, 1L, 0L);
+        // burst longer than the spurt gap, the sequence advanced with the time
+        collector.record(sourceId, 14L, 260L);
+        collector.record(sourceId, 15L, 280L);
+        // pause between the speech, the sequence didn't advance
+        collector.record(sourceId, 16L, 1280L);
+
+        SourceFeedback feedback = collector.collect(1280L).get(0);
+        assertEquals(4, feedback.getReceivedPackets());
+        assertEquals(12, feedback.getLostPackets());
+        assertEquals(0, feedback.getLatePackets());
+    }
+
+    private final class Link {
+
+        private final AdaptiveBitrateController controller;
+        private final SourceFeedbackCollector collector;
+        private final BaseOpusEncoder encoder;
+
+        private long sequenceNumber;
+        private long time;
+        // spreads the lost packets evenly
+        private double lossCredit;
+
+        private Link(AdaptiveBitrateController controller,
+                     SourceFeedbackCollector collector,
+                     BaseOpusEncoder encoder) {
+            this.controller = controller;
+            this.collector = collector;
+            this.encoder = encoder;
+        }
+
+        /**
+         * Sends the speaker's audio for the number of seconds
+         *
+         * @return average size of the encoded frame
+         */
+        private int run(int seconds, double loss) throws Exception {
+            long encodedBytes = 0L;
+            int frames = (int) (seconds * 1_000L / FRAME_MS);
+
+            for (int frame = 0; frame < frames; frame++) {
+                byte[] encoded = encode(encoder);
+                encodedBytes += encoded.length;
+
+                SourceAudioPacket packet = new SourceAudioPacket(
+                        sequenceNumber++, (byte) 0, encoded, speakerId, (short) 16
+                );
+                this.time += FRAME_MS;
+
+                this.lossCredit += loss;
+                if (lossCredit >= 1D) {
+                    this.lossCredit -= 1D;
+                } else {
+                    SourceAudioPacket received = loopback(packet);
+                    collector.record(received.getSourceId(), received.getSequenceNumber(), time + random.nextInt(5));
+                }
+
+                if (time % 1_000L == 0L) feedback();
+            }
+
+            return (int) (encodedBytes / frames);
+        }
+
+        private void feedback() throws IOException {
+            SourceFeedbackPacket feedbackPacket = loopback(new SourceFeedbackPacket(collector.collect(time)));
+            for (SourceFeedback feedback : feedbackPacket.getSources()) {
+                // player source id is the player id
+                controller.report(feedback.getSourceId(), feedback);
+            }
+
+            Map<UUID, Integer> bitrates = controller.update();
+            if (bitrates.containsKey(speakerId)) {
+                EncoderBitratePacket bitratePacket = loopback(new EncoderBitratePacket(bitrates.get(speakerId)));
+                encoder.setBitrate(bitratePacket.getBitrate());
+            }
+        }
+
+        private byte[] encode(AudioEncoder encoder) throws Exception {
+            short[] samples = new short[FRAME_SIZE];
+            for (int i = 0; i < FRAME_SIZE; i++) {
+                double t = (sequenceNumber * FRAME_SIZE + i) / (double) SAMPLE_RATE;
+                samples[i] = (short) (Math.sin(2 * Math.PI * 180D * t) * 6_000D + random.nextGaussian() * 500D);
+            }
+
+            return encoder.encode(samples);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T extends Packet<?>> T loopback(T packet) throws IOException {
+            ByteBuf buf = PacketUdpCodec.encode(PooledByteBufAllocator.DEFAULT, packet, secret);
+            try {
+                Optional<PacketUdp> decoded = PacketUdpCodec.decode(buf);
+                assertTrue(decoded.isPresent());
+
+                return (T) (Packet<?>) decoded.get().getPacket();
+            } finally {
+                buf.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package su.plo.voice.server.audio.mixer;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import su.plo.voice.api.audio.codec.AudioDecoder;
+import su.plo.voice.api.audio.codec.AudioEncoder;
+import su.plo.voice.api.util.Params;
+import su.plo.voice.client.audio.codec.opus.OpusCodecSupplier;
+
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MixBufferTest {
+
+    private static final int SAMPLE_RATE = 48_000;
+    private static final int FRAME_SIZE = 960;
+    private static final int MTU_SIZE = 1024;
+
+    @Test
+    public void testMix() {
+        MixBuffer buffer = new MixBuffer(4);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        assertNull(buffer.mix());
+
+        buffer.add(first, new short[]{1_000, 1_000, 30_000, -30_000}, 1F);
+        buffer.add(second, new short[]{1_000, 0, 10_000, -10_000}, 0.5F);
+        // jitter: second frame of the speaker goes to the next mix
+        buffer.add(first, new short[]{7, 7, 7, 7}, 1F);
+
+        short[] mixed = buffer.mix();
+        assertEquals(1_500, mixed[0]);
+        assertEquals(1_000, mixed[1]);
+        // clipped instead of overflow
+        assertEquals(Short.MAX_VALUE, mixed[2]);
+        assertEquals(Short.MIN_VALUE, mixed[3]);
+
+        assertEquals(7, buffer.mix()[0]);
+        assertNull(buffer.mix());
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkMixedListener(TestReporter reporter) throws Exception {
+        int speakers = 8;
+        int listeners = 20;
+        int frames = 250;
+
+        OpusCodecSupplier codec = new OpusCodecSupplier();
+        Params params = Params.builder()
+                .set("mode", "VOIP")
+                .set("bitrate", "-1000")
+                .build();
+
+        // speakers' frames as they are received from the clients
+        Random random = new Random(0L);
+        byte[][][] encoded = new byte[speakers][frames][];
+        long relayedBytes = 0L;
+        for (int speaker = 0; speaker < speakers; speaker++) {
+            AudioEncoder encoder = codec.createEncoder(SAMPLE_RATE, false, FRAME_SIZE, MTU_SIZE, params);
+            double pitch = 100D + speaker * 25D;
+
+            for (int frame = 0; frame < frames; frame++) {
+                short[] samples = new short[FRAME_SIZE];
+                for (int i = 0; i < FRAME_SIZE; i++) {
+                    double t = (frame * FRAME_SIZE + i) / (double) SAMPLE_RATE;
+                    double voice = Math.sin(2 * Math.PI * pitch * t) + 0.5D * Math.sin(4 * Math.PI * pitch * t);
+                    samples[i] = (short) (voice * 6_000D + random.nextGaussian() * 500D);
+                }
+
+                encoded[speaker][frame] = encoder.encode(samples);
+                relayedBytes += encoded[speaker][frame].length;
+            }
+            encoder.close();
+        }
+
+        AudioDecoder[] decoders = new AudioDecoder[speakers];
+        UUID[] speakerIds = new UUID[speakers];
+        for (int speaker = 0; speaker < speakers; speaker++) {
+            decoders[speaker] = codec.createDecoder(SAMPLE_RATE, false, FRAME_SIZE, MTU_SIZE, params);
+            speakerIds[speaker] = UUID.randomUUID();
+        }
+
+        MixBuffer[] buffers = new MixBuffer[listeners];
+        AudioEncoder[] encoders = new AudioEncoder[listeners];
+        for (int listener = 0; listener < listeners; listener++) {
+            buffers[listener] = new MixBuffer(FRAME_SIZE);
+            encoders[listener] = codec.createEncoder(SAMPLE_RATE, false, FRAME_SIZE, MTU_SIZE, params);
+        }
+
+        // first pass is the warmup
+        long decodeTime = 0L;
+        long mixTime = 0L;
+        long mixedBytes = 0L;
+        for (int pass = 0; pass < 2; pass++) {
+            decodeTime = 0L;
+            mixTime = 0L;
+            mixedBytes = 0L;
+
+            for (int frame = 0; frame < frames; frame++) {
+                long start = System.nanoTime();
+                short[][] decoded = new short[speakers][];
+                for (int speaker = 0; speaker < speakers; speaker++) {
+                    decoded[speaker] = decoders[speaker].decode(encoded[speaker][frame]);
+                }
+                decodeTime += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int listener = 0; listener < listeners; listener++) {
+                    for (int speaker = 0; speaker < speakers; speaker++) {
+                        float gain = 1F - ((listener + speaker) % 10) / 10F;
+                        buffers[listener].add(speakerIds[speaker], decoded[speaker], gain);
+                    }
+
+                    mixedBytes += encoders[listener].encode(buffers[listener].mix()).length;
+                }
+                mixTime += System.nanoTime() - start;
+            }
+        }
+
+        // one mixed stream instead of the stream of every speaker
+        assertTrue(mixedBytes / listeners < relayedBytes);
+
+        long mixedListenerTime = mixTime / ((long) frames * listeners) / 1_000L;
+        reporter.publishEntry(
+                speakers + " speakers",
+                String.format(
+                        "decode %d us per frame for all listeners, " +
+                                "mix + encode %d us per listener per 20 ms frame (%.1f%% of a core), " +
+                                "listener downlink %d -> %d bytes per frame",
+                        decodeTime / frames / 1_000L,
+                        mixedListenerTime,
+                        mixedListenerTime / 200D,
+                        relayedBytes / frames,
+                        mixedBytes / ((long) frames * listeners)
+                )
+        );
+    }
+}
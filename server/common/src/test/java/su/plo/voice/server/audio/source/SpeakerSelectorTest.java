@@ -0,0 +1,84 @@
+package su.plo.voice.server.audio.source;
+
+import org.junit.jupiter.api.Test;
+import su.plo.voice.server.player.PlayerPositionSnapshot;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpeakerSelectorTest {
+
+    private final UUID listener = UUID.randomUUID();
+    private final UUID first = UUID.randomUUID();
+    private final UUID second = UUID.randomUUID();
+    private final UUID third = UUID.randomUUID();
+
+    @Test
+    public void testSelection() {
+        SpeakerSelector selector = new SpeakerSelector(new PlayerPositionSnapshot());
+        selector.setMaxSpeakers(2);
+
+        long now = 0L;
+        assertTrue(selector.select(listener, first, 100F, now));
+        assertTrue(selector.select(listener, second, 100F, now));
+        // slots are taken
+        assertFalse(selector.select(listener, third, 110F, now));
+
+        // slightly louder speaker doesn't replace the selected one
+        now = speak(selector, now, 1_500L, 100F, 100F, 110F);
+        assertFalse(selector.select(listener, third, 110F, now));
+
+        // much louder speaker replaces the weakest one
+        now = speak(selector, now, 200L, 100F, 50F, 200F);
+        assertTrue(selector.select(listener, third, 200F, now));
+        assertFalse(selector.select(listener, second, 50F, now));
+        assertTrue(selector.select(listener, first, 100F, now));
+
+        // speaker which was just selected is held even if it is the weakest
+        now = speak(selector, now, 500L, 500F, 500F, 50F);
+        assertFalse(selector.select(listener, second, 500F, now));
+
+        long packets = selector.getDroppedPackets(listener) + selector.getForwardedPackets(listener);
+        assertEquals(3L + 3L * (1_500L + 200L + 500L) / 20L + 5L, packets);
+    }
+
+    @Test
+    public void testTimeout() {
+        SpeakerSelector selector = new SpeakerSelector(new PlayerPositionSnapshot());
+        selector.setMaxSpeakers(1);
+
+        assertTrue(selector.select(listener, first, 100F, 0L));
+        assertFalse(selector.select(listener, second, 10F, 0L));
+
+        // first speaker is silent, so the slot is freed
+        assertTrue(selector.select(listener, second, 10F, 1_000L));
+    }
+
+    @Test
+    public void testDisabled() {
+        SpeakerSelector selector = new SpeakerSelector(new PlayerPositionSnapshot());
+
+        assertTrue(selector.select(listener, first, 100F, 0L));
+        assertTrue(selector.select(listener, second, 100F, 0L));
+        assertEquals(0L, selector.getDroppedPackets(listener));
+    }
+
+    /**
+     * Sends the frames of all speakers every 20 ms
+     *
+     * @return time after the duration
+     */
+    private long speak(SpeakerSelector selector, long now, long duration,
+                       float firstScore, float secondScore, float thirdScore) {
+        for (long end = now + duration; now < end; now += 20L) {
+            selector.select(listener, first, firstScore, now);
+            selector.select(listener, second, secondScore, now);
+            selector.select(listener, third, thirdScore, now);
+        }
+
+        return now;
+    }
+}
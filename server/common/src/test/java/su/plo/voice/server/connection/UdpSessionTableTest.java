@@ -0,0 +1,231 @@
+package su.plo.voice.server.connection;
+
+import com.google.common.collect.Maps;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import su.plo.voice.api.server.player.VoicePlayer;
+import su.plo.voice.api.server.socket.UdpConnection;
+import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.udp.serverbound.ServerPacketUdpHandler;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class UdpSessionTableTest {
+
+    private static final int SESSIONS = 5_000;
+
+    @Test
+    public void testTable() {
+        UdpSessionTable table = new UdpSessionTable();
+        TestConnection[] connections = createConnections();
+
+        for (TestConnection connection : connections) {
+            assertNull(table.put(connection));
+        }
+        assertEquals(SESSIONS, table.size());
+
+        for (TestConnection connection : connections) {
+            UUID secret = connection.getSecret();
+            assertSame(connection, table.get(secret.getMostSignificantBits(), secret.getLeastSignificantBits()));
+        }
+        assertNull(table.get(UUID.randomUUID()));
+
+        // replace keeps the position in the iteration array
+        TestConnection replacement = new TestConnection(connections[10].getSecret());
+        assertSame(connections[10], table.put(replacement));
+        assertSame(replacement, table.getConnections()[10]);
+        assertEquals(SESSIONS, table.size());
+
+        // stale connection is not removed
+        assertFalse(table.remove(connections[10]));
+        assertSame(replacement, table.remove(replacement.getSecret()));
+        assertNull(table.get(replacement.getSecret()));
+        assertEquals(SESSIONS - 1, table.size());
+
+        for (int i = 0; i < SESSIONS; i += 2) {
+            table.remove(connections[i]);
+        }
+        for (int i = 1; i < SESSIONS; i += 2) {
+            assertSame(connections[i], table.get(connections[i].getSecret()));
+        }
+
+        table.clear();
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkSessions(TestReporter reporter) {
+        TestConnection[] connections = createConnections();
+
+        UdpSessionTable table = new UdpSessionTable();
+        Map<UUID, UdpConnection> map = Maps.newConcurrentMap();
+        for (TestConnection connection : connections) {
+            table.put(connection);
+            map.put(connection.getSecret(), connection);
+        }
+
+        // secrets as they are read from the datagram
+        long[] secretBits = new long[SESSIONS * 2];
+        for (int i = 0; i < SESSIONS; i++) {
+            secretBits[i * 2] = connections[(i * 7919) % SESSIONS].getSecret().getMostSignificantBits();
+            secretBits[i * 2 + 1] = connections[(i * 7919) % SESSIONS].getSecret().getLeastSignificantBits();
+        }
+
+        int rounds = 2_000;
+
+        for (int warmup = 0; warmup < 3; warmup++) {
+            lookupMap(map, secretBits, rounds / 4);
+            lookupTable(table, secretBits, rounds / 4);
+            iterateMap(map, rounds / 4);
+            iterateTable(table, rounds / 4);
+        }
+
+        long start = System.nanoTime();
+        long mapFound = lookupMap(map, secretBits, rounds);
+        long mapLookup = (System.nanoTime() - start) / ((long) rounds * SESSIONS);
+
+        start = System.nanoTime();
+        long tableFound = lookupTable(table, secretBits, rounds);
+        long tableLookup = (System.nanoTime() - start) / ((long) rounds * SESSIONS);
+
+        start = System.nanoTime();
+        long mapConnected = iterateMap(map, rounds);
+        long mapIteration = (System.nanoTime() - start) / rounds;
+
+        start = System.nanoTime();
+        long tableConnected = iterateTable(table, rounds);
+        long tableIteration = (System.nanoTime() - start) / rounds;
+
+        assertEquals(mapFound, tableFound);
+        assertEquals(mapConnected, tableConnected);
+        reporter.publishEntry(
+                SESSIONS + " sessions",
+                String.format(
+                        "lookup map %d ns, table %d ns; iteration map %d ns, table %d ns",
+                        mapLookup, tableLookup, mapIteration, tableIteration
+                )
+        );
+    }
+
+    private long lookupMap(Map<UUID, UdpConnection> map, long[] secretBits, int rounds) {
+        long found = 0L;
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < secretBits.length; i += 2) {
+                // what PacketUtil.readUUID did for every datagram
+                if (map.get(new UUID(secretBits[i], secretBits[i + 1])) != null) found++;
+            }
+        }
+
+        return found;
+    }
+
+    private long lookupTable(UdpSessionTable table, long[] secretBits, int rounds) {
+        long found = 0L;
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < secretBits.length; i += 2) {
+                if (table.get(secretBits[i], secretBits[i + 1]) != null) found++;
+            }
+        }
+
+        return found;
+    }
+
+    private long iterateMap(Map<UUID, UdpConnection> map, int rounds) {
+        long connected = 0L;
+        for (int round = 0; round < rounds; round++) {
+            for (UdpConnection connection : map.values()) {
+                if (connection.isConnected()) connected++;
+            }
+        }
+
+        return connected;
+    }
+
+    private long iterateTable(UdpSessionTable table, int rounds) {
+        long connected = 0L;
+        for (int round = 0; round < rounds; round++) {
+            for (UdpConnection connection : table.getConnections()) {
+                if (connection.isConnected()) connected++;
+            }
+        }
+
+        return connected;
+    }
+
+    private TestConnection[] createConnections() {
+        TestConnection[] connections = new TestConnection[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            connections[i] = new TestConnection(UUID.randomUUID());
+        }
+
+        return connections;
+    }
+
+    private static final class TestConnection implements UdpConnection {
+
+        private final UUID secret;
+
+        private TestConnection(UUID secret) {
+            this.secret = secret;
+        }
+
+        @Override
+        public UUID getSecret() {
+            return secret;
+        }
+
+        @Override
+        public VoicePlayer getPlayer() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public void setRemoteAddress(InetSocketAddress remoteAddress) {
+        }
+
+        @Override
+        public long getKeepAlive() {
+            return 0L;
+        }
+
+        @Override
+        public long getSentKeepAlive() {
+            return 0L;
+        }
+
+        @Override
+        public void setSentKeepAlive(long keepAlive) {
+        }
+
+        @Override
+        public void sendPacket(Packet<?> packet) {
+        }
+
+        @Override
+        public void handlePacket(Packet<ServerPacketUdpHandler> packet) {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package su.plo.voice.server.connection;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import su.plo.lib.api.server.entity.MinecraftServerPlayer;
+import su.plo.lib.api.server.world.MinecraftServerWorld;
+import su.plo.lib.api.server.world.ServerPos3d;
+import su.plo.voice.api.event.EventBus;
+import su.plo.voice.api.server.PlasmoVoiceServer;
+import su.plo.voice.api.server.player.VoicePlayer;
+import su.plo.voice.api.server.socket.UdpConnection;
+import su.plo.voice.proto.packets.Packet;
+import su.plo.voice.proto.packets.udp.serverbound.ServerPacketUdpHandler;
+import su.plo.voice.server.player.PlayerPositionSnapshot;
+
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class VoiceUdpConnectionManagerTest {
+
+    private final MinecraftServerWorld world = createProxy(MinecraftServerWorld.class);
+
+    @Test
+    public void testReplacedConnection() {
+        VoiceUdpConnectionManager connections = new VoiceUdpConnectionManager(createVoiceServer());
+        PlayerPositionSnapshot positions = new PlayerPositionSnapshot();
+        VoicePlayer player = createPlayer(UUID.randomUUID());
+        ServerPos3d position = new ServerPos3d(world, 0D, 64D, 0D);
+
+        TestConnection first = new TestConnection(UUID.randomUUID(), player);
+        connections.addConnection(first);
+        positions.capture(connections.getConnections());
+        connections.tick(positions);
+        assertEquals(Collections.singletonList(first), connections.getConnectionsInRange(position, 16D));
+
+        // reconnect with the new secret replaces the connection of the player
+        TestConnection second = new TestConnection(UUID.randomUUID(), player);
+        connections.addConnection(second);
+        assertFalse(first.isConnected());
+        assertEquals(Collections.emptyList(), connections.getConnectionsInRange(position, 16D));
+
+        positions.capture(connections.getConnections());
+        connections.tick(positions);
+        assertEquals(Collections.singletonList(second), connections.getConnectionsInRange(position, 16D));
+    }
+
+    private PlasmoVoiceServer createVoiceServer() {
+        EventBus eventBus = createProxy(EventBus.class);
+
+        return (PlasmoVoiceServer) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class[]{PlasmoVoiceServer.class},
+                (proxy, method, args) -> method.getName().equals("getEventBus") ? eventBus : null
+        );
+    }
+
+    private VoicePlayer createPlayer(@NotNull UUID playerId) {
+        MinecraftServerPlayer instance = (MinecraftServerPlayer) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class[]{MinecraftServerPlayer.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getUUID":
+                            return playerId;
+                        case "getServerPosition":
+                            ServerPos3d position = args != null ? (ServerPos3d) args[0] : new ServerPos3d();
+                            position.setWorld(world);
+                            position.setY(64D);
+                            return position;
+                        default:
+                            return null;
+                    }
+                }
+        );
+
+        return (VoicePlayer) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class[]{VoicePlayer.class},
+                (proxy, method, args) -> method.getName().equals("getInstance") ? instance : null
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T createProxy(@NotNull Class<T> clazz) {
+        return (T) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class[]{clazz},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return method.getReturnType() == boolean.class ? false : null;
+                    }
+                }
+        );
+    }
+
+    private static final class TestConnection implements UdpConnection {
+
+        private final UUID secret;
+        private final VoicePlayer player;
+        private boolean connected = true;
+
+        private TestConnection(UUID secret, VoicePlayer player) {
+            this.secret = secret;
+            this.player = player;
+        }
+
+        @Override
+        public UUID getSecret() {
+            return secret;
+        }
+
+        @Override
+        public VoicePlayer getPlayer() {
+            return player;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public void setRemoteAddress(InetSocketAddress remoteAddress) {
+        }
+
+        @Override
+        public long getKeepAlive() {
+            return 0L;
+        }
+
+        @Override
+        public long getSentKeepAlive() {
+            return 0L;
+        }
+
+        @Override
+        public void setSentKeepAlive(long keepAlive) {
+        }
+
+        @Override
+        public void sendPacket(Packet<?> packet) {
+        }
+
+        @Override
+        public void handlePacket(Packet<ServerPacketUdpHandler> packet) {
+        }
+
+        @Override
+        public void disconnect() {
+            this.connected = false;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+    }
+}
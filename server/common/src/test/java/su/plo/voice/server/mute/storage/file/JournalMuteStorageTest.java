@@ -0,0 +1,80 @@
+package su.plo.voice.server.mute.storage.file;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.jupiter.api.Test;
+import su.plo.voice.api.server.mute.ServerMuteInfo;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JournalMuteStorageTest {
+
+    @Test
+    public void testJournal() throws Exception {
+        File file = File.createTempFile("voice_mutes", ".journal");
+        file.deleteOnExit();
+
+        JournalMuteStorage storage = new JournalMuteStorage(Executors.newSingleThreadExecutor(), file);
+        storage.init();
+
+        UUID permanent = UUID.randomUUID();
+        UUID temporary = UUID.randomUUID();
+        UUID unmuted = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+
+        storage.putPlayerMute(permanent, new ServerMuteInfo(permanent, null, now, 0L, "reason"));
+        storage.putPlayerMute(temporary, new ServerMuteInfo(temporary, null, now, now + 60_000L, null));
+        storage.putPlayerMute(unmuted, new ServerMuteInfo(unmuted, null, now, 0L, null));
+        storage.removeMuteByPlayerId(unmuted);
+        storage.close();
+
+        // server was stopped while the record was being written
+        try (Writer writer = new FileWriter(file, true)) {
+            writer.write("{\"mute\":{\"playerUUID\":");
+        }
+
+        storage = new JournalMuteStorage(Executors.newSingleThreadExecutor(), file);
+        storage.init();
+
+        assertEquals("reason", storage.getMuteByPlayerId(permanent).get().getReason());
+        assertEquals(now + 60_000L, storage.getMuteByPlayerId(temporary).get().getMutedToTime());
+        assertFalse(storage.getMuteByPlayerId(unmuted).isPresent());
+
+        // journal was compacted to the live mutes
+        assertEquals(2, Files.readAllLines(file.toPath()).size());
+        storage.close();
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        File file = File.createTempFile("voice_mutes", ".journal");
+        file.deleteOnExit();
+
+        // records are appended in the caller thread
+        JournalMuteStorage storage = new JournalMuteStorage(MoreExecutors.newDirectExecutorService(), file);
+        storage.init();
+
+        UUID playerId = UUID.randomUUID();
+        for (int i = 0; i < 5_000; i++) {
+            storage.putPlayerMute(playerId, new ServerMuteInfo(playerId, null, i, 0L, null));
+        }
+
+        // journal is compacted periodically, not only on close
+        assertTrue(Files.readAllLines(file.toPath()).size() <= 1_025);
+        storage.close();
+        assertEquals(1, Files.readAllLines(file.toPath()).size());
+
+        storage = new JournalMuteStorage(Executors.newSingleThreadExecutor(), file);
+        storage.init();
+        assertEquals(4_999L, storage.getMuteByPlayerId(playerId).get().getMutedAtTime());
+        storage.close();
+    }
+}
@@ -0,0 +1,122 @@
+package su.plo.voice.server.mute.storage.sql;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import su.plo.voice.api.server.mute.ServerMuteInfo;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class H2MuteStorageTest {
+
+    @Test
+    public void testStorage() throws Exception {
+        File folder = Files.createTempDirectory("voice_mutes").toFile();
+        File databaseFile = new File(folder, "voice_mutes");
+        File jsonFile = new File(folder, "voice_mutes.json");
+
+        UUID migrated = UUID.randomUUID();
+        try (Writer writer = new FileWriter(jsonFile)) {
+            writer.write("{\"" + migrated + "\":{\"playerUUID\":\"" + migrated + "\"," +
+                    "\"mutedAtTime\":1,\"mutedToTime\":0,\"reason\":\"json\"}}");
+        }
+
+        H2MuteStorage storage = new H2MuteStorage(Executors.newSingleThreadExecutor(), databaseFile, jsonFile);
+        storage.init();
+
+        assertEquals("json", storage.getMuteByPlayerId(migrated).get().getReason());
+        assertFalse(jsonFile.exists());
+
+        long now = System.currentTimeMillis();
+        UUID temporary = UUID.randomUUID();
+        UUID unmuted = UUID.randomUUID();
+        storage.putPlayerMute(temporary, new ServerMuteInfo(temporary, migrated, now, now + 60_000L, null));
+        storage.putPlayerMute(unmuted, new ServerMuteInfo(unmuted, null, now, 0L, null));
+        storage.removeMuteByPlayerId(unmuted);
+
+        // changes are visible before they are committed
+        assertFalse(storage.getMuteByPlayerId(unmuted).isPresent());
+        assertEquals(1, storage.getExpiringMutes(0L, now + 60_000L).size());
+        assertEquals(0, storage.getExpiringMutes(now + 60_000L, Long.MAX_VALUE).size());
+        storage.close();
+
+        storage = new H2MuteStorage(Executors.newSingleThreadExecutor(), databaseFile, jsonFile);
+        storage.init();
+
+        assertEquals(migrated, storage.getMuteByPlayerId(temporary).get().getMutedByPlayerUUID());
+        assertFalse(storage.getMuteByPlayerId(unmuted).isPresent());
+        assertEquals(2, storage.getMutedPlayers().size());
+        storage.close();
+    }
+
+    @Test
+    public void testPages() throws Exception {
+        H2MuteStorage storage = createStorage();
+
+        int mutes = 100;
+        putMutes(storage, mutes);
+
+        // newest mutes first
+        List<ServerMuteInfo> page = new ArrayList<>(storage.getMutedPlayers(10, 10));
+        assertEquals(10, page.size());
+        assertEquals(mutes - 11, page.get(0).getMutedAtTime());
+        assertEquals(5, storage.getMutedPlayers(mutes - 5, 10).size());
+
+        storage.close();
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkPages(TestReporter reporter) throws Exception {
+        H2MuteStorage storage = createStorage();
+
+        int mutes = 10_000;
+        long start = System.nanoTime();
+        putMutes(storage, mutes);
+        // first page waits for the pending writes
+        assertEquals(10, storage.getMutedPlayers(0, 10).size());
+        long writeTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            storage.getMutedPlayers(i * 10, 10);
+        }
+        long pageTime = (System.nanoTime() - start) / 100;
+
+        reporter.publishEntry(
+                mutes + " mutes",
+                String.format("written in %d ms, page of 10 read in %d us", writeTime / 1_000_000, pageTime / 1_000)
+        );
+        storage.close();
+    }
+
+    private H2MuteStorage createStorage() throws Exception {
+        File folder = Files.createTempDirectory("voice_mutes").toFile();
+
+        H2MuteStorage storage = new H2MuteStorage(
+                Executors.newSingleThreadExecutor(),
+                new File(folder, "voice_mutes"),
+                new File(folder, "voice_mutes.json")
+        );
+        storage.init();
+
+        return storage;
+    }
+
+    private void putMutes(H2MuteStorage storage, int mutes) {
+        for (int i = 0; i < mutes; i++) {
+            UUID playerId = UUID.randomUUID();
+            storage.putPlayerMute(playerId, new ServerMuteInfo(playerId, null, i, 0L, null));
+        }
+    }
+}
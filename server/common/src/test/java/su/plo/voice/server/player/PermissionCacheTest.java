@@ -0,0 +1,66 @@
+package su.plo.voice.server.player;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import su.plo.lib.api.server.permission.PermissionTristate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PermissionCacheTest {
+
+    @Test
+    public void testCache() {
+        Map<String, Boolean> permissions = new HashMap<>();
+        permissions.put("voice.activation.proximity", true);
+
+        CountingSupplier supplier = new CountingSupplier(permissions);
+        PermissionCache cache = new PermissionCache(supplier);
+        Object player = new Object();
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(cache.hasPermission(player, "voice.activation.proximity"));
+            assertFalse(cache.hasPermission(player, "voice.mute"));
+        }
+
+        assertEquals(2, supplier.calls);
+        assertEquals(2L, cache.getMisses());
+        assertEquals(198L, cache.getHits());
+
+        // other players have their own snapshots
+        assertTrue(cache.hasPermission(new Object(), "voice.activation.proximity"));
+        assertEquals(3, supplier.calls);
+
+        permissions.put("voice.activation.proximity", false);
+        assertTrue(cache.hasPermission(player, "voice.activation.proximity"));
+
+        cache.invalidate(player);
+        assertFalse(cache.hasPermission(player, "voice.activation.proximity"));
+        assertEquals(4, supplier.calls);
+    }
+
+    private static final class CountingSupplier implements PermissionSupplier {
+
+        private final Map<String, Boolean> permissions;
+        private int calls;
+
+        private CountingSupplier(Map<String, Boolean> permissions) {
+            this.permissions = permissions;
+        }
+
+        @Override
+        public boolean hasPermission(@NotNull Object player, @NotNull String permission) {
+            calls++;
+            return permissions.getOrDefault(permission, false);
+        }
+
+        @Override
+        public @NotNull PermissionTristate getPermission(@NotNull Object player, @NotNull String permission) {
+            return PermissionTristate.UNDEFINED;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package su.plo.voice.server.socket;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.socket.DatagramChannel;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import su.plo.voice.api.event.EventBus;
+import su.plo.voice.api.server.PlasmoVoiceServer;
+import su.plo.voice.api.server.player.VoicePlayer;
+import su.plo.voice.proto.packets.udp.bothbound.PingPacket;
+
+import java.lang.reflect.Proxy;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NettyUdpConnectionTest {
+
+    @Test
+    public void testDisconnect() throws Exception {
+        testDisconnect(NettyUdpTransport.create(false, 1));
+
+        NettyUdpTransport nativeTransport = NettyUdpTransport.create(true, 1);
+        if (nativeTransport.isNativeTransport()) {
+            testDisconnect(nativeTransport);
+        } else {
+            nativeTransport.shutdown();
+        }
+    }
+
+    private void testDisconnect(@NotNull NettyUdpTransport transport) throws Exception {
+        DatagramChannel channel = bind(transport);
+        PlasmoVoiceServer voiceServer = createVoiceServer();
+
+        try (DatagramSocket first = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+             DatagramSocket second = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            second.setSoTimeout(1_000);
+
+            NettyUdpConnection firstConnection = createConnection(voiceServer, channel, first);
+            NettyUdpConnection secondConnection = createConnection(voiceServer, channel, second);
+
+            firstConnection.disconnect();
+            assertFalse(firstConnection.isConnected());
+
+            // other connections of the socket still receive the packets
+            secondConnection.sendPacket(new PingPacket());
+            second.receive(new java.net.DatagramPacket(new byte[1024], 1024));
+
+            assertTrue(channel.isActive());
+        } finally {
+            channel.close().sync();
+            transport.shutdown().awaitUninterruptibly(5L, TimeUnit.SECONDS);
+        }
+    }
+
+    private NettyUdpConnection createConnection(@NotNull PlasmoVoiceServer voiceServer,
+                                                @NotNull DatagramChannel channel,
+                                                @NotNull DatagramSocket receiver) {
+        NettyUdpConnection connection = new NettyUdpConnection(
+                voiceServer,
+                channel,
+                UUID.randomUUID(),
+                0,
+                createProxy(VoicePlayer.class)
+        );
+        connection.setRemoteAddress((InetSocketAddress) receiver.getLocalSocketAddress());
+
+        return connection;
+    }
+
+    private PlasmoVoiceServer createVoiceServer() {
+        EventBus eventBus = createProxy(EventBus.class);
+
+        return (PlasmoVoiceServer) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class[]{PlasmoVoiceServer.class},
+                (proxy, method, args) -> method.getName().equals("getEventBus") ? eventBus : null
+        );
+    }
+
+    // returns the default values, so the events are not called
+    @SuppressWarnings("unchecked")
+    private <T> T createProxy(@NotNull Class<T> clazz) {
+        return (T) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class[]{clazz},
+                (proxy, method, args) -> method.getReturnType() == boolean.class ? false : null
+        );
+    }
+
+    private DatagramChannel bind(@NotNull NettyUdpTransport transport) throws InterruptedException {
+        Bootstrap bootstrap = transport.createBootstrap();
+        bootstrap.handler(new ChannelInitializer<DatagramChannel>() {
+            @Override
+            protected void initChannel(@NotNull DatagramChannel ch) {
+            }
+        });
+
+        return (DatagramChannel) transport.bind(bootstrap, 0).get(0);
+    }
+}
@@ -0,0 +1,131 @@
+package su.plo.voice.server.socket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import su.plo.voice.proto.packets.udp.PacketUdpCodec;
+import su.plo.voice.proto.packets.udp.clientbound.SourceAudioPacket;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class NettyUdpMulticastPacketTest {
+
+    private static final int TIMESTAMP_OFFSET = PacketUdpCodec.HEADER_SIZE - 8;
+
+    private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+
+    @Test
+    public void testEncode() {
+        SourceAudioPacket packet = createPacket();
+        NettyUdpMulticastPacket multicastPacket = NettyUdpMulticastPacket.encode(allocator, packet);
+
+        for (int i = 0; i < 10; i++) {
+            UUID secret = UUID.randomUUID();
+
+            byte[] expected = PacketUdpCodec.encode(packet, secret);
+            ByteBuf buf = multicastPacket.toBuffer(allocator, secret);
+            byte[] actual = new byte[buf.readableBytes()];
+            buf.readBytes(actual);
+            buf.release();
+
+            // timestamps are different
+            Arrays.fill(expected, TIMESTAMP_OFFSET, PacketUdpCodec.HEADER_SIZE, (byte) 0);
+            Arrays.fill(actual, TIMESTAMP_OFFSET, PacketUdpCodec.HEADER_SIZE, (byte) 0);
+
+            assertArrayEquals(expected, actual);
+        }
+
+        multicastPacket.release();
+    }
+
+    @Test
+    public void testRelease() {
+        NettyUdpMulticastPacket multicastPacket = NettyUdpMulticastPacket.encode(allocator, createPacket());
+
+        ByteBuf first = multicastPacket.toBuffer(allocator, UUID.randomUUID());
+        ByteBuf second = multicastPacket.toBuffer(allocator, UUID.randomUUID());
+        multicastPacket.release();
+
+        // receivers buffers are still readable after the payload was released by the sender
+        assertEquals(first.readableBytes(), second.readableBytes());
+        assertEquals(1, second.getByte(PacketUdpCodec.HEADER_SIZE + 7)); // sequence number
+
+        first.release();
+        second.release();
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkFanOut(TestReporter reporter) {
+        SourceAudioPacket packet = createPacket();
+        UUID[] secrets = new UUID[100];
+        for (int i = 0; i < secrets.length; i++) {
+            secrets[i] = UUID.randomUUID();
+        }
+
+        int frames = 20_000;
+
+        for (int warmup = 0; warmup < 2; warmup++) {
+            encodePerReceiver(packet, secrets, frames);
+            encodeOnce(packet, secrets, frames);
+        }
+
+        long start = System.nanoTime();
+        long perReceiverBytes = encodePerReceiver(packet, secrets, frames);
+        long perReceiverTime = (System.nanoTime() - start) / frames;
+
+        start = System.nanoTime();
+        long onceBytes = encodeOnce(packet, secrets, frames);
+        long onceTime = (System.nanoTime() - start) / frames;
+
+        assertEquals(perReceiverBytes, onceBytes);
+        reporter.publishEntry(
+                secrets.length + " receivers",
+                String.format("encode per receiver %d ns/frame, encode once %d ns/frame", perReceiverTime, onceTime)
+        );
+    }
+
+    private long encodePerReceiver(SourceAudioPacket packet, UUID[] secrets, int frames) {
+        long bytes = 0L;
+        for (int frame = 0; frame < frames; frame++) {
+            for (UUID secret : secrets) {
+                ByteBuf buf = allocator.directBuffer();
+                buf.writeBytes(PacketUdpCodec.encode(packet, secret));
+                bytes += buf.readableBytes();
+                buf.release();
+            }
+        }
+
+        return bytes;
+    }
+
+    private long encodeOnce(SourceAudioPacket packet, UUID[] secrets, int frames) {
+        long bytes = 0L;
+        for (int frame = 0; frame < frames; frame++) {
+            NettyUdpMulticastPacket multicastPacket = NettyUdpMulticastPacket.encode(allocator, packet);
+            for (UUID secret : secrets) {
+                ByteBuf buf = multicastPacket.toBuffer(allocator, secret);
+                bytes += buf.readableBytes();
+                buf.release();
+            }
+            multicastPacket.release();
+        }
+
+        return bytes;
+    }
+
+    private SourceAudioPacket createPacket() {
+        // 20ms opus frame at 64 kbps
+        byte[] data = new byte[160];
+        Arrays.fill(data, (byte) 1);
+
+        return new SourceAudioPacket(1L, (byte) 0, data, UUID.randomUUID(), (short) 32);
+    }
+}
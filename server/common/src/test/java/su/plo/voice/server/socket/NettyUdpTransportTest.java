@@ -0,0 +1,130 @@
+package su.plo.voice.server.socket;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramChannel;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import su.plo.voice.proto.packets.udp.PacketUdpCodec;
+import su.plo.voice.proto.packets.udp.serverbound.PlayerAudioPacket;
+import su.plo.voice.socket.NettyPacketUdp;
+import su.plo.voice.socket.NettyPacketUdpDecoder;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// loopback load generator, measures how many voice packets per second the transport can read
+public class NettyUdpTransportTest {
+
+    private static final int SENDERS = 8;
+    private static final long DURATION_MS = 2_000L;
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkTransports(TestReporter reporter) throws Exception {
+        int sockets = Runtime.getRuntime().availableProcessors();
+        benchmark(NettyUdpTransport.create(false, sockets), reporter);
+
+        NettyUdpTransport nativeTransport = NettyUdpTransport.create(true, sockets);
+        if (nativeTransport.isNativeTransport()) {
+            benchmark(nativeTransport, reporter);
+        } else {
+            nativeTransport.shutdown();
+            reporter.publishEntry("epoll", "not available");
+        }
+    }
+
+    private void benchmark(@NotNull NettyUdpTransport transport, @NotNull TestReporter reporter) throws Exception {
+        LongAdder received = new LongAdder();
+
+        Bootstrap bootstrap = transport.createBootstrap();
+        bootstrap.handler(new ChannelInitializer<DatagramChannel>() {
+            @Override
+            protected void initChannel(@NotNull DatagramChannel ch) {
+                ch.pipeline().addLast("decoder", new NettyPacketUdpDecoder());
+                ch.pipeline().addLast("handler", new SimpleChannelInboundHandler<NettyPacketUdp>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, NettyPacketUdp msg) {
+                        received.increment();
+                    }
+                });
+            }
+        });
+
+        List<Channel> channels = transport.bind(bootstrap, 0);
+        int port = ((InetSocketAddress) channels.get(0).localAddress()).getPort();
+
+        try {
+            List<Thread> senders = new ArrayList<>();
+            long stopAt = System.currentTimeMillis() + DURATION_MS;
+
+            for (int i = 0; i < SENDERS; i++) {
+                Thread sender = new Thread(() -> send(port, stopAt));
+                sender.start();
+                senders.add(sender);
+            }
+
+            for (Thread sender : senders) {
+                sender.join();
+            }
+
+            // let the readers drain the socket buffers
+            Thread.sleep(100L);
+
+            assertTrue(received.sum() > 0L);
+
+            long packetsPerSecond = received.sum() * 1_000L / DURATION_MS;
+            reporter.publishEntry(
+                    transport.getName() + " transport",
+                    String.format(
+                            "%d socket(s): %d packets/s, %d packets/s per reader thread",
+                            transport.getSocketCount(),
+                            packetsPerSecond,
+                            packetsPerSecond / transport.getSocketCount()
+                    )
+            );
+        } finally {
+            channels.forEach(Channel::close);
+            transport.shutdown().awaitUninterruptibly(5L, TimeUnit.SECONDS);
+        }
+    }
+
+    // every sender is a separate client socket, so SO_REUSEPORT can spread them between the server sockets
+    private void send(int port, long stopAt) {
+        PlayerAudioPacket packet = new PlayerAudioPacket(1L, new byte[160], UUID.randomUUID(), (short) 32, false);
+        UUID secret = UUID.randomUUID();
+
+        try (DatagramSocket socket = new DatagramSocket()) {
+            while (System.currentTimeMillis() < stopAt) {
+                // packets older than PacketUdp.TTL are dropped by the decoder, so refresh the timestamp
+                ByteBuf buf = PacketUdpCodec.encode(PooledByteBufAllocator.DEFAULT, packet, secret);
+                byte[] bytes = ByteBufUtil.getBytes(buf);
+                buf.release();
+
+                DatagramPacket datagram = new DatagramPacket(bytes, bytes.length, InetAddress.getLoopbackAddress(), port);
+                for (int i = 0; i < 100; i++) {
+                    socket.send(datagram);
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
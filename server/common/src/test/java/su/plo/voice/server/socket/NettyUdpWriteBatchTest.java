@@ -0,0 +1,216 @@
+package su.plo.voice.server.socket;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.DatagramPacket;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import su.plo.voice.proto.packets.udp.clientbound.SourceAudioPacket;
+
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// loopback benchmark of the fan-out sends, flushes are counted as an approximation of send syscalls
+public class NettyUdpWriteBatchTest {
+
+    private static final int RECEIVERS = 100;
+    private static final int FRAMES = 1_000;
+
+    @Test
+    public void testFlush() throws Exception {
+        NettyUdpTransport transport = NettyUdpTransport.create(false, 1);
+        LongAdder flushes = new LongAdder();
+        DatagramChannel channel = bind(transport, flushes);
+
+        try (DatagramSocket receiver = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            receiver.setSoTimeout(1_000);
+
+            NettyUdpWriteBatch batch = new NettyUdpWriteBatch();
+            for (int i = 0; i < 10; i++) {
+                ByteBuf buf = channel.alloc().directBuffer().writeInt(i);
+                batch.add(channel, new DatagramPacket(buf, (InetSocketAddress) receiver.getLocalSocketAddress()));
+            }
+            batch.flush();
+
+            java.net.DatagramPacket datagram = new java.net.DatagramPacket(new byte[4], 4);
+            for (int i = 0; i < 10; i++) {
+                receiver.receive(datagram);
+                assertEquals(i, datagram.getData()[3]);
+            }
+
+            assertEquals(1L, flushes.sum());
+        } finally {
+            channel.close().sync();
+            transport.shutdown().awaitUninterruptibly(5L, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkFanOut(TestReporter reporter) throws Exception {
+        benchmark(NettyUdpTransport.create(false, 1), reporter);
+
+        NettyUdpTransport nativeTransport = NettyUdpTransport.create(true, 1);
+        if (nativeTransport.isNativeTransport()) {
+            benchmark(nativeTransport, reporter);
+        } else {
+            nativeTransport.shutdown();
+            reporter.publishEntry("epoll", "not available");
+        }
+    }
+
+    private void benchmark(@NotNull NettyUdpTransport transport, @NotNull TestReporter reporter) throws Exception {
+        LongAdder flushes = new LongAdder();
+        DatagramChannel channel = bind(transport, flushes);
+
+        LongAdder received = new LongAdder();
+        DatagramSocket receiver = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        receiver.setReceiveBufferSize(4 * 1024 * 1024);
+        receiver.setSoTimeout(100);
+        Thread receiverThread = new Thread(() -> receive(receiver, received));
+        receiverThread.start();
+
+        InetSocketAddress address = (InetSocketAddress) receiver.getLocalSocketAddress();
+        NettyUdpMulticastPacket packet = NettyUdpMulticastPacket.encode(PooledByteBufAllocator.DEFAULT, createPacket());
+        UUID[] secrets = new UUID[RECEIVERS];
+        for (int i = 0; i < secrets.length; i++) {
+            secrets[i] = UUID.randomUUID();
+        }
+
+        try {
+            for (int warmup = 0; warmup < 2; warmup++) {
+                sendPerReceiver(channel, packet, secrets, address);
+                sendBatched(channel, packet, secrets, address);
+            }
+            Thread.sleep(200L);
+
+            flushes.reset();
+            received.reset();
+            long start = System.nanoTime();
+            sendPerReceiver(channel, packet, secrets, address);
+            report(reporter, transport, "writeAndFlush per receiver", System.nanoTime() - start, flushes, received);
+
+            flushes.reset();
+            received.reset();
+            start = System.nanoTime();
+            sendBatched(channel, packet, secrets, address);
+            report(reporter, transport, "write + flush per fan-out", System.nanoTime() - start, flushes, received);
+            assertEquals(FRAMES, flushes.sum());
+        } finally {
+            packet.release();
+            receiver.close();
+            receiverThread.join();
+            channel.close().sync();
+            transport.shutdown().awaitUninterruptibly(5L, TimeUnit.SECONDS);
+        }
+    }
+
+    private void sendPerReceiver(DatagramChannel channel,
+                                 NettyUdpMulticastPacket packet,
+                                 UUID[] secrets,
+                                 InetSocketAddress address) throws InterruptedException {
+        for (int frame = 0; frame < FRAMES; frame++) {
+            for (UUID secret : secrets) {
+                channel.writeAndFlush(new DatagramPacket(packet.toBuffer(channel.alloc(), secret), address));
+            }
+        }
+
+        awaitWrites(channel);
+    }
+
+    private void sendBatched(DatagramChannel channel,
+                             NettyUdpMulticastPacket packet,
+                             UUID[] secrets,
+                             InetSocketAddress address) throws InterruptedException {
+        for (int frame = 0; frame < FRAMES; frame++) {
+            NettyUdpWriteBatch batch = new NettyUdpWriteBatch();
+            for (UUID secret : secrets) {
+                batch.add(channel, new DatagramPacket(packet.toBuffer(channel.alloc(), secret), address));
+            }
+            batch.flush();
+        }
+
+        awaitWrites(channel);
+    }
+
+    // writes are done in the event loop tasks, so all of them are done after the next task
+    private void awaitWrites(DatagramChannel channel) throws InterruptedException {
+        channel.eventLoop().submit(() -> {
+        }).await(30L, TimeUnit.SECONDS);
+    }
+
+    private void report(TestReporter reporter,
+                        NettyUdpTransport transport,
+                        String name,
+                        long time,
+                        LongAdder flushes,
+                        LongAdder received) throws InterruptedException {
+        // let the receiver drain the socket buffer
+        Thread.sleep(200L);
+
+        long datagrams = (long) FRAMES * RECEIVERS;
+        reporter.publishEntry(
+                transport.getName() + " transport, " + name,
+                String.format(
+                        "%d datagrams/s, %d flushes, %d/%d datagrams received",
+                        datagrams * 1_000_000_000L / time,
+                        flushes.sum(),
+                        received.sum(),
+                        datagrams
+                )
+        );
+    }
+
+    private void receive(DatagramSocket socket, LongAdder received) {
+        java.net.DatagramPacket datagram = new java.net.DatagramPacket(new byte[1024], 1024);
+        while (!socket.isClosed()) {
+            try {
+                socket.receive(datagram);
+                received.increment();
+            } catch (SocketTimeoutException ignored) {
+            } catch (Exception e) {
+                return;
+            }
+        }
+    }
+
+    private DatagramChannel bind(NettyUdpTransport transport, LongAdder flushes) throws InterruptedException {
+        Bootstrap bootstrap = transport.createBootstrap();
+        bootstrap.handler(new ChannelInitializer<DatagramChannel>() {
+            @Override
+            protected void initChannel(@NotNull DatagramChannel ch) {
+                ch.pipeline().addLast("flushCounter", new ChannelOutboundHandlerAdapter() {
+                    @Override
+                    public void flush(ChannelHandlerContext ctx) {
+                        flushes.increment();
+                        ctx.flush();
+                    }
+                });
+            }
+        });
+
+        return (DatagramChannel) transport.bind(bootstrap, 0).get(0);
+    }
+
+    private SourceAudioPacket createPacket() {
+        byte[] data = new byte[160];
+        Arrays.fill(data, (byte) 1);
+
+        return new SourceAudioPacket(1L, (byte) 0, data, UUID.randomUUID(), (short) 32);
+    }
+}
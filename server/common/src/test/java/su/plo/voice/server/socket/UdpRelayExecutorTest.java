@@ -0,0 +1,140 @@
+package su.plo.voice.server.socket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UdpRelayExecutorTest {
+
+    @Test
+    public void testOrder() throws InterruptedException {
+        UdpRelayExecutor executor = new UdpRelayExecutor(4, 10_000, 1_000);
+
+        int players = 32;
+        int packets = 1_000;
+
+        Map<UUID, List<Integer>> received = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(players * packets);
+
+        List<UUID> secrets = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            UUID secret = UUID.randomUUID();
+            secrets.add(secret);
+            received.put(secret, new ArrayList<>());
+        }
+
+        for (int sequence = 0; sequence < packets; sequence++) {
+            for (UUID secret : secrets) {
+                int packet = sequence;
+                executor.execute(secret, () -> {
+                    received.get(secret).add(packet);
+                    latch.countDown();
+                });
+            }
+        }
+
+        assertTrue(latch.await(10L, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        for (List<Integer> sequences : received.values()) {
+            assertEquals(packets, sequences.size());
+            for (int i = 0; i < packets; i++) {
+                assertEquals(i, sequences.get(i));
+            }
+        }
+
+        assertEquals(0L, executor.getDroppedTasks());
+        assertEquals((long) players * packets, executor.getExecutedTasks());
+        assertTrue(executor.getAverageLatency() <= executor.getMaxLatency());
+    }
+
+    @Test
+    public void testDropNewest() throws InterruptedException {
+        UdpRelayExecutor executor = new UdpRelayExecutor(1, 4, 10);
+        UUID secret = UUID.randomUUID();
+        CountDownLatch release = block(executor);
+
+        List<Integer> received = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 10; i++) {
+            int packet = i;
+            executor.execute(secret, () -> {
+                received.add(packet);
+                done.countDown();
+            });
+        }
+
+        assertEquals(4, executor.getQueueDepth());
+        release.countDown();
+
+        assertTrue(done.await(1L, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        // queued packets are kept in order
+        assertEquals(6L, executor.getDroppedTasks());
+        assertEquals(0, received.get(0));
+        assertEquals(3, received.get(3));
+    }
+
+    @Test
+    public void testFloodingSender() throws InterruptedException {
+        UdpRelayExecutor executor = new UdpRelayExecutor(1, 8, 4);
+        UUID flooder = UUID.randomUUID();
+        UUID speaker = UUID.randomUUID();
+        CountDownLatch release = block(executor);
+
+        Map<UUID, List<Integer>> received = new ConcurrentHashMap<>();
+        received.put(flooder, new ArrayList<>());
+        received.put(speaker, new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(8);
+
+        for (int i = 0; i < 4; i++) {
+            int packet = i;
+            executor.execute(speaker, () -> {
+                received.get(speaker).add(packet);
+                done.countDown();
+            });
+        }
+        for (int i = 0; i < 100; i++) {
+            int packet = i;
+            executor.execute(flooder, () -> {
+                received.get(flooder).add(packet);
+                done.countDown();
+            });
+        }
+
+        release.countDown();
+        assertTrue(done.await(1L, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        // flooder is limited to its own capacity, packets of the speaker are not evicted
+        assertEquals(Arrays.asList(0, 1, 2, 3), received.get(speaker));
+        assertEquals(Arrays.asList(0, 1, 2, 3), received.get(flooder));
+        assertEquals(96L, executor.getDroppedTasks());
+    }
+
+    private CountDownLatch block(UdpRelayExecutor executor) throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(UUID.randomUUID(), () -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        assertTrue(blocked.await(1L, TimeUnit.SECONDS));
+
+        return release;
+    }
+}
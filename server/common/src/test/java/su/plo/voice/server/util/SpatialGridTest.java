@@ -0,0 +1,171 @@
+package su.plo.voice.server.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import su.plo.lib.api.server.world.MinecraftServerWorld;
+import su.plo.lib.api.server.world.ServerPos3d;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpatialGridTest {
+
+    private static final double SPREAD = 2_000D;
+    private static final double DISTANCE = 64D; // proximity 32 * 2
+
+    private final MinecraftServerWorld overworld = new TestWorld();
+    private final MinecraftServerWorld nether = new TestWorld();
+
+    @Test
+    public void testQuery() {
+        Random random = new Random(0L);
+        SpatialGrid<Integer> grid = new SpatialGrid<>(64);
+        double[][] positions = new double[1_000][];
+
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = randomPosition(random);
+            grid.update(i, overworld, positions[i][0], positions[i][1], positions[i][2]);
+        }
+
+        // move half of the values
+        for (int i = 0; i < positions.length; i += 2) {
+            positions[i] = randomPosition(random);
+            grid.update(i, overworld, positions[i][0], positions[i][1], positions[i][2]);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            double[] center = randomPosition(random);
+
+            List<Integer> found = new ArrayList<>();
+            grid.query(overworld, center[0], center[1], center[2], DISTANCE, found);
+
+            List<Integer> expected = new ArrayList<>();
+            for (int j = 0; j < positions.length; j++) {
+                if (distanceSquared(center, positions[j]) <= DISTANCE * DISTANCE) expected.add(j);
+            }
+
+            assertEquals(expected.size(), found.size());
+            assertEquals(new HashSet<>(expected), new HashSet<>(found));
+        }
+    }
+
+    @Test
+    public void testWorlds() {
+        SpatialGrid<String> grid = new SpatialGrid<>(64);
+        grid.update("player", overworld, 0D, 64D, 0D);
+
+        List<String> found = new ArrayList<>();
+        grid.query(nether, 0D, 64D, 0D, DISTANCE, found);
+        assertTrue(found.isEmpty());
+
+        grid.update("player", nether, 0D, 64D, 0D);
+        grid.query(nether, 0D, 64D, 0D, DISTANCE, found);
+        assertEquals(1, found.size());
+
+        found.clear();
+        grid.query(overworld, 0D, 64D, 0D, DISTANCE, found);
+        assertTrue(found.isEmpty());
+
+        assertTrue(grid.remove("player"));
+        grid.query(nether, 0D, 64D, 0D, DISTANCE, found);
+        assertTrue(found.isEmpty());
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkFanOut(TestReporter reporter) {
+        for (int connections : new int[]{50, 500, 2_000}) {
+            Random random = new Random(connections);
+            SpatialGrid<Integer> grid = new SpatialGrid<>(64);
+            ServerPos3d[] positions = new ServerPos3d[connections];
+
+            for (int i = 0; i < connections; i++) {
+                double[] position = randomPosition(random);
+                positions[i] = new ServerPos3d(overworld, position[0], position[1], position[2]);
+                grid.update(i, overworld, position[0], position[1], position[2]);
+            }
+
+            int frames = 20_000;
+            List<Integer> receivers = new ArrayList<>();
+
+            for (int warmup = 0; warmup < 2; warmup++) {
+                scan(positions, positions[0], frames);
+                query(grid, positions[0], frames, receivers);
+            }
+
+            long start = System.nanoTime();
+            long scanReceivers = scan(positions, positions[0], frames);
+            long scanTime = (System.nanoTime() - start) / frames;
+
+            start = System.nanoTime();
+            long gridReceivers = query(grid, positions[0], frames, receivers);
+            long gridTime = (System.nanoTime() - start) / frames;
+
+            assertEquals(scanReceivers, gridReceivers);
+            reporter.publishEntry(
+                    connections + " connections",
+                    String.format("linear scan %d ns/frame, spatial grid %d ns/frame", scanTime, gridTime)
+            );
+        }
+    }
+
+    // what BaseServerSource did before: copy every listener position and measure the distance
+    private long scan(ServerPos3d[] positions, ServerPos3d center, int frames) {
+        ServerPos3d listenerPosition = new ServerPos3d();
+
+        long receivers = 0L;
+        for (int frame = 0; frame < frames; frame++) {
+            for (ServerPos3d position : positions) {
+                listenerPosition.setWorld(position.getWorld());
+                listenerPosition.setX(position.getX());
+                listenerPosition.setY(position.getY());
+                listenerPosition.setZ(position.getZ());
+
+                if (center.distanceSquared(listenerPosition) <= DISTANCE * DISTANCE) receivers++;
+            }
+        }
+
+        return receivers;
+    }
+
+    private long query(SpatialGrid<Integer> grid, ServerPos3d center, int frames, List<Integer> out) {
+        long receivers = 0L;
+        for (int frame = 0; frame < frames; frame++) {
+            out.clear();
+            grid.query(overworld, center.getX(), center.getY(), center.getZ(), DISTANCE, out);
+            receivers += out.size();
+        }
+
+        return receivers;
+    }
+
+    private double[] randomPosition(Random random) {
+        return new double[]{
+                (random.nextDouble() - 0.5D) * SPREAD,
+                64D + random.nextDouble() * 32D,
+                (random.nextDouble() - 0.5D) * SPREAD
+        };
+    }
+
+    private double distanceSquared(double[] a, double[] b) {
+        double xDiff = a[0] - b[0];
+        double yDiff = a[1] - b[1];
+        double zDiff = a[2] - b[2];
+
+        return (xDiff * xDiff) + (yDiff * yDiff) + (zDiff * zDiff);
+    }
+
+    private static final class TestWorld implements MinecraftServerWorld {
+
+        @Override
+        public <T> T getInstance() {
+            return (T) this;
+        }
+    }
+}
@@ -36,6 +36,10 @@ tasks {
             exclude(dependency("net.java.dev.jna:jna"))
             exclude(dependency("org.slf4j:slf4j-api"))
         }
+
+        // other plugins can shade another version of h2
+        relocate("org.h2", "su.plo.voice.libs.h2")
+        mergeServiceFiles()
     }
 
     build {
@@ -7,6 +7,7 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import su.plo.lib.api.server.MinecraftServerLib;
 import su.plo.lib.api.server.permission.PermissionDefault;
@@ -23,6 +24,7 @@ public final class PaperVoiceServer extends BaseVoiceServer implements Listener
     private final JavaPlugin loader;
     private final PaperServerLib minecraftServerLib;
     private PaperServerChannelHandler handler;
+    private BukkitTask tickTask;
 
     public PaperVoiceServer(@NotNull JavaPlugin loader) {
         this.loader = loader;
@@ -37,7 +39,7 @@ public final class PaperVoiceServer extends BaseVoiceServer implements Listener
     public void onInitialize() {
         loader.getServer().getPluginManager().registerEvents(this, loader);
 
-        minecraftServerLib.setPermissions(createPermissionSupplier());
+        minecraftServerLib.setPermissions(getPermissionCache());
         super.onInitialize();
 
         this.handler = new PaperServerChannelHandler(this);
@@ -47,6 +49,8 @@ public final class PaperVoiceServer extends BaseVoiceServer implements Listener
         loader.getServer().getMessenger().registerIncomingPluginChannel(loader, CHANNEL_STRING, handler);
         loader.getServer().getMessenger().registerOutgoingPluginChannel(loader, CHANNEL_STRING);
 
+        this.tickTask = loader.getServer().getScheduler().runTaskTimer(loader, this::tick, 1L, 1L);
+
         minecraftServerLib.getPlayers().forEach((player) -> playerManager.getPlayerById(player.getUUID())
                 .ifPresent((voicePlayer) -> {
                     if (player.getRegisteredChannels().contains(CHANNEL_STRING)) {
@@ -56,6 +60,11 @@ public final class PaperVoiceServer extends BaseVoiceServer implements Listener
     }
 
     public void onShutdown() {
+        if (tickTask != null) {
+            tickTask.cancel();
+            this.tickTask = null;
+        }
+
         super.onShutdown();
         this.handler = null;
     }